@@ -1,10 +1,22 @@
 package com.bazaarvoice.elasticsearch.client.core;
 
+import com.bazaarvoice.elasticsearch.client.core.bulk.BulkCoalescer;
+import com.bazaarvoice.elasticsearch.client.core.hedge.HedgePolicy;
+import com.bazaarvoice.elasticsearch.client.core.hedge.Hedger;
+import com.bazaarvoice.elasticsearch.client.core.nodes.NodeSet;
+import com.bazaarvoice.elasticsearch.client.core.raw.RawResponse;
+import com.bazaarvoice.elasticsearch.client.core.retry.Retrier;
+import com.bazaarvoice.elasticsearch.client.core.retry.RetryPolicy;
 import com.bazaarvoice.elasticsearch.client.core.spi.RestExecutor;
+import com.bazaarvoice.elasticsearch.client.core.typed.SourceBinding;
+import com.bazaarvoice.elasticsearch.client.core.typed.TypedGetResponse;
+import com.bazaarvoice.elasticsearch.client.core.typed.TypedSearchResponse;
 import org.elasticsearch.action.ActionListener;
 import org.elasticsearch.action.XContentResponseTransform;
 import org.elasticsearch.action.bulk.BulkRequest;
 import org.elasticsearch.action.bulk.BulkResponse;
+import org.elasticsearch.action.bulk.BulkResponseHelper;
+import org.elasticsearch.action.bulk.BulkRest;
 import org.elasticsearch.action.count.CountRequest;
 import org.elasticsearch.action.count.CountResponse;
 import org.elasticsearch.action.delete.DeleteRequest;
@@ -56,10 +68,16 @@ import org.elasticsearch.action.update.UpdateRequest;
 import org.elasticsearch.action.update.UpdateResponse;
 import org.elasticsearch.client.AdminClient;
 import org.elasticsearch.client.Client;
+import org.elasticsearch.common.Nullable;
+import org.elasticsearch.common.base.Function;
 import org.elasticsearch.common.settings.ImmutableSettings;
+import org.elasticsearch.common.unit.TimeValue;
 import org.elasticsearch.common.util.concurrent.Futures;
+import org.elasticsearch.common.util.concurrent.ListenableFuture;
+import org.elasticsearch.common.xcontent.XContentType;
 
 import static org.elasticsearch.action.NotifyingCallback.callback;
+import static org.elasticsearch.common.Preconditions.checkNotNull;
 
 /**
  * An implementation of org.elasticsearch.client.Client that uses
@@ -69,6 +87,11 @@ import static org.elasticsearch.action.NotifyingCallback.callback;
  * sent over the wire. It delegates that responsibility to whatever
  * implementation of {@link RestExecutor}
  * you choose to supply.
+ * <p/>
+ * It can talk to a single node, or spread its requests over
+ * several, as decided by the {@link NodeSet} you give it.
+ * <p/>
+ * Use {@link #builder(RestExecutor)} for anything beyond the basics, like hedged reads, retries or Smile.
  */
 public class RestClient extends AbstractClient implements Client {
 
@@ -76,21 +99,53 @@ public class RestClient extends AbstractClient implements Client {
     private final GetRest<GetResponse> getRest;
     private final DeleteRest<DeleteResponse> deleteRest;
     private final SearchRest searchRest;
+    private final BulkRest<BulkResponse> bulkRest;
+    @Nullable private final BulkCoalescer coalescer;
 
     public static RestClient withExecutor(final String protocol, final String host, final int port, final RestExecutor executor) {
-        return new RestClient(protocol, host, port, executor);
+        return withExecutor(NodeSet.single(protocol, host, port), executor);
+    }
+
+    public static RestClient withExecutor(final NodeSet nodes, final RestExecutor executor) {
+        return builder(executor).nodes(nodes).build();
+    }
+
+    public static Builder builder(final RestExecutor executor) {
+        return new Builder(executor);
     }
 
-    private RestClient(final String protocol, final String host, final int port, final RestExecutor executor) {
+    private RestClient(final Builder builder) {
         super(ImmutableSettings.EMPTY,true);
-        indexRest = new IndexRest<IndexResponse>(protocol, host, port, executor, new XContentResponseTransform<IndexResponse>(new IndexResponseHelper()));
-        getRest = new GetRest<GetResponse>(protocol, host, port, executor, new XContentResponseTransform<GetResponse>(new GetResponseHelper()));
-        deleteRest = new DeleteRest<DeleteResponse>(protocol, host, port, executor, new XContentResponseTransform<DeleteResponse>(new DeleteResponseHelper()));
-        searchRest = new SearchRest(protocol, host, port, executor);
+        final NodeSet nodes = builder.nodes;
+        final RestExecutor executor = builder.executor;
+        final Retrier retrier = builder.retryPolicy == null ? null : new Retrier(builder.retryPolicy, threadPool().scheduler());
+        final XContentType contentType = builder.contentType;
+        indexRest = new IndexRest<IndexResponse>(nodes, executor, new XContentResponseTransform<IndexResponse>(new IndexResponseHelper()), retrier, contentType);
+        getRest = new GetRest<GetResponse>(nodes, executor, new XContentResponseTransform<GetResponse>(new GetResponseHelper()), hedger(builder.hedgePolicy), retrier, contentType);
+        deleteRest = new DeleteRest<DeleteResponse>(nodes, executor, new XContentResponseTransform<DeleteResponse>(new DeleteResponseHelper()), retrier, contentType);
+        searchRest = new SearchRest(nodes, executor, hedger(builder.hedgePolicy), retrier, contentType);
+        bulkRest = new BulkRest<BulkResponse>(nodes, executor, new XContentResponseTransform<BulkResponse>(new BulkResponseHelper()), retrier, contentType);
+        if (builder.autoBatchWindow == null) {
+            coalescer = null;
+        } else {
+            coalescer = new BulkCoalescer(new Function<BulkRequest, ListenableFuture<BulkResponse>>() {
+                @Override public ListenableFuture<BulkResponse> apply(final BulkRequest request) {
+                    return bulkRest.act(request);
+                }
+            }, threadPool().scheduler(), builder.autoBatchWindow, builder.autoBatchMaxActions);
+        }
+    }
+
+    @Nullable private Hedger hedger(@Nullable final HedgePolicy policy) {
+        // each action gets its own, since gets and searches have very different latencies
+        return policy == null ? null : new Hedger(policy, threadPool().scheduler());
     }
 
     @Override public void close() {
-        // nothing to close at the moment
+        if (coalescer != null) {
+            coalescer.flush();
+        }
+        threadPool().shutdown();
     }
 
     @Override public AdminClient admin() {
@@ -103,11 +158,19 @@ public class RestClient extends AbstractClient implements Client {
     }
 
     @Override public void index(final IndexRequest request, final ActionListener<IndexResponse> listener) {
-        Futures.addCallback(indexRest.act(request), callback(listener));
+        if (coalescer != null && BulkCoalescer.canBatch(request)) {
+            Futures.addCallback(coalescer.index(request), callback(listener));
+        } else {
+            Futures.addCallback(indexRest.act(request), callback(listener));
+        }
     }
 
     @Override public void delete(final DeleteRequest request, final ActionListener<DeleteResponse> listener) {
-        Futures.addCallback(deleteRest.act(request), callback(listener));
+        if (coalescer != null && BulkCoalescer.canBatch(request)) {
+            Futures.addCallback(coalescer.delete(request), callback(listener));
+        } else {
+            Futures.addCallback(deleteRest.act(request), callback(listener));
+        }
     }
 
     @Override public void search(final SearchRequest request, final ActionListener<SearchResponse> listener) {
@@ -115,12 +178,44 @@ public class RestClient extends AbstractClient implements Client {
     }
 
 
+    /**
+     * Search, binding each hit's source straight to a {@code T} as the response is parsed,
+     * rather than through a {@link SearchResponse}'s Maps.
+     */
+    public <T> ListenableFuture<TypedSearchResponse<T>> search(final SearchRequest request, final SourceBinding<T> binding) {
+        return searchRest.act(request, binding);
+    }
+
+    /**
+     * Get, binding the document's source straight to a {@code T} as the response is parsed.
+     */
+    public <T> ListenableFuture<TypedGetResponse<T>> get(final GetRequest request, final SourceBinding<T> binding) {
+        return getRest.act(request, binding);
+    }
+
+    /**
+     * Search, handing back the status, content type and body exactly as ES sent them, for callers that only pass
+     * the response along. Nothing is parsed unless ES sent an error, which is thrown as usual.
+     * The body is in the client's content type (json, unless you asked for something else), and it's yours to close.
+     */
+    public ListenableFuture<RawResponse> searchRaw(final SearchRequest request) {
+        return searchRest.actRaw(request);
+    }
+
+    /**
+     * Get, handing back the status, content type and body exactly as ES sent them.
+     * A missing document is a 404, not an error. The body is yours to close.
+     */
+    public ListenableFuture<RawResponse> getRaw(final GetRequest request) {
+        return getRest.actRaw(request);
+    }
+
     @Override public void update(final UpdateRequest request, final ActionListener<UpdateResponse> listener) {
 
     }
 
     @Override public void bulk(final BulkRequest request, final ActionListener<BulkResponse> listener) {
-
+        Futures.addCallback(bulkRest.act(request), callback(listener));
     }
 
     @Override public void deleteByQuery(final DeleteByQueryRequest request, final ActionListener<DeleteByQueryResponse> listener) {
@@ -180,5 +275,67 @@ public class RestClient extends AbstractClient implements Client {
 
     @Override public void multiPercolate(final MultiPercolateRequest request, final ActionListener<MultiPercolateResponse> listener) { }
 
-
+    public static class Builder {
+        private final RestExecutor executor;
+        private NodeSet nodes;
+        private HedgePolicy hedgePolicy;
+        private RetryPolicy retryPolicy;
+        private XContentType contentType;
+        private TimeValue autoBatchWindow;
+        private int autoBatchMaxActions;
+
+        private Builder(final RestExecutor executor) {
+            this.executor = executor;
+        }
+
+        /** The nodes to talk to. Required. */
+        public Builder nodes(final NodeSet nodes) {
+            this.nodes = nodes;
+            return this;
+        }
+
+        /** Talk to just this one node. */
+        public Builder node(final String protocol, final String host, final int port) {
+            return nodes(NodeSet.single(protocol, host, port));
+        }
+
+        /** Hedge gets and searches according to this policy. Off by default. */
+        public Builder hedging(@Nullable final HedgePolicy hedgePolicy) {
+            this.hedgePolicy = hedgePolicy;
+            return this;
+        }
+
+        /** Retry idempotent requests according to this policy. Off by default. */
+        public Builder retry(@Nullable final RetryPolicy retryPolicy) {
+            this.retryPolicy = retryPolicy;
+            return this;
+        }
+
+        /**
+         * Send request bodies in this content type, and ask ES to answer in it too. {@link XContentType#SMILE} is smaller
+         * and cheaper to parse than json, which adds up for big, numeric responses like aggregations.
+         * Off by default, which means bodies go out however they were built and responses come back as json.
+         */
+        public Builder contentType(@Nullable final XContentType contentType) {
+            this.contentType = contentType;
+            return this;
+        }
+
+        /**
+         * Gather single index and delete calls into _bulk requests: each batch goes out {@code window} after its first request,
+         * or once it holds {@code maxActions}, and each caller still gets its own response (or exception). Requests that ask
+         * for a refresh, or for a non-default timeout, consistency or replication, are still sent on their own. Off by default.
+         */
+        public Builder autoBatch(final TimeValue window, final int maxActions) {
+            this.autoBatchWindow = checkNotNull(window, "window");
+            this.autoBatchMaxActions = maxActions;
+            return this;
+        }
+
+        public RestClient build() {
+            checkNotNull(executor, "executor");
+            checkNotNull(nodes, "nodes");
+            return new RestClient(this);
+        }
+    }
 }
@@ -0,0 +1,13 @@
+package com.bazaarvoice.elasticsearch.client.core.breaker;
+
+import com.bazaarvoice.elasticsearch.client.core.nodes.RestNode;
+
+/**
+ * Hears about every state change of every node's circuit breaker.
+ * <p/>
+ * Called on whichever thread completed the request that caused the change, so
+ * implementations should be quick and must not block.
+ */
+public interface CircuitBreakerListener {
+    public void onStateChange(RestNode node, CircuitState from, CircuitState to);
+}
@@ -0,0 +1,120 @@
+package com.bazaarvoice.elasticsearch.client.core.breaker;
+
+import org.elasticsearch.common.unit.TimeValue;
+
+import static org.elasticsearch.common.Preconditions.checkArgument;
+
+/**
+ * When to open a node's circuit breaker, and how to close it again.
+ * <p/>
+ * Each node's breaker looks at the outcomes of its last {@link #getWindow()} requests. Once at least
+ * {@link #getMinCalls()} have been seen, it opens if the fraction that failed (a connection error, a 429 or a 5xx)
+ * reaches {@link #getFailureRateThreshold()}, or the fraction that took longer than {@link #getSlowCallDuration()}
+ * reaches {@link #getSlowCallRateThreshold()}. After {@link #getOpenDuration()} it lets {@link #getHalfOpenCalls()}
+ * trial requests through. If they all succeed quickly it closes; otherwise it opens again.
+ * <p/>
+ * Immutable. The {@code with} methods return modified copies.
+ */
+public class CircuitBreakerPolicy {
+    private final int window;
+    private final int minCalls;
+    private final double failureRateThreshold;
+    private final TimeValue slowCallDuration;
+    private final double slowCallRateThreshold;
+    private final TimeValue openDuration;
+    private final int halfOpenCalls;
+
+    public static CircuitBreakerPolicy defaults() {
+        return new CircuitBreakerPolicy(20, 10, 0.5, TimeValue.timeValueSeconds(5), 0.8, TimeValue.timeValueSeconds(30), 3);
+    }
+
+    private CircuitBreakerPolicy(final int window, final int minCalls, final double failureRateThreshold, final TimeValue slowCallDuration, final double slowCallRateThreshold, final TimeValue openDuration, final int halfOpenCalls) {
+        checkArgument(window > 0, "window must be positive");
+        checkArgument(minCalls > 0 && minCalls <= window, "minCalls must be in (0, window]");
+        checkArgument(failureRateThreshold > 0 && failureRateThreshold <= 1, "failureRateThreshold must be in (0, 1]");
+        checkArgument(slowCallRateThreshold > 0 && slowCallRateThreshold <= 1, "slowCallRateThreshold must be in (0, 1]");
+        checkArgument(halfOpenCalls > 0, "halfOpenCalls must be positive");
+        this.window = window;
+        this.minCalls = minCalls;
+        this.failureRateThreshold = failureRateThreshold;
+        this.slowCallDuration = slowCallDuration;
+        this.slowCallRateThreshold = slowCallRateThreshold;
+        this.openDuration = openDuration;
+        this.halfOpenCalls = halfOpenCalls;
+    }
+
+    /** How many of the most recent requests to judge a node by. Defaults to 20. */
+    public CircuitBreakerPolicy withWindow(final int window) {
+        return new CircuitBreakerPolicy(window, Math.min(minCalls, window), failureRateThreshold, slowCallDuration, slowCallRateThreshold, openDuration, halfOpenCalls);
+    }
+
+    /** Don't judge a node on fewer requests than this. Defaults to 10. */
+    public CircuitBreakerPolicy withMinCalls(final int minCalls) {
+        return new CircuitBreakerPolicy(window, minCalls, failureRateThreshold, slowCallDuration, slowCallRateThreshold, openDuration, halfOpenCalls);
+    }
+
+    /** Open when this fraction of requests fail. Defaults to 0.5. */
+    public CircuitBreakerPolicy withFailureRateThreshold(final double failureRateThreshold) {
+        return new CircuitBreakerPolicy(window, minCalls, failureRateThreshold, slowCallDuration, slowCallRateThreshold, openDuration, halfOpenCalls);
+    }
+
+    /** Requests that take longer than this are slow. Defaults to 5 seconds. */
+    public CircuitBreakerPolicy withSlowCallDuration(final TimeValue slowCallDuration) {
+        return new CircuitBreakerPolicy(window, minCalls, failureRateThreshold, slowCallDuration, slowCallRateThreshold, openDuration, halfOpenCalls);
+    }
+
+    /** Open when this fraction of requests are slow. Defaults to 0.8. */
+    public CircuitBreakerPolicy withSlowCallRateThreshold(final double slowCallRateThreshold) {
+        return new CircuitBreakerPolicy(window, minCalls, failureRateThreshold, slowCallDuration, slowCallRateThreshold, openDuration, halfOpenCalls);
+    }
+
+    /** How long to fail fast before trying the node again. Defaults to 30 seconds. */
+    public CircuitBreakerPolicy withOpenDuration(final TimeValue openDuration) {
+        return new CircuitBreakerPolicy(window, minCalls, failureRateThreshold, slowCallDuration, slowCallRateThreshold, openDuration, halfOpenCalls);
+    }
+
+    /** How many trial requests must succeed to close the breaker again. Defaults to 3. */
+    public CircuitBreakerPolicy withHalfOpenCalls(final int halfOpenCalls) {
+        return new CircuitBreakerPolicy(window, minCalls, failureRateThreshold, slowCallDuration, slowCallRateThreshold, openDuration, halfOpenCalls);
+    }
+
+    public int getWindow() {
+        return window;
+    }
+
+    public int getMinCalls() {
+        return minCalls;
+    }
+
+    public double getFailureRateThreshold() {
+        return failureRateThreshold;
+    }
+
+    public TimeValue getSlowCallDuration() {
+        return slowCallDuration;
+    }
+
+    public double getSlowCallRateThreshold() {
+        return slowCallRateThreshold;
+    }
+
+    public TimeValue getOpenDuration() {
+        return openDuration;
+    }
+
+    public int getHalfOpenCalls() {
+        return halfOpenCalls;
+    }
+
+    @Override public String toString() {
+        return "CircuitBreakerPolicy{" +
+            "window=" + window +
+            ", minCalls=" + minCalls +
+            ", failureRateThreshold=" + failureRateThreshold +
+            ", slowCallDuration=" + slowCallDuration +
+            ", slowCallRateThreshold=" + slowCallRateThreshold +
+            ", openDuration=" + openDuration +
+            ", halfOpenCalls=" + halfOpenCalls +
+            '}';
+    }
+}
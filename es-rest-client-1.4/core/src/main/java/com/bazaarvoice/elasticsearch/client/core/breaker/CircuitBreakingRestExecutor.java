@@ -0,0 +1,280 @@
+package com.bazaarvoice.elasticsearch.client.core.breaker;
+
+import com.bazaarvoice.elasticsearch.client.core.nodes.NodeSetListener;
+import com.bazaarvoice.elasticsearch.client.core.nodes.RestNode;
+import com.bazaarvoice.elasticsearch.client.core.spi.RestExecutor;
+import com.bazaarvoice.elasticsearch.client.core.spi.RestResponse;
+import com.bazaarvoice.elasticsearch.client.core.util.ForwardingRestExecutor;
+import org.elasticsearch.common.base.Predicate;
+import org.elasticsearch.common.base.Ticker;
+import org.elasticsearch.common.collect.ImmutableList;
+import org.elasticsearch.common.collect.ImmutableSet;
+import org.elasticsearch.common.util.concurrent.ConcurrentCollections;
+import org.elasticsearch.common.util.concurrent.FutureCallback;
+import org.elasticsearch.common.util.concurrent.Futures;
+import org.elasticsearch.common.util.concurrent.ListenableFuture;
+
+import java.net.URL;
+import java.util.List;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Wraps any {@link RestExecutor} with a circuit breaker for each node, as described by a {@link CircuitBreakerPolicy}.
+ * <p/>
+ * While a node's breaker is open, requests to it fail immediately with a {@link CircuitOpenException}
+ * instead of queueing up behind requests that are doomed anyway.
+ * <p/>
+ * To keep the client from picking those nodes in the first place, hand {@link #availability()} to
+ * {@link com.bazaarvoice.elasticsearch.client.core.nodes.NodeSet#setAvailability}. To drop the breakers of nodes that
+ * leave the set, add the executor to it with {@link com.bazaarvoice.elasticsearch.client.core.nodes.NodeSet#addListener};
+ * a node that comes back later starts out closed.
+ */
+public class CircuitBreakingRestExecutor extends ForwardingRestExecutor implements NodeSetListener {
+    private final CircuitBreakerPolicy policy;
+    private final List<CircuitBreakerListener> listeners;
+    private final Ticker ticker;
+    private final ConcurrentMap<RestNode, NodeBreaker> breakers = ConcurrentCollections.newConcurrentMap();
+
+    public CircuitBreakingRestExecutor(final RestExecutor delegate, final CircuitBreakerPolicy policy, final CircuitBreakerListener... listeners) {
+        this(delegate, policy, Ticker.systemTicker(), listeners);
+    }
+
+    CircuitBreakingRestExecutor(final RestExecutor delegate, final CircuitBreakerPolicy policy, final Ticker ticker, final CircuitBreakerListener... listeners) {
+        super(delegate);
+        this.policy = policy;
+        this.ticker = ticker;
+        this.listeners = ImmutableList.copyOf(listeners);
+    }
+
+    /** The current state of the node's breaker. */
+    public CircuitState state(final RestNode node) {
+        final NodeBreaker breaker = breakers.get(node);
+        return breaker == null ? CircuitState.CLOSED : breaker.state();
+    }
+
+    @Override public void onNodesChanged(final List<RestNode> nodes) {
+        // calls still in flight to a dropped node hold on to its breaker, and report to it harmlessly
+        breakers.keySet().retainAll(ImmutableSet.copyOf(nodes));
+    }
+
+    /** How many nodes we're keeping breakers for. */
+    int trackedNodes() {
+        return breakers.size();
+    }
+
+    /**
+     * True for nodes that would accept a request right now: closed, due to go half-open, or half-open with trial requests to spare.
+     */
+    public Predicate<RestNode> availability() {
+        return new Predicate<RestNode>() {
+            @Override public boolean apply(final RestNode node) {
+                final NodeBreaker breaker = breakers.get(node);
+                return breaker == null || breaker.isAvailable();
+            }
+        };
+    }
+
+    @Override protected ListenableFuture<RestResponse> call(final URL url, final Call call) {
+        final RestNode node = RestNode.of(url);
+        final NodeBreaker breaker = breaker(node);
+        final Permit permit = breaker.tryAcquire();
+        if (permit == null) {
+            return Futures.immediateFailedFuture(new CircuitOpenException(node));
+        }
+
+        final long start = ticker.read();
+        final ListenableFuture<RestResponse> response;
+        try {
+            response = call.send();
+        } catch (RuntimeException e) {
+            breaker.onResult(permit, false, 0);
+            throw e;
+        }
+        Futures.addCallback(response, new FutureCallback<RestResponse>() {
+            @Override public void onSuccess(final RestResponse result) {
+                final int status = result.statusCode();
+                breaker.onResult(permit, status < 500 && status != 429, ticker.read() - start);
+            }
+
+            @Override public void onFailure(final Throwable t) {
+                if (response.isCancelled()) {
+                    // says nothing about the node either way
+                    breaker.onCancelled(permit);
+                } else {
+                    breaker.onResult(permit, false, ticker.read() - start);
+                }
+            }
+        });
+        return response;
+    }
+
+    private NodeBreaker breaker(final RestNode node) {
+        final NodeBreaker existing = breakers.get(node);
+        if (existing != null) {
+            return existing;
+        }
+        final NodeBreaker created = new NodeBreaker(node);
+        final NodeBreaker raced = breakers.putIfAbsent(node, created);
+        return raced == null ? created : raced;
+    }
+
+    private void notifyListeners(final RestNode node, final CircuitState from, final CircuitState to) {
+        for (CircuitBreakerListener listener : listeners) {
+            listener.onStateChange(node, from, to);
+        }
+    }
+
+    /**
+     * What a call was let through as: a trial or an ordinary call, in a given generation of its breaker.
+     */
+    private static class Permit {
+        private final long generation;
+        private final boolean trial;
+
+        private Permit(final long generation, final boolean trial) {
+            this.generation = generation;
+            this.trial = trial;
+        }
+    }
+
+    /**
+     * One node's breaker. The state changes under its lock; listeners are told after it's released.
+     * <p/>
+     * Every state change starts a new generation. A call only counts toward the generation it was let through in, so a
+     * straggler admitted while closed can't use up, fail, or pass a half-open trial that it was never part of.
+     */
+    private class NodeBreaker {
+        private final RestNode node;
+        private final long slowCallNanos = policy.getSlowCallDuration().nanos();
+        private final long openNanos = policy.getOpenDuration().nanos();
+
+        // ring buffers of the last window outcomes
+        private final boolean[] failed = new boolean[policy.getWindow()];
+        private final boolean[] slow = new boolean[policy.getWindow()];
+        private int next = 0;
+        private int calls = 0;
+        private int failures = 0;
+        private int slowCalls = 0;
+
+        private CircuitState state = CircuitState.CLOSED;
+        private long generation = 0;
+        private long openedAt;
+        private int trialsInFlight = 0;
+        private int trialsSucceeded = 0;
+
+        private NodeBreaker(final RestNode node) {
+            this.node = node;
+        }
+
+        private synchronized CircuitState state() {
+            return state;
+        }
+
+        private synchronized boolean isAvailable() {
+            switch (state) {
+                case CLOSED:
+                    return true;
+                case OPEN:
+                    return ticker.read() - openedAt >= openNanos;
+                default:
+                    return trialsInFlight + trialsSucceeded < policy.getHalfOpenCalls();
+            }
+        }
+
+        /** @return null if the call isn't allowed through */
+        private Permit tryAcquire() {
+            final Permit permit;
+            final boolean wentHalfOpen;
+            synchronized (this) {
+                wentHalfOpen = state == CircuitState.OPEN && ticker.read() - openedAt >= openNanos;
+                if (wentHalfOpen) {
+                    state = CircuitState.HALF_OPEN;
+                    generation++;
+                    trialsInFlight = 0;
+                    trialsSucceeded = 0;
+                }
+                if (state == CircuitState.CLOSED) {
+                    permit = new Permit(generation, false);
+                } else if (state == CircuitState.HALF_OPEN && trialsInFlight + trialsSucceeded < policy.getHalfOpenCalls()) {
+                    trialsInFlight++;
+                    permit = new Permit(generation, true);
+                } else {
+                    permit = null;
+                }
+            }
+            if (wentHalfOpen) {
+                notifyListeners(node, CircuitState.OPEN, CircuitState.HALF_OPEN);
+            }
+            return permit;
+        }
+
+        private void onResult(final Permit permit, final boolean success, final long elapsedNanos) {
+            final boolean good = success && elapsedNanos < slowCallNanos;
+            final CircuitState from;
+            final CircuitState to;
+            synchronized (this) {
+                from = state;
+                if (permit.generation != generation) {
+                    // a straggler from an earlier state tells us nothing we act on
+                    return;
+                }
+                if (permit.trial) {
+                    trialsInFlight--;
+                    if (!good) {
+                        open();
+                    } else if (++trialsSucceeded >= policy.getHalfOpenCalls()) {
+                        close();
+                    }
+                } else {
+                    record(!success, elapsedNanos >= slowCallNanos);
+                    if (calls >= policy.getMinCalls()
+                        && (failures >= policy.getFailureRateThreshold() * calls || slowCalls >= policy.getSlowCallRateThreshold() * calls)) {
+                        open();
+                    }
+                }
+                to = state;
+            }
+            if (from != to) {
+                notifyListeners(node, from, to);
+            }
+        }
+
+        private synchronized void onCancelled(final Permit permit) {
+            if (permit.trial && permit.generation == generation) {
+                trialsInFlight--;
+            }
+        }
+
+        // called holding the lock
+        private void record(final boolean isFailure, final boolean isSlow) {
+            if (calls == failed.length) {
+                failures -= failed[next] ? 1 : 0;
+                slowCalls -= slow[next] ? 1 : 0;
+            } else {
+                calls++;
+            }
+            failed[next] = isFailure;
+            slow[next] = isSlow;
+            failures += isFailure ? 1 : 0;
+            slowCalls += isSlow ? 1 : 0;
+            next = (next + 1) % failed.length;
+        }
+
+        // called holding the lock
+        private void open() {
+            state = CircuitState.OPEN;
+            generation++;
+            openedAt = ticker.read();
+        }
+
+        // called holding the lock
+        private void close() {
+            state = CircuitState.CLOSED;
+            generation++;
+            next = 0;
+            calls = 0;
+            failures = 0;
+            slowCalls = 0;
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package com.bazaarvoice.elasticsearch.client.core.breaker;
+
+import com.bazaarvoice.elasticsearch.client.core.nodes.RestNode;
+import org.elasticsearch.ElasticsearchException;
+import org.elasticsearch.rest.RestStatus;
+
+/**
+ * The request was not sent, because the node's circuit breaker is open.
+ */
+public class CircuitOpenException extends ElasticsearchException {
+    private final RestNode node;
+
+    public CircuitOpenException(final RestNode node) {
+        super("Circuit breaker for " + node + " is open");
+        this.node = node;
+    }
+
+    public RestNode getNode() {
+        return node;
+    }
+
+    @Override public RestStatus status() {
+        return RestStatus.SERVICE_UNAVAILABLE;
+    }
+}
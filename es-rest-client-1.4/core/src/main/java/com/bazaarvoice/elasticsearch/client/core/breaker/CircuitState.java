@@ -0,0 +1,13 @@
+package com.bazaarvoice.elasticsearch.client.core.breaker;
+
+/**
+ * The states of a node's circuit breaker.
+ */
+public enum CircuitState {
+    /** Requests flow normally. */
+    CLOSED,
+    /** Requests fail fast without being sent. */
+    OPEN,
+    /** A few trial requests are let through to see whether the node has recovered. */
+    HALF_OPEN
+}
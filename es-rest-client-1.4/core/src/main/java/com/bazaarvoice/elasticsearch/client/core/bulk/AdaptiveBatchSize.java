@@ -0,0 +1,98 @@
+package com.bazaarvoice.elasticsearch.client.core.bulk;
+
+import org.elasticsearch.common.unit.TimeValue;
+
+import static org.elasticsearch.common.Preconditions.checkArgument;
+
+/**
+ * How many actions a {@link RestBulkProcessor} puts in each batch, tuned from how the batches go.
+ * <p/>
+ * While batches come back under {@code targetLatency} without rejections, we hill-climb on throughput (documents per second):
+ * each batch moves the size by {@code step} (a fraction of it) in the current direction, and the direction reverses whenever
+ * throughput falls below its recent average. A batch with rejected items (or one that failed outright) halves the size, and a
+ * batch slower than the target shrinks it by a step, so the size settles just under whatever the cluster can take.
+ * <p/>
+ * Batches much smaller than the current size (flushed early by an interval or on close) say nothing about the current size,
+ * so they're ignored.
+ * <p/>
+ * {@link #batchSize()}, {@link #throughput()} and {@link #latencyNanos()} are there to be exported as metrics.
+ * {@link #onBatch} may be called concurrently.
+ */
+public class AdaptiveBatchSize {
+    /** how much each new sample counts in the averages */
+    private static final double SMOOTHING = 0.3;
+
+    private final int minSize;
+    private final int maxSize;
+    private final double step;
+    private final long targetLatencyNanos;
+
+    private double size;
+    private int direction = 1;
+    private double throughput = -1;
+    private double latency = -1;
+
+    /** Starts at 1000 actions, between 100 and 20000, moves 20% at a time, and aims for batches under 2 seconds. */
+    public AdaptiveBatchSize() {
+        this(1000, 100, 20000, 0.2, TimeValue.timeValueSeconds(2));
+    }
+
+    public AdaptiveBatchSize(final int initialSize, final int minSize, final int maxSize, final double step, final TimeValue targetLatency) {
+        checkArgument(minSize > 0 && minSize <= initialSize && initialSize <= maxSize, "need 0 < minSize <= initialSize <= maxSize");
+        checkArgument(step > 0 && step < 1, "step must be in (0, 1)");
+        this.size = initialSize;
+        this.minSize = minSize;
+        this.maxSize = maxSize;
+        this.step = step;
+        this.targetLatencyNanos = targetLatency.nanos();
+    }
+
+    /** The number of actions to put in the next batch. */
+    public synchronized int batchSize() {
+        return (int) size;
+    }
+
+    /** Recent documents per second, or -1 before the first full batch. */
+    public synchronized double throughput() {
+        return throughput;
+    }
+
+    /** Recent batch latency, or -1 before the first full batch. */
+    public synchronized long latencyNanos() {
+        return (long) latency;
+    }
+
+    /**
+     * @param actions     how many actions the batch held
+     * @param latencyNanos how long it took, from sending it to reading the response
+     * @param rejected    true if any of its items were rejected (429), or the whole request failed
+     */
+    public synchronized void onBatch(final int actions, final long latencyNanos, final boolean rejected) {
+        if (rejected) {
+            resize(size / 2);
+            direction = 1;
+            return;
+        }
+        if (actions * 2 < size || latencyNanos <= 0) {
+            return;
+        }
+
+        final double sample = actions * 1e9 / latencyNanos;
+        latency = latency < 0 ? latencyNanos : latency + SMOOTHING * (latencyNanos - latency);
+        if (latencyNanos > targetLatencyNanos) {
+            direction = -1;
+        } else if (throughput >= 0 && sample < throughput) {
+            direction = -direction;
+        }
+        throughput = throughput < 0 ? sample : throughput + SMOOTHING * (sample - throughput);
+        resize(size * (1 + direction * step));
+    }
+
+    private void resize(final double newSize) {
+        size = Math.max(minSize, Math.min(maxSize, newSize));
+    }
+
+    @Override public synchronized String toString() {
+        return "AdaptiveBatchSize{batchSize=" + batchSize() + ", throughput=" + throughput + ", latencyNanos=" + latencyNanos() + '}';
+    }
+}
@@ -0,0 +1,175 @@
+package com.bazaarvoice.elasticsearch.client.core.bulk;
+
+import org.elasticsearch.ElasticSearchExceptionHelper;
+import org.elasticsearch.action.ActionRequest;
+import org.elasticsearch.action.ActionResponse;
+import org.elasticsearch.action.WriteConsistencyLevel;
+import org.elasticsearch.action.bulk.BulkItemResponse;
+import org.elasticsearch.action.bulk.BulkRequest;
+import org.elasticsearch.action.bulk.BulkResponse;
+import org.elasticsearch.action.delete.DeleteRequest;
+import org.elasticsearch.action.delete.DeleteResponse;
+import org.elasticsearch.action.index.IndexRequest;
+import org.elasticsearch.action.index.IndexResponse;
+import org.elasticsearch.action.support.replication.ReplicationType;
+import org.elasticsearch.action.support.replication.ShardReplicationOperationRequest;
+import org.elasticsearch.common.base.Function;
+import org.elasticsearch.common.collect.ImmutableMap;
+import org.elasticsearch.common.collect.Lists;
+import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.common.util.concurrent.FutureCallback;
+import org.elasticsearch.common.util.concurrent.Futures;
+import org.elasticsearch.common.util.concurrent.ListenableFuture;
+import org.elasticsearch.common.util.concurrent.SettableFuture;
+
+import java.util.List;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.elasticsearch.common.Preconditions.checkArgument;
+
+/**
+ * Gathers single index and delete requests, as they arrive, into _bulk requests, and hands each caller the response to its own
+ * item. A batch goes out {@code window} after its first request arrives, or as soon as it holds {@code maxActions}.
+ * <p/>
+ * A failed item fails its caller with the same exception the request would have gotten on its own; if the whole _bulk fails,
+ * every caller in it gets that failure.
+ * <p/>
+ * Only requests whose options can all be said per item should be batched; see {@link #canBatch(IndexRequest)}.
+ * <p/>
+ * Thread safe.
+ */
+public class BulkCoalescer {
+    private final Function<BulkRequest, ListenableFuture<BulkResponse>> bulk;
+    private final ScheduledExecutorService scheduler;
+    private final long windowNanos;
+    private final int maxActions;
+
+    private BulkRequest batch = new BulkRequest();
+    private List<SettableFuture<? extends ActionResponse>> callers = Lists.newArrayList();
+    private ScheduledFuture<?> timer;
+
+    /**
+     * @param bulk       sends a _bulk request
+     * @param scheduler  runs the window timers
+     * @param window     how long the first request in a batch may wait for company
+     * @param maxActions the most requests in one batch
+     */
+    public BulkCoalescer(final Function<BulkRequest, ListenableFuture<BulkResponse>> bulk, final ScheduledExecutorService scheduler, final TimeValue window, final int maxActions) {
+        checkArgument(maxActions > 0, "maxActions must be positive");
+        this.bulk = bulk;
+        this.scheduler = scheduler;
+        this.windowNanos = window.nanos();
+        this.maxActions = maxActions;
+    }
+
+    /**
+     * Refreshes, timeouts, and write consistency and replication settings only exist for the whole _bulk,
+     * so requests that ask for them should be sent on their own.
+     */
+    public static boolean canBatch(final IndexRequest request) {
+        return !request.refresh() && hasDefaultOptions(request);
+    }
+
+    /** @see #canBatch(IndexRequest) */
+    public static boolean canBatch(final DeleteRequest request) {
+        return !request.refresh() && hasDefaultOptions(request);
+    }
+
+    private static boolean hasDefaultOptions(final ShardReplicationOperationRequest<?> request) {
+        return ShardReplicationOperationRequest.DEFAULT_TIMEOUT.equals(request.timeout())
+            && request.consistencyLevel() == WriteConsistencyLevel.DEFAULT
+            && request.replicationType() == ReplicationType.DEFAULT;
+    }
+
+    public ListenableFuture<IndexResponse> index(final IndexRequest request) {
+        return add(request, SettableFuture.<IndexResponse>create());
+    }
+
+    public ListenableFuture<DeleteResponse> delete(final DeleteRequest request) {
+        return add(request, SettableFuture.<DeleteResponse>create());
+    }
+
+    private <T extends ActionResponse> ListenableFuture<T> add(final ActionRequest request, final SettableFuture<T> caller) {
+        final BulkRequest full;
+        final List<SettableFuture<? extends ActionResponse>> fullCallers;
+        synchronized (this) {
+            batch.add(request);
+            callers.add(caller);
+            if (callers.size() == 1) {
+                timer = scheduler.schedule(new Runnable() {
+                    @Override public void run() {
+                        flush();
+                    }
+                }, windowNanos, TimeUnit.NANOSECONDS);
+            }
+            if (callers.size() < maxActions) {
+                return caller;
+            }
+            timer.cancel(false);
+            full = batch;
+            fullCallers = callers;
+            batch = new BulkRequest();
+            callers = Lists.newArrayList();
+        }
+        send(full, fullCallers);
+        return caller;
+    }
+
+    /**
+     * Send whatever has gathered so far.
+     */
+    public void flush() {
+        final BulkRequest current;
+        final List<SettableFuture<? extends ActionResponse>> currentCallers;
+        synchronized (this) {
+            if (callers.isEmpty()) {
+                return;
+            }
+            timer.cancel(false);
+            current = batch;
+            currentCallers = callers;
+            batch = new BulkRequest();
+            callers = Lists.newArrayList();
+        }
+        send(current, currentCallers);
+    }
+
+    private void send(final BulkRequest request, final List<SettableFuture<? extends ActionResponse>> requestCallers) {
+        final ListenableFuture<BulkResponse> response;
+        try {
+            response = bulk.apply(request);
+        } catch (RuntimeException e) {
+            failAll(requestCallers, e);
+            return;
+        }
+        Futures.addCallback(response, new FutureCallback<BulkResponse>() {
+            @Override public void onSuccess(final BulkResponse bulkResponse) {
+                for (BulkItemResponse item : bulkResponse.getItems()) {
+                    //noinspection unchecked
+                    final SettableFuture<ActionResponse> caller = (SettableFuture<ActionResponse>) requestCallers.get(item.getItemId());
+                    if (item.isFailed()) {
+                        caller.setException(ElasticSearchExceptionHelper.getProperException(ImmutableMap.<String, Object>of(
+                            "error", item.getFailureMessage(),
+                            "status", item.getFailure().getStatus().getStatus())));
+                    } else {
+                        caller.set(item.getResponse());
+                    }
+                }
+                // in case ES answered for fewer items than we sent
+                failAll(requestCallers, new IllegalStateException("The bulk response had no item for this request"));
+            }
+
+            @Override public void onFailure(final Throwable t) {
+                failAll(requestCallers, t);
+            }
+        });
+    }
+
+    private static void failAll(final List<SettableFuture<? extends ActionResponse>> callers, final Throwable t) {
+        for (SettableFuture<? extends ActionResponse> caller : callers) {
+            caller.setException(t);
+        }
+    }
+}
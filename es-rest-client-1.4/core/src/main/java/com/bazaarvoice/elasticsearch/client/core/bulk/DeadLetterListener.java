@@ -0,0 +1,18 @@
+package com.bazaarvoice.elasticsearch.client.core.bulk;
+
+import org.elasticsearch.action.ActionRequest;
+import org.elasticsearch.action.bulk.BulkItemResponse;
+
+/**
+ * Hears about the items a {@link RestBulkProcessor} has given up on: failures its retry policy doesn't cover,
+ * items that ran out of attempts, and retries still waiting when the processor was closed.
+ * <p/>
+ * Called from whichever thread handled the bulk response, so implementations should be quick and thread safe.
+ */
+public interface DeadLetterListener {
+    /**
+     * @param request the request as it was added to the processor
+     * @param failure why it failed, the last time it was tried
+     */
+    public void onDeadLetter(ActionRequest request, BulkItemResponse.Failure failure);
+}
@@ -0,0 +1,454 @@
+package com.bazaarvoice.elasticsearch.client.core.bulk;
+
+import com.bazaarvoice.elasticsearch.client.core.retry.RetryPolicy;
+import org.elasticsearch.action.ActionListener;
+import org.elasticsearch.action.ActionRequest;
+import org.elasticsearch.action.DocumentRequest;
+import org.elasticsearch.action.bulk.BulkItemResponse;
+import org.elasticsearch.action.bulk.BulkProcessor;
+import org.elasticsearch.action.bulk.BulkRequest;
+import org.elasticsearch.action.bulk.BulkResponse;
+import org.elasticsearch.action.delete.DeleteRequest;
+import org.elasticsearch.action.index.IndexRequest;
+import org.elasticsearch.action.update.UpdateRequest;
+import org.elasticsearch.client.Client;
+import org.elasticsearch.common.Nullable;
+import org.elasticsearch.common.unit.ByteSizeUnit;
+import org.elasticsearch.common.unit.ByteSizeValue;
+import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.common.util.concurrent.EsExecutors;
+import org.elasticsearch.rest.RestStatus;
+
+import java.io.Closeable;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.elasticsearch.common.Preconditions.checkArgument;
+import static org.elasticsearch.common.Preconditions.checkNotNull;
+import static org.elasticsearch.common.Preconditions.checkState;
+
+/**
+ * Collects index, delete and update requests into batches and sends them with {@link Client#bulk}, the way the
+ * transport client's {@link BulkProcessor} does. It takes the same {@link BulkProcessor.Listener}, so existing
+ * listeners carry over.
+ * <p/>
+ * A batch goes out when it reaches {@link Builder#setBulkActions(int) an action count} or
+ * {@link Builder#setBulkSize(ByteSizeValue) a size in bytes}, or when {@link Builder#setFlushInterval(TimeValue) the flush interval}
+ * passes, whichever comes first. Up to {@link Builder#setConcurrentRequests(int) concurrentRequests} batches may be in flight at once;
+ * once they are, {@link #add} blocks until one of them finishes, which keeps a fast producer from running ahead of the cluster.
+ * With zero concurrent requests, each batch is sent synchronously by whichever thread filled it.
+ * <p/>
+ * With a {@link Builder#setRetryPolicy(RetryPolicy) retry policy}, items that fail with a retryable status (429, when a node's
+ * bulk queue is full) are added back into a later batch after a backoff, each on its own attempt budget; the rest of their batch
+ * is not sent again. If the whole request fails in a way the policy would retry, every item in it is retried the same way.
+ * Whatever we give up on goes to the {@link Builder#setDeadLetterListener(DeadLetterListener) dead letter listener}.
+ * The listener still sees every response as it came back, retried items included.
+ * <p/>
+ * With an {@link Builder#setAdaptiveBatchSize(AdaptiveBatchSize) adaptive batch size}, the action count a batch is sent at
+ * follows it rather than staying fixed, and every batch's latency and rejections are reported back to it. The byte size limit
+ * still applies.
+ * <p/>
+ * Thread safe.
+ */
+public class RestBulkProcessor implements Closeable {
+    private final Client client;
+    private final BulkProcessor.Listener listener;
+    private final int bulkActions;
+    private final long bulkSize;
+    private final int concurrentRequests;
+    @Nullable private final RetryPolicy retryPolicy;
+    @Nullable private final DeadLetterListener deadLetterListener;
+    @Nullable private final AdaptiveBatchSize adaptiveBatchSize;
+    private final Semaphore semaphore;
+    @Nullable private final ScheduledExecutorService scheduler;
+    private final AtomicLong executionIds = new AtomicLong();
+    private final Random random = new Random();
+
+    /** the items waiting to be retried, and the items that have been retried and are in flight again */
+    private final Map<ActionRequest, Retry> retries = new ConcurrentHashMap<ActionRequest, Retry>();
+
+    private BulkRequest bulkRequest = new BulkRequest();
+    private volatile boolean closed;
+    private volatile boolean terminated;
+
+    public static Builder builder(final Client client, final BulkProcessor.Listener listener) {
+        return new Builder(client, listener);
+    }
+
+    private RestBulkProcessor(final Builder builder) {
+        this.client = builder.client;
+        this.listener = builder.listener;
+        this.bulkActions = builder.bulkActions;
+        this.bulkSize = builder.bulkSize.bytes();
+        this.concurrentRequests = builder.concurrentRequests;
+        this.retryPolicy = builder.retryPolicy;
+        this.deadLetterListener = builder.deadLetterListener;
+        this.adaptiveBatchSize = builder.adaptiveBatchSize;
+        this.semaphore = new Semaphore(Math.max(1, concurrentRequests));
+
+        if (builder.flushInterval == null && retryPolicy == null) {
+            this.scheduler = null;
+        } else {
+            this.scheduler = Executors.newSingleThreadScheduledExecutor(EsExecutors.daemonThreadFactory("rest_bulk_processor"));
+        }
+        if (builder.flushInterval != null) {
+            final long interval = builder.flushInterval.nanos();
+            scheduler.scheduleWithFixedDelay(new Runnable() {
+                @Override public void run() {
+                    flush();
+                }
+            }, interval, interval, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    public RestBulkProcessor add(final IndexRequest request) {
+        return add((ActionRequest) request);
+    }
+
+    public RestBulkProcessor add(final DeleteRequest request) {
+        return add((ActionRequest) request);
+    }
+
+    public RestBulkProcessor add(final UpdateRequest request) {
+        return add((ActionRequest) request);
+    }
+
+    public synchronized RestBulkProcessor add(final ActionRequest request) {
+        checkState(!closed, "bulk processor already closed");
+        bulkRequest.add(request);
+        if (isFull()) {
+            execute();
+        }
+        return this;
+    }
+
+    /**
+     * Send whatever has been added so far, without waiting for the batch to fill.
+     */
+    public synchronized void flush() {
+        if (!terminated && bulkRequest.numberOfActions() > 0) {
+            execute();
+        }
+    }
+
+    /**
+     * Flush what's left, then stop accepting requests. Doesn't wait for batches in flight, and any items still waiting
+     * to be retried go to the dead letter listener; see {@link #awaitClose}.
+     */
+    @Override public void close() {
+        try {
+            awaitClose(0, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Flush what's left, stop accepting requests, and wait up to the given time for the batches in flight to finish,
+     * along with any retries they lead to. Retries still waiting when the time is up go to the dead letter listener.
+     *
+     * @return true if everything finished in time
+     */
+    public synchronized boolean awaitClose(final long timeout, final TimeUnit unit) throws InterruptedException {
+        if (terminated) {
+            return true;
+        }
+        closed = true;
+        final long deadline = System.nanoTime() + unit.toNanos(timeout);
+        try {
+            while (true) {
+                if (bulkRequest.numberOfActions() > 0) {
+                    execute();
+                }
+                if (!awaitInFlight(deadline - System.nanoTime())) {
+                    return false;
+                }
+                if (retries.isEmpty() && bulkRequest.numberOfActions() == 0) {
+                    return true;
+                }
+                if (bulkRequest.numberOfActions() == 0) {
+                    // retries are waiting out their backoff; wait() lets them take the lock to add themselves
+                    final long remaining = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+                    if (remaining <= 0) {
+                        return false;
+                    }
+                    wait(remaining);
+                }
+            }
+        } finally {
+            terminate();
+        }
+    }
+
+    private boolean awaitInFlight(final long nanos) throws InterruptedException {
+        if (concurrentRequests == 0) {
+            return true;
+        }
+        if (semaphore.tryAcquire(concurrentRequests, Math.max(0, nanos), TimeUnit.NANOSECONDS)) {
+            semaphore.release(concurrentRequests);
+            return true;
+        }
+        return false;
+    }
+
+    private void terminate() {
+        terminated = true;
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+        for (Map.Entry<ActionRequest, Retry> entry : retries.entrySet()) {
+            if (entry.getValue().waiting && retries.remove(entry.getKey()) != null) {
+                deadLetter(entry.getKey(), entry.getValue().failure);
+            }
+        }
+    }
+
+    private boolean isFull() {
+        final int actions = adaptiveBatchSize == null ? bulkActions : adaptiveBatchSize.batchSize();
+        return (actions != -1 && bulkRequest.numberOfActions() >= actions)
+            || (bulkSize != -1 && bulkRequest.estimatedSizeInBytes() >= bulkSize);
+    }
+
+    /**
+     * Send the current batch and start a new one. Always called holding the lock, so batches leave in the order they filled.
+     */
+    private void execute() {
+        final BulkRequest request = bulkRequest;
+        final long executionId = executionIds.incrementAndGet();
+        bulkRequest = new BulkRequest();
+        final long start;
+
+        if (concurrentRequests == 0) {
+            listener.beforeBulk(executionId, request);
+            start = System.nanoTime();
+            final BulkResponse response;
+            try {
+                response = client.bulk(request).actionGet();
+            } catch (Throwable t) {
+                onFailure(executionId, request, t, start);
+                return;
+            }
+            onResponse(executionId, request, response, start);
+            return;
+        }
+
+        try {
+            semaphore.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            onFailure(executionId, request, e, System.nanoTime());
+            return;
+        }
+        start = System.nanoTime();
+        try {
+            listener.beforeBulk(executionId, request);
+            client.bulk(request, new ActionListener<BulkResponse>() {
+                @Override public void onResponse(final BulkResponse response) {
+                    try {
+                        RestBulkProcessor.this.onResponse(executionId, request, response, start);
+                    } finally {
+                        semaphore.release();
+                    }
+                }
+
+                @Override public void onFailure(final Throwable e) {
+                    try {
+                        RestBulkProcessor.this.onFailure(executionId, request, e, start);
+                    } finally {
+                        semaphore.release();
+                    }
+                }
+            });
+        } catch (RuntimeException e) {
+            semaphore.release();
+            onFailure(executionId, request, e, start);
+        }
+    }
+
+    /*
+     * These two are called from the client's callback threads, and must not take the lock: a thread holding it
+     * may be blocked in execute(), waiting for exactly this batch to finish.
+     */
+
+    private void onResponse(final long executionId, final BulkRequest request, final BulkResponse response, final long start) {
+        final long latency = System.nanoTime() - start;
+        final List<ActionRequest> items = request.requests();
+        boolean rejected = false;
+        for (BulkItemResponse item : response.getItems()) {
+            final ActionRequest itemRequest = items.get(item.getItemId());
+            if (item.isFailed()) {
+                rejected |= item.getFailure().getStatus() == RestStatus.TOO_MANY_REQUESTS;
+                failed(itemRequest, item.getFailure(), retryPolicy != null && retryPolicy.isRetryable(item.getFailure().getStatus().getStatus()));
+            } else {
+                retries.remove(itemRequest);
+            }
+        }
+        if (adaptiveBatchSize != null) {
+            adaptiveBatchSize.onBatch(items.size(), latency, rejected);
+        }
+        listener.afterBulk(executionId, request, response);
+    }
+
+    private void onFailure(final long executionId, final BulkRequest request, final Throwable failure, final long start) {
+        if (adaptiveBatchSize != null) {
+            adaptiveBatchSize.onBatch(request.numberOfActions(), System.nanoTime() - start, true);
+        }
+        // the items' own statuses are made up from the exception, so it's the exception that decides
+        final boolean retryable = retryPolicy != null && retryPolicy.isRetryable(failure);
+        for (ActionRequest itemRequest : request.requests()) {
+            failed(itemRequest, failure(itemRequest, failure), retryable);
+        }
+        listener.afterBulk(executionId, request, failure);
+    }
+
+    /**
+     * Schedule the item to be added back in after a backoff, if it failed in a retryable way and the policy allows another
+     * attempt; otherwise give up on it.
+     */
+    private void failed(final ActionRequest request, final BulkItemResponse.Failure failure, final boolean retryable) {
+        Retry retry = retries.get(request);
+        if (retry == null) {
+            retry = new Retry();
+        }
+        if (terminated || !retryable || retry.attempts >= retryPolicy.getMaxAttempts()) {
+            retries.remove(request);
+            deadLetter(request, failure);
+            return;
+        }
+
+        final long delay = retryPolicy.delayNanos(retry.attempts - 1, random);
+        if (System.nanoTime() - retry.start + delay > retryPolicy.getMaxElapsed().nanos()) {
+            retries.remove(request);
+            deadLetter(request, failure);
+            return;
+        }
+        retry.attempts++;
+        retry.failure = failure;
+        retry.waiting = true;
+        retries.put(request, retry);
+        try {
+            scheduler.schedule(new Runnable() {
+                @Override public void run() {
+                    retry(request);
+                }
+            }, delay, TimeUnit.NANOSECONDS);
+        } catch (RuntimeException e) {
+            // we're shutting down
+            retries.remove(request);
+            deadLetter(request, failure);
+        }
+    }
+
+    private synchronized void retry(final ActionRequest request) {
+        final Retry retry = retries.get(request);
+        if (terminated || retry == null) {
+            return;
+        }
+        retry.waiting = false;
+        bulkRequest.add(request);
+        if (isFull()) {
+            execute();
+        }
+        notifyAll();
+    }
+
+    private void deadLetter(final ActionRequest request, final BulkItemResponse.Failure failure) {
+        if (deadLetterListener != null) {
+            deadLetterListener.onDeadLetter(request, failure);
+        }
+    }
+
+    private static BulkItemResponse.Failure failure(final ActionRequest request, final Throwable failure) {
+        if (request instanceof DocumentRequest) {
+            final DocumentRequest<?> document = (DocumentRequest<?>) request;
+            return new BulkItemResponse.Failure(document.index(), document.type(), document.id(), failure);
+        }
+        return new BulkItemResponse.Failure(null, null, null, failure);
+    }
+
+    /** an item's progress through its retries */
+    private static class Retry {
+        private final long start = System.nanoTime();
+        private volatile int attempts = 1;
+        private volatile BulkItemResponse.Failure failure;
+        /** true while the item is waiting out its backoff, rather than in a batch */
+        private volatile boolean waiting;
+    }
+
+    public static class Builder {
+        private final Client client;
+        private final BulkProcessor.Listener listener;
+        private int bulkActions = 1000;
+        private ByteSizeValue bulkSize = new ByteSizeValue(5, ByteSizeUnit.MB);
+        private int concurrentRequests = 1;
+        private TimeValue flushInterval;
+        private RetryPolicy retryPolicy;
+        private DeadLetterListener deadLetterListener;
+        private AdaptiveBatchSize adaptiveBatchSize;
+
+        private Builder(final Client client, final BulkProcessor.Listener listener) {
+            this.client = checkNotNull(client, "client");
+            this.listener = checkNotNull(listener, "listener");
+        }
+
+        /** Send a batch once it has this many actions, or -1 for no limit. Defaults to 1000. */
+        public Builder setBulkActions(final int bulkActions) {
+            this.bulkActions = bulkActions;
+            return this;
+        }
+
+        /** Send a batch once it is this big, or -1 bytes for no limit. Defaults to 5mb. */
+        public Builder setBulkSize(final ByteSizeValue bulkSize) {
+            this.bulkSize = bulkSize;
+            return this;
+        }
+
+        /** How many batches may be in flight at once; zero sends each one synchronously. Defaults to 1. */
+        public Builder setConcurrentRequests(final int concurrentRequests) {
+            checkArgument(concurrentRequests >= 0, "concurrentRequests must not be negative");
+            this.concurrentRequests = concurrentRequests;
+            return this;
+        }
+
+        /** Send whatever has been added this often, full or not. Off by default. */
+        public Builder setFlushInterval(@Nullable final TimeValue flushInterval) {
+            this.flushInterval = flushInterval;
+            return this;
+        }
+
+        /**
+         * Retry failed items on their own, according to this policy. Its statuses are matched against each item's status
+         * (add 409 to retry version conflicts, say), and its attempts and elapsed time are counted per item. Off by default.
+         */
+        public Builder setRetryPolicy(@Nullable final RetryPolicy retryPolicy) {
+            this.retryPolicy = retryPolicy;
+            return this;
+        }
+
+        /** Hear about the items we give up on. None by default. */
+        public Builder setDeadLetterListener(@Nullable final DeadLetterListener deadLetterListener) {
+            this.deadLetterListener = deadLetterListener;
+            return this;
+        }
+
+        /**
+         * Tune the action count batches are sent at with this, instead of the fixed {@link #setBulkActions(int) bulkActions}.
+         * Keep a reference to it to watch the size and throughput it settles on. Off by default.
+         */
+        public Builder setAdaptiveBatchSize(@Nullable final AdaptiveBatchSize adaptiveBatchSize) {
+            this.adaptiveBatchSize = adaptiveBatchSize;
+            return this;
+        }
+
+        public RestBulkProcessor build() {
+            return new RestBulkProcessor(this);
+        }
+    }
+}
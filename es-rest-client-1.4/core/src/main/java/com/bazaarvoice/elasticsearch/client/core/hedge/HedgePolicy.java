@@ -0,0 +1,90 @@
+package com.bazaarvoice.elasticsearch.client.core.hedge;
+
+import org.elasticsearch.common.unit.TimeValue;
+
+import static org.elasticsearch.common.Preconditions.checkArgument;
+
+/**
+ * When to send a read a second time.
+ * <p/>
+ * If a request hasn't completed by the time given percentile of recent request latencies,
+ * a duplicate goes to a different node, and whichever answers first wins. To keep a cluster-wide
+ * slowdown from doubling the load, the number of hedges is capped at a fraction of the requests.
+ * <p/>
+ * Immutable. The {@code with} methods return modified copies.
+ */
+public class HedgePolicy {
+    private final double percentile;
+    private final TimeValue minDelay;
+    private final int minSamples;
+    private final int window;
+    private final double maxHedgeRatio;
+
+    /**
+     * @param percentile hedge requests slower than this percentile (0-100) of recent ones; 95 is a good start
+     */
+    public static HedgePolicy atPercentile(final double percentile) {
+        return new HedgePolicy(percentile, TimeValue.timeValueMillis(5), 100, 1000, 0.1);
+    }
+
+    private HedgePolicy(final double percentile, final TimeValue minDelay, final int minSamples, final int window, final double maxHedgeRatio) {
+        checkArgument(percentile > 0 && percentile < 100, "percentile must be in (0, 100)");
+        checkArgument(minSamples > 0 && minSamples <= window, "minSamples must be in (0, window]");
+        checkArgument(maxHedgeRatio > 0 && maxHedgeRatio <= 1, "maxHedgeRatio must be in (0, 1]");
+        this.percentile = percentile;
+        this.minDelay = minDelay;
+        this.minSamples = minSamples;
+        this.window = window;
+        this.maxHedgeRatio = maxHedgeRatio;
+    }
+
+    /** Never hedge sooner than this, however fast requests have been. Defaults to 5ms. */
+    public HedgePolicy withMinDelay(final TimeValue minDelay) {
+        return new HedgePolicy(percentile, minDelay, minSamples, window, maxHedgeRatio);
+    }
+
+    /** Don't hedge until this many latencies have been seen. Defaults to 100. */
+    public HedgePolicy withMinSamples(final int minSamples) {
+        return new HedgePolicy(percentile, minDelay, minSamples, window, maxHedgeRatio);
+    }
+
+    /** Compute the percentile over this many of the most recent latencies. Defaults to 1000. */
+    public HedgePolicy withWindow(final int window) {
+        return new HedgePolicy(percentile, minDelay, Math.min(minSamples, window), window, maxHedgeRatio);
+    }
+
+    /** At most this fraction of requests are hedged. Defaults to 0.1. */
+    public HedgePolicy withMaxHedgeRatio(final double maxHedgeRatio) {
+        return new HedgePolicy(percentile, minDelay, minSamples, window, maxHedgeRatio);
+    }
+
+    public double getPercentile() {
+        return percentile;
+    }
+
+    public TimeValue getMinDelay() {
+        return minDelay;
+    }
+
+    public int getMinSamples() {
+        return minSamples;
+    }
+
+    public int getWindow() {
+        return window;
+    }
+
+    public double getMaxHedgeRatio() {
+        return maxHedgeRatio;
+    }
+
+    @Override public String toString() {
+        return "HedgePolicy{" +
+            "percentile=" + percentile +
+            ", minDelay=" + minDelay +
+            ", minSamples=" + minSamples +
+            ", window=" + window +
+            ", maxHedgeRatio=" + maxHedgeRatio +
+            '}';
+    }
+}
@@ -0,0 +1,203 @@
+package com.bazaarvoice.elasticsearch.client.core.hedge;
+
+import com.bazaarvoice.elasticsearch.client.core.nodes.NodeSet;
+import com.bazaarvoice.elasticsearch.client.core.nodes.RestNode;
+import com.bazaarvoice.elasticsearch.client.core.spi.RestResponse;
+import org.elasticsearch.common.base.Function;
+import org.elasticsearch.common.util.concurrent.FutureCallback;
+import org.elasticsearch.common.util.concurrent.Futures;
+import org.elasticsearch.common.util.concurrent.ListenableFuture;
+import org.elasticsearch.common.util.concurrent.SettableFuture;
+
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.bazaarvoice.elasticsearch.client.core.util.InputStreams.closeQuietly;
+import static org.elasticsearch.common.util.concurrent.MoreExecutors.sameThreadExecutor;
+
+/**
+ * Sends requests according to a {@link HedgePolicy}.
+ * <p/>
+ * Each hedger learns the latency of one kind of request, so use one per action.
+ * <p/>
+ * The first response to arrive (whatever its status) completes the request, and the other attempt is cancelled.
+ * A failure only completes the request once no other attempt is left. We never hedge after a failure:
+ * that's a retry, not a hedge.
+ */
+public class Hedger {
+    private static final double MAX_BUDGET = 10;
+
+    private final HedgePolicy policy;
+    private final ScheduledExecutorService scheduler;
+    private final LatencyWindow latencies;
+    private final long minDelayNanos;
+
+    private double budget = 0;
+
+    public Hedger(final HedgePolicy policy, final ScheduledExecutorService scheduler) {
+        this.policy = policy;
+        this.scheduler = scheduler;
+        this.latencies = new LatencyWindow(policy.getWindow(), policy.getPercentile());
+        this.minDelayNanos = policy.getMinDelay().nanos();
+    }
+
+    /**
+     * @param nodes the nodes to pick from
+     * @param send  sends the request to the given node
+     * @return a future of the first response
+     */
+    public ListenableFuture<RestResponse> execute(final NodeSet nodes, final Function<RestNode, ListenableFuture<RestResponse>> send) {
+        final long start = System.nanoTime();
+        depositHedge();
+        final RestNode first = nodes.select();
+        final ListenableFuture<RestResponse> primary = nodes.track(first, send.apply(first));
+
+        final long delay = hedgeDelayNanos();
+        if (delay < 0 || nodes.nodes().size() < 2) {
+            Futures.addCallback(primary, recordLatency(start));
+            return primary;
+        }
+
+        final SettableFuture<RestResponse> result = SettableFuture.create();
+        final Attempts attempts = new Attempts(result, start);
+        attempts.reserve();
+        attempts.add(primary);
+
+        final ScheduledFuture<?> timer = scheduler.schedule(new Runnable() {
+            @Override public void run() {
+                if (result.isDone() || !takeHedge()) {
+                    return;
+                }
+                final RestNode second = nodes.selectExcluding(first);
+                if (second == null) {
+                    return;
+                }
+                // count the hedge before sending it, so a primary failing in the meantime waits for it
+                attempts.reserve();
+                final ListenableFuture<RestResponse> hedge;
+                try {
+                    hedge = nodes.track(second, send.apply(second));
+                } catch (RuntimeException e) {
+                    attempts.abandon(e);
+                    return;
+                }
+                attempts.add(hedge);
+            }
+        }, delay, TimeUnit.NANOSECONDS);
+
+        result.addListener(new Runnable() {
+            @Override public void run() {
+                timer.cancel(false);
+                attempts.cancelAll();
+            }
+        }, sameThreadExecutor());
+        return result;
+    }
+
+    /** The delay after which requests are currently hedged, or -1 if we don't know enough yet. */
+    public long hedgeDelayNanos() {
+        if (latencies.size() < policy.getMinSamples()) {
+            return -1;
+        }
+        final long percentile = latencies.percentileNanos();
+        return percentile < 0 ? -1 : Math.max(minDelayNanos, percentile);
+    }
+
+    private synchronized boolean takeHedge() {
+        if (budget >= 1) {
+            budget -= 1;
+            return true;
+        }
+        return false;
+    }
+
+    /** Every request earns a fraction of a hedge, up to a small burst. */
+    private synchronized void depositHedge() {
+        budget = Math.min(MAX_BUDGET, budget + policy.getMaxHedgeRatio());
+    }
+
+    private FutureCallback<RestResponse> recordLatency(final long start) {
+        return new FutureCallback<RestResponse>() {
+            @Override public void onSuccess(final RestResponse result) {
+                latencies.record(System.nanoTime() - start);
+            }
+
+            @Override public void onFailure(final Throwable t) { }
+        };
+    }
+
+    /**
+     * The attempts at one request, racing to complete the result.
+     */
+    private class Attempts {
+        private final SettableFuture<RestResponse> result;
+        private final long start;
+        private final AtomicInteger pending = new AtomicInteger();
+        private final ListenableFuture<?>[] started = new ListenableFuture<?>[2];
+        private int count = 0;
+        private volatile Throwable failure;
+
+        private Attempts(final SettableFuture<RestResponse> result, final long start) {
+            this.result = result;
+            this.start = start;
+        }
+
+        /** Count an attempt that's about to be sent; it must then be {@link #add added} or {@link #abandon abandoned}. */
+        private void reserve() {
+            pending.incrementAndGet();
+        }
+
+        /** The reserved attempt couldn't be sent. If it was the last one, the request fails with the first failure we saw. */
+        private void abandon(final Throwable t) {
+            if (failure == null) {
+                failure = t;
+            }
+            if (pending.decrementAndGet() == 0) {
+                result.setException(failure);
+            }
+        }
+
+        private void add(final ListenableFuture<RestResponse> attempt) {
+            synchronized (this) {
+                started[count++] = attempt;
+            }
+            Futures.addCallback(attempt, new FutureCallback<RestResponse>() {
+                @Override public void onSuccess(final RestResponse response) {
+                    pending.decrementAndGet();
+                    if (result.set(response)) {
+                        latencies.record(System.nanoTime() - start);
+                    } else {
+                        // we lost the race, and nobody else will read this
+                        closeQuietly(response.response());
+                    }
+                }
+
+                @Override public void onFailure(final Throwable t) {
+                    if (pending.decrementAndGet() == 0) {
+                        result.setException(t);
+                    } else if (failure == null) {
+                        failure = t;
+                    }
+                }
+            });
+            if (result.isDone()) {
+                // we lost a race with the result completing before this attempt was registered
+                attempt.cancel(true);
+            }
+        }
+
+        private void cancelAll() {
+            final ListenableFuture<?>[] toCancel;
+            synchronized (this) {
+                toCancel = started.clone();
+            }
+            for (ListenableFuture<?> attempt : toCancel) {
+                if (attempt != null) {
+                    attempt.cancel(true);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package com.bazaarvoice.elasticsearch.client.core.hedge;
+
+import java.util.Arrays;
+
+/**
+ * The most recent latencies, and a percentile over them.
+ * <p/>
+ * Sorting the window on every request would cost more than the hedging saves, so
+ * the percentile is only recomputed once every tenth of a window.
+ */
+class LatencyWindow {
+    private final long[] latencies;
+    private final double percentile;
+    private final int recomputeEvery;
+
+    private int next = 0;
+    private int size = 0;
+    private int sinceRecompute = 0;
+    private volatile long percentileNanos = -1;
+
+    LatencyWindow(final int window, final double percentile) {
+        this.latencies = new long[window];
+        this.percentile = percentile;
+        this.recomputeEvery = Math.max(1, window / 10);
+    }
+
+    synchronized void record(final long nanos) {
+        latencies[next] = nanos;
+        next = (next + 1) % latencies.length;
+        size = Math.min(size + 1, latencies.length);
+        if (++sinceRecompute >= recomputeEvery) {
+            sinceRecompute = 0;
+            final long[] sorted = Arrays.copyOf(latencies, size);
+            Arrays.sort(sorted);
+            percentileNanos = sorted[Math.min(size - 1, (int) Math.ceil(percentile / 100 * size) - 1)];
+        }
+    }
+
+    synchronized int size() {
+        return size;
+    }
+
+    /** The percentile as of the last recomputation, or -1 if there hasn't been one. */
+    long percentileNanos() {
+        return percentileNanos;
+    }
+}
@@ -0,0 +1,18 @@
+package com.bazaarvoice.elasticsearch.client.core.limit;
+
+/**
+ * An algorithm for how many requests may be in flight at once, adjusted from what each request experiences.
+ * <p/>
+ * {@link #onSample} may be called concurrently.
+ */
+public interface AdaptiveLimit {
+    /** The current number of permits. */
+    public int limit();
+
+    /**
+     * @param rttNanos how long the request took, not counting any time it spent queued
+     * @param inFlight how many requests were in flight when it started (including itself)
+     * @param dropped  true if the request was rejected (a 429 or 503) or failed outright
+     */
+    public void onSample(long rttNanos, int inFlight, boolean dropped);
+}
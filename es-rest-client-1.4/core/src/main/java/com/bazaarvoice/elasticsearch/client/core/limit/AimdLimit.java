@@ -0,0 +1,52 @@
+package com.bazaarvoice.elasticsearch.client.core.limit;
+
+import org.elasticsearch.common.unit.TimeValue;
+
+import static org.elasticsearch.common.Preconditions.checkArgument;
+
+/**
+ * Additive increase, multiplicative decrease.
+ * <p/>
+ * The limit grows by one for each successful request that was using at least half the permits, and is
+ * multiplied by {@code backoffRatio} whenever a request is dropped or takes longer than {@code latencyThreshold}.
+ * Requests that weren't using the permits don't grow the limit, so a quiet period can't inflate it.
+ */
+public class AimdLimit implements AdaptiveLimit {
+    private final int minLimit;
+    private final int maxLimit;
+    private final double backoffRatio;
+    private final long latencyThresholdNanos;
+
+    private double limit;
+
+    /** Starts at 20, between 1 and 200, backs off by 10%, and treats requests over 5 seconds as dropped. */
+    public AimdLimit() {
+        this(20, 1, 200, 0.9, TimeValue.timeValueSeconds(5));
+    }
+
+    public AimdLimit(final int initialLimit, final int minLimit, final int maxLimit, final double backoffRatio, final TimeValue latencyThreshold) {
+        checkArgument(minLimit > 0 && minLimit <= initialLimit && initialLimit <= maxLimit, "need 0 < minLimit <= initialLimit <= maxLimit");
+        checkArgument(backoffRatio > 0 && backoffRatio < 1, "backoffRatio must be in (0, 1)");
+        this.limit = initialLimit;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.backoffRatio = backoffRatio;
+        this.latencyThresholdNanos = latencyThreshold.nanos();
+    }
+
+    @Override public synchronized int limit() {
+        return (int) limit;
+    }
+
+    @Override public synchronized void onSample(final long rttNanos, final int inFlight, final boolean dropped) {
+        if (dropped || rttNanos > latencyThresholdNanos) {
+            limit = Math.max(minLimit, limit * backoffRatio);
+        } else if (inFlight * 2 >= limit) {
+            limit = Math.min(maxLimit, limit + 1);
+        }
+    }
+
+    @Override public String toString() {
+        return "AimdLimit{limit=" + limit() + '}';
+    }
+}
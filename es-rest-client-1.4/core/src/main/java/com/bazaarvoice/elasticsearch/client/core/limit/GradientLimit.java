@@ -0,0 +1,73 @@
+package com.bazaarvoice.elasticsearch.client.core.limit;
+
+import static org.elasticsearch.common.Preconditions.checkArgument;
+
+/**
+ * Follows the ratio between the long-run latency and the latency right now.
+ * <p/>
+ * While requests take about as long as they usually do, the gradient is 1 and the limit grows by
+ * about its square root (room for a small queue). Once they start taking longer (the cluster is queueing them),
+ * the gradient drops below 1 and the limit shrinks in proportion, so throughput stays near the knee of
+ * the latency curve instead of sliding into queueing delay. Drops shrink the limit too.
+ * <p/>
+ * {@code tolerance} is how much slower than usual requests may get before we back off.
+ */
+public class GradientLimit implements AdaptiveLimit {
+    private static final double SHORT_WINDOW = 10;
+    private static final double LONG_WINDOW = 600;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final double smoothing;
+    private final double tolerance;
+
+    private double limit;
+    private double shortRtt = 0;
+    private double longRtt = 0;
+
+    /** Starts at 20, between 1 and 200, with smoothing 0.2 and tolerance 1.5. */
+    public GradientLimit() {
+        this(20, 1, 200, 0.2, 1.5);
+    }
+
+    public GradientLimit(final int initialLimit, final int minLimit, final int maxLimit, final double smoothing, final double tolerance) {
+        checkArgument(minLimit > 0 && minLimit <= initialLimit && initialLimit <= maxLimit, "need 0 < minLimit <= initialLimit <= maxLimit");
+        checkArgument(smoothing > 0 && smoothing <= 1, "smoothing must be in (0, 1]");
+        checkArgument(tolerance >= 1, "tolerance must be at least 1");
+        this.limit = initialLimit;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.smoothing = smoothing;
+        this.tolerance = tolerance;
+    }
+
+    @Override public synchronized int limit() {
+        return (int) limit;
+    }
+
+    @Override public synchronized void onSample(final long rttNanos, final int inFlight, final boolean dropped) {
+        if (dropped) {
+            limit = Math.max(minLimit, limit * 0.9);
+            return;
+        }
+
+        shortRtt = shortRtt == 0 ? rttNanos : shortRtt + (rttNanos - shortRtt) / SHORT_WINDOW;
+        longRtt = longRtt == 0 ? rttNanos : longRtt + (rttNanos - longRtt) / LONG_WINDOW;
+        if (longRtt > 2 * shortRtt) {
+            // latency has come down for good; let the long-run average catch up faster
+            longRtt *= 0.95;
+        }
+
+        final double gradient = Math.max(0.5, Math.min(1.0, tolerance * longRtt / shortRtt));
+        double newLimit = limit * gradient + Math.sqrt(limit);
+        if (inFlight * 2 < limit) {
+            // we weren't using the permits we have, so this says nothing about needing more
+            newLimit = Math.min(newLimit, limit);
+        }
+        limit = Math.max(minLimit, Math.min(maxLimit, limit * (1 - smoothing) + newLimit * smoothing));
+    }
+
+    @Override public String toString() {
+        return "GradientLimit{limit=" + limit() + '}';
+    }
+}
@@ -0,0 +1,175 @@
+package com.bazaarvoice.elasticsearch.client.core.limit;
+
+import com.bazaarvoice.elasticsearch.client.core.spi.RestExecutor;
+import com.bazaarvoice.elasticsearch.client.core.spi.RestResponse;
+import com.bazaarvoice.elasticsearch.client.core.util.ForwardingRestExecutor;
+import org.elasticsearch.common.collect.Lists;
+import org.elasticsearch.common.util.concurrent.EsRejectedExecutionException;
+import org.elasticsearch.common.util.concurrent.FutureCallback;
+import org.elasticsearch.common.util.concurrent.Futures;
+import org.elasticsearch.common.util.concurrent.ListenableFuture;
+import org.elasticsearch.common.util.concurrent.SettableFuture;
+
+import java.net.URL;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+
+import static com.bazaarvoice.elasticsearch.client.core.util.InputStreams.closeQuietly;
+import static org.elasticsearch.common.Preconditions.checkArgument;
+import static org.elasticsearch.common.util.concurrent.MoreExecutors.sameThreadExecutor;
+
+/**
+ * Wraps any {@link RestExecutor}, keeping the number of requests in flight under an {@link AdaptiveLimit}.
+ * <p/>
+ * Requests beyond the limit wait in a FIFO queue of at most {@code maxQueued} (zero means fail fast), and are
+ * sent as earlier ones finish. Requests that don't fit in the queue fail right away with an
+ * {@link EsRejectedExecutionException}, just as if the cluster's own thread pool had rejected them.
+ * <p/>
+ * The limit covers everything sent through this executor, so use one per cluster.
+ */
+public class LimitingRestExecutor extends ForwardingRestExecutor {
+    private final AdaptiveLimit limit;
+    private final int maxQueued;
+
+    private final Object lock = new Object();
+    private final Deque<Pending> queue = new ArrayDeque<Pending>();
+    private int inFlight = 0;
+
+    public LimitingRestExecutor(final RestExecutor delegate, final AdaptiveLimit limit, final int maxQueued) {
+        super(delegate);
+        checkArgument(maxQueued >= 0, "maxQueued must not be negative");
+        this.limit = limit;
+        this.maxQueued = maxQueued;
+    }
+
+    public int limit() {
+        return limit.limit();
+    }
+
+    public int inFlight() {
+        synchronized (lock) {
+            return inFlight;
+        }
+    }
+
+    public int queued() {
+        synchronized (lock) {
+            return queue.size();
+        }
+    }
+
+    @Override protected ListenableFuture<RestResponse> call(final URL url, final Call call) {
+        final int started;
+        synchronized (lock) {
+            if (inFlight < limit.limit()) {
+                started = ++inFlight;
+            } else if (queue.size() < maxQueued) {
+                final Pending pending = new Pending(call);
+                queue.add(pending);
+                return pending.result;
+            } else {
+                return Futures.immediateFailedFuture(new EsRejectedExecutionException(
+                    "rejected request to [" + url + "]: " + inFlight + " in flight (limit " + limit.limit() + ") and " + queue.size() + " queued"));
+            }
+        }
+        return dispatch(call, started);
+    }
+
+    /**
+     * Send a request that already holds a permit.
+     */
+    private ListenableFuture<RestResponse> dispatch(final Call call, final int started) {
+        final long start = System.nanoTime();
+        final ListenableFuture<RestResponse> response;
+        try {
+            response = call.send();
+        } catch (RuntimeException e) {
+            release();
+            throw e;
+        }
+        Futures.addCallback(response, new FutureCallback<RestResponse>() {
+            @Override public void onSuccess(final RestResponse result) {
+                final int status = result.statusCode();
+                limit.onSample(System.nanoTime() - start, started, status == 429 || status == 503);
+                release();
+            }
+
+            @Override public void onFailure(final Throwable t) {
+                if (!response.isCancelled()) {
+                    limit.onSample(System.nanoTime() - start, started, true);
+                }
+                release();
+            }
+        });
+        return response;
+    }
+
+    private void release() {
+        final List<Pending> toDispatch = Lists.newArrayList();
+        final List<Integer> started = Lists.newArrayList();
+        synchronized (lock) {
+            inFlight--;
+            while (inFlight < limit.limit() && !queue.isEmpty()) {
+                final Pending next = queue.poll();
+                if (!next.result.isCancelled()) {
+                    toDispatch.add(next);
+                    started.add(++inFlight);
+                }
+            }
+        }
+        for (int i = 0; i < toDispatch.size(); i++) {
+            toDispatch.get(i).dispatch(started.get(i));
+        }
+    }
+
+    /**
+     * A queued request, and the future its caller is holding.
+     */
+    private class Pending {
+        private final Call call;
+        private final SettableFuture<RestResponse> result = SettableFuture.create();
+
+        private Pending(final Call call) {
+            this.call = call;
+            result.addListener(new Runnable() {
+                @Override public void run() {
+                    if (result.isCancelled()) {
+                        synchronized (lock) {
+                            queue.remove(Pending.this);
+                        }
+                    }
+                }
+            }, sameThreadExecutor());
+        }
+
+        private void dispatch(final int started) {
+            final ListenableFuture<RestResponse> response;
+            try {
+                response = LimitingRestExecutor.this.dispatch(call, started);
+            } catch (RuntimeException e) {
+                result.setException(e);
+                return;
+            }
+            Futures.addCallback(response, new FutureCallback<RestResponse>() {
+                @Override public void onSuccess(final RestResponse restResponse) {
+                    if (!result.set(restResponse)) {
+                        // the caller gave up on it
+                        closeQuietly(restResponse.response());
+                    }
+                }
+
+                @Override public void onFailure(final Throwable t) {
+                    result.setException(t);
+                }
+            });
+            result.addListener(new Runnable() {
+                @Override public void run() {
+                    if (result.isCancelled()) {
+                        response.cancel(true);
+                    }
+                }
+            }, sameThreadExecutor());
+        }
+    }
+}
@@ -0,0 +1,373 @@
+package com.bazaarvoice.elasticsearch.client.core.nodes;
+
+import org.elasticsearch.common.base.Ticker;
+import org.elasticsearch.common.collect.ImmutableList;
+import org.elasticsearch.common.collect.ImmutableSet;
+import org.elasticsearch.common.collect.Lists;
+import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.common.util.concurrent.ConcurrentCollections;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ConcurrentMap;
+
+import static org.elasticsearch.common.Preconditions.checkArgument;
+
+/**
+ * Prefers the nodes that have been answering fastest, and stops sending to nodes that
+ * are much slower or much more error-prone than the rest.
+ * <p/>
+ * For each node we keep an exponentially-weighted moving average of the latency of its successful
+ * requests and of its error rate. To pick a node we take two healthy nodes at random and choose the one
+ * with the lower {@code latency * (outstanding requests + 1)}. Comparing just two keeps concurrent callers
+ * from all piling onto the single fastest node.
+ * <p/>
+ * A node is ejected when its error rate passes {@link Builder#errorRateThreshold} or its latency is more than
+ * {@link Builder#latencyOutlierFactor} times the median of the other healthy nodes, as long as that wouldn't
+ * eject more than {@link Builder#maxEjectedFraction} of the nodes. Once its ejection time is up, the next selection
+ * sends it a single probe request. If the probe succeeds at a normal latency, the node is reinstated with fresh
+ * statistics. Otherwise it is ejected again for twice as long, up to {@link Builder#maxEjectionTime}.
+ * <p/>
+ * If every node is ejected, we pick among all of them rather than fail.
+ * <p/>
+ * The median and the ejected fraction are taken over all of the {@link NodeSet}'s nodes, not just the ones a particular
+ * selection was made from (a hedge, say, leaves out the node already tried).
+ * <p/>
+ * Statistics are dropped for nodes that leave the set, so a node that comes back starts afresh.
+ */
+public class EwmaNodeSelector implements NodeSelector {
+    private final double alpha;
+    private final double latencyOutlierFactor;
+    private final double errorRateThreshold;
+    private final int minSamples;
+    private final long baseEjectionNanos;
+    private final long maxEjectionNanos;
+    private final double maxEjectedFraction;
+    private final Ticker ticker;
+
+    private final ConcurrentMap<RestNode, Stats> stats = ConcurrentCollections.newConcurrentMap();
+    private final Random random = new Random();
+    // the whole set, which ejections and outliers are judged against. What select() is given may be only part of it.
+    private volatile List<RestNode> allNodes = ImmutableList.of();
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /** A selector with the default settings. */
+    public EwmaNodeSelector() {
+        this(builder());
+    }
+
+    private EwmaNodeSelector(final Builder builder) {
+        this.alpha = builder.alpha;
+        this.latencyOutlierFactor = builder.latencyOutlierFactor;
+        this.errorRateThreshold = builder.errorRateThreshold;
+        this.minSamples = builder.minSamples;
+        this.baseEjectionNanos = builder.baseEjectionTime.nanos();
+        this.maxEjectionNanos = builder.maxEjectionTime.nanos();
+        this.maxEjectedFraction = builder.maxEjectedFraction;
+        this.ticker = builder.ticker;
+    }
+
+    @Override public RestNode select(final List<RestNode> nodes) {
+        final long now = ticker.read();
+
+        final List<RestNode> healthy = Lists.newArrayListWithCapacity(nodes.size());
+        for (RestNode node : nodes) {
+            final Stats nodeStats = stats(node);
+            synchronized (nodeStats) {
+                if (!nodeStats.ejected) {
+                    healthy.add(node);
+                } else if (now - nodeStats.ejectedUntil >= 0) {
+                    // time for a probe. If we never hear back from it, allow another one after a while.
+                    nodeStats.probes++;
+                    nodeStats.ejectedUntil = now + baseEjectionNanos;
+                    return node;
+                }
+            }
+        }
+
+        final List<RestNode> candidates = healthy.isEmpty() ? nodes : healthy;
+        if (candidates.size() == 1) {
+            return candidates.get(0);
+        }
+        final int first = random.nextInt(candidates.size());
+        final int second = (first + 1 + random.nextInt(candidates.size() - 1)) % candidates.size();
+        final RestNode a = candidates.get(first);
+        final RestNode b = candidates.get(second);
+        return stats(a).cost() <= stats(b).cost() ? a : b;
+    }
+
+    @Override public void onNodesChanged(final List<RestNode> nodes) {
+        allNodes = nodes;
+        stats.keySet().retainAll(ImmutableSet.copyOf(nodes));
+    }
+
+    @Override public void onRequestStart(final RestNode node) {
+        final Stats nodeStats = stats(node);
+        synchronized (nodeStats) {
+            nodeStats.outstanding++;
+        }
+    }
+
+    @Override public void onRequestEnd(final RestNode node, final long elapsedNanos, final boolean success) {
+        final Stats nodeStats = stats.get(node);
+        if (nodeStats == null) {
+            // the node left the set while this was in flight
+            return;
+        }
+        final boolean probe;
+        final double latency;
+        final double errorRate;
+        synchronized (nodeStats) {
+            if (nodeStats.outstanding > 0) {
+                // otherwise the node left and came back, with fresh stats this request was never part of
+                nodeStats.outstanding--;
+            }
+            probe = nodeStats.ejected;
+            if (probe) {
+                if (nodeStats.probes == 0) {
+                    // a straggler from before the ejection; it tells us nothing new
+                    return;
+                }
+                nodeStats.probes--;
+                latency = elapsedNanos;
+                errorRate = success ? 0 : 1;
+            } else {
+                // failures are often fast (connection refused, say), so they must not make a node look quick
+                if (success) {
+                    nodeStats.latency = nodeStats.samples == 0 ? elapsedNanos : alpha * elapsedNanos + (1 - alpha) * nodeStats.latency;
+                }
+                nodeStats.errorRate = alpha * (success ? 0 : 1) + (1 - alpha) * nodeStats.errorRate;
+                nodeStats.samples++;
+                if (nodeStats.samples < minSamples) {
+                    return;
+                }
+                latency = nodeStats.latency;
+                errorRate = nodeStats.errorRate;
+            }
+        }
+
+        // comparing with the other nodes takes their locks, so we must not hold this one meanwhile
+        final boolean unhealthy = errorRate > errorRateThreshold || isLatencyOutlier(node, latency);
+        if (probe) {
+            synchronized (nodeStats) {
+                if (unhealthy) {
+                    eject(nodeStats);
+                } else {
+                    nodeStats.ejected = false;
+                    nodeStats.ejections = 0;
+                    nodeStats.samples = 1;
+                    nodeStats.latency = latency;
+                    nodeStats.errorRate = 0;
+                }
+            }
+        } else if (unhealthy && mayEject()) {
+            synchronized (nodeStats) {
+                if (!nodeStats.ejected) {
+                    eject(nodeStats);
+                }
+            }
+        }
+    }
+
+    @Override public void onRequestCancelled(final RestNode node) {
+        final Stats nodeStats = stats.get(node);
+        if (nodeStats == null) {
+            return;
+        }
+        synchronized (nodeStats) {
+            if (nodeStats.outstanding > 0) {
+                nodeStats.outstanding--;
+            }
+            if (nodeStats.ejected && nodeStats.probes > 0) {
+                // a probe we gave up on. Another is due once the ejection time is up again.
+                nodeStats.probes--;
+            }
+        }
+    }
+
+    /** True if the node is currently ejected. */
+    public boolean isEjected(final RestNode node) {
+        final Stats nodeStats = stats.get(node);
+        if (nodeStats == null) {
+            return false;
+        }
+        synchronized (nodeStats) {
+            return nodeStats.ejected;
+        }
+    }
+
+    /** The node's moving average latency, in nanoseconds. */
+    public double latencyNanos(final RestNode node) {
+        final Stats nodeStats = stats.get(node);
+        if (nodeStats == null) {
+            return 0;
+        }
+        synchronized (nodeStats) {
+            return nodeStats.latency;
+        }
+    }
+
+    /** The node's moving average error rate, between 0 and 1. */
+    public double errorRate(final RestNode node) {
+        final Stats nodeStats = stats.get(node);
+        if (nodeStats == null) {
+            return 0;
+        }
+        synchronized (nodeStats) {
+            return nodeStats.errorRate;
+        }
+    }
+
+    /** How many nodes we're keeping statistics for. */
+    int trackedNodes() {
+        return stats.size();
+    }
+
+    // called holding the node's lock
+    private void eject(final Stats nodeStats) {
+        // past this many doublings the shift would overflow, and we're well past the longest ejection anyway
+        final long ejection = nodeStats.ejections >= Long.numberOfLeadingZeros(baseEjectionNanos) - 1
+            ? maxEjectionNanos
+            : Math.min(maxEjectionNanos, baseEjectionNanos << nodeStats.ejections);
+        nodeStats.ejected = true;
+        nodeStats.ejections++;
+        nodeStats.ejectedUntil = ticker.read() + ejection;
+    }
+
+    private boolean isLatencyOutlier(final RestNode node, final double latency) {
+        final List<Double> others = Lists.newArrayList();
+        for (RestNode other : allNodes) {
+            if (other.equals(node)) {
+                continue;
+            }
+            final Stats otherStats = stats.get(other);
+            if (otherStats == null) {
+                continue;
+            }
+            synchronized (otherStats) {
+                if (!otherStats.ejected && otherStats.samples >= minSamples) {
+                    others.add(otherStats.latency);
+                }
+            }
+        }
+        if (others.isEmpty()) {
+            // nothing to compare against
+            return false;
+        }
+        Collections.sort(others);
+        final double median = others.get(others.size() / 2);
+        return latency > latencyOutlierFactor * median;
+    }
+
+    private boolean mayEject() {
+        final List<RestNode> nodes = allNodes;
+        int ejected = 0;
+        for (RestNode node : nodes) {
+            if (isEjected(node)) {
+                ejected++;
+            }
+        }
+        return ejected + 1 <= maxEjectedFraction * nodes.size();
+    }
+
+    private Stats stats(final RestNode node) {
+        final Stats existing = stats.get(node);
+        if (existing != null) {
+            return existing;
+        }
+        final Stats created = new Stats();
+        final Stats raced = stats.putIfAbsent(node, created);
+        return raced == null ? created : raced;
+    }
+
+    private static class Stats {
+        private int samples = 0;
+        private double latency = 0;
+        private double errorRate = 0;
+        private int outstanding = 0;
+
+        private boolean ejected = false;
+        private int ejections = 0;
+        private long ejectedUntil = 0;
+        private int probes = 0;
+
+        private synchronized double cost() {
+            // nodes we know nothing about cost nothing, so they get tried right away
+            return latency * (outstanding + 1);
+        }
+    }
+
+    public static class Builder {
+        private double alpha = 0.3;
+        private double latencyOutlierFactor = 3;
+        private double errorRateThreshold = 0.5;
+        private int minSamples = 10;
+        private TimeValue baseEjectionTime = TimeValue.timeValueSeconds(30);
+        private TimeValue maxEjectionTime = TimeValue.timeValueMinutes(5);
+        private double maxEjectedFraction = 0.5;
+        private Ticker ticker = Ticker.systemTicker();
+
+        private Builder() {}
+
+        /** How much weight each new sample gets in the moving averages, between 0 and 1. Defaults to 0.3. */
+        public Builder alpha(final double alpha) {
+            checkArgument(alpha > 0 && alpha <= 1, "alpha must be in (0, 1]");
+            this.alpha = alpha;
+            return this;
+        }
+
+        /** Eject nodes whose latency is more than this many times the median. Defaults to 3. */
+        public Builder latencyOutlierFactor(final double latencyOutlierFactor) {
+            checkArgument(latencyOutlierFactor > 1, "latencyOutlierFactor must be greater than 1");
+            this.latencyOutlierFactor = latencyOutlierFactor;
+            return this;
+        }
+
+        /** Eject nodes whose error rate is above this. Defaults to 0.5. */
+        public Builder errorRateThreshold(final double errorRateThreshold) {
+            checkArgument(errorRateThreshold > 0 && errorRateThreshold <= 1, "errorRateThreshold must be in (0, 1]");
+            this.errorRateThreshold = errorRateThreshold;
+            return this;
+        }
+
+        /** Don't judge a node until it has answered this many requests. Defaults to 10. */
+        public Builder minSamples(final int minSamples) {
+            checkArgument(minSamples > 0, "minSamples must be positive");
+            this.minSamples = minSamples;
+            return this;
+        }
+
+        /** How long a node stays out after its first ejection. Defaults to 30 seconds. */
+        public Builder baseEjectionTime(final TimeValue baseEjectionTime) {
+            this.baseEjectionTime = baseEjectionTime;
+            return this;
+        }
+
+        /** The longest a node stays out, no matter how many probes it fails. Defaults to 5 minutes. */
+        public Builder maxEjectionTime(final TimeValue maxEjectionTime) {
+            this.maxEjectionTime = maxEjectionTime;
+            return this;
+        }
+
+        /** Never eject more than this fraction of the nodes. Defaults to 0.5. */
+        public Builder maxEjectedFraction(final double maxEjectedFraction) {
+            checkArgument(maxEjectedFraction >= 0 && maxEjectedFraction <= 1, "maxEjectedFraction must be in [0, 1]");
+            this.maxEjectedFraction = maxEjectedFraction;
+            return this;
+        }
+
+        /** For tests. */
+        Builder ticker(final Ticker ticker) {
+            this.ticker = ticker;
+            return this;
+        }
+
+        public EwmaNodeSelector build() {
+            return new EwmaNodeSelector(this);
+        }
+    }
+}
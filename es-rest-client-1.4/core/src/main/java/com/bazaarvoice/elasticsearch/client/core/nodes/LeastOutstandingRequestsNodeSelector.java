@@ -0,0 +1,89 @@
+package com.bazaarvoice.elasticsearch.client.core.nodes;
+
+import org.elasticsearch.common.collect.ImmutableSet;
+import org.elasticsearch.common.util.concurrent.ConcurrentCollections;
+
+import java.util.List;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Sends each request to the node with the fewest requests currently in flight.
+ * <p/>
+ * Ties are broken round-robin, so an idle cluster still spreads its load.
+ * <p/>
+ * Counts are dropped for nodes that leave the set. Requests to them that were still in flight
+ * don't bring them back when they end.
+ */
+public class LeastOutstandingRequestsNodeSelector implements NodeSelector {
+    private final ConcurrentMap<RestNode, AtomicInteger> outstanding = ConcurrentCollections.newConcurrentMap();
+    private final AtomicInteger next = new AtomicInteger();
+
+    @Override public RestNode select(final List<RestNode> nodes) {
+        final int size = nodes.size();
+        final int start = (next.getAndIncrement() & Integer.MAX_VALUE) % size;
+        RestNode best = null;
+        int bestOutstanding = Integer.MAX_VALUE;
+        for (int i = 0; i < size; i++) {
+            final RestNode node = nodes.get((start + i) % size);
+            final int count = outstanding(node).get();
+            if (count < bestOutstanding) {
+                best = node;
+                bestOutstanding = count;
+            }
+        }
+        return best;
+    }
+
+    @Override public void onNodesChanged(final List<RestNode> nodes) {
+        outstanding.keySet().retainAll(ImmutableSet.copyOf(nodes));
+    }
+
+    @Override public void onRequestStart(final RestNode node) {
+        outstanding(node).incrementAndGet();
+    }
+
+    @Override public void onRequestEnd(final RestNode node, final long elapsedNanos, final boolean success) {
+        finished(node);
+    }
+
+    @Override public void onRequestCancelled(final RestNode node) {
+        finished(node);
+    }
+
+    private void finished(final RestNode node) {
+        final AtomicInteger count = outstanding.get(node);
+        if (count == null) {
+            // the node left the set while this was in flight
+            return;
+        }
+        // it may also have left and come back since, with a fresh count this request was never part of
+        while (true) {
+            final int current = count.get();
+            if (current == 0 || count.compareAndSet(current, current - 1)) {
+                return;
+            }
+        }
+    }
+
+    /** The number of requests currently in flight to the node. */
+    public int outstandingRequests(final RestNode node) {
+        final AtomicInteger count = outstanding.get(node);
+        return count == null ? 0 : count.get();
+    }
+
+    /** How many nodes we're keeping counts for. */
+    int trackedNodes() {
+        return outstanding.size();
+    }
+
+    private AtomicInteger outstanding(final RestNode node) {
+        final AtomicInteger existing = outstanding.get(node);
+        if (existing != null) {
+            return existing;
+        }
+        final AtomicInteger created = new AtomicInteger();
+        final AtomicInteger raced = outstanding.putIfAbsent(node, created);
+        return raced == null ? created : raced;
+    }
+}
@@ -0,0 +1,39 @@
+package com.bazaarvoice.elasticsearch.client.core.nodes;
+
+import java.util.List;
+
+/**
+ * A strategy for picking which node to send each request to.
+ * <p/>
+ * {@link NodeSet} tells the selector when each request starts and finishes, so
+ * implementations can keep whatever per-node statistics they need. All methods may be
+ * called concurrently.
+ */
+public interface NodeSelector extends NodeSetListener {
+    /**
+     * @param nodes the live nodes; never empty
+     * @return the node to send the next request to
+     */
+    public RestNode select(List<RestNode> nodes);
+
+    /**
+     * Called with the set's nodes when it's created, and again whenever they're replaced. Statistics kept for nodes
+     * that are no longer in the set should be dropped here, or a set whose nodes keep changing (see {@link NodeSniffer})
+     * will leak them. Requests to a dropped node may still be in flight, so expect to hear about them afterwards.
+     */
+    @Override public void onNodesChanged(List<RestNode> nodes);
+
+    public void onRequestStart(RestNode node);
+
+    /**
+     * @param elapsedNanos how long the request took
+     * @param success      false if the request failed outright or the node answered that it was overloaded or broken (429 or 5xx).
+     */
+    public void onRequestEnd(RestNode node, long elapsedNanos, boolean success);
+
+    /**
+     * Instead of {@link #onRequestEnd}, for a request we cancelled because another attempt beat it. How long it ran
+     * says nothing about the node, except that it's at least that slow, so it mustn't count as a sample.
+     */
+    public void onRequestCancelled(RestNode node);
+}
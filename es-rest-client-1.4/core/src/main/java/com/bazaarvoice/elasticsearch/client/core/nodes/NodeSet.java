@@ -0,0 +1,163 @@
+package com.bazaarvoice.elasticsearch.client.core.nodes;
+
+import com.bazaarvoice.elasticsearch.client.core.spi.RestResponse;
+import org.elasticsearch.common.Nullable;
+import org.elasticsearch.common.base.Predicate;
+import org.elasticsearch.common.base.Predicates;
+import org.elasticsearch.common.collect.ImmutableList;
+import org.elasticsearch.common.collect.Lists;
+import org.elasticsearch.common.util.concurrent.FutureCallback;
+import org.elasticsearch.common.util.concurrent.Futures;
+import org.elasticsearch.common.util.concurrent.ListenableFuture;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.elasticsearch.common.Preconditions.checkArgument;
+import static org.elasticsearch.common.Preconditions.checkNotNull;
+
+/**
+ * The nodes a {@link com.bazaarvoice.elasticsearch.client.core.RestClient} may send requests to,
+ * and the {@link NodeSelector} that decides between them.
+ * <p/>
+ * The list of nodes can be replaced at any time (say, by something that watches cluster membership);
+ * requests already in flight are unaffected, and each new request sees either the old list or the new one.
+ * <p/>
+ * Nodes can also be taken out of selection without being removed, by setting an availability predicate
+ * (see {@link com.bazaarvoice.elasticsearch.client.core.breaker.CircuitBreakingRestExecutor#availability()}).
+ */
+public class NodeSet {
+    private final AtomicReference<ImmutableList<RestNode>> nodes;
+    private final NodeSelector selector;
+    private final List<NodeSetListener> listeners = new CopyOnWriteArrayList<NodeSetListener>();
+    private volatile Predicate<RestNode> availability = Predicates.alwaysTrue();
+
+    /** A set which always sends to the one node. */
+    public static NodeSet single(final String protocol, final String host, final int port) {
+        return of(new RoundRobinNodeSelector(), RestNode.of(protocol, host, port));
+    }
+
+    public static NodeSet of(final NodeSelector selector, final RestNode... nodes) {
+        return of(selector, Arrays.asList(nodes));
+    }
+
+    public static NodeSet of(final NodeSelector selector, final Collection<RestNode> nodes) {
+        return new NodeSet(selector, nodes);
+    }
+
+    private NodeSet(final NodeSelector selector, final Collection<RestNode> nodes) {
+        this.selector = checkNotNull(selector);
+        this.nodes = new AtomicReference<ImmutableList<RestNode>>(checkNodes(nodes));
+        selector.onNodesChanged(this.nodes.get());
+    }
+
+    /** The current nodes. */
+    public ImmutableList<RestNode> nodes() {
+        return nodes.get();
+    }
+
+    /** Atomically replace the current nodes. */
+    public synchronized void setNodes(final Collection<RestNode> nodes) {
+        // synchronized so the selector and listeners hear about the changes in the order they were made
+        final ImmutableList<RestNode> checked = checkNodes(nodes);
+        this.nodes.set(checked);
+        selector.onNodesChanged(checked);
+        for (NodeSetListener listener : listeners) {
+            listener.onNodesChanged(checked);
+        }
+    }
+
+    /**
+     * Tell the listener about the current nodes now, and about every change to them from then on.
+     */
+    public synchronized void addListener(final NodeSetListener listener) {
+        listeners.add(checkNotNull(listener));
+        listener.onNodesChanged(nodes.get());
+    }
+
+    public NodeSelector selector() {
+        return selector;
+    }
+
+    /**
+     * Only select nodes for which this is true, unless it's true for none of them.
+     */
+    public void setAvailability(final Predicate<RestNode> availability) {
+        this.availability = checkNotNull(availability);
+    }
+
+    /** Pick the node for the next request. */
+    public RestNode select() {
+        final ImmutableList<RestNode> current = nodes.get();
+        final List<RestNode> available = available(current, null);
+        return selector.select(available.isEmpty() ? current : available);
+    }
+
+    /**
+     * Pick a node for a request that shouldn't go to the given one (say, a second attempt).
+     *
+     * @return the node, or null if there is no other available node
+     */
+    @Nullable public RestNode selectExcluding(final RestNode exclude) {
+        final List<RestNode> others = available(nodes.get(), exclude);
+        return others.isEmpty() ? null : selector.select(others);
+    }
+
+    private List<RestNode> available(final ImmutableList<RestNode> current, @Nullable final RestNode exclude) {
+        final Predicate<RestNode> available = availability;
+        boolean all = exclude == null;
+        for (int i = 0; all && i < current.size(); i++) {
+            all = available.apply(current.get(i));
+        }
+        if (all) {
+            // the usual case; don't copy
+            return current;
+        }
+        final List<RestNode> result = Lists.newArrayListWithCapacity(current.size());
+        for (RestNode node : current) {
+            if (!node.equals(exclude) && available.apply(node)) {
+                result.add(node);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Report the start of a request to the node now, and its end when the future completes.
+     *
+     * @return the same future, for chaining
+     */
+    public ListenableFuture<RestResponse> track(final RestNode node, final ListenableFuture<RestResponse> response) {
+        final long start = System.nanoTime();
+        selector.onRequestStart(node);
+        Futures.addCallback(response, new FutureCallback<RestResponse>() {
+            @Override public void onSuccess(final RestResponse result) {
+                final int status = result.statusCode();
+                selector.onRequestEnd(node, System.nanoTime() - start, status < 500 && status != 429);
+            }
+
+            @Override public void onFailure(final Throwable t) {
+                if (response.isCancelled()) {
+                    // we only cancel requests that have been beaten by another (see Hedger)
+                    selector.onRequestCancelled(node);
+                } else {
+                    selector.onRequestEnd(node, System.nanoTime() - start, false);
+                }
+            }
+        });
+        return response;
+    }
+
+    private static ImmutableList<RestNode> checkNodes(final Collection<RestNode> nodes) {
+        final ImmutableList<RestNode> copy = ImmutableList.copyOf(nodes);
+        checkArgument(!copy.isEmpty(), "There must be at least one node");
+        return copy;
+    }
+
+    @Override public String toString() {
+        return "NodeSet" + nodes.get();
+    }
+}
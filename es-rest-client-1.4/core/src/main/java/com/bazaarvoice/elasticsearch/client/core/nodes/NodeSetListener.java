@@ -0,0 +1,15 @@
+package com.bazaarvoice.elasticsearch.client.core.nodes;
+
+import java.util.List;
+
+/**
+ * Hears about the nodes of a {@link NodeSet} changing. Anything that keeps per-node state should drop it here for
+ * nodes that are no longer in the set, or a set whose nodes keep changing (see {@link NodeSniffer}) will leak it.
+ */
+public interface NodeSetListener {
+    /**
+     * Called with the set's current nodes when the listener is added, and again whenever they're replaced. Requests
+     * to a dropped node may still be in flight, so expect to hear about them afterwards.
+     */
+    public void onNodesChanged(List<RestNode> nodes);
+}
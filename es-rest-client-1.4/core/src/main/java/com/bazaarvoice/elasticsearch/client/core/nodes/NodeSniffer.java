@@ -0,0 +1,189 @@
+package com.bazaarvoice.elasticsearch.client.core.nodes;
+
+import com.bazaarvoice.elasticsearch.client.core.spi.RestExecutor;
+import org.elasticsearch.action.FromXContent;
+import org.elasticsearch.action.XContentResponseTransform;
+import org.elasticsearch.common.Nullable;
+import org.elasticsearch.common.collect.ImmutableList;
+import org.elasticsearch.common.logging.ESLogger;
+import org.elasticsearch.common.logging.Loggers;
+import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.common.util.concurrent.FutureCallback;
+import org.elasticsearch.common.util.concurrent.Futures;
+import org.elasticsearch.common.util.concurrent.ListenableFuture;
+
+import java.io.Closeable;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import static com.bazaarvoice.elasticsearch.client.core.util.MapFunctions.nodeMapValue;
+import static com.bazaarvoice.elasticsearch.client.core.util.MapFunctions.nodeStringValue;
+import static org.elasticsearch.common.util.concurrent.MoreExecutors.sameThreadExecutor;
+
+/**
+ * Keeps a {@link NodeSet} up to date with the nodes actually in the cluster.
+ * <p/>
+ * Every interval, it asks one of the current nodes for {@code _nodes/http} (through the same
+ * {@link RestExecutor} the client uses) and replaces the set's nodes with the http publish addresses
+ * it gets back. Discovered nodes use the protocol of the node that was asked.
+ * <p/>
+ * If a sniff fails or finds no http-enabled nodes, the current list is left alone.
+ * The next sniff is scheduled once the previous one finishes, so sniffs never overlap.
+ * <p/>
+ * You give us the scheduler, so you also own its lifecycle. {@link #close()} just stops sniffing.
+ */
+public class NodeSniffer implements Closeable {
+    private static final ESLogger LOGGER = Loggers.getLogger(NodeSniffer.class);
+
+    private final NodeSet nodes;
+    private final RestExecutor executor;
+    private final ScheduledExecutorService scheduler;
+    private final TimeValue interval;
+
+    private volatile boolean closed = false;
+    private volatile ScheduledFuture<?> next;
+
+    /**
+     * Sniff right away, and then every interval until closed.
+     */
+    public static NodeSniffer start(final NodeSet nodes, final RestExecutor executor, final ScheduledExecutorService scheduler, final TimeValue interval) {
+        final NodeSniffer sniffer = new NodeSniffer(nodes, executor, scheduler, interval);
+        sniffer.schedule(0);
+        return sniffer;
+    }
+
+    private NodeSniffer(final NodeSet nodes, final RestExecutor executor, final ScheduledExecutorService scheduler, final TimeValue interval) {
+        this.nodes = nodes;
+        this.executor = executor;
+        this.scheduler = scheduler;
+        this.interval = interval;
+    }
+
+    /**
+     * Sniff once, now.
+     *
+     * @return a future of the nodes found; these have already been swapped into the node set if there were any
+     */
+    public ListenableFuture<List<RestNode>> sniff() {
+        final RestNode node = nodes.select();
+        final ListenableFuture<List<RestNode>> sniffed = Futures.transform(
+            nodes.track(node, executor.get(node.url().path("_nodes", "http").url())),
+            new XContentResponseTransform<List<RestNode>>(new FromXContent<List<RestNode>>() {
+                @Override public List<RestNode> fromXContent(final Map<String, Object> map) {
+                    // swap them in before the future completes, so whoever's waiting on it sees the new nodes
+                    final List<RestNode> result = nodesFromXContent(node.getProtocol(), map);
+                    if (result.isEmpty()) {
+                        LOGGER.warn("Sniffing {} found no nodes with http enabled. Keeping {}", node, nodes);
+                    } else {
+                        nodes.setNodes(result);
+                    }
+                    return result;
+                }
+            }));
+
+        Futures.addCallback(sniffed, new FutureCallback<List<RestNode>>() {
+            @Override public void onSuccess(final List<RestNode> result) {}
+
+            @Override public void onFailure(final Throwable t) {
+                LOGGER.warn("Failed to sniff nodes from {}. Keeping {}", t, node, nodes);
+            }
+        });
+        return sniffed;
+    }
+
+    @Override public void close() {
+        closed = true;
+        final ScheduledFuture<?> scheduled = next;
+        if (scheduled != null) {
+            scheduled.cancel(false);
+        }
+    }
+
+    private void schedule(final long delayMillis) {
+        if (closed) {
+            return;
+        }
+        next = scheduler.schedule(new Runnable() {
+            @Override public void run() {
+                final Runnable scheduleNext = new Runnable() {
+                    @Override public void run() {
+                        schedule(interval.millis());
+                    }
+                };
+                try {
+                    sniff().addListener(scheduleNext, sameThreadExecutor());
+                } catch (RuntimeException e) {
+                    LOGGER.warn("Failed to start sniffing nodes", e);
+                    scheduleNext.run();
+                }
+            }
+        }, delayMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * The inverse of {@link org.elasticsearch.rest.action.admin.cluster.node.info.RestNodesInfoAction} with the http metric
+     */
+    static List<RestNode> nodesFromXContent(final String protocol, final Map<String, Object> map) {
+        final ImmutableList.Builder<RestNode> result = ImmutableList.builder();
+        if (!map.containsKey("nodes")) {
+            return result.build();
+        }
+        for (Object nodeInfo : nodeMapValue(map.get("nodes"), String.class, Object.class).values()) {
+            final Map<String, Object> info = nodeMapValue(nodeInfo, String.class, Object.class);
+            if (!info.containsKey("http")) {
+                // this node doesn't serve http
+                continue;
+            }
+            final Object address = nodeMapValue(info.get("http"), String.class, Object.class).get("publish_address");
+            final RestNode node = address == null ? null : fromPublishAddress(protocol, nodeStringValue(address));
+            if (node == null) {
+                LOGGER.warn("Ignoring node with unrecognized http publish address [{}]", address);
+            } else {
+                result.add(node);
+            }
+        }
+        return result.build();
+    }
+
+    /**
+     * Understands the 1.x format {@code inet[hostname/ip:port]} (preferring the hostname, when there is one)
+     * as well as a plain {@code host:port}.
+     *
+     * @return the node, or null if the address can't be understood
+     */
+    @Nullable static RestNode fromPublishAddress(final String protocol, final String publishAddress) {
+        String address = publishAddress.trim();
+        if (address.startsWith("inet[") && address.endsWith("]")) {
+            address = address.substring("inet[".length(), address.length() - 1);
+        }
+        final int colon = address.lastIndexOf(':');
+        if (colon <= 0 || colon == address.length() - 1) {
+            return null;
+        }
+        final int port;
+        try {
+            port = Integer.parseInt(address.substring(colon + 1));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+
+        String host = address.substring(0, colon);
+        final int slash = host.indexOf('/');
+        if (slash == 0) {
+            host = host.substring(1);
+        } else if (slash > 0) {
+            host = host.substring(0, slash);
+        }
+        // java.net.URL brackets ipv6 literals itself
+        if (host.startsWith("[") && host.endsWith("]")) {
+            host = host.substring(1, host.length() - 1);
+        }
+        if (host.isEmpty()) {
+            return null;
+        }
+        return RestNode.of(protocol, host, port);
+    }
+}
@@ -0,0 +1,66 @@
+package com.bazaarvoice.elasticsearch.client.core.nodes;
+
+import com.bazaarvoice.elasticsearch.client.core.util.UrlBuilder;
+
+import java.net.URL;
+
+import static org.elasticsearch.common.Preconditions.checkNotNull;
+
+/**
+ * The address of one node's http endpoint.
+ */
+public final class RestNode {
+    private final String protocol;
+    private final String host;
+    private final int port;
+
+    public static RestNode of(final String protocol, final String host, final int port) {
+        return new RestNode(protocol, host, port);
+    }
+
+    /** The node a url points at. */
+    public static RestNode of(final URL url) {
+        return new RestNode(url.getProtocol(), url.getHost(), url.getPort() == -1 ? url.getDefaultPort() : url.getPort());
+    }
+
+    private RestNode(final String protocol, final String host, final int port) {
+        this.protocol = checkNotNull(protocol);
+        this.host = checkNotNull(host);
+        this.port = port;
+    }
+
+    public String getProtocol() {
+        return protocol;
+    }
+
+    public String getHost() {
+        return host;
+    }
+
+    public int getPort() {
+        return port;
+    }
+
+    /** A url builder already pointed at this node. */
+    public UrlBuilder url() {
+        return UrlBuilder.create().protocol(protocol).host(host).port(port);
+    }
+
+    @Override public boolean equals(final Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        final RestNode restNode = (RestNode) o;
+        return port == restNode.port && protocol.equals(restNode.protocol) && host.equals(restNode.host);
+    }
+
+    @Override public int hashCode() {
+        int result = protocol.hashCode();
+        result = 31 * result + host.hashCode();
+        result = 31 * result + port;
+        return result;
+    }
+
+    @Override public String toString() {
+        return protocol + "://" + host + ":" + port;
+    }
+}
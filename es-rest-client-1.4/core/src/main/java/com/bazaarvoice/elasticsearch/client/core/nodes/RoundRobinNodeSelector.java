@@ -0,0 +1,24 @@
+package com.bazaarvoice.elasticsearch.client.core.nodes;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Sends each request to the next node in the list.
+ */
+public class RoundRobinNodeSelector implements NodeSelector {
+    private final AtomicInteger next = new AtomicInteger();
+
+    @Override public RestNode select(final List<RestNode> nodes) {
+        // mask off the sign bit so the index stays positive when the counter wraps
+        return nodes.get((next.getAndIncrement() & Integer.MAX_VALUE) % nodes.size());
+    }
+
+    @Override public void onNodesChanged(final List<RestNode> nodes) { }
+
+    @Override public void onRequestStart(final RestNode node) { }
+
+    @Override public void onRequestEnd(final RestNode node, final long elapsedNanos, final boolean success) { }
+
+    @Override public void onRequestCancelled(final RestNode node) { }
+}
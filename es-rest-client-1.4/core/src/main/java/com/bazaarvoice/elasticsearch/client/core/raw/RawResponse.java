@@ -0,0 +1,36 @@
+package com.bazaarvoice.elasticsearch.client.core.raw;
+
+import org.elasticsearch.common.Nullable;
+
+import java.io.InputStream;
+
+/**
+ * A response from ES exactly as it came back, for callers that just pass it along.
+ * <p/>
+ * The body is the executor's own response stream (a pooled buffer, with some executors), so it's yours to close.
+ */
+public class RawResponse {
+    private final int statusCode;
+    @Nullable private final String contentType;
+    private final InputStream body;
+
+    public RawResponse(final int statusCode, @Nullable final String contentType, final InputStream body) {
+        this.statusCode = statusCode;
+        this.contentType = contentType;
+        this.body = body;
+    }
+
+    public int getStatusCode() {
+        return statusCode;
+    }
+
+    /** the response's content type, e.g. {@code application/json; charset=UTF-8}, if it had one */
+    @Nullable public String getContentType() {
+        return contentType;
+    }
+
+    /** the body, which you must close when you're done with it */
+    public InputStream getBody() {
+        return body;
+    }
+}
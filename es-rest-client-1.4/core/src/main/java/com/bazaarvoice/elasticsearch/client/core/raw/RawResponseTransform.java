@@ -0,0 +1,51 @@
+package com.bazaarvoice.elasticsearch.client.core.raw;
+
+import com.bazaarvoice.elasticsearch.client.core.spi.RestResponse;
+import com.bazaarvoice.elasticsearch.client.core.util.InputStreams;
+import org.elasticsearch.ElasticSearchExceptionHelper;
+import org.elasticsearch.common.base.Function;
+import org.elasticsearch.common.base.Joiner;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.xcontent.XContentHelper;
+
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * Hands the response back untouched, unless it's an error.
+ * <p/>
+ * Successful responses aren't read at all. Unsuccessful ones (which are small) are read, and if they have an
+ * {@code error}, it's thrown just as it would be for a parsed response. Otherwise (a get of a missing document, say)
+ * the bytes we read are handed back.
+ */
+public class RawResponseTransform implements Function<RestResponse, RawResponse> {
+    public static final RawResponseTransform INSTANCE = new RawResponseTransform();
+
+    private RawResponseTransform() {}
+
+    @Override public RawResponse apply(final RestResponse restResponse) {
+        final String contentType = restResponse.contentTypeLowerCase().isEmpty() ? null : Joiner.on(",").join(restResponse.contentTypeLowerCase());
+        if (restResponse.isSuccess()) {
+            return new RawResponse(restResponse.statusCode(), contentType, restResponse.response());
+        }
+
+        final BytesReference body;
+        try {
+            body = InputStreams.readStrippingNullChars(restResponse);
+        } catch (IOException e) {
+            // FIXME: which exception to use? It should match ES clients if possible. see https://github.com/bazaarvoice/es-client-java/issues/3
+            throw new RuntimeException(e);
+        }
+        final Map<String, Object> map;
+        try {
+            map = XContentHelper.convertToMap(body, false).v2();
+        } catch (RuntimeException e) {
+            // not xcontent, so it can't be one of ES's errors. Let the caller have it as it is.
+            return new RawResponse(restResponse.statusCode(), contentType, InputStreams.of(body));
+        }
+        if (map.containsKey("error")) {
+            throw ElasticSearchExceptionHelper.getProperException(map);
+        }
+        return new RawResponse(restResponse.statusCode(), contentType, InputStreams.of(body));
+    }
+}
@@ -0,0 +1,115 @@
+package com.bazaarvoice.elasticsearch.client.core.retry;
+
+import com.bazaarvoice.elasticsearch.client.core.spi.RestResponse;
+import org.elasticsearch.common.base.Supplier;
+import org.elasticsearch.common.util.concurrent.FutureCallback;
+import org.elasticsearch.common.util.concurrent.Futures;
+import org.elasticsearch.common.util.concurrent.ListenableFuture;
+import org.elasticsearch.common.util.concurrent.SettableFuture;
+
+import java.util.Random;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static com.bazaarvoice.elasticsearch.client.core.util.InputStreams.closeQuietly;
+import static org.elasticsearch.common.util.concurrent.MoreExecutors.sameThreadExecutor;
+
+/**
+ * Sends requests, retrying them according to a {@link RetryPolicy}.
+ * <p/>
+ * Retries are scheduled on the given scheduler, so no thread sleeps through the backoff.
+ * When we give up, the caller gets the last response (which the usual response handling
+ * turns into an exception) or the last failure.
+ */
+public class Retrier {
+    private final RetryPolicy policy;
+    private final ScheduledExecutorService scheduler;
+    private final Random random = new Random();
+
+    public Retrier(final RetryPolicy policy, final ScheduledExecutorService scheduler) {
+        this.policy = policy;
+        this.scheduler = scheduler;
+    }
+
+    /**
+     * @param attempt starts one attempt at the request each time it's called
+     * @return a future of the final response
+     */
+    public ListenableFuture<RestResponse> execute(final Supplier<ListenableFuture<RestResponse>> attempt) {
+        final SettableFuture<RestResponse> result = SettableFuture.create();
+        new Attempts(result, attempt).attempt(0);
+        return result;
+    }
+
+    private class Attempts {
+        private final SettableFuture<RestResponse> result;
+        private final Supplier<ListenableFuture<RestResponse>> attempt;
+        private final long start = System.nanoTime();
+
+        private Attempts(final SettableFuture<RestResponse> result, final Supplier<ListenableFuture<RestResponse>> attempt) {
+            this.result = result;
+            this.attempt = attempt;
+        }
+
+        private void attempt(final int retries) {
+            if (result.isDone()) {
+                return;
+            }
+            final ListenableFuture<RestResponse> response;
+            try {
+                response = attempt.get();
+            } catch (RuntimeException e) {
+                result.setException(e);
+                return;
+            }
+            result.addListener(new Runnable() {
+                @Override public void run() {
+                    if (result.isCancelled()) {
+                        response.cancel(true);
+                    }
+                }
+            }, sameThreadExecutor());
+
+            Futures.addCallback(response, new FutureCallback<RestResponse>() {
+                @Override public void onSuccess(final RestResponse restResponse) {
+                    if (policy.isRetryable(restResponse.statusCode()) && retry(retries)) {
+                        // nobody will read this one
+                        closeQuietly(restResponse.response());
+                    } else if (!result.set(restResponse)) {
+                        closeQuietly(restResponse.response());
+                    }
+                }
+
+                @Override public void onFailure(final Throwable t) {
+                    if (response.isCancelled() || !policy.isRetryable(t) || !retry(retries)) {
+                        result.setException(t);
+                    }
+                }
+            });
+        }
+
+        /**
+         * @return true if a retry was scheduled
+         */
+        private boolean retry(final int retries) {
+            if (result.isDone() || retries + 1 >= policy.getMaxAttempts()) {
+                return false;
+            }
+            final long delay = policy.delayNanos(retries, random);
+            if (System.nanoTime() - start + delay > policy.getMaxElapsed().nanos()) {
+                return false;
+            }
+            try {
+                scheduler.schedule(new Runnable() {
+                    @Override public void run() {
+                        attempt(retries + 1);
+                    }
+                }, delay, TimeUnit.NANOSECONDS);
+            } catch (RuntimeException e) {
+                // the scheduler is shutting down; give up rather than leave the caller hanging
+                return false;
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package com.bazaarvoice.elasticsearch.client.core.retry;
+
+import com.bazaarvoice.elasticsearch.client.core.breaker.CircuitOpenException;
+import org.elasticsearch.common.collect.ImmutableSet;
+import org.elasticsearch.common.unit.TimeValue;
+
+import java.io.IOException;
+import java.util.Random;
+
+import static org.elasticsearch.common.Preconditions.checkArgument;
+
+/**
+ * Which failed requests to send again, and when.
+ * <p/>
+ * By default we retry responses with status 429 (ES 1.x's answer when a thread pool rejects the request) and 503,
+ * and failures that never got a response: connection errors, and nodes whose circuit breaker is open.
+ * Each retry waits a random time between zero and {@code baseDelay * 2^(retries so far)}, capped at {@code maxDelay}
+ * ("full jitter", so clients that failed together don't retry together).
+ * <p/>
+ * Each request has a budget: at most {@link #getMaxAttempts()} attempts, and no retry that would start
+ * more than {@link #getMaxElapsed()} after the first attempt.
+ * <p/>
+ * Only idempotent requests are retried; see {@link org.elasticsearch.action.AbstractRestClientAction#isIdempotent}.
+ * <p/>
+ * Immutable. The {@code with} methods return modified copies.
+ */
+public class RetryPolicy {
+    private final TimeValue baseDelay;
+    private final TimeValue maxDelay;
+    private final int maxAttempts;
+    private final TimeValue maxElapsed;
+    private final ImmutableSet<Integer> retryableStatuses;
+
+    public static RetryPolicy exponentialBackoff(final TimeValue baseDelay, final TimeValue maxDelay) {
+        return new RetryPolicy(baseDelay, maxDelay, 3, TimeValue.timeValueSeconds(30), ImmutableSet.of(429, 503));
+    }
+
+    private RetryPolicy(final TimeValue baseDelay, final TimeValue maxDelay, final int maxAttempts, final TimeValue maxElapsed, final ImmutableSet<Integer> retryableStatuses) {
+        checkArgument(baseDelay.nanos() > 0, "baseDelay must be positive");
+        checkArgument(maxDelay.nanos() >= baseDelay.nanos(), "maxDelay must be at least baseDelay");
+        checkArgument(maxAttempts > 0, "maxAttempts must be positive");
+        this.baseDelay = baseDelay;
+        this.maxDelay = maxDelay;
+        this.maxAttempts = maxAttempts;
+        this.maxElapsed = maxElapsed;
+        this.retryableStatuses = retryableStatuses;
+    }
+
+    /** The most attempts (including the first) for one request. Defaults to 3. */
+    public RetryPolicy withMaxAttempts(final int maxAttempts) {
+        return new RetryPolicy(baseDelay, maxDelay, maxAttempts, maxElapsed, retryableStatuses);
+    }
+
+    /** Don't start a retry later than this after the first attempt. Defaults to 30 seconds. */
+    public RetryPolicy withMaxElapsed(final TimeValue maxElapsed) {
+        return new RetryPolicy(baseDelay, maxDelay, maxAttempts, maxElapsed, retryableStatuses);
+    }
+
+    /** The response statuses worth retrying. Defaults to 429 and 503. */
+    public RetryPolicy withRetryableStatuses(final Integer... statuses) {
+        return new RetryPolicy(baseDelay, maxDelay, maxAttempts, maxElapsed, ImmutableSet.copyOf(statuses));
+    }
+
+    public boolean isRetryable(final int status) {
+        return retryableStatuses.contains(status);
+    }
+
+    /**
+     * True for failures where the request may not have reached ES at all. We look through the causes,
+     * since some http clients wrap their IOExceptions.
+     */
+    public boolean isRetryable(final Throwable failure) {
+        for (Throwable t = failure; t != null; t = t.getCause()) {
+            if (t instanceof IOException || t instanceof CircuitOpenException) {
+                return true;
+            }
+            if (t.getCause() == t) {
+                break;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @param retries how many retries have already been made
+     * @return how long to wait before the next one
+     */
+    public long delayNanos(final int retries, final Random random) {
+        final long base = baseDelay.nanos();
+        // past this many doublings the shift would overflow, and we're well past maxDelay anyway
+        final long ceiling = retries >= Long.numberOfLeadingZeros(base) - 1 ? maxDelay.nanos() : Math.min(maxDelay.nanos(), base << retries);
+        return (long) (random.nextDouble() * ceiling);
+    }
+
+    public TimeValue getBaseDelay() {
+        return baseDelay;
+    }
+
+    public TimeValue getMaxDelay() {
+        return maxDelay;
+    }
+
+    public int getMaxAttempts() {
+        return maxAttempts;
+    }
+
+    public TimeValue getMaxElapsed() {
+        return maxElapsed;
+    }
+
+    public ImmutableSet<Integer> getRetryableStatuses() {
+        return retryableStatuses;
+    }
+
+    @Override public String toString() {
+        return "RetryPolicy{" +
+            "baseDelay=" + baseDelay +
+            ", maxDelay=" + maxDelay +
+            ", maxAttempts=" + maxAttempts +
+            ", maxElapsed=" + maxElapsed +
+            ", retryableStatuses=" + retryableStatuses +
+            '}';
+    }
+}
@@ -0,0 +1,17 @@
+package com.bazaarvoice.elasticsearch.client.core.spi;
+
+import org.elasticsearch.common.bytes.BytesReference;
+
+/**
+ * A {@link RestResponse} that can hand over its whole body as bytes.
+ * <p/>
+ * Json responses are read whole so documents can be handed out as slices of them. Executors that already hold the
+ * body in memory (or know how big it is) implement this so that read doesn't have to copy it out of
+ * {@link #response()} into a buffer that grows as it goes.
+ */
+public interface BytesRestResponse extends RestResponse {
+    /**
+     * @return the whole body. Use either this or {@link #response()}, not both.
+     */
+    public BytesReference bytes();
+}
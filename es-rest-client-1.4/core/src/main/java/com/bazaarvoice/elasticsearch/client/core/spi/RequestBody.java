@@ -0,0 +1,31 @@
+package com.bazaarvoice.elasticsearch.client.core.spi;
+
+import org.elasticsearch.common.Nullable;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * An abstraction of a request body that writes itself to the transport.
+ * <p/>
+ * This lets {@link RestExecutor} implementations hand us their socket (or channel, or buffer) stream
+ * directly, so we don't have to materialize large bodies as a byte array first.
+ */
+public interface RequestBody {
+    /**
+     * @return the exact number of bytes {@link #writeTo(OutputStream)} will write, or -1 if that isn't known up front.
+     */
+    public long contentLength();
+
+    /**
+     * @return the Content-Type to send with the body, or null to send none. ES sniffs the body's format
+     * either way, but unless the request has a format param, it also answers in whatever format the Content-Type names.
+     */
+    @Nullable public String contentType();
+
+    /**
+     * Write the body to the given stream. Implementations should not close the stream.
+     * Executors may call this more than once (to retry a request, for example), so it must be repeatable.
+     */
+    public void writeTo(OutputStream out) throws IOException;
+}
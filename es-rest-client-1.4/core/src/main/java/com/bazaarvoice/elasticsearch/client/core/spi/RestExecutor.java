@@ -15,4 +15,14 @@ public interface RestExecutor {
     public ListenableFuture<RestResponse> delete(URL url);
     public ListenableFuture<RestResponse> put(URL url, InputStream body);
     public ListenableFuture<RestResponse> post(URL url, InputStream body);
+
+    /**
+     * Like {@link #put(URL, InputStream)}, but the body writes itself straight to the transport.
+     */
+    public ListenableFuture<RestResponse> put(URL url, RequestBody body);
+
+    /**
+     * Like {@link #post(URL, InputStream)}, but the body writes itself straight to the transport.
+     */
+    public ListenableFuture<RestResponse> post(URL url, RequestBody body);
 }
@@ -0,0 +1,18 @@
+package com.bazaarvoice.elasticsearch.client.core.typed;
+
+import org.elasticsearch.common.bytes.BytesReference;
+
+import java.io.IOException;
+
+/**
+ * Turns a document's _source into one of your own objects, as the response is parsed.
+ * <p/>
+ * The source is always json. When the response came back as json, it's a slice of the response buffer rather than a copy,
+ * so handing {@code source.array(), source.arrayOffset(), source.length()} to your own mapper is the only time it gets read.
+ * Don't hold on to the bytes after returning; take what you need out of them.
+ *
+ * @param <T> the type you want your documents as
+ */
+public interface SourceBinding<T> {
+    T bind(BytesReference source) throws IOException;
+}
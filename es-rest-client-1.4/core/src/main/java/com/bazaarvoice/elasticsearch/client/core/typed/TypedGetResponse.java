@@ -0,0 +1,50 @@
+package com.bazaarvoice.elasticsearch.client.core.typed;
+
+import org.elasticsearch.common.Nullable;
+
+/**
+ * A get response whose source has already been bound to a {@code T}.
+ */
+public class TypedGetResponse<T> {
+    private final String index;
+    private final String type;
+    private final String id;
+    private final long version;
+    private final boolean exists;
+    @Nullable private final T source;
+
+    public TypedGetResponse(final String index, final String type, final String id, final long version, final boolean exists, @Nullable final T source) {
+        this.index = index;
+        this.type = type;
+        this.id = id;
+        this.version = version;
+        this.exists = exists;
+        this.source = source;
+    }
+
+    public String getIndex() {
+        return index;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    /** -1 if the document doesn't exist */
+    public long getVersion() {
+        return version;
+    }
+
+    public boolean isExists() {
+        return exists;
+    }
+
+    /** null if the document doesn't exist, or the get didn't ask for the source */
+    @Nullable public T getSource() {
+        return source;
+    }
+}
@@ -0,0 +1,76 @@
+package com.bazaarvoice.elasticsearch.client.core.typed;
+
+import org.elasticsearch.action.StreamingFromXContent;
+import org.elasticsearch.common.base.Throwables;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.xcontent.XContentParser;
+
+import java.io.IOException;
+import java.util.Map;
+
+import static com.bazaarvoice.elasticsearch.client.core.util.MapFunctions.nodeBytesReferenceForMapValue;
+import static com.bazaarvoice.elasticsearch.client.core.util.MapFunctions.nodeMapValue;
+import static com.bazaarvoice.elasticsearch.client.core.util.MapFunctions.nodeStringValue;
+import static com.bazaarvoice.elasticsearch.client.core.util.XContentParsers.copyCurrentStructure;
+import static org.elasticsearch.common.base.Preconditions.checkState;
+import static org.elasticsearch.common.xcontent.support.XContentMapValues.nodeBooleanValue;
+import static org.elasticsearch.common.xcontent.support.XContentMapValues.nodeLongValue;
+
+/**
+ * Reads a get response into a {@link TypedGetResponse}, binding the _source as it goes by. Stored fields are skipped.
+ */
+public class TypedGetResponseHelper<T> implements StreamingFromXContent<TypedGetResponse<T>> {
+    private final SourceBinding<T> binding;
+
+    public TypedGetResponseHelper(final SourceBinding<T> binding) {
+        this.binding = binding;
+    }
+
+    /** missing documents come back as 404s, so they come through here */
+    @Override public TypedGetResponse<T> fromXContent(final Map<String, Object> map) {
+        final BytesReference source = nodeBytesReferenceForMapValue(map.get("_source") == null ? null : nodeMapValue(map.get("_source"), String.class, Object.class));
+        try {
+            return new TypedGetResponse<T>(
+                nodeStringValue(map.get("_index")),
+                nodeStringValue(map.get("_type")),
+                nodeStringValue(map.get("_id")),
+                nodeLongValue(map.get("_version"), -1),
+                nodeBooleanValue(map.get("found"), true),
+                source == null ? null : binding.bind(source));
+        } catch (IOException e) {
+            throw Throwables.propagate(e);
+        }
+    }
+
+    @Override public TypedGetResponse<T> fromXContent(final XContentParser parser) throws IOException {
+        checkState(parser.nextToken() == XContentParser.Token.START_OBJECT, "Expected the response to be an object");
+        String index = null;
+        String type = null;
+        String id = null;
+        long version = -1;
+        boolean found = true;
+        T source = null;
+        String field = null;
+        XContentParser.Token token;
+        while ((token = parser.nextToken()) != XContentParser.Token.END_OBJECT) {
+            if (token == XContentParser.Token.FIELD_NAME) {
+                field = parser.currentName();
+            } else if ("_index".equals(field)) {
+                index = parser.text();
+            } else if ("_type".equals(field)) {
+                type = parser.text();
+            } else if ("_id".equals(field)) {
+                id = parser.text();
+            } else if ("_version".equals(field)) {
+                version = parser.longValue();
+            } else if ("found".equals(field)) {
+                found = parser.booleanValue();
+            } else if ("_source".equals(field) && token == XContentParser.Token.START_OBJECT) {
+                source = binding.bind(copyCurrentStructure(parser));
+            } else {
+                parser.skipChildren();
+            }
+        }
+        return new TypedGetResponse<T>(index, type, id, version, found, source);
+    }
+}
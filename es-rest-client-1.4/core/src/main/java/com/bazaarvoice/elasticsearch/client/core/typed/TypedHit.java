@@ -0,0 +1,51 @@
+package com.bazaarvoice.elasticsearch.client.core.typed;
+
+import org.elasticsearch.common.Nullable;
+
+/**
+ * A search hit whose source has already been bound to a {@code T}. Only the hit's identity and score come along with it.
+ */
+public class TypedHit<T> {
+    private final String index;
+    private final String type;
+    private final String id;
+    private final long version;
+    private final float score;
+    @Nullable private final T source;
+
+    public TypedHit(final String index, final String type, final String id, final long version, final float score, @Nullable final T source) {
+        this.index = index;
+        this.type = type;
+        this.id = id;
+        this.version = version;
+        this.score = score;
+        this.source = source;
+    }
+
+    public String getIndex() {
+        return index;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    /** -1 unless the search asked for versions */
+    public long getVersion() {
+        return version;
+    }
+
+    /** NaN if the hits weren't scored */
+    public float getScore() {
+        return score;
+    }
+
+    /** null if the search didn't ask for the source */
+    @Nullable public T getSource() {
+        return source;
+    }
+}
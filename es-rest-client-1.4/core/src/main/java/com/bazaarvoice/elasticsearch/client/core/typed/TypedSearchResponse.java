@@ -0,0 +1,58 @@
+package com.bazaarvoice.elasticsearch.client.core.typed;
+
+import org.elasticsearch.common.Nullable;
+import org.elasticsearch.search.aggregations.Aggregations;
+
+import java.util.List;
+
+/**
+ * A search response whose hits' sources have already been bound to {@code T}s.
+ */
+public class TypedSearchResponse<T> {
+    private final long tookInMillis;
+    private final boolean timedOut;
+    @Nullable private final String scrollId;
+    private final long totalHits;
+    private final float maxScore;
+    private final List<TypedHit<T>> hits;
+    private final Aggregations aggregations;
+
+    public TypedSearchResponse(final long tookInMillis, final boolean timedOut, @Nullable final String scrollId, final long totalHits, final float maxScore, final List<TypedHit<T>> hits, final Aggregations aggregations) {
+        this.tookInMillis = tookInMillis;
+        this.timedOut = timedOut;
+        this.scrollId = scrollId;
+        this.totalHits = totalHits;
+        this.maxScore = maxScore;
+        this.hits = hits;
+        this.aggregations = aggregations;
+    }
+
+    public long getTookInMillis() {
+        return tookInMillis;
+    }
+
+    public boolean isTimedOut() {
+        return timedOut;
+    }
+
+    @Nullable public String getScrollId() {
+        return scrollId;
+    }
+
+    public long getTotalHits() {
+        return totalHits;
+    }
+
+    /** NaN if the hits weren't scored */
+    public float getMaxScore() {
+        return maxScore;
+    }
+
+    public List<TypedHit<T>> getHits() {
+        return hits;
+    }
+
+    public Aggregations getAggregations() {
+        return aggregations;
+    }
+}
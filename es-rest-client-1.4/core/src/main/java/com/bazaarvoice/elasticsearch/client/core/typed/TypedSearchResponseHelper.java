@@ -0,0 +1,149 @@
+package com.bazaarvoice.elasticsearch.client.core.typed;
+
+import com.bazaarvoice.elasticsearch.client.core.util.aggs.AggregationsManifest;
+import org.elasticsearch.action.StreamingFromXContent;
+import org.elasticsearch.action.search.helpers.InternalAggregationsHelper;
+import org.elasticsearch.common.Nullable;
+import org.elasticsearch.common.base.Throwables;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.collect.ImmutableList;
+import org.elasticsearch.common.collect.Maps;
+import org.elasticsearch.common.xcontent.XContentParser;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+
+import static com.bazaarvoice.elasticsearch.client.core.util.MapFunctions.nodeBytesReferenceForMapValue;
+import static com.bazaarvoice.elasticsearch.client.core.util.MapFunctions.nodeListValue;
+import static com.bazaarvoice.elasticsearch.client.core.util.MapFunctions.nodeMapValue;
+import static com.bazaarvoice.elasticsearch.client.core.util.MapFunctions.nodeStringValue;
+import static com.bazaarvoice.elasticsearch.client.core.util.XContentParsers.copyCurrentStructure;
+import static com.bazaarvoice.elasticsearch.client.core.util.XContentParsers.readValue;
+import static org.elasticsearch.common.base.Preconditions.checkState;
+import static org.elasticsearch.common.xcontent.support.XContentMapValues.nodeBooleanValue;
+import static org.elasticsearch.common.xcontent.support.XContentMapValues.nodeFloatValue;
+import static org.elasticsearch.common.xcontent.support.XContentMapValues.nodeLongValue;
+
+/**
+ * Reads a search response into a {@link TypedSearchResponse}, binding each hit's _source as it goes by.
+ * <p/>
+ * The hits never become Maps or {@link org.elasticsearch.search.SearchHit}s; anything in a hit besides its identity,
+ * score and source (fields, highlights, sort values...) is skipped. Aggregations are read as they are for a {@link org.elasticsearch.action.search.SearchResponse}.
+ */
+public class TypedSearchResponseHelper<T> implements StreamingFromXContent<TypedSearchResponse<T>> {
+    private final SourceBinding<T> binding;
+    @Nullable private final AggregationsManifest aggregationsManifest;
+
+    public TypedSearchResponseHelper(final SourceBinding<T> binding, @Nullable final AggregationsManifest aggregationsManifest) {
+        this.binding = binding;
+        this.aggregationsManifest = aggregationsManifest;
+    }
+
+    @Override public TypedSearchResponse<T> fromXContent(final Map<String, Object> map) {
+        final Map<String, Object> hitsMap = nodeMapValue(map.get("hits"), String.class, Object.class);
+        final ImmutableList.Builder<TypedHit<T>> hits = ImmutableList.builder();
+        if (hitsMap.containsKey("hits")) {
+            for (Object hit : nodeListValue(hitsMap.get("hits"), Object.class)) {
+                hits.add(hitFromXContent(nodeMapValue(hit, String.class, Object.class)));
+            }
+        }
+        return fromXContent(map, nodeLongValue(hitsMap.get("total")), nodeFloatValue(hitsMap.get("max_score"), Float.NaN), hits.build());
+    }
+
+    /**
+     * Streams the hits; the rest of the top-level fields are read into a Map, as {@link org.elasticsearch.action.search.SearchResponseHelper} does.
+     */
+    @Override public TypedSearchResponse<T> fromXContent(final XContentParser parser) throws IOException {
+        checkState(parser.nextToken() == XContentParser.Token.START_OBJECT, "Expected the response to be an object");
+        final Map<String, Object> map = Maps.newHashMap();
+        long totalHits = 0;
+        float maxScore = Float.NaN;
+        final ImmutableList.Builder<TypedHit<T>> hits = ImmutableList.builder();
+        String field = null;
+        XContentParser.Token token;
+        while ((token = parser.nextToken()) != XContentParser.Token.END_OBJECT) {
+            if (token == XContentParser.Token.FIELD_NAME) {
+                field = parser.currentName();
+            } else if ("hits".equals(field) && token == XContentParser.Token.START_OBJECT) {
+                String hitsField = null;
+                while ((token = parser.nextToken()) != XContentParser.Token.END_OBJECT) {
+                    if (token == XContentParser.Token.FIELD_NAME) {
+                        hitsField = parser.currentName();
+                    } else if ("total".equals(hitsField)) {
+                        totalHits = parser.longValue();
+                    } else if ("max_score".equals(hitsField)) {
+                        maxScore = token == XContentParser.Token.VALUE_NULL ? Float.NaN : parser.floatValue();
+                    } else if ("hits".equals(hitsField) && token == XContentParser.Token.START_ARRAY) {
+                        while (parser.nextToken() != XContentParser.Token.END_ARRAY) {
+                            hits.add(hitFromXContent(parser));
+                        }
+                    } else {
+                        parser.skipChildren();
+                    }
+                }
+            } else {
+                map.put(field, readValue(parser));
+            }
+        }
+        return fromXContent(map, totalHits, maxScore, hits.build());
+    }
+
+    private TypedSearchResponse<T> fromXContent(final Map<String, Object> map, final long totalHits, final float maxScore, final List<TypedHit<T>> hits) {
+        return new TypedSearchResponse<T>(
+            nodeLongValue(map.get("took"), -1),
+            nodeBooleanValue(map.get("timed_out"), false),
+            map.get("_scroll_id") == null ? null : nodeStringValue(map.get("_scroll_id")),
+            totalHits,
+            maxScore,
+            hits,
+            InternalAggregationsHelper.fromXContent(map, aggregationsManifest));
+    }
+
+    private TypedHit<T> hitFromXContent(final Map<String, Object> map) {
+        final BytesReference source = nodeBytesReferenceForMapValue(map.get("_source") == null ? null : nodeMapValue(map.get("_source"), String.class, Object.class));
+        try {
+            return new TypedHit<T>(
+                nodeStringValue(map.get("_index")),
+                nodeStringValue(map.get("_type")),
+                nodeStringValue(map.get("_id")),
+                nodeLongValue(map.get("_version"), -1),
+                nodeFloatValue(map.get("_score"), Float.NaN),
+                source == null ? null : binding.bind(source));
+        } catch (IOException e) {
+            throw Throwables.propagate(e);
+        }
+    }
+
+    /** reads one hit, starting from its START_OBJECT */
+    private TypedHit<T> hitFromXContent(final XContentParser parser) throws IOException {
+        String index = null;
+        String type = null;
+        String id = null;
+        long version = -1;
+        float score = Float.NaN;
+        T source = null;
+        String field = null;
+        XContentParser.Token token;
+        while ((token = parser.nextToken()) != XContentParser.Token.END_OBJECT) {
+            if (token == XContentParser.Token.FIELD_NAME) {
+                field = parser.currentName();
+            } else if ("_index".equals(field)) {
+                index = parser.text();
+            } else if ("_type".equals(field)) {
+                type = parser.text();
+            } else if ("_id".equals(field)) {
+                id = parser.text();
+            } else if ("_version".equals(field)) {
+                version = parser.longValue();
+            } else if ("_score".equals(field)) {
+                score = token == XContentParser.Token.VALUE_NULL ? Float.NaN : parser.floatValue();
+            } else if ("_source".equals(field) && token == XContentParser.Token.START_OBJECT) {
+                source = binding.bind(copyCurrentStructure(parser));
+            } else {
+                parser.skipChildren();
+            }
+        }
+        return new TypedHit<T>(index, type, id, version, score, source);
+    }
+}
@@ -0,0 +1,81 @@
+package com.bazaarvoice.elasticsearch.client.core.util;
+
+import com.bazaarvoice.elasticsearch.client.core.spi.RequestBody;
+import com.bazaarvoice.elasticsearch.client.core.spi.RestExecutor;
+import com.bazaarvoice.elasticsearch.client.core.spi.RestResponse;
+import org.elasticsearch.common.util.concurrent.ListenableFuture;
+
+import java.io.InputStream;
+import java.net.URL;
+
+/**
+ * A base for executors that wrap another one and treat every kind of request the same way
+ * (circuit breaking, limiting, and so on). Subclasses just implement {@link #call}.
+ */
+public abstract class ForwardingRestExecutor implements RestExecutor {
+    protected final RestExecutor delegate;
+
+    protected ForwardingRestExecutor(final RestExecutor delegate) {
+        this.delegate = delegate;
+    }
+
+    /** One request, ready to hand to the delegate. */
+    protected interface Call {
+        ListenableFuture<RestResponse> send();
+    }
+
+    /**
+     * @param url  where the request is going
+     * @param call sends it through the delegate; call it at most once
+     * @return a future of the response
+     */
+    protected abstract ListenableFuture<RestResponse> call(URL url, Call call);
+
+    @Override public ListenableFuture<RestResponse> get(final URL url) {
+        return call(url, new Call() {
+            @Override public ListenableFuture<RestResponse> send() {
+                return delegate.get(url);
+            }
+        });
+    }
+
+    @Override public ListenableFuture<RestResponse> delete(final URL url) {
+        return call(url, new Call() {
+            @Override public ListenableFuture<RestResponse> send() {
+                return delegate.delete(url);
+            }
+        });
+    }
+
+    @Override public ListenableFuture<RestResponse> put(final URL url, final InputStream body) {
+        return call(url, new Call() {
+            @Override public ListenableFuture<RestResponse> send() {
+                return delegate.put(url, body);
+            }
+        });
+    }
+
+    @Override public ListenableFuture<RestResponse> post(final URL url, final InputStream body) {
+        return call(url, new Call() {
+            @Override public ListenableFuture<RestResponse> send() {
+                return delegate.post(url, body);
+            }
+        });
+    }
+
+    @Override public ListenableFuture<RestResponse> put(final URL url, final RequestBody body) {
+        return call(url, new Call() {
+            @Override public ListenableFuture<RestResponse> send() {
+                return delegate.put(url, body);
+            }
+        });
+    }
+
+    @Override public ListenableFuture<RestResponse> post(final URL url, final RequestBody body) {
+        return call(url, new Call() {
+            @Override public ListenableFuture<RestResponse> send() {
+                return delegate.post(url, body);
+            }
+        });
+    }
+}
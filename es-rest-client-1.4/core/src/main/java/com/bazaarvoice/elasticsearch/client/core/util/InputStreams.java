@@ -1,18 +1,26 @@
 package com.bazaarvoice.elasticsearch.client.core.util;
 
+import com.bazaarvoice.elasticsearch.client.core.spi.BytesRestResponse;
+import com.bazaarvoice.elasticsearch.client.core.spi.RestResponse;
+import org.elasticsearch.common.bytes.BytesArray;
 import org.elasticsearch.common.bytes.BytesReference;
 
 import java.io.ByteArrayInputStream;
+import java.io.FilterInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.StringWriter;
+import java.util.Arrays;
 
 /**
  * Convenience class for handling {@link com.bazaarvoice.elasticsearch.client.core.util.InputStreams}
  */
 public class InputStreams {
+    private static final int BUFFER_SIZE = 8 * 1024;
+
     public static InputStream of(BytesReference bytes) {
-        return new ByteArrayInputStream(bytes.array());
+        final BytesReference array = bytes.toBytesArray();
+        return new ByteArrayInputStream(array.array(), array.arrayOffset(), array.length());
     }
 
     /** useful for debugging */
@@ -35,18 +43,130 @@ public class InputStreams {
         return stringWriter.toString();
     }
 
+    /** for responses nobody is going to read */
+    public static void closeQuietly(final InputStream inputStream) {
+        try {
+            inputStream.close();
+        } catch (IOException e) {
+            // nothing useful to do
+        }
+    }
+
     /** sometimes the response comes back with nulls in the string. As far as I can tell, we just want to strip them out... */
     public static InputStream stripNullChars(final InputStream inputStream) {
-        return new InputStream() {
+        return new FilterInputStream(inputStream) {
             @Override public int read() throws IOException {
                 int read;
-                while ((read = inputStream.read()) == 0) {}
+                while ((read = in.read()) == 0) {}
                 return read;
             }
 
-            @Override public void close() throws IOException {
-                inputStream.close();
+            @Override public int read(final byte[] b, final int off, final int len) throws IOException {
+                int read;
+                do {
+                    read = in.read(b, off, len);
+                    if (read <= 0) {
+                        return read;
+                    }
+                    read = compactNullChars(b, off, read);
+                } while (read == 0); // the whole chunk was nulls, and we may not return 0
+                return read;
+            }
+
+            @Override public long skip(final long n) throws IOException {
+                // skipping would count the nulls, so go through read instead
+                final byte[] buffer = new byte[(int) Math.min(n, 8192)];
+                long skipped = 0;
+                int read;
+                while (skipped < n && (read = read(buffer, 0, (int) Math.min(n - skipped, buffer.length))) > 0) {
+                    skipped += read;
+                }
+                return skipped;
+            }
+
+            @Override public boolean markSupported() {
+                return false;
             }
         };
     }
+
+    /**
+     * Reads the whole body of the response, then strips out any nulls. If the executor can hand the body over as
+     * bytes, we use them as they are, and only copy them if there are nulls to strip.
+     */
+    public static BytesReference readStrippingNullChars(final RestResponse response) throws IOException {
+        if (response instanceof BytesRestResponse) {
+            return stripNullChars(((BytesRestResponse) response).bytes());
+        }
+        return readStrippingNullChars(response.response());
+    }
+
+    /**
+     * Reads the whole stream (and closes it), then strips out any nulls. Usually there aren't any,
+     * in which case a single scan of the bytes is all this costs on top of the read.
+     */
+    public static BytesReference readStrippingNullChars(final InputStream inputStream) throws IOException {
+        final BytesArray bytes = read(inputStream, -1);
+        return new BytesArray(bytes.array(), 0, compactNullChars(bytes.array(), 0, bytes.length()));
+    }
+
+    /** the bytes without any nulls, copying them only if there are some to take out */
+    public static BytesReference stripNullChars(final BytesReference bytes) {
+        final BytesArray array = bytes.toBytesArray();
+        final int offset = array.arrayOffset();
+        final int end = offset + array.length();
+        for (int i = offset; i < end; i++) {
+            if (array.array()[i] == 0) {
+                final byte[] copy = Arrays.copyOfRange(array.array(), offset, end);
+                return new BytesArray(copy, 0, compactNullChars(copy, 0, copy.length));
+            }
+        }
+        return array;
+    }
+
+    /**
+     * Reads the whole stream (and closes it). If the expected length is known (it's not negative), the bytes are read
+     * into a buffer of just that size, so there's nothing to copy afterwards unless the stream turns out to be longer.
+     */
+    public static BytesArray read(final InputStream inputStream, final long expectedLength) throws IOException {
+        byte[] buffer = new byte[expectedLength >= 0 && expectedLength < Integer.MAX_VALUE ? (int) expectedLength : BUFFER_SIZE];
+        int length = 0;
+        try {
+            while (true) {
+                if (length == buffer.length) {
+                    // full, but there's no telling whether that's everything until we try for more
+                    final int next = inputStream.read();
+                    if (next == -1) {
+                        break;
+                    }
+                    buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, BUFFER_SIZE));
+                    buffer[length++] = (byte) next;
+                }
+                final int read = inputStream.read(buffer, length, buffer.length - length);
+                if (read == -1) {
+                    break;
+                }
+                length += read;
+            }
+        } finally {
+            inputStream.close();
+        }
+        return new BytesArray(buffer, 0, length);
+    }
+
+    /** moves the non-null bytes of the range to its front, returning how many there are */
+    private static int compactNullChars(final byte[] bytes, final int off, final int len) {
+        final int end = off + len;
+        int read = off;
+        while (read < end && bytes[read] != 0) {
+            read++;
+        }
+        int write = read;
+        for (; read < end; read++) {
+            if (bytes[read] != 0) {
+                bytes[write++] = bytes[read];
+            }
+        }
+        return write - off;
+    }
 }
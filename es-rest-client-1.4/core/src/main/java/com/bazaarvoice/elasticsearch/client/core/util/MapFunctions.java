@@ -42,9 +42,15 @@ public class MapFunctions {
         }
     }
 
+    /**
+     * Checks that every element is a {@code contains}, unless the list came from our own parser and the check can't fail.
+     */
     public static <T> List<T> nodeListValue(@Nullable Object o, Class<T> contains) {
         Preconditions.checkNotNull(o);
-        if (o instanceof List) {
+        if (o instanceof XContentParsers.ParsedList && contains == Object.class) {
+            //noinspection unchecked
+            return (List<T>) o;
+        } else if (o instanceof List) {
             for (Object elem : (List) o) {
                 if (elem != null && !contains.isAssignableFrom(elem.getClass())) {
                     throw new IllegalArgumentException(String.format("%s was expected to be a %s but was a %s", elem, contains.getCanonicalName(), elem.getClass().getCanonicalName()));
@@ -57,9 +63,23 @@ public class MapFunctions {
         }
     }
 
+    /**
+     * Checks that every key is a {@code keyClass} and every value a {@code valueClass}. Maps from our own parser always
+     * have String keys, so only the values of those get checked, and only when they could be something other than Objects.
+     */
     public static <K, V> Map<K, V> nodeMapValue(final Object o, final Class<K> keyClass, final Class<V> valueClass) {
         Preconditions.checkNotNull(o);
-        if (o instanceof Map) {
+        if (o instanceof XContentParsers.ParsedMap && keyClass.isAssignableFrom(String.class)) {
+            if (valueClass != Object.class) {
+                for (Object value : ((Map) o).values()) {
+                    if (value != null && !valueClass.isAssignableFrom(value.getClass())) {
+                        throw new IllegalArgumentException(String.format("%s was expected to be a %s but was a %s", value, valueClass.getCanonicalName(), value.getClass().getCanonicalName()));
+                    }
+                }
+            }
+            //noinspection unchecked
+            return (Map<K, V>) o;
+        } else if (o instanceof Map) {
             for (Object entry : ((Map) o).entrySet()) {
                 Map.Entry elem = (Map.Entry) entry;
                 if (!keyClass.isAssignableFrom(elem.getKey().getClass())) {
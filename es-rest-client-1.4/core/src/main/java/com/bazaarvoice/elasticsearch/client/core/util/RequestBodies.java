@@ -0,0 +1,56 @@
+package com.bazaarvoice.elasticsearch.client.core.util;
+
+import com.bazaarvoice.elasticsearch.client.core.spi.RequestBody;
+import org.elasticsearch.common.base.Throwables;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.xcontent.XContentFactory;
+import org.elasticsearch.common.xcontent.XContentParser;
+import org.elasticsearch.common.xcontent.XContentType;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Convenience class for creating {@link com.bazaarvoice.elasticsearch.client.core.spi.RequestBody}s
+ */
+public class RequestBodies {
+    /**
+     * A body that writes the bytes directly from the reference, whether or not it is backed by a single array.
+     */
+    public static RequestBody of(final BytesReference bytes) {
+        final XContentType contentType = XContentFactory.xContentType(bytes);
+        return new RequestBody() {
+            @Override public long contentLength() {
+                return bytes.length();
+            }
+
+            @Override public String contentType() {
+                return contentType == null ? null : contentType.restContentType();
+            }
+
+            @Override public void writeTo(final OutputStream out) throws IOException {
+                bytes.writeTo(out);
+            }
+        };
+    }
+
+    /**
+     * Like {@link #of(BytesReference)}, but first re-encodes the bytes as the given content type if they're in some other one.
+     */
+    public static RequestBody of(final BytesReference bytes, final XContentType contentType) {
+        final XContentType current = XContentFactory.xContentType(bytes);
+        if (current == null || current == contentType) {
+            return of(bytes);
+        }
+        try {
+            final XContentParser parser = XContentFactory.xContent(current).createParser(bytes);
+            try {
+                return of(XContentFactory.contentBuilder(contentType).copyCurrentStructure(parser).bytes());
+            } finally {
+                parser.close();
+            }
+        } catch (IOException e) {
+            throw Throwables.propagate(e);
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package com.bazaarvoice.elasticsearch.client.core.util;
+
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.jackson.core.JsonFactory;
+import org.elasticsearch.common.jackson.core.JsonParser;
+import org.elasticsearch.common.xcontent.XContentParser;
+import org.elasticsearch.common.xcontent.json.JsonXContentParser;
+
+import java.io.IOException;
+
+import static org.elasticsearch.common.base.Preconditions.checkState;
+
+/**
+ * A json parser over a response we already hold in memory. It can hand out whole objects (like a document's _source)
+ * as slices of that buffer, so the bytes ES sent go to the caller without being decoded and encoded again.
+ */
+public class SlicingJsonXContentParser extends JsonXContentParser {
+    // configured the same way as the factory in JsonXContent, which we can't get at
+    private static final JsonFactory jsonFactory = new JsonFactory()
+        .configure(JsonParser.Feature.ALLOW_COMMENTS, true)
+        .configure(JsonFactory.Feature.FAIL_ON_SYMBOL_HASH_OVERFLOW, false);
+
+    private final BytesReference bytes;
+    private final JsonParser jsonParser;
+
+    private SlicingJsonXContentParser(final BytesReference bytes, final JsonParser jsonParser) {
+        super(jsonParser);
+        this.bytes = bytes;
+        this.jsonParser = jsonParser;
+    }
+
+    public static SlicingJsonXContentParser of(final BytesReference bytes) throws IOException {
+        final BytesReference array = bytes.toBytesArray();
+        return new SlicingJsonXContentParser(array, jsonFactory.createParser(array.array(), array.arrayOffset(), array.length()));
+    }
+
+    /**
+     * Skips over the object or array under the current token, returning the bytes it was parsed from.
+     * The slice shares the parser's buffer.
+     */
+    public BytesReference sliceCurrentStructure() throws IOException {
+        final Token token = currentToken();
+        checkState(token == Token.START_OBJECT || token == Token.START_ARRAY, "Can only slice an object or an array, not %s", token);
+        // the current location is just past the '{' or '['
+        final int start = (int) jsonParser.getCurrentLocation().getByteOffset() - 1;
+        skipChildren();
+        final int end = (int) jsonParser.getCurrentLocation().getByteOffset();
+        return bytes.slice(start, end - start);
+    }
+}
@@ -0,0 +1,98 @@
+package com.bazaarvoice.elasticsearch.client.core.util;
+
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.xcontent.XContentFactory;
+import org.elasticsearch.common.xcontent.XContentParser;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A few functions for walking an {@link org.elasticsearch.common.xcontent.XContentParser} by hand.
+ * The values they return look just like the ones in {@link XContentParser#map()}, so they can be handed to the Map-based helpers.
+ * <p/>
+ * The maps and lists we build are marked as coming from a parser: their keys are all Strings, and their values are
+ * nothing but Strings, Numbers, Booleans, byte[]s, nulls, and more of the same maps and lists. {@link MapFunctions} trusts
+ * that, instead of checking every entry every time a helper looks at one.
+ */
+public class XContentParsers {
+    /**
+     * Reads the object under the current token (or the next one, if the parser hasn't started yet),
+     * like {@link XContentParser#map()}.
+     */
+    public static Map<String, Object> readMap(final XContentParser parser) throws IOException {
+        XContentParser.Token token = parser.currentToken();
+        if (token == null) {
+            token = parser.nextToken();
+        }
+        if (token == XContentParser.Token.START_OBJECT) {
+            token = parser.nextToken();
+        }
+        final ParsedMap map = new ParsedMap();
+        for (; token == XContentParser.Token.FIELD_NAME; token = parser.nextToken()) {
+            final String field = parser.currentName();
+            parser.nextToken();
+            map.put(field, readValue(parser));
+        }
+        return map;
+    }
+
+    public static Map<String, Object> readMapAndClose(final XContentParser parser) throws IOException {
+        try {
+            return readMap(parser);
+        } finally {
+            parser.close();
+        }
+    }
+
+    /** reads the value under the current token (and all its children, if it's an object or an array) */
+    public static Object readValue(final XContentParser parser) throws IOException {
+        switch (parser.currentToken()) {
+            case START_OBJECT:
+                return readMap(parser);
+            case START_ARRAY:
+                return readList(parser);
+            case VALUE_STRING:
+                return parser.text();
+            case VALUE_NUMBER:
+                return parser.numberValue();
+            case VALUE_BOOLEAN:
+                return parser.booleanValue();
+            case VALUE_EMBEDDED_OBJECT:
+                return parser.binaryValue();
+            case VALUE_NULL:
+                return null;
+            default:
+                throw new IllegalStateException("Expected a value but got " + parser.currentToken());
+        }
+    }
+
+    /**
+     * Reads the object or array under the current token as json bytes. If the parser is slicing its own buffer, this is free;
+     * otherwise the tokens are copied across one at a time.
+     */
+    public static BytesReference copyCurrentStructure(final XContentParser parser) throws IOException {
+        if (parser instanceof SlicingJsonXContentParser) {
+            return ((SlicingJsonXContentParser) parser).sliceCurrentStructure();
+        } else {
+            return XContentFactory.jsonBuilder().copyCurrentStructure(parser).bytes();
+        }
+    }
+
+    private static List<Object> readList(final XContentParser parser) throws IOException {
+        final ParsedList list = new ParsedList();
+        while (parser.nextToken() != XContentParser.Token.END_ARRAY) {
+            list.add(readValue(parser));
+        }
+        return list;
+    }
+
+    /** a map that came straight out of {@link #readMap(XContentParser)} */
+    static final class ParsedMap extends HashMap<String, Object> {}
+
+    /** a list that came straight out of {@link #readValue(XContentParser)} */
+    static final class ParsedList extends ArrayList<Object> {}
+}
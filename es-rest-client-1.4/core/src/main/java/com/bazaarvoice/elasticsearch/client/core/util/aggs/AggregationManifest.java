@@ -1,5 +1,7 @@
 package com.bazaarvoice.elasticsearch.client.core.util.aggs;
 
+import org.elasticsearch.common.base.Objects;
+
 import static org.elasticsearch.common.base.Preconditions.checkState;
 
 public class AggregationManifest {
@@ -21,4 +23,19 @@ public class AggregationManifest {
         return type;
     }
 
+    @Override public boolean equals(final Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        final AggregationManifest that = (AggregationManifest) o;
+        return type.equals(that.type) && Objects.equal(subAggregationsManifest, that.subAggregationsManifest);
+    }
+
+    @Override public int hashCode() {
+        return Objects.hashCode(type, subAggregationsManifest);
+    }
+
+    @Override public String toString() {
+        return subAggregationsManifest == null ? type : type + subAggregationsManifest;
+    }
+
 }
@@ -1,12 +1,27 @@
 package com.bazaarvoice.elasticsearch.client.core.util.aggs;
 
+import org.elasticsearch.action.search.SearchRequest;
+import org.elasticsearch.common.Nullable;
+import org.elasticsearch.common.bytes.BytesArray;
+import org.elasticsearch.common.bytes.BytesReference;
 import org.elasticsearch.common.collect.ImmutableMap;
+import org.elasticsearch.common.xcontent.XContentHelper;
+import org.elasticsearch.search.aggregations.AbstractAggregationBuilder;
+import org.elasticsearch.search.aggregations.AggregationBuilderHelper;
 
+import java.util.Arrays;
+import java.util.List;
 import java.util.Map;
 
 import static com.bazaarvoice.elasticsearch.client.core.util.MapFunctions.nodeMapValue;
 import static org.elasticsearch.common.base.Preconditions.checkState;
 
+/**
+ * What type each aggregation in a search is, by name. The response doesn't say, so we need this to parse it.
+ * <p/>
+ * It can be read out of the request's source, or (cheaper) built from the aggregation builders
+ * and attached to the request with {@link #attachTo(SearchRequest)}.
+ */
 public class AggregationsManifest {
 
     final ImmutableMap<String, AggregationManifest> manifest;
@@ -34,7 +49,93 @@ public class AggregationsManifest {
         return new AggregationsManifest(builder.build());
     }
 
+    /**
+     * Reads the manifest out of a whole search source (json or smile).
+     *
+     * @return the manifest, or null if the search has no aggregations
+     */
+    @Nullable public static AggregationsManifest fromSearchSource(@Nullable final BytesReference source) {
+        if (source == null || source.length() == 0) {
+            return null;
+        }
+        final Map<String, Object> map = XContentHelper.convertToMap(source, false).v2();
+        if (map.containsKey("aggregations")) {
+            return fromSource(nodeMapValue(map.get("aggregations"), String.class, Object.class));
+        } else if (map.containsKey("aggs")) {
+            return fromSource(nodeMapValue(map.get("aggs"), String.class, Object.class));
+        } else if (map.containsKey("aggregations_binary")) {
+            return fromSource(XContentHelper.convertToMap(new BytesArray((byte[]) map.get("aggregations_binary")), false).v2());
+        } else {
+            return null;
+        }
+    }
+
+    /**
+     * The manifest attached to the request if there is one, then the one in the cache, and only then one read out of the request's source.
+     *
+     * @return the manifest, or null if the search has no aggregations
+     */
+    @Nullable public static AggregationsManifest of(final SearchRequest request, @Nullable final AggregationsManifestCache cache) {
+        final AggregationsManifest attached = attachedTo(request);
+        if (attached != null) {
+            return attached;
+        } else if (cache != null) {
+            return cache.get(request.source());
+        } else {
+            return fromSearchSource(request.source());
+        }
+    }
+
+    public static AggregationsManifest fromBuilders(final AbstractAggregationBuilder... aggregations) {
+        return fromBuilders(Arrays.asList(aggregations));
+    }
+
+    /**
+     * Builds the manifest from the same builders that build the request, so the request body never has to be parsed.
+     */
+    public static AggregationsManifest fromBuilders(final Iterable<? extends AbstractAggregationBuilder> aggregations) {
+        ImmutableMap.Builder<String, AggregationManifest> builder = ImmutableMap.builder();
+        for (AbstractAggregationBuilder aggregation : aggregations) {
+            final List<AbstractAggregationBuilder> subAggregations = AggregationBuilderHelper.subAggregations(aggregation);
+            final BytesReference subAggregationsBinary = AggregationBuilderHelper.subAggregationsBinary(aggregation);
+            final AggregationsManifest subAggManifest;
+            if (subAggregations != null) {
+                subAggManifest = fromBuilders(subAggregations);
+            } else if (subAggregationsBinary != null) {
+                subAggManifest = fromSource(XContentHelper.convertToMap(subAggregationsBinary, false).v2());
+            } else {
+                subAggManifest = null;
+            }
+            builder.put(aggregation.getName(), new AggregationManifest(AggregationBuilderHelper.type(aggregation), subAggManifest));
+        }
+        return new AggregationsManifest(builder.build());
+    }
+
+    /**
+     * Use this manifest for the request's response, rather than reading one out of its source.
+     */
+    public SearchRequest attachTo(final SearchRequest request) {
+        request.putInContext(AggregationsManifest.class, this);
+        return request;
+    }
+
+    @Nullable public static AggregationsManifest attachedTo(final SearchRequest request) {
+        return request.getFromContext(AggregationsManifest.class);
+    }
+
     public ImmutableMap<String, AggregationManifest> getManifest() {
         return manifest;
     }
+
+    @Override public boolean equals(final Object o) {
+        return this == o || (o instanceof AggregationsManifest && manifest.equals(((AggregationsManifest) o).manifest));
+    }
+
+    @Override public int hashCode() {
+        return manifest.hashCode();
+    }
+
+    @Override public String toString() {
+        return manifest.toString();
+    }
 }
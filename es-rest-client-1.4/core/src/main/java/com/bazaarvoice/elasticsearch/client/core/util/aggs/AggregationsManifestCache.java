@@ -0,0 +1,86 @@
+package com.bazaarvoice.elasticsearch.client.core.util.aggs;
+
+import org.elasticsearch.common.Nullable;
+import org.elasticsearch.common.base.Optional;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.cache.Cache;
+import org.elasticsearch.common.cache.CacheBuilder;
+import org.elasticsearch.common.hash.MurmurHash3;
+
+import static org.elasticsearch.common.base.Preconditions.checkArgument;
+
+/**
+ * Remembers the manifest for each search source we've seen, so an application that sends the same few
+ * aggregation requests over and over only parses each one once.
+ * <p/>
+ * Sources are keyed by a 128-bit hash of their bytes (plus their length), so we don't hold on to the sources themselves.
+ */
+public class AggregationsManifestCache {
+    public static final int DEFAULT_MAXIMUM_SIZE = 1000;
+
+    private final Cache<Key, Optional<AggregationsManifest>> cache;
+
+    private AggregationsManifestCache(final int maximumSize) {
+        checkArgument(maximumSize > 0, "maximumSize must be positive");
+        this.cache = CacheBuilder.newBuilder().maximumSize(maximumSize).build();
+    }
+
+    public static AggregationsManifestCache create() {
+        return create(DEFAULT_MAXIMUM_SIZE);
+    }
+
+    public static AggregationsManifestCache create(final int maximumSize) {
+        return new AggregationsManifestCache(maximumSize);
+    }
+
+    /**
+     * @return the manifest for this search source, or null if it has no aggregations
+     * @see AggregationsManifest#fromSearchSource(BytesReference)
+     */
+    @Nullable public AggregationsManifest get(@Nullable final BytesReference source) {
+        if (source == null || source.length() == 0) {
+            return null;
+        }
+        final Key key = Key.of(source);
+        Optional<AggregationsManifest> manifest = cache.getIfPresent(key);
+        if (manifest == null) {
+            // two threads may both parse the same new source; that's cheaper than making one wait on the other
+            manifest = Optional.fromNullable(AggregationsManifest.fromSearchSource(source));
+            cache.put(key, manifest);
+        }
+        return manifest.orNull();
+    }
+
+    public long size() {
+        return cache.size();
+    }
+
+    private static final class Key {
+        private final long h1;
+        private final long h2;
+        private final int length;
+
+        private Key(final long h1, final long h2, final int length) {
+            this.h1 = h1;
+            this.h2 = h2;
+            this.length = length;
+        }
+
+        private static Key of(final BytesReference source) {
+            final BytesReference bytes = source.hasArray() ? source : source.toBytesArray();
+            final MurmurHash3.Hash128 hash = MurmurHash3.hash128(bytes.array(), bytes.arrayOffset(), bytes.length(), 0, new MurmurHash3.Hash128());
+            return new Key(hash.h1, hash.h2, bytes.length());
+        }
+
+        @Override public boolean equals(final Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            final Key key = (Key) o;
+            return h1 == key.h1 && h2 == key.h2 && length == key.length;
+        }
+
+        @Override public int hashCode() {
+            return (int) (h1 ^ (h1 >>> 32));
+        }
+    }
+}
@@ -1,31 +1,60 @@
 package org.elasticsearch.action;
 
+import com.bazaarvoice.elasticsearch.client.core.hedge.Hedger;
+import com.bazaarvoice.elasticsearch.client.core.nodes.NodeSet;
+import com.bazaarvoice.elasticsearch.client.core.nodes.RestNode;
+import com.bazaarvoice.elasticsearch.client.core.retry.Retrier;
+import com.bazaarvoice.elasticsearch.client.core.spi.RequestBody;
 import com.bazaarvoice.elasticsearch.client.core.spi.RestExecutor;
 import com.bazaarvoice.elasticsearch.client.core.spi.RestResponse;
+import com.bazaarvoice.elasticsearch.client.core.util.RequestBodies;
+import com.bazaarvoice.elasticsearch.client.core.util.UrlBuilder;
+import org.elasticsearch.common.Nullable;
 import org.elasticsearch.common.base.Function;
+import org.elasticsearch.common.base.Optional;
+import org.elasticsearch.common.base.Supplier;
+import org.elasticsearch.common.bytes.BytesArray;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.util.concurrent.Futures;
 import org.elasticsearch.common.util.concurrent.ListenableFuture;
+import org.elasticsearch.common.xcontent.XContentType;
 
 /**
  * Abstracts the function of taking some kind of ES request, sending it
  * and returning a future of the response.
+ * <p/>
+ * Each request goes to whichever node the {@link NodeSet} picks for it. Actions whose
+ * requests are safe to send twice may be given a {@link Hedger}, and idempotent requests
+ * are retried if we have a {@link Retrier}. If we're given a content type (Smile, say), request bodies are sent
+ * in it and responses are asked for in it; otherwise responses are asked for in json, whatever the body was encoded in.
  *
  * @param <Request>  the request type to send
  * @param <Response> the response type to return
  */
 public abstract class AbstractRestClientAction<Request, Response> {
-    protected final String protocol;
-    protected final String host;
-    protected final int port;
+    protected final NodeSet nodes;
     protected final RestExecutor executor;
     protected final Function<RestResponse, Response> responseTransform;
+    @Nullable protected final Hedger hedger;
+    @Nullable protected final Retrier retrier;
+    @Nullable protected final XContentType contentType;
 
-    public AbstractRestClientAction(final String protocol, final String host, final int port, final RestExecutor executor, final Function<RestResponse, Response> responseTransform) {
-        this.protocol = protocol;
-        this.host = host;
-        this.port = port;
+    public AbstractRestClientAction(final NodeSet nodes, final RestExecutor executor, final Function<RestResponse, Response> responseTransform) {
+        this(nodes, executor, responseTransform, null, null);
+    }
+
+    public AbstractRestClientAction(final NodeSet nodes, final RestExecutor executor, final Function<RestResponse, Response> responseTransform, @Nullable final Hedger hedger, @Nullable final Retrier retrier) {
+        this(nodes, executor, responseTransform, hedger, retrier, null);
+    }
+
+    public AbstractRestClientAction(final NodeSet nodes, final RestExecutor executor, final Function<RestResponse, Response> responseTransform, @Nullable final Hedger hedger, @Nullable final Retrier retrier, @Nullable final XContentType contentType) {
+        this.nodes = nodes;
 
         this.executor = executor;
         this.responseTransform = responseTransform;
+        this.hedger = hedger;
+        this.retrier = retrier;
+        this.contentType = contentType;
     }
 
     /**
@@ -34,5 +63,87 @@ public abstract class AbstractRestClientAction<Request, Response> {
      * @param request the request to send
      * @return a future of the response
      */
-    public abstract ListenableFuture<Response> act(Request request);
+    public ListenableFuture<Response> act(final Request request) {
+        return act(request, responseTransform(request));
+    }
+
+    /**
+     * Asynchronously execute the request, just as {@link #act(Object)} does, but read the response some other way.
+     *
+     * @param request   the request to send
+     * @param transform what to make of the response
+     * @return a future of the response
+     */
+    public <R> ListenableFuture<R> act(final Request request, final Function<RestResponse, R> transform) {
+        final ListenableFuture<RestResponse> response;
+        if (retrier != null && isIdempotent(request)) {
+            response = retrier.execute(new Supplier<ListenableFuture<RestResponse>>() {
+                @Override public ListenableFuture<RestResponse> get() {
+                    return execute(request);
+                }
+            });
+        } else {
+            response = execute(request);
+        }
+        return Futures.transform(response, transform);
+    }
+
+    /**
+     * Send the request once, hedging it if we have a hedger.
+     *
+     * @return a future of the raw response
+     */
+    protected ListenableFuture<RestResponse> execute(final Request request) {
+        if (hedger != null) {
+            return hedger.execute(nodes, new Function<RestNode, ListenableFuture<RestResponse>>() {
+                @Override public ListenableFuture<RestResponse> apply(final RestNode node) {
+                    return send(node, request);
+                }
+            });
+        }
+        final RestNode node = nodes.select();
+        return nodes.track(node, send(node, request));
+    }
+
+    /**
+     * Send the request to the given node.
+     *
+     * @param node    the node to send it to
+     * @param request the request to send
+     * @return a future of the raw response
+     */
+    protected abstract ListenableFuture<RestResponse> send(RestNode node, Request request);
+
+    /**
+     * @return the url, asking for the response in our content type, or in json if we don't have one. Without the format
+     * param, ES answers in the request's Content-Type or, failing that, in whatever it sniffs the body to be, and ES's own
+     * builders (SearchSourceBuilder, for one) encode in Smile.
+     */
+    protected UrlBuilder format(final UrlBuilder url) {
+        return url.paramIfPresent("format", Optional.of((contentType == null ? XContentType.JSON : contentType).shortName()));
+    }
+
+    /**
+     * @return the source as a request body, in our content type if we have one (or an empty body, if there's no source)
+     */
+    protected RequestBody body(@Nullable final BytesReference source) {
+        if (source == null) {
+            return RequestBodies.of(BytesArray.EMPTY);
+        }
+        return contentType == null ? RequestBodies.of(source) : RequestBodies.of(source, contentType);
+    }
+
+    /**
+     * @return the transform to apply to the response to this request
+     */
+    protected Function<RestResponse, Response> responseTransform(final Request request) {
+        return responseTransform;
+    }
+
+    /**
+     * @return true if sending the request more than once has the same effect as sending it once, so it may be retried
+     */
+    protected boolean isIdempotent(final Request request) {
+        return true;
+    }
 }
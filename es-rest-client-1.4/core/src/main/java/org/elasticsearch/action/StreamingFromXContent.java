@@ -0,0 +1,22 @@
+package org.elasticsearch.action;
+
+import org.elasticsearch.common.xcontent.XContentParser;
+
+import java.io.IOException;
+
+/**
+ * A {@link FromXContent} that can also build its result straight off the token stream,
+ * without first reading the whole response into a Map. Implementations may still read the parts
+ * they don't stream into a Map; {@link org.elasticsearch.action.search.SearchResponseHelper}, for one, streams only the hits.
+ * <p/>
+ * {@link XContentResponseTransform} uses the streaming path for successful responses and keeps
+ * the Map path for everything else (errors, mostly).
+ *
+ * @param <T>
+ */
+public interface StreamingFromXContent<T> extends FromXContent<T> {
+    /**
+     * @param parser a parser that hasn't been advanced yet. The caller closes it.
+     */
+    public T fromXContent(final XContentParser parser) throws IOException;
+}
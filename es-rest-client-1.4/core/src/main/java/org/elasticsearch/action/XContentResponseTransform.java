@@ -2,22 +2,26 @@ package org.elasticsearch.action;
 
 import com.bazaarvoice.elasticsearch.client.core.spi.RestResponse;
 import com.bazaarvoice.elasticsearch.client.core.util.InputStreams;
+import com.bazaarvoice.elasticsearch.client.core.util.SlicingJsonXContentParser;
 import org.elasticsearch.ElasticSearchExceptionHelper;
 import org.elasticsearch.common.base.Function;
 import org.elasticsearch.common.base.Joiner;
-import org.elasticsearch.common.xcontent.json.JsonXContent;
+import org.elasticsearch.common.xcontent.XContentParser;
 import org.elasticsearch.common.xcontent.smile.SmileXContent;
 
 import java.io.IOException;
-import java.io.InputStream;
 import java.util.Map;
 
+import static com.bazaarvoice.elasticsearch.client.core.util.XContentParsers.readMapAndClose;
+
 /**
  * A function that transforms {@link RestResponse}s
  * whose response body is some kind of XContent into the desired type.
  * <p/>
  * You must supply the implementation of fromXContent by passing a
  * {@link org.elasticsearch.action.FromXContent} to the constructor.
+ * If it is a {@link org.elasticsearch.action.StreamingFromXContent}, successful responses are
+ * handed to it as a parser, and it streams as much of them as it can; anything else goes through a Map first.
  *
  * @param <R> The desired output format.
  */
@@ -31,17 +35,27 @@ public class XContentResponseTransform<R> implements Function<RestResponse, R> {
     @Override public R apply(final RestResponse restResponse) {
         try {
             //TODO check REST status and "ok" field and handle failure
-            final Map<String, Object> map;
+            final XContentParser parser;
             final String contentTypes = Joiner.on(",").join(restResponse.contentTypeLowerCase());
             if (contentTypes.contains("application/smile")) {
-                map = SmileXContent.smileXContent.createParser(restResponse.response()).mapAndClose();
+                parser = SmileXContent.smileXContent.createParser(restResponse.response());
             } else if (contentTypes.contains("application/json")) {
-                final InputStream is = InputStreams.stripNullChars(restResponse.response());
-                map = JsonXContent.jsonXContent.createParser(is).mapAndClose();
+                // read the whole body up front (or take it as it is, if the executor already has it), so documents can be handed out as slices of it
+                parser = SlicingJsonXContentParser.of(InputStreams.readStrippingNullChars(restResponse));
             } else {
                 throw new RuntimeException(String.format("Could not parse response. Content-Type:[%s] Body:[%s]", restResponse.contentTypeLowerCase(), InputStreams.toString(InputStreams.stripNullChars(restResponse.response()))));
             }
 
+            if (restResponse.isSuccess() && unmarshaller instanceof StreamingFromXContent) {
+                try {
+                    return ((StreamingFromXContent<R>) unmarshaller).fromXContent(parser);
+                } finally {
+                    parser.close();
+                }
+            }
+
+            final Map<String, Object> map = readMapAndClose(parser);
+
             // If there was an error throw the proper exception
             if (map.containsKey("error")) {
                 throw ElasticSearchExceptionHelper.getProperException(map);
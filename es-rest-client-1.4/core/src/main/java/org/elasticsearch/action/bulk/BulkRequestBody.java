@@ -0,0 +1,187 @@
+package org.elasticsearch.action.bulk;
+
+import com.bazaarvoice.elasticsearch.client.core.spi.RequestBody;
+import org.elasticsearch.action.ActionRequest;
+import org.elasticsearch.action.delete.DeleteRequest;
+import org.elasticsearch.action.index.IndexRequest;
+import org.elasticsearch.action.update.UpdateRequest;
+import org.elasticsearch.common.Nullable;
+import org.elasticsearch.common.bytes.BytesArray;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.lucene.uid.Versions;
+import org.elasticsearch.common.xcontent.XContentBuilder;
+import org.elasticsearch.common.xcontent.XContentFactory;
+import org.elasticsearch.common.xcontent.XContentParser;
+import org.elasticsearch.common.xcontent.XContentType;
+import org.elasticsearch.index.VersionType;
+import org.elasticsearch.script.ScriptService;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+
+import static com.bazaarvoice.elasticsearch.client.core.util.StringFunctions.opTypeToString;
+import static com.bazaarvoice.elasticsearch.client.core.util.StringFunctions.versionTypeToString;
+
+/**
+ * The body of a _bulk request, the inverse of {@link BulkRequest#add(BytesReference, boolean, String, String, boolean)}.
+ * <p/>
+ * The body is written an action line and a source line at a time into whatever stream the executor hands us, and its
+ * length isn't known up front. Each executor sends it chunked as it's written, so a big batch is never concatenated in
+ * memory. Sources that are already single-line json go out as they are; anything else
+ * (Smile, or pretty-printed json, whose newlines would end the line early) is re-encoded as compact json first.
+ */
+public class BulkRequestBody implements RequestBody {
+    private static final byte NEWLINE = '\n';
+
+    private final List<ActionRequest> requests;
+
+    public BulkRequestBody(final BulkRequest request) {
+        this.requests = request.requests();
+    }
+
+    @Override public long contentLength() {
+        return -1;
+    }
+
+    @Override public String contentType() {
+        return XContentType.JSON.restContentType();
+    }
+
+    @Override public void writeTo(final OutputStream out) throws IOException {
+        for (ActionRequest request : requests) {
+            if (request instanceof IndexRequest) {
+                final IndexRequest index = (IndexRequest) request;
+                writeLine(out, actionLine(index));
+                writeLine(out, singleLineJson(index.safeSource()));
+            } else if (request instanceof DeleteRequest) {
+                writeLine(out, actionLine((DeleteRequest) request));
+            } else if (request instanceof UpdateRequest) {
+                final UpdateRequest update = (UpdateRequest) request;
+                writeLine(out, actionLine(update));
+                writeLine(out, updateSource(update));
+            } else {
+                throw new IllegalArgumentException("Bulk requests can only hold index, delete and update requests, not " + request.getClass().getName());
+            }
+        }
+    }
+
+    private static void writeLine(final OutputStream out, final BytesReference line) throws IOException {
+        line.writeTo(out);
+        out.write(NEWLINE);
+    }
+
+    private static BytesReference actionLine(final IndexRequest request) throws IOException {
+        final XContentBuilder builder = XContentFactory.jsonBuilder().startObject().startObject(opTypeToString.apply(request.opType()));
+        meta(builder, request.index(), request.type(), request.id(), request.routing(), request.version(), request.versionType());
+        field(builder, "_parent", request.parent());
+        field(builder, "_timestamp", request.timestamp());
+        if (request.ttl() != -1) {
+            builder.field("_ttl", request.ttl());
+        }
+        return builder.endObject().endObject().bytes();
+    }
+
+    private static BytesReference actionLine(final DeleteRequest request) throws IOException {
+        final XContentBuilder builder = XContentFactory.jsonBuilder().startObject().startObject("delete");
+        // as with the single delete, parent(String) just sets the routing
+        meta(builder, request.index(), request.type(), request.id(), request.routing(), request.version(), request.versionType());
+        return builder.endObject().endObject().bytes();
+    }
+
+    private static BytesReference actionLine(final UpdateRequest request) throws IOException {
+        final XContentBuilder builder = XContentFactory.jsonBuilder().startObject().startObject("update");
+        meta(builder, request.index(), request.type(), request.id(), request.routing(), request.version(), request.versionType());
+        if (request.retryOnConflict() > 0) {
+            builder.field("_retry_on_conflict", request.retryOnConflict());
+        }
+        return builder.endObject().endObject().bytes();
+    }
+
+    private static void meta(final XContentBuilder builder, @Nullable final String index, @Nullable final String type, @Nullable final String id,
+                             @Nullable final String routing, final long version, @Nullable final VersionType versionType) throws IOException {
+        field(builder, "_index", index);
+        field(builder, "_type", type);
+        field(builder, "_id", id);
+        field(builder, "_routing", routing);
+        if (version != Versions.MATCH_ANY) {
+            builder.field("_version", version);
+        }
+        if (versionType != null && versionType != VersionType.INTERNAL) {
+            builder.field("_version_type", versionTypeToString.apply(versionType));
+        }
+    }
+
+    private static void field(final XContentBuilder builder, final String name, @Nullable final String value) throws IOException {
+        if (value != null) {
+            builder.field(name, value);
+        }
+    }
+
+    /**
+     * The inverse of {@link UpdateRequest#source(BytesReference)}
+     */
+    private static BytesReference updateSource(final UpdateRequest request) throws IOException {
+        final XContentBuilder builder = XContentFactory.jsonBuilder().startObject();
+        if (request.script() != null) {
+            builder.field(request.scriptType() == ScriptService.ScriptType.INDEXED ? "script_id" : "script", request.script());
+            field(builder, "lang", request.scriptLang());
+            if (request.scriptParams() != null) {
+                builder.field("params", request.scriptParams());
+            }
+        }
+        if (request.doc() != null) {
+            copyField(builder, "doc", request.doc().safeSource());
+        }
+        if (request.upsertRequest() != null) {
+            copyField(builder, "upsert", request.upsertRequest().safeSource());
+        }
+        if (request.docAsUpsert()) {
+            builder.field("doc_as_upsert", true);
+        }
+        if (request.scriptedUpsert()) {
+            builder.field("scripted_upsert", true);
+        }
+        if (request.detectNoop()) {
+            builder.field("detect_noop", true);
+        }
+        return builder.endObject().bytes();
+    }
+
+    private static void copyField(final XContentBuilder builder, final String name, final BytesReference source) throws IOException {
+        final XContentParser parser = XContentFactory.xContent(source).createParser(source);
+        try {
+            parser.nextToken();
+            builder.field(name).copyCurrentStructure(parser);
+        } finally {
+            parser.close();
+        }
+    }
+
+    /**
+     * @return the source as json with no newlines in it, without copying it if it already is
+     */
+    static BytesReference singleLineJson(final BytesReference source) throws IOException {
+        if (XContentFactory.xContentType(source) == XContentType.JSON && !containsNewline(source)) {
+            return source;
+        }
+        final XContentParser parser = XContentFactory.xContent(source).createParser(source);
+        try {
+            parser.nextToken();
+            return XContentFactory.jsonBuilder().copyCurrentStructure(parser).bytes();
+        } finally {
+            parser.close();
+        }
+    }
+
+    private static boolean containsNewline(final BytesReference source) {
+        final BytesArray bytes = source.toBytesArray();
+        final byte[] array = bytes.array();
+        for (int i = bytes.arrayOffset(), end = bytes.arrayOffset() + bytes.length(); i < end; i++) {
+            if (array[i] == NEWLINE) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,110 @@
+package org.elasticsearch.action.bulk;
+
+import org.elasticsearch.action.ActionResponse;
+import org.elasticsearch.action.StreamingFromXContent;
+import org.elasticsearch.action.delete.DeleteResponse;
+import org.elasticsearch.action.get.GetResponseHelper;
+import org.elasticsearch.action.index.IndexResponse;
+import org.elasticsearch.action.update.UpdateResponse;
+import org.elasticsearch.common.collect.ImmutableMap;
+import org.elasticsearch.common.collect.Lists;
+import org.elasticsearch.common.xcontent.XContentParser;
+import org.elasticsearch.rest.RestStatus;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+
+import static com.bazaarvoice.elasticsearch.client.core.util.MapFunctions.nodeListValue;
+import static com.bazaarvoice.elasticsearch.client.core.util.MapFunctions.nodeMapValue;
+import static com.bazaarvoice.elasticsearch.client.core.util.MapFunctions.nodeStringValue;
+import static com.bazaarvoice.elasticsearch.client.core.util.XContentParsers.readMap;
+import static org.elasticsearch.common.base.Preconditions.checkState;
+import static org.elasticsearch.common.xcontent.support.XContentMapValues.nodeBooleanValue;
+import static org.elasticsearch.common.xcontent.support.XContentMapValues.nodeIntegerValue;
+import static org.elasticsearch.common.xcontent.support.XContentMapValues.nodeLongValue;
+
+/**
+ * The inverse of the anonymous {@link org.elasticsearch.rest.action.support.RestBuilderListener}
+ * in {@link org.elasticsearch.rest.action.bulk.RestBulkAction}
+ * <p/>
+ * On the streaming path, each item is read into its own little map and turned into a {@link BulkItemResponse}
+ * before the next one is read, so a big batch's response never exists as one Map tree.
+ */
+public class BulkResponseHelper implements StreamingFromXContent<BulkResponse> {
+    private static final Map<Integer, RestStatus> STATUSES;
+
+    static {
+        final ImmutableMap.Builder<Integer, RestStatus> statuses = ImmutableMap.builder();
+        for (RestStatus status : RestStatus.values()) {
+            statuses.put(status.getStatus(), status);
+        }
+        STATUSES = statuses.build();
+    }
+
+    @Override public BulkResponse fromXContent(final Map<String, Object> map) {
+        final List<Object> items = nodeListValue(map.get("items"), Object.class);
+        final BulkItemResponse[] responses = new BulkItemResponse[items.size()];
+        for (int i = 0; i < responses.length; i++) {
+            final Map<String, Object> item = nodeMapValue(items.get(i), String.class, Object.class);
+            final Map.Entry<String, Object> action = item.entrySet().iterator().next();
+            responses[i] = itemFromXContent(i, action.getKey(), nodeMapValue(action.getValue(), String.class, Object.class));
+        }
+        return new BulkResponse(responses, nodeLongValue(map.get("took")));
+    }
+
+    @Override public BulkResponse fromXContent(final XContentParser parser) throws IOException {
+        checkState(parser.nextToken() == XContentParser.Token.START_OBJECT, "Expected the response to be an object");
+        final List<BulkItemResponse> responses = Lists.newArrayList();
+        long took = 0;
+        String field = null;
+        XContentParser.Token token;
+        while ((token = parser.nextToken()) != XContentParser.Token.END_OBJECT) {
+            if (token == XContentParser.Token.FIELD_NAME) {
+                field = parser.currentName();
+            } else if ("items".equals(field) && token == XContentParser.Token.START_ARRAY) {
+                while (parser.nextToken() == XContentParser.Token.START_OBJECT) {
+                    checkState(parser.nextToken() == XContentParser.Token.FIELD_NAME, "Expected each bulk item to be named for its action");
+                    final String opType = parser.currentName();
+                    parser.nextToken();
+                    responses.add(itemFromXContent(responses.size(), opType, readMap(parser)));
+                    checkState(parser.nextToken() == XContentParser.Token.END_OBJECT, "Expected each bulk item to hold a single action");
+                }
+            } else if ("took".equals(field)) {
+                took = parser.longValue();
+            } else {
+                parser.skipChildren();
+            }
+        }
+        return new BulkResponse(responses.toArray(new BulkItemResponse[responses.size()]), took);
+    }
+
+    private static BulkItemResponse itemFromXContent(final int position, final String opType, final Map<String, Object> map) {
+        final String index = nodeStringValue(map.get("_index"));
+        final String type = nodeStringValue(map.get("_type"));
+        final String id = nodeStringValue(map.get("_id"));
+        final long version = nodeLongValue(map.get("_version"), -1);
+        final RestStatus status = STATUSES.get(nodeIntegerValue(map.get("status"), RestStatus.OK.getStatus()));
+
+        if (map.containsKey("error")) {
+            return new BulkItemResponse(position, opType, new BulkItemResponse.Failure(index, type, id, nodeStringValue(map.get("error")), status));
+        }
+
+        final ActionResponse response;
+        if ("index".equals(opType) || "create".equals(opType)) {
+            response = new IndexResponse(index, type, id, version, status == RestStatus.CREATED);
+        } else if ("delete".equals(opType)) {
+            response = new DeleteResponse(index, type, id, version, nodeBooleanValue(map.get("found"), status != RestStatus.NOT_FOUND));
+        } else if ("update".equals(opType)) {
+            final UpdateResponse update = new UpdateResponse(index, type, id, version, status == RestStatus.CREATED);
+            if (map.containsKey("get")) {
+                // only there when the update asked for fields
+                update.setGetResult(GetResponseHelper.embeddedGetResult(index, type, id, version, nodeMapValue(map.get("get"), String.class, Object.class)));
+            }
+            response = update;
+        } else {
+            throw new IllegalStateException(String.format("unexpected bulk op type %s", opType));
+        }
+        return new BulkItemResponse(position, opType, response);
+    }
+}
@@ -0,0 +1,66 @@
+package org.elasticsearch.action.bulk;
+
+import com.bazaarvoice.elasticsearch.client.core.nodes.NodeSet;
+import com.bazaarvoice.elasticsearch.client.core.nodes.RestNode;
+import com.bazaarvoice.elasticsearch.client.core.retry.Retrier;
+import com.bazaarvoice.elasticsearch.client.core.spi.RestExecutor;
+import com.bazaarvoice.elasticsearch.client.core.spi.RestResponse;
+import com.bazaarvoice.elasticsearch.client.core.util.UrlBuilder;
+import org.elasticsearch.action.AbstractRestClientAction;
+import org.elasticsearch.action.ActionRequest;
+import org.elasticsearch.action.index.IndexRequest;
+import org.elasticsearch.action.update.UpdateRequest;
+import org.elasticsearch.common.Nullable;
+import org.elasticsearch.common.base.Function;
+import org.elasticsearch.common.util.concurrent.ListenableFuture;
+import org.elasticsearch.common.xcontent.XContentType;
+
+import static com.bazaarvoice.elasticsearch.client.core.util.StringFunctions.booleanToString;
+import static com.bazaarvoice.elasticsearch.client.core.util.StringFunctions.replicationTypeToString;
+import static com.bazaarvoice.elasticsearch.client.core.util.StringFunctions.timeValueToString;
+import static com.bazaarvoice.elasticsearch.client.core.util.StringFunctions.writeConsistencyLevelToString;
+import static org.elasticsearch.common.base.Optional.fromNullable;
+
+/**
+ * The inverse of {@link org.elasticsearch.rest.action.bulk.RestBulkAction}
+ * <p/>
+ * The body is always json, since that's the only format whose lines we can split safely;
+ * the response still comes back in our content type, if we have one.
+ *
+ * @param <ResponseType>
+ */
+public class BulkRest<ResponseType> extends AbstractRestClientAction<BulkRequest, ResponseType> {
+    public BulkRest(final NodeSet nodes, final RestExecutor executor, final Function<RestResponse, ResponseType> responseTransform) {
+        super(nodes, executor, responseTransform);
+    }
+
+    public BulkRest(final NodeSet nodes, final RestExecutor executor, final Function<RestResponse, ResponseType> responseTransform, @Nullable final Retrier retrier, @Nullable final XContentType contentType) {
+        super(nodes, executor, responseTransform, null, retrier, contentType);
+    }
+
+    @Override protected ListenableFuture<RestResponse> send(final RestNode node, final BulkRequest request) {
+        UrlBuilder url = format(node.url())
+            .path("_bulk")
+            .paramIfPresent("timeout", fromNullable(request.timeout()).transform(timeValueToString))
+            .paramIfPresent("refresh", fromNullable(request.refresh()).transform(booleanToString))
+            .paramIfPresent("replication", fromNullable(request.replicationType()).transform(replicationTypeToString))
+            .paramIfPresent("consistency", fromNullable(request.consistencyLevel()).transform(writeConsistencyLevelToString));
+        return executor.post(url.url(), new BulkRequestBody(request));
+    }
+
+    /**
+     * Sending a batch twice is only harmless if every item in it is: no index requests without an id
+     * (ES would make up a second one), and no scripted updates (the script would run twice).
+     */
+    @Override protected boolean isIdempotent(final BulkRequest request) {
+        for (ActionRequest item : request.requests()) {
+            if (item instanceof IndexRequest && ((IndexRequest) item).id() == null) {
+                return false;
+            }
+            if (item instanceof UpdateRequest && ((UpdateRequest) item).script() != null) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -1,12 +1,16 @@
 package org.elasticsearch.action.delete;
 
+import com.bazaarvoice.elasticsearch.client.core.nodes.NodeSet;
+import com.bazaarvoice.elasticsearch.client.core.nodes.RestNode;
+import com.bazaarvoice.elasticsearch.client.core.retry.Retrier;
 import com.bazaarvoice.elasticsearch.client.core.spi.RestExecutor;
 import com.bazaarvoice.elasticsearch.client.core.spi.RestResponse;
 import com.bazaarvoice.elasticsearch.client.core.util.UrlBuilder;
 import org.elasticsearch.action.AbstractRestClientAction;
+import org.elasticsearch.common.Nullable;
 import org.elasticsearch.common.base.Function;
-import org.elasticsearch.common.util.concurrent.Futures;
 import org.elasticsearch.common.util.concurrent.ListenableFuture;
+import org.elasticsearch.common.xcontent.XContentType;
 
 import static com.bazaarvoice.elasticsearch.client.core.util.StringFunctions.booleanToString;
 import static com.bazaarvoice.elasticsearch.client.core.util.StringFunctions.longToString;
@@ -25,13 +29,20 @@ import static org.elasticsearch.common.base.Optional.fromNullable;
  */
 public class DeleteRest<ResponseType> extends AbstractRestClientAction<DeleteRequest, ResponseType> {
 
-    public DeleteRest(final String protocol, final String host, final int port, final RestExecutor executor, final Function<RestResponse, ResponseType> responseTransform) {
-        super(protocol, host, port, executor, responseTransform);
+    public DeleteRest(final NodeSet nodes, final RestExecutor executor, final Function<RestResponse, ResponseType> responseTransform) {
+        super(nodes, executor, responseTransform);
     }
 
-    @Override public ListenableFuture<ResponseType> act(final DeleteRequest request) {
-        UrlBuilder url = UrlBuilder.create()
-            .protocol(protocol).host(host).port(port)
+    public DeleteRest(final NodeSet nodes, final RestExecutor executor, final Function<RestResponse, ResponseType> responseTransform, @Nullable final Retrier retrier) {
+        super(nodes, executor, responseTransform, null, retrier);
+    }
+
+    public DeleteRest(final NodeSet nodes, final RestExecutor executor, final Function<RestResponse, ResponseType> responseTransform, @Nullable final Retrier retrier, @Nullable final XContentType contentType) {
+        super(nodes, executor, responseTransform, null, retrier, contentType);
+    }
+
+    @Override protected ListenableFuture<RestResponse> send(final RestNode node, final DeleteRequest request) {
+        UrlBuilder url = format(node.url())
             .path(urlEncode(notNull(request.index())))
             .seg(urlEncode(notNull(request.type())))
             .seg(urlEncode(notNull(request.id())))
@@ -43,7 +54,7 @@ public class DeleteRest<ResponseType> extends AbstractRestClientAction<DeleteReq
             .paramIfPresent("version_type", fromNullable(request.versionType()).transform(versionTypeToString))
             .paramIfPresent("replication", fromNullable(request.replicationType()).transform(replicationTypeToString))
             .paramIfPresent("consistency", fromNullable(request.consistencyLevel()).transform(writeConsistencyLevelToString));
-        return Futures.transform(executor.delete(url.url()), responseTransform);
+        return executor.delete(url.url());
     }
 
 }
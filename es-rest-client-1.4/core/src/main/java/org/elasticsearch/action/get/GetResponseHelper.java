@@ -1,12 +1,16 @@
 package org.elasticsearch.action.get;
 
-import org.elasticsearch.action.FromXContent;
+import org.elasticsearch.action.StreamingFromXContent;
+import org.elasticsearch.common.Nullable;
+import org.elasticsearch.common.bytes.BytesReference;
 import org.elasticsearch.common.collect.ImmutableList;
 import org.elasticsearch.common.collect.ImmutableMap;
 import org.elasticsearch.common.collect.Maps;
+import org.elasticsearch.common.xcontent.XContentParser;
 import org.elasticsearch.index.get.GetField;
 import org.elasticsearch.index.get.GetResult;
 
+import java.io.IOException;
 import java.util.List;
 import java.util.Map;
 
@@ -14,14 +18,64 @@ import static com.bazaarvoice.elasticsearch.client.core.util.MapFunctions.nodeBy
 import static com.bazaarvoice.elasticsearch.client.core.util.MapFunctions.nodeListValue;
 import static com.bazaarvoice.elasticsearch.client.core.util.MapFunctions.nodeMapValue;
 import static com.bazaarvoice.elasticsearch.client.core.util.MapFunctions.nodeStringValue;
+import static com.bazaarvoice.elasticsearch.client.core.util.XContentParsers.copyCurrentStructure;
+import static com.bazaarvoice.elasticsearch.client.core.util.XContentParsers.readValue;
+import static org.elasticsearch.common.base.Preconditions.checkState;
 import static org.elasticsearch.common.xcontent.support.XContentMapValues.nodeBooleanValue;
 import static org.elasticsearch.common.xcontent.support.XContentMapValues.nodeLongValue;
 
 /**
  * The inverse of {@link GetResponse#toXContent(org.elasticsearch.common.xcontent.XContentBuilder, org.elasticsearch.common.xcontent.ToXContent.Params)}
  */
-public class GetResponseHelper implements FromXContent<GetResponse> {
+public class GetResponseHelper implements StreamingFromXContent<GetResponse> {
     @Override public GetResponse fromXContent(final Map<String, Object> map) {
+        //noinspection unchecked
+        return fromXContent(map, nodeBytesReferenceForMapValue((Map<String, ?>) map.get("_source")));
+    }
+
+    /**
+     * Keeps the _source as the bytes it was sent in; the rest of the response goes through the Map path.
+     */
+    @Override public GetResponse fromXContent(final XContentParser parser) throws IOException {
+        checkState(parser.nextToken() == XContentParser.Token.START_OBJECT, "Expected the response to be an object");
+        final Map<String, Object> map = Maps.newHashMap();
+        BytesReference source = null;
+        String field = null;
+        XContentParser.Token token;
+        while ((token = parser.nextToken()) != XContentParser.Token.END_OBJECT) {
+            if (token == XContentParser.Token.FIELD_NAME) {
+                field = parser.currentName();
+            } else if ("_source".equals(field)) {
+                source = token == XContentParser.Token.VALUE_NULL ? null : copyCurrentStructure(parser);
+            } else {
+                map.put(field, readValue(parser));
+            }
+        }
+        return fromXContent(map, source);
+    }
+
+    private static GetResponse fromXContent(final Map<String, Object> map, @Nullable final BytesReference source) {
+        return new GetResponse(getResult(
+            nodeStringValue(map.get("_index")),
+            nodeStringValue(map.get("_type")),
+            nodeStringValue(map.get("_id")),
+            nodeLongValue(map.get("_version"), -1),
+            map,
+            source
+        ));
+    }
+
+    /**
+     * The inverse of {@link GetResult#toXContentEmbedded}, the "get" ES puts in other responses (an update's, when it
+     * asked for fields). It leaves out the document's coordinates, so those come from the enclosing response.
+     */
+    public static GetResult embeddedGetResult(final String index, final String type, final String id, final long version, final Map<String, Object> map) {
+        //noinspection unchecked
+        return getResult(index, type, id, version, map, nodeBytesReferenceForMapValue((Map<String, ?>) map.get("_source")));
+    }
+
+    private static GetResult getResult(final String index, final String type, final String id, final long version,
+                                       final Map<String, Object> map, @Nullable final BytesReference source) {
         final Map<String, GetField> fields;
         if (map.containsKey("fields")) {
             Map<String, Object> incoming = nodeMapValue(map.get("fields"), String.class, Object.class);
@@ -37,15 +91,6 @@ public class GetResponseHelper implements FromXContent<GetResponse> {
             fields = ImmutableMap.of();
         }
 
-        //noinspection unchecked
-        return new GetResponse(new GetResult(
-            nodeStringValue(map.get("_index")),
-            nodeStringValue(map.get("_type")),
-            nodeStringValue(map.get("_id")),
-            nodeLongValue(map.get("_version"), -1),
-            nodeBooleanValue(map.get("found"), true),
-            nodeBytesReferenceForMapValue((Map<String, ?>) map.get("_source")),
-            fields
-        ));
+        return new GetResult(index, type, id, version, nodeBooleanValue(map.get("found"), true), source, fields);
     }
 }
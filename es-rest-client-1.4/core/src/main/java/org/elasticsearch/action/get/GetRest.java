@@ -1,12 +1,23 @@
 package org.elasticsearch.action.get;
 
+import com.bazaarvoice.elasticsearch.client.core.hedge.Hedger;
+import com.bazaarvoice.elasticsearch.client.core.nodes.NodeSet;
+import com.bazaarvoice.elasticsearch.client.core.nodes.RestNode;
+import com.bazaarvoice.elasticsearch.client.core.raw.RawResponse;
+import com.bazaarvoice.elasticsearch.client.core.raw.RawResponseTransform;
+import com.bazaarvoice.elasticsearch.client.core.retry.Retrier;
 import com.bazaarvoice.elasticsearch.client.core.spi.RestExecutor;
 import com.bazaarvoice.elasticsearch.client.core.spi.RestResponse;
+import com.bazaarvoice.elasticsearch.client.core.typed.SourceBinding;
+import com.bazaarvoice.elasticsearch.client.core.typed.TypedGetResponse;
+import com.bazaarvoice.elasticsearch.client.core.typed.TypedGetResponseHelper;
 import com.bazaarvoice.elasticsearch.client.core.util.UrlBuilder;
 import org.elasticsearch.action.AbstractRestClientAction;
+import org.elasticsearch.action.XContentResponseTransform;
+import org.elasticsearch.common.Nullable;
 import org.elasticsearch.common.base.Function;
-import org.elasticsearch.common.util.concurrent.Futures;
 import org.elasticsearch.common.util.concurrent.ListenableFuture;
+import org.elasticsearch.common.xcontent.XContentType;
 
 import static com.bazaarvoice.elasticsearch.client.core.util.StringFunctions.booleanToString;
 import static com.bazaarvoice.elasticsearch.client.core.util.StringFunctions.commaDelimitedToString;
@@ -20,13 +31,34 @@ import static org.elasticsearch.common.base.Optional.fromNullable;
  * @param <ResponseType>
  */
 public class GetRest<ResponseType> extends AbstractRestClientAction<GetRequest, ResponseType> {
-    public GetRest(final String protocol, final String host, final int port, final RestExecutor executor, final Function<RestResponse, ResponseType> responseTransform) {
-        super(protocol, host, port, executor, responseTransform);
+    public GetRest(final NodeSet nodes, final RestExecutor executor, final Function<RestResponse, ResponseType> responseTransform) {
+        super(nodes, executor, responseTransform);
     }
 
-    @Override public ListenableFuture<ResponseType> act(GetRequest request) {
-        UrlBuilder url = UrlBuilder.create()
-            .protocol(protocol).host(host).port(port)
+    public GetRest(final NodeSet nodes, final RestExecutor executor, final Function<RestResponse, ResponseType> responseTransform, @Nullable final Hedger hedger, @Nullable final Retrier retrier) {
+        super(nodes, executor, responseTransform, hedger, retrier);
+    }
+
+    public GetRest(final NodeSet nodes, final RestExecutor executor, final Function<RestResponse, ResponseType> responseTransform, @Nullable final Hedger hedger, @Nullable final Retrier retrier, @Nullable final XContentType contentType) {
+        super(nodes, executor, responseTransform, hedger, retrier, contentType);
+    }
+
+    /**
+     * Get, binding the document's source straight to a {@code T} instead of building the usual response.
+     */
+    public <T> ListenableFuture<TypedGetResponse<T>> act(final GetRequest request, final SourceBinding<T> binding) {
+        return act(request, new XContentResponseTransform<TypedGetResponse<T>>(new TypedGetResponseHelper<T>(binding)));
+    }
+
+    /**
+     * Get, handing back the response as ES sent it. Only errors are parsed.
+     */
+    public ListenableFuture<RawResponse> actRaw(final GetRequest request) {
+        return act(request, RawResponseTransform.INSTANCE);
+    }
+
+    @Override protected ListenableFuture<RestResponse> send(final RestNode node, final GetRequest request) {
+        UrlBuilder url = format(node.url())
             .path(urlEncode(notNull(request.index())))
             .seg(urlEncode(notNull(request.type())))
             .seg(urlEncode(notNull(request.id())))
@@ -38,6 +70,6 @@ public class GetRest<ResponseType> extends AbstractRestClientAction<GetRequest,
             .paramIfPresent("ignore_errors_on_generated_fields", fromNullable(request.ignoreErrorsOnGeneratedFields()).transform(booleanToString))
             .paramIfPresent("fields", fromNullable(request.fields()).transform(commaDelimitedToString));
 
-        return Futures.transform(executor.get(url.url()), responseTransform);
+        return executor.get(url.url());
     }
 }
@@ -1,14 +1,17 @@
 package org.elasticsearch.action.index;
 
+import com.bazaarvoice.elasticsearch.client.core.nodes.NodeSet;
+import com.bazaarvoice.elasticsearch.client.core.nodes.RestNode;
+import com.bazaarvoice.elasticsearch.client.core.retry.Retrier;
 import com.bazaarvoice.elasticsearch.client.core.spi.RestExecutor;
 import com.bazaarvoice.elasticsearch.client.core.spi.RestResponse;
-import com.bazaarvoice.elasticsearch.client.core.util.InputStreams;
 import com.bazaarvoice.elasticsearch.client.core.util.UrlBuilder;
 import org.elasticsearch.action.AbstractRestClientAction;
+import org.elasticsearch.common.Nullable;
 import org.elasticsearch.common.base.Function;
 import org.elasticsearch.common.base.Optional;
-import org.elasticsearch.common.util.concurrent.Futures;
 import org.elasticsearch.common.util.concurrent.ListenableFuture;
+import org.elasticsearch.common.xcontent.XContentType;
 
 import static com.bazaarvoice.elasticsearch.client.core.util.StringFunctions.booleanToString;
 import static com.bazaarvoice.elasticsearch.client.core.util.StringFunctions.longToString;
@@ -28,13 +31,20 @@ import static org.elasticsearch.common.base.Optional.of;
  * @param <ResponseType>
  */
 public class IndexRest<ResponseType> extends AbstractRestClientAction<IndexRequest, ResponseType> {
-    public IndexRest(final String protocol, final String host, final int port, final RestExecutor executor, final Function<RestResponse, ResponseType> responseTransform) {
-        super(protocol, host, port, executor, responseTransform);
+    public IndexRest(final NodeSet nodes, final RestExecutor executor, final Function<RestResponse, ResponseType> responseTransform) {
+        super(nodes, executor, responseTransform);
     }
 
-    @Override public ListenableFuture<ResponseType> act(IndexRequest request) {
-        UrlBuilder url = UrlBuilder.create()
-            .protocol(protocol).host(host).port(port)
+    public IndexRest(final NodeSet nodes, final RestExecutor executor, final Function<RestResponse, ResponseType> responseTransform, @Nullable final Retrier retrier) {
+        super(nodes, executor, responseTransform, null, retrier);
+    }
+
+    public IndexRest(final NodeSet nodes, final RestExecutor executor, final Function<RestResponse, ResponseType> responseTransform, @Nullable final Retrier retrier, @Nullable final XContentType contentType) {
+        super(nodes, executor, responseTransform, null, retrier, contentType);
+    }
+
+    @Override protected ListenableFuture<RestResponse> send(final RestNode node, final IndexRequest request) {
+        UrlBuilder url = format(node.url())
             .path(urlEncode(notNull(request.index())))
             .seg(urlEncode(notNull(request.type())))
             .paramIfPresent("routing", fromNullable(request.routing()))
@@ -53,9 +63,16 @@ public class IndexRest<ResponseType> extends AbstractRestClientAction<IndexReque
         // source:
         if (request.id() == null) {
             // auto id creation
-            return Futures.transform(executor.post(url.url(), InputStreams.of(request.safeSource())), responseTransform);
+            return executor.post(url.url(), body(request.safeSource()));
         } else {
-            return Futures.transform(executor.put(url.seg(urlEncode(request.id())).url(), InputStreams.of(request.safeSource())), responseTransform);
+            return executor.put(url.seg(urlEncode(request.id())).url(), body(request.safeSource()));
         }
     }
+
+    /**
+     * Without an id, ES makes one up, so sending the request twice could index the document twice.
+     */
+    @Override protected boolean isIdempotent(final IndexRequest request) {
+        return request.id() != null;
+    }
 }
@@ -1,20 +1,26 @@
 package org.elasticsearch.action.search;
 
 import com.bazaarvoice.elasticsearch.client.core.util.aggs.AggregationsManifest;
-import org.elasticsearch.action.FromXContent;
+import com.bazaarvoice.elasticsearch.client.core.util.aggs.AggregationsManifestCache;
+import org.elasticsearch.action.StreamingFromXContent;
+import org.elasticsearch.action.search.helpers.InternalSearchHitsHelper;
 import org.elasticsearch.action.search.helpers.InternalSearchResponseHelper;
+import org.elasticsearch.common.Nullable;
 import org.elasticsearch.common.Preconditions;
-import org.elasticsearch.common.bytes.BytesArray;
+import org.elasticsearch.common.collect.Maps;
 import org.elasticsearch.common.xcontent.ToXContent.Params;
 import org.elasticsearch.common.xcontent.XContentBuilder;
+import org.elasticsearch.common.xcontent.XContentParser;
 import org.elasticsearch.rest.RestStatus;
 import org.elasticsearch.search.SearchShardTarget;
+import org.elasticsearch.search.internal.InternalSearchHits;
 
+import java.io.IOException;
 import java.util.Map;
 
-import static com.bazaarvoice.elasticsearch.client.core.util.MapFunctions.toMap;
 import static com.bazaarvoice.elasticsearch.client.core.util.MapFunctions.nodeListValue;
 import static com.bazaarvoice.elasticsearch.client.core.util.MapFunctions.nodeMapValue;
+import static com.bazaarvoice.elasticsearch.client.core.util.XContentParsers.readValue;
 import static org.elasticsearch.common.base.Preconditions.checkState;
 import static org.elasticsearch.common.xcontent.support.XContentMapValues.nodeIntegerValue;
 import static org.elasticsearch.common.xcontent.support.XContentMapValues.nodeLongValue;
@@ -23,32 +29,57 @@ import static org.elasticsearch.common.xcontent.support.XContentMapValues.nodeSt
 /**
  * The inverse of {@link org.elasticsearch.action.search.SearchResponse#toXContent(XContentBuilder, Params)}
  */
-public class SearchResponseHelper implements FromXContent<SearchResponse> {
+public class SearchResponseHelper implements StreamingFromXContent<SearchResponse> {
     final AggregationsManifest aggregationsManifest;
 
     public SearchResponseHelper(final SearchRequest request) {
-        final Map<String, Object> source = toMap(request.source());
-        if (source == null) {
-            aggregationsManifest = null;
-        } else if (source.containsKey("aggregations")) {
-            aggregationsManifest = AggregationsManifest.fromSource(nodeMapValue(source.get("aggregations"), String.class, Object.class));
-        } else if (source.containsKey("aggs")) {
-            aggregationsManifest = AggregationsManifest.fromSource(nodeMapValue(source.get("aggs"), String.class, Object.class));
-        } else if (source.containsKey("aggregations_binary")) {
-            aggregationsManifest = AggregationsManifest.fromSource(toMap(new BytesArray((byte[]) source.get("aggregations_binary"))));
-        } else {
-            aggregationsManifest = null;
-        }
+        this(request, null);
+    }
+
+    /**
+     * @see AggregationsManifest#of(SearchRequest, AggregationsManifestCache)
+     */
+    public SearchResponseHelper(final SearchRequest request, @Nullable final AggregationsManifestCache cache) {
+        aggregationsManifest = AggregationsManifest.of(request, cache);
     }
 
     @Override public SearchResponse fromXContent(final Map<String, Object> map) {
+        return fromXContent(map, InternalSearchHitsHelper.fromXContent(map));
+    }
+
+    /**
+     * Streams the hits, and only the hits. The remaining top-level fields are read into a Map for the usual helpers,
+     * so aggregations, facets and suggestions are parsed exactly as on the Map path: the parsers in
+     * {@link org.elasticsearch.action.search.helpers.AggregationParsers} and
+     * {@link org.elasticsearch.action.search.helpers.FacetParsers} only take Maps. A response whose size is mostly
+     * in its aggregations (a terms aggregation with size 0, say) still builds the whole tree for them.
+     */
+    @Override public SearchResponse fromXContent(final XContentParser parser) throws IOException {
+        checkState(parser.nextToken() == XContentParser.Token.START_OBJECT, "Expected the response to be an object");
+        final Map<String, Object> map = Maps.newHashMap();
+        InternalSearchHits hits = null;
+        String field = null;
+        XContentParser.Token token;
+        while ((token = parser.nextToken()) != XContentParser.Token.END_OBJECT) {
+            if (token == XContentParser.Token.FIELD_NAME) {
+                field = parser.currentName();
+            } else if ("hits".equals(field) && token == XContentParser.Token.START_OBJECT) {
+                hits = InternalSearchHitsHelper.fromXContent(parser);
+            } else {
+                map.put(field, readValue(parser));
+            }
+        }
+        return fromXContent(map, hits);
+    }
+
+    private SearchResponse fromXContent(final Map<String, Object> map, @Nullable final InternalSearchHits hits) {
         Map<String, Object> shards = nodeMapValue(map.get("_shards"), String.class, Object.class);
         int totalShards = nodeIntegerValue(shards.get("total"));
         int successfulShards = nodeIntegerValue(shards.get("successful"));
         int failedShards = totalShards - successfulShards;
 
         return new SearchResponse(
-            InternalSearchResponseHelper.fromXContent(map, aggregationsManifest),
+            InternalSearchResponseHelper.fromXContent(map, hits, aggregationsManifest),
             nodeStringValue(map.get("_scroll_id"), null),
             totalShards,
             successfulShards,
@@ -1,12 +1,26 @@
 package org.elasticsearch.action.search;
 
+import com.bazaarvoice.elasticsearch.client.core.hedge.Hedger;
+import com.bazaarvoice.elasticsearch.client.core.nodes.NodeSet;
+import com.bazaarvoice.elasticsearch.client.core.nodes.RestNode;
+import com.bazaarvoice.elasticsearch.client.core.raw.RawResponse;
+import com.bazaarvoice.elasticsearch.client.core.raw.RawResponseTransform;
+import com.bazaarvoice.elasticsearch.client.core.retry.Retrier;
 import com.bazaarvoice.elasticsearch.client.core.spi.RestExecutor;
-import com.bazaarvoice.elasticsearch.client.core.util.InputStreams;
+import com.bazaarvoice.elasticsearch.client.core.spi.RestResponse;
+import com.bazaarvoice.elasticsearch.client.core.typed.SourceBinding;
+import com.bazaarvoice.elasticsearch.client.core.typed.TypedSearchResponse;
+import com.bazaarvoice.elasticsearch.client.core.typed.TypedSearchResponseHelper;
 import com.bazaarvoice.elasticsearch.client.core.util.UrlBuilder;
+import com.bazaarvoice.elasticsearch.client.core.util.aggs.AggregationsManifest;
+import com.bazaarvoice.elasticsearch.client.core.util.aggs.AggregationsManifestCache;
+import org.elasticsearch.action.AbstractRestClientAction;
 import org.elasticsearch.action.XContentResponseTransform;
+import org.elasticsearch.common.Nullable;
+import org.elasticsearch.common.base.Function;
 import org.elasticsearch.common.base.Joiner;
-import org.elasticsearch.common.util.concurrent.Futures;
 import org.elasticsearch.common.util.concurrent.ListenableFuture;
+import org.elasticsearch.common.xcontent.XContentType;
 import sun.reflect.generics.reflectiveObjects.NotImplementedException;
 
 import static com.bazaarvoice.elasticsearch.client.core.util.StringFunctions.booleanToString;
@@ -18,21 +32,46 @@ import static org.elasticsearch.common.base.Optional.fromNullable;
 /**
  * The inverse of {@link org.elasticsearch.rest.action.search.RestSearchAction}
  */
-public class SearchRest {
-    private final String protocol;
-    private final String host;
-    private final int port;
-    private final RestExecutor executor;
+public class SearchRest extends AbstractRestClientAction<SearchRequest, SearchResponse> {
+    private final AggregationsManifestCache aggregationsManifests = AggregationsManifestCache.create();
 
-    public SearchRest(final String protocol, final String host, final int port, final RestExecutor executor) {
-        this.protocol = protocol;
-        this.host = host;
-        this.port = port;
-        this.executor = executor;
+    public SearchRest(final NodeSet nodes, final RestExecutor executor) {
+        this(nodes, executor, null, null);
     }
 
-    public ListenableFuture<SearchResponse> act(final SearchRequest request) {
-        UrlBuilder url = UrlBuilder.create().protocol(protocol).host(host).port(port);
+    public SearchRest(final NodeSet nodes, final RestExecutor executor, @Nullable final Hedger hedger, @Nullable final Retrier retrier) {
+        this(nodes, executor, hedger, retrier, null);
+    }
+
+    public SearchRest(final NodeSet nodes, final RestExecutor executor, @Nullable final Hedger hedger, @Nullable final Retrier retrier, @Nullable final XContentType contentType) {
+        // the transform depends on the request (for its aggregations), so it's built per request below
+        super(nodes, executor, null, hedger, retrier, contentType);
+    }
+
+    @Override protected Function<RestResponse, SearchResponse> responseTransform(final SearchRequest request) {
+        return new XContentResponseTransform<SearchResponse>(new SearchResponseHelper(request, aggregationsManifests));
+    }
+
+    /**
+     * Search, binding each hit's source straight to a {@code T} instead of building a {@link SearchResponse}.
+     */
+    public <T> ListenableFuture<TypedSearchResponse<T>> act(final SearchRequest request, final SourceBinding<T> binding) {
+        final AggregationsManifest manifest = AggregationsManifest.of(request, aggregationsManifests);
+        return act(request, new XContentResponseTransform<TypedSearchResponse<T>>(new TypedSearchResponseHelper<T>(binding, manifest)));
+    }
+
+    /**
+     * Search, handing back the response as ES sent it. Only errors are parsed.
+     * <p/>
+     * The response is in our content type, or json if we don't have one, even when the source was built by a
+     * SearchSourceBuilder (which encodes in Smile): callers forward these bytes, and must know what they are.
+     */
+    public ListenableFuture<RawResponse> actRaw(final SearchRequest request) {
+        return act(request, RawResponseTransform.INSTANCE);
+    }
+
+    @Override protected ListenableFuture<RestResponse> send(final RestNode node, final SearchRequest request) {
+        UrlBuilder url = format(node.url());
 
         if (request.indices() == null || request.indices().length == 0) {
             url = url.path("_search");
@@ -61,6 +100,6 @@ public class SearchRest {
             .paramIfPresent("routing", fromNullable(request.routing()))
             .paramIfPresent("preference", fromNullable(request.preference()))
         ;
-        return Futures.transform(executor.post(url.url(), InputStreams.of(request.source())), new XContentResponseTransform<SearchResponse>(new SearchResponseHelper(request)));
+        return executor.post(url.url(), body(request.source()));
     }
 }
@@ -0,0 +1,20 @@
+package org.elasticsearch.action.search.helpers;
+
+import com.bazaarvoice.elasticsearch.client.core.util.aggs.AggregationsManifest;
+import org.elasticsearch.common.Nullable;
+import org.elasticsearch.search.aggregations.InternalAggregation;
+
+import java.util.Map;
+
+/**
+ * The inverse of one type of aggregation's toXContent.
+ *
+ * @see AggregationParsers#register(String, AggregationParser)
+ */
+public interface AggregationParser {
+    /**
+     * @param map                     the aggregation's body in the response
+     * @param subAggregationsManifest how to parse the sub-aggregations in each bucket, if the request had any
+     */
+    InternalAggregation fromXContent(String name, Map<String, Object> map, @Nullable AggregationsManifest subAggregationsManifest);
+}
@@ -0,0 +1,222 @@
+package org.elasticsearch.action.search.helpers;
+
+import com.bazaarvoice.elasticsearch.client.core.util.aggs.AggregationsManifest;
+import org.elasticsearch.common.Nullable;
+import org.elasticsearch.common.collect.ImmutableMap;
+import org.elasticsearch.common.collect.Maps;
+import org.elasticsearch.search.aggregations.InternalAggregation;
+import org.elasticsearch.search.aggregations.bucket.children.ChildrenHelper;
+import org.elasticsearch.search.aggregations.bucket.filter.FilterHelper;
+import org.elasticsearch.search.aggregations.bucket.filters.FiltersHelper;
+import org.elasticsearch.search.aggregations.bucket.geogrid.GeoHashGridHelper;
+import org.elasticsearch.search.aggregations.bucket.global.GlobalHelper;
+import org.elasticsearch.search.aggregations.bucket.histogram.DateHistogramHelper;
+import org.elasticsearch.search.aggregations.bucket.histogram.HistogramHelper;
+import org.elasticsearch.search.aggregations.bucket.missing.MissingHelper;
+import org.elasticsearch.search.aggregations.bucket.nested.NestedHelper;
+import org.elasticsearch.search.aggregations.bucket.nested.ReverseNestedHelper;
+import org.elasticsearch.search.aggregations.bucket.range.RangeHelper;
+import org.elasticsearch.search.aggregations.bucket.range.date.DateRangeHelper;
+import org.elasticsearch.search.aggregations.bucket.range.geodistance.GeoDistanceHelper;
+import org.elasticsearch.search.aggregations.bucket.range.ipv4.IPv4RangeHelper;
+import org.elasticsearch.search.aggregations.bucket.significant.SignificantTermsHelper;
+import org.elasticsearch.search.aggregations.bucket.terms.TermsHelper;
+import org.elasticsearch.search.aggregations.metrics.cardinality.CardinalityHelper;
+import org.elasticsearch.search.aggregations.metrics.avg.AvgHelper;
+import org.elasticsearch.search.aggregations.metrics.geobounds.GeoBoundsHelper;
+import org.elasticsearch.search.aggregations.metrics.max.MaxHelper;
+import org.elasticsearch.search.aggregations.metrics.min.MinHelper;
+import org.elasticsearch.search.aggregations.metrics.percentiles.PercentileRanksHelper;
+import org.elasticsearch.search.aggregations.metrics.percentiles.PercentilesHelper;
+import org.elasticsearch.search.aggregations.metrics.scripted.ScriptedMetricHelper;
+import org.elasticsearch.search.aggregations.metrics.stats.StatsHelper;
+import org.elasticsearch.search.aggregations.metrics.stats.extended.ExtendedStatsHelper;
+import org.elasticsearch.search.aggregations.metrics.sum.SumHelper;
+import org.elasticsearch.search.aggregations.metrics.tophits.TopHitsHelper;
+import org.elasticsearch.search.aggregations.metrics.valuecount.ValueCountHelper;
+
+import java.util.Map;
+
+import static org.elasticsearch.common.base.Preconditions.checkNotNull;
+
+/**
+ * The parser for each aggregation type, by the name it goes by in the request.
+ * <p/>
+ * The built-in types are registered up front. Aggregations from plugins can be parsed too,
+ * by {@link #register(String, AggregationParser) registering} a parser for their type before searching with them.
+ */
+public class AggregationParsers {
+    private static volatile ImmutableMap<String, AggregationParser> parsers = builtIn();
+
+    /**
+     * Adds (or replaces) the parser for an aggregation type. Searches already in flight may not see it.
+     */
+    public static synchronized void register(final String type, final AggregationParser parser) {
+        checkNotNull(type);
+        checkNotNull(parser);
+        final Map<String, AggregationParser> copy = Maps.newHashMap(parsers);
+        copy.put(type, parser);
+        parsers = ImmutableMap.copyOf(copy);
+    }
+
+    /**
+     * @throws IllegalStateException if nothing can parse this type
+     */
+    public static AggregationParser get(final String type) {
+        final AggregationParser parser = parsers.get(type);
+        if (parser == null) {
+            throw new IllegalStateException("Unrecognized type: " + type);
+        }
+        return parser;
+    }
+
+    private static ImmutableMap<String, AggregationParser> builtIn() {
+        final Map<String, AggregationParser> builtIn = Maps.newHashMap();
+        builtIn.put("terms", new AggregationParser() {
+            @Override public InternalAggregation fromXContent(final String name, final Map<String, Object> map, @Nullable final AggregationsManifest subAggregationsManifest) {
+                return TermsHelper.fromXContent(name, map, subAggregationsManifest);
+            }
+        });
+        builtIn.put("value_count", new AggregationParser() {
+            @Override public InternalAggregation fromXContent(final String name, final Map<String, Object> map, @Nullable final AggregationsManifest subAggregationsManifest) {
+                return ValueCountHelper.fromXContent(name, map, subAggregationsManifest);
+            }
+        });
+        builtIn.put("avg", new AggregationParser() {
+            @Override public InternalAggregation fromXContent(final String name, final Map<String, Object> map, @Nullable final AggregationsManifest subAggregationsManifest) {
+                return AvgHelper.fromXContent(name, map, subAggregationsManifest);
+            }
+        });
+        builtIn.put("min", new AggregationParser() {
+            @Override public InternalAggregation fromXContent(final String name, final Map<String, Object> map, @Nullable final AggregationsManifest subAggregationsManifest) {
+                return MinHelper.fromXContent(name, map, subAggregationsManifest);
+            }
+        });
+        builtIn.put("max", new AggregationParser() {
+            @Override public InternalAggregation fromXContent(final String name, final Map<String, Object> map, @Nullable final AggregationsManifest subAggregationsManifest) {
+                return MaxHelper.fromXContent(name, map, subAggregationsManifest);
+            }
+        });
+        builtIn.put("sum", new AggregationParser() {
+            @Override public InternalAggregation fromXContent(final String name, final Map<String, Object> map, @Nullable final AggregationsManifest subAggregationsManifest) {
+                return SumHelper.fromXContent(name, map, subAggregationsManifest);
+            }
+        });
+        builtIn.put("stats", new AggregationParser() {
+            @Override public InternalAggregation fromXContent(final String name, final Map<String, Object> map, @Nullable final AggregationsManifest subAggregationsManifest) {
+                return StatsHelper.fromXContent(name, map, subAggregationsManifest);
+            }
+        });
+        builtIn.put("extended_stats", new AggregationParser() {
+            @Override public InternalAggregation fromXContent(final String name, final Map<String, Object> map, @Nullable final AggregationsManifest subAggregationsManifest) {
+                return ExtendedStatsHelper.fromXContent(name, map, subAggregationsManifest);
+            }
+        });
+        builtIn.put("percentiles", new AggregationParser() {
+            @Override public InternalAggregation fromXContent(final String name, final Map<String, Object> map, @Nullable final AggregationsManifest subAggregationsManifest) {
+                return PercentilesHelper.fromXContent(name, map, subAggregationsManifest);
+            }
+        });
+        builtIn.put("percentile_ranks", new AggregationParser() {
+            @Override public InternalAggregation fromXContent(final String name, final Map<String, Object> map, @Nullable final AggregationsManifest subAggregationsManifest) {
+                return PercentileRanksHelper.fromXContent(name, map, subAggregationsManifest);
+            }
+        });
+        builtIn.put("cardinality", new AggregationParser() {
+            @Override public InternalAggregation fromXContent(final String name, final Map<String, Object> map, @Nullable final AggregationsManifest subAggregationsManifest) {
+                return CardinalityHelper.fromXContent(name, map, subAggregationsManifest);
+            }
+        });
+        builtIn.put("geo_bounds", new AggregationParser() {
+            @Override public InternalAggregation fromXContent(final String name, final Map<String, Object> map, @Nullable final AggregationsManifest subAggregationsManifest) {
+                return GeoBoundsHelper.fromXContent(name, map, subAggregationsManifest);
+            }
+        });
+        builtIn.put("top_hits", new AggregationParser() {
+            @Override public InternalAggregation fromXContent(final String name, final Map<String, Object> map, @Nullable final AggregationsManifest subAggregationsManifest) {
+                return TopHitsHelper.fromXContent(name, map, subAggregationsManifest);
+            }
+        });
+        builtIn.put("scripted_metric", new AggregationParser() {
+            @Override public InternalAggregation fromXContent(final String name, final Map<String, Object> map, @Nullable final AggregationsManifest subAggregationsManifest) {
+                return ScriptedMetricHelper.fromXContent(name, map, subAggregationsManifest);
+            }
+        });
+        builtIn.put("global", new AggregationParser() {
+            @Override public InternalAggregation fromXContent(final String name, final Map<String, Object> map, @Nullable final AggregationsManifest subAggregationsManifest) {
+                return GlobalHelper.fromXContent(name, map, subAggregationsManifest);
+            }
+        });
+        builtIn.put("filter", new AggregationParser() {
+            @Override public InternalAggregation fromXContent(final String name, final Map<String, Object> map, @Nullable final AggregationsManifest subAggregationsManifest) {
+                return FilterHelper.fromXContent(name, map, subAggregationsManifest);
+            }
+        });
+        builtIn.put("filters", new AggregationParser() {
+            @Override public InternalAggregation fromXContent(final String name, final Map<String, Object> map, @Nullable final AggregationsManifest subAggregationsManifest) {
+                return FiltersHelper.fromXContent(name, map, subAggregationsManifest);
+            }
+        });
+        builtIn.put("missing", new AggregationParser() {
+            @Override public InternalAggregation fromXContent(final String name, final Map<String, Object> map, @Nullable final AggregationsManifest subAggregationsManifest) {
+                return MissingHelper.fromXContent(name, map, subAggregationsManifest);
+            }
+        });
+        builtIn.put("nested", new AggregationParser() {
+            @Override public InternalAggregation fromXContent(final String name, final Map<String, Object> map, @Nullable final AggregationsManifest subAggregationsManifest) {
+                return NestedHelper.fromXContent(name, map, subAggregationsManifest);
+            }
+        });
+        builtIn.put("reverse_nested", new AggregationParser() {
+            @Override public InternalAggregation fromXContent(final String name, final Map<String, Object> map, @Nullable final AggregationsManifest subAggregationsManifest) {
+                return ReverseNestedHelper.fromXContent(name, map, subAggregationsManifest);
+            }
+        });
+        builtIn.put("children", new AggregationParser() {
+            @Override public InternalAggregation fromXContent(final String name, final Map<String, Object> map, @Nullable final AggregationsManifest subAggregationsManifest) {
+                return ChildrenHelper.fromXContent(name, map, subAggregationsManifest);
+            }
+        });
+        builtIn.put("significant_terms", new AggregationParser() {
+            @Override public InternalAggregation fromXContent(final String name, final Map<String, Object> map, @Nullable final AggregationsManifest subAggregationsManifest) {
+                return SignificantTermsHelper.fromXContent(name, map, subAggregationsManifest);
+            }
+        });
+        builtIn.put("range", new AggregationParser() {
+            @Override public InternalAggregation fromXContent(final String name, final Map<String, Object> map, @Nullable final AggregationsManifest subAggregationsManifest) {
+                return RangeHelper.fromXContent(name, map, subAggregationsManifest);
+            }
+        });
+        builtIn.put("date_range", new AggregationParser() {
+            @Override public InternalAggregation fromXContent(final String name, final Map<String, Object> map, @Nullable final AggregationsManifest subAggregationsManifest) {
+                return DateRangeHelper.fromXContent(name, map, subAggregationsManifest);
+            }
+        });
+        builtIn.put("ip_range", new AggregationParser() {
+            @Override public InternalAggregation fromXContent(final String name, final Map<String, Object> map, @Nullable final AggregationsManifest subAggregationsManifest) {
+                return IPv4RangeHelper.fromXContent(name, map, subAggregationsManifest);
+            }
+        });
+        builtIn.put("histogram", new AggregationParser() {
+            @Override public InternalAggregation fromXContent(final String name, final Map<String, Object> map, @Nullable final AggregationsManifest subAggregationsManifest) {
+                return HistogramHelper.fromXContent(name, map, subAggregationsManifest);
+            }
+        });
+        builtIn.put("date_histogram", new AggregationParser() {
+            @Override public InternalAggregation fromXContent(final String name, final Map<String, Object> map, @Nullable final AggregationsManifest subAggregationsManifest) {
+                return DateHistogramHelper.fromXContent(name, map, subAggregationsManifest);
+            }
+        });
+        builtIn.put("geo_distance", new AggregationParser() {
+            @Override public InternalAggregation fromXContent(final String name, final Map<String, Object> map, @Nullable final AggregationsManifest subAggregationsManifest) {
+                return GeoDistanceHelper.fromXContent(name, map, subAggregationsManifest);
+            }
+        });
+        builtIn.put("geohash_grid", new AggregationParser() {
+            @Override public InternalAggregation fromXContent(final String name, final Map<String, Object> map, @Nullable final AggregationsManifest subAggregationsManifest) {
+                return GeoHashGridHelper.fromXContent(name, map, subAggregationsManifest);
+            }
+        });
+        return ImmutableMap.copyOf(builtIn);
+    }
+}
@@ -0,0 +1,14 @@
+package org.elasticsearch.action.search.helpers;
+
+import org.elasticsearch.search.facet.Facet;
+
+import java.util.Map;
+
+/**
+ * The inverse of one type of facet's toXContent.
+ *
+ * @see FacetParsers#register(String, FacetParser)
+ */
+public interface FacetParser {
+    Facet fromXContent(String name, Map<String, Object> map);
+}
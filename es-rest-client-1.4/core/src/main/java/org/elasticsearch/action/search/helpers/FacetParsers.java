@@ -0,0 +1,98 @@
+package org.elasticsearch.action.search.helpers;
+
+import org.elasticsearch.common.collect.ImmutableMap;
+import org.elasticsearch.common.collect.Maps;
+import org.elasticsearch.search.facet.Facet;
+import org.elasticsearch.search.facet.datehistogram.DateHistogramFacet;
+import org.elasticsearch.search.facet.filter.FilterFacet;
+import org.elasticsearch.search.facet.geodistance.GeoDistanceFacet;
+import org.elasticsearch.search.facet.histogram.HistogramFacet;
+import org.elasticsearch.search.facet.query.QueryFacet;
+import org.elasticsearch.search.facet.statistical.StatisticalFacet;
+import org.elasticsearch.search.facet.terms.TermsFacet;
+import org.elasticsearch.search.facet.termsstats.InternalTermsStatsFacet;
+
+import java.util.Map;
+
+import static org.elasticsearch.common.base.Preconditions.checkNotNull;
+
+/**
+ * The parser for each facet type, by the {@code _type} it has in the response.
+ * <p/>
+ * The built-in types are registered up front; facets from plugins need a parser {@link #register(String, FacetParser) registered}.
+ */
+public class FacetParsers {
+    private static volatile ImmutableMap<String, FacetParser> parsers = builtIn();
+
+    /**
+     * Adds (or replaces) the parser for a facet type. Searches already in flight may not see it.
+     */
+    public static synchronized void register(final String type, final FacetParser parser) {
+        checkNotNull(type);
+        checkNotNull(parser);
+        final Map<String, FacetParser> copy = Maps.newHashMap(parsers);
+        copy.put(type, parser);
+        parsers = ImmutableMap.copyOf(copy);
+    }
+
+    /**
+     * @throws IllegalStateException if nothing can parse this type
+     */
+    public static FacetParser get(final String type) {
+        final FacetParser parser = parsers.get(type);
+        if (parser == null) {
+            throw new IllegalStateException("Unexpected type: " + type);
+        }
+        return parser;
+    }
+
+    private static ImmutableMap<String, FacetParser> builtIn() {
+        final Map<String, FacetParser> builtIn = Maps.newHashMap();
+        builtIn.put(DateHistogramFacet.TYPE, new FacetParser() {
+            @Override public Facet fromXContent(final String name, final Map<String, Object> map) {
+                return InternalDateHistogramFacetHelper.fromXContent(name, map);
+            }
+        });
+        builtIn.put(HistogramFacet.TYPE, new FacetParser() {
+            @Override public Facet fromXContent(final String name, final Map<String, Object> map) {
+                return InternalHistogramFacetHelper.fromXContent(name, map);
+            }
+        });
+        builtIn.put(TermsFacet.TYPE, new FacetParser() {
+            @Override public Facet fromXContent(final String name, final Map<String, Object> map) {
+                return InternalTermsFacetHelper.fromXContent(name, map);
+            }
+        });
+        builtIn.put(FilterFacet.TYPE, new FacetParser() {
+            @Override public Facet fromXContent(final String name, final Map<String, Object> map) {
+                return InternalFilterFacetHelper.fromXContent(name, map);
+            }
+        });
+        builtIn.put(GeoDistanceFacet.TYPE, new FacetParser() {
+            @Override public Facet fromXContent(final String name, final Map<String, Object> map) {
+                return InternalGeoDistanceFacetHelper.fromXContent(name, map);
+            }
+        });
+        builtIn.put(QueryFacet.TYPE, new FacetParser() {
+            @Override public Facet fromXContent(final String name, final Map<String, Object> map) {
+                return InternalQueryFacetHelper.fromXContent(name, map);
+            }
+        });
+        builtIn.put("range", new FacetParser() {
+            @Override public Facet fromXContent(final String name, final Map<String, Object> map) {
+                return InternalRangeFacetHelper.fromXContent(name, map);
+            }
+        });
+        builtIn.put(StatisticalFacet.TYPE, new FacetParser() {
+            @Override public Facet fromXContent(final String name, final Map<String, Object> map) {
+                return InternalStatisticalFacetHelper.fromXContent(name, map);
+            }
+        });
+        builtIn.put(InternalTermsStatsFacet.TYPE, new FacetParser() {
+            @Override public Facet fromXContent(final String name, final Map<String, Object> map) {
+                return InternalTermsStatsFacetHelper.fromXContent(name, map);
+            }
+        });
+        return ImmutableMap.copyOf(builtIn);
+    }
+}
@@ -2,14 +2,6 @@ package org.elasticsearch.action.search.helpers;
 
 import org.elasticsearch.search.facet.Facet;
 import org.elasticsearch.search.facet.InternalFacets;
-import org.elasticsearch.search.facet.datehistogram.DateHistogramFacet;
-import org.elasticsearch.search.facet.filter.FilterFacet;
-import org.elasticsearch.search.facet.geodistance.GeoDistanceFacet;
-import org.elasticsearch.search.facet.histogram.HistogramFacet;
-import org.elasticsearch.search.facet.query.QueryFacet;
-import org.elasticsearch.search.facet.statistical.StatisticalFacet;
-import org.elasticsearch.search.facet.terms.TermsFacet;
-import org.elasticsearch.search.facet.termsstats.InternalTermsStatsFacet;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -30,27 +22,7 @@ public class InternalFacetsHelper {
             final String facetName = facetEntry.getKey();
             final Map<String, Object> facetMap = nodeMapValue(facetEntry.getValue(), String.class, Object.class);
             final String type = nodeStringValue(facetMap.get("_type"));
-            if (type.equals(DateHistogramFacet.TYPE)) {
-                facetsList.add(InternalDateHistogramFacetHelper.fromXContent(facetName, facetMap));
-            } else if (type.equals(HistogramFacet.TYPE)) {
-                facetsList.add(InternalHistogramFacetHelper.fromXContent(facetName, facetMap));
-            } else if (type.equals(TermsFacet.TYPE)) {
-                facetsList.add(InternalTermsFacetHelper.fromXContent(facetName, facetMap));
-            } else if (type.equals(FilterFacet.TYPE)) {
-                facetsList.add(InternalFilterFacetHelper.fromXContent(facetName, facetMap));
-            } else if (type.equals(GeoDistanceFacet.TYPE)) {
-                facetsList.add(InternalGeoDistanceFacetHelper.fromXContent(facetName, facetMap));
-            } else if (type.equals(QueryFacet.TYPE)) {
-                facetsList.add(InternalQueryFacetHelper.fromXContent(facetName, facetMap));
-            } else if (type.equals("range")) {
-                facetsList.add(InternalRangeFacetHelper.fromXContent(facetName, facetMap));
-            } else if (type.equals(StatisticalFacet.TYPE)) {
-                facetsList.add(InternalStatisticalFacetHelper.fromXContent(facetName, facetMap));
-            } else if (type.equals(InternalTermsStatsFacet.TYPE)) {
-                facetsList.add(InternalTermsStatsFacetHelper.fromXContent(facetName, facetMap));
-            } else {
-                throw new IllegalStateException("Unexpected type: " + type);
-            }
+            facetsList.add(FacetParsers.get(type).fromXContent(facetName, facetMap));
         }
         return new InternalFacets(facetsList);
     }
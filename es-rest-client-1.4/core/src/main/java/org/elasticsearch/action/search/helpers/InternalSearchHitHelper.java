@@ -4,20 +4,25 @@ import org.apache.lucene.search.Explanation;
 import org.elasticsearch.common.bytes.BytesReference;
 import org.elasticsearch.common.collect.ImmutableList;
 import org.elasticsearch.common.collect.ImmutableMap;
+import org.elasticsearch.common.collect.Maps;
 import org.elasticsearch.common.text.StringText;
 import org.elasticsearch.common.text.Text;
+import org.elasticsearch.common.xcontent.XContentParser;
 import org.elasticsearch.search.SearchHitField;
 import org.elasticsearch.search.SearchShardTarget;
 import org.elasticsearch.search.highlight.HighlightField;
 import org.elasticsearch.search.internal.InternalSearchHit;
 import org.elasticsearch.search.internal.InternalSearchHitField;
 
+import java.io.IOException;
 import java.util.List;
 import java.util.Map;
 
 import static com.bazaarvoice.elasticsearch.client.core.util.MapFunctions.nodeBytesReferenceForMapValue;
 import static com.bazaarvoice.elasticsearch.client.core.util.MapFunctions.nodeListValue;
 import static com.bazaarvoice.elasticsearch.client.core.util.MapFunctions.nodeMapValue;
+import static com.bazaarvoice.elasticsearch.client.core.util.XContentParsers.copyCurrentStructure;
+import static com.bazaarvoice.elasticsearch.client.core.util.XContentParsers.readValue;
 import static org.elasticsearch.common.xcontent.support.XContentMapValues.nodeFloatValue;
 import static org.elasticsearch.common.xcontent.support.XContentMapValues.nodeIntegerValue;
 import static org.elasticsearch.common.xcontent.support.XContentMapValues.nodeLongValue;
@@ -25,6 +30,32 @@ import static org.elasticsearch.common.xcontent.support.XContentMapValues.nodeSt
 
 public class InternalSearchHitHelper {
     public static InternalSearchHit fromXContent(final Map<String, Object> map) {
+        @SuppressWarnings("unchecked") BytesReference source = nodeBytesReferenceForMapValue((Map<String, ?>) map.get("_source"));
+        return fromXContent(map, source);
+    }
+
+    /**
+     * Reads one hit, starting from its START_OBJECT. The _source is kept as bytes, without ever becoming a Map;
+     * everything else is small, so it goes through the Map helper.
+     */
+    public static InternalSearchHit fromXContent(final XContentParser parser) throws IOException {
+        final Map<String, Object> map = Maps.newHashMap();
+        BytesReference source = null;
+        String field = null;
+        XContentParser.Token token;
+        while ((token = parser.nextToken()) != XContentParser.Token.END_OBJECT) {
+            if (token == XContentParser.Token.FIELD_NAME) {
+                field = parser.currentName();
+            } else if ("_source".equals(field)) {
+                source = token == XContentParser.Token.VALUE_NULL ? null : copyCurrentStructure(parser);
+            } else {
+                map.put(field, readValue(parser));
+            }
+        }
+        return fromXContent(map, source);
+    }
+
+    private static InternalSearchHit fromXContent(final Map<String, Object> map, final BytesReference source) {
         Object explanation = map.get("_explanation");
         String nodeid = null;
         // FIXME TO_PR not quite right, but the es serialization node is confusing. see https://github.com/bazaarvoice/es-client-java/issues/8
@@ -46,7 +77,6 @@ public class InternalSearchHitHelper {
         String id = nodeStringValue(map.get("_id"), null);
         long version = nodeLongValue(map.get("_version"), -1);
         float score = nodeFloatValue(map.get("_score"), Float.NaN);
-        @SuppressWarnings("unchecked") BytesReference source = nodeBytesReferenceForMapValue((Map<String, ?>) map.get("_source"));
         final int docId = -1; // this field isn't serialized
         ImmutableMap.Builder<String, SearchHitField> fields = ImmutableMap.builder();
         if (map.containsKey("fields")) {
@@ -1,9 +1,13 @@
 package org.elasticsearch.action.search.helpers;
 
+import com.bazaarvoice.elasticsearch.client.core.util.SlicingJsonXContentParser;
+import org.elasticsearch.common.bytes.BytesReference;
 import org.elasticsearch.common.collect.Lists;
+import org.elasticsearch.common.xcontent.XContentParser;
 import org.elasticsearch.search.internal.InternalSearchHit;
 import org.elasticsearch.search.internal.InternalSearchHits;
 
+import java.io.IOException;
 import java.util.List;
 import java.util.Map;
 
@@ -33,5 +37,42 @@ public class InternalSearchHitsHelper {
         }
     }
 
+    /**
+     * Reads the "hits" object, starting from its START_OBJECT, one hit at a time.
+     * If the parser can slice its buffer, the hits are only sliced out now, and decoded when they're asked for (see {@link LazySearchHits}).
+     */
+    public static InternalSearchHits fromXContent(final XContentParser parser) throws IOException {
+        long totalHits = 0;
+        float maxScore = Float.NaN;
+        final boolean lazy = parser instanceof SlicingJsonXContentParser;
+        List<InternalSearchHit> internalSearchHits = Lists.newArrayList();
+        List<BytesReference> slices = Lists.newArrayList();
+        String field = null;
+        XContentParser.Token token;
+        while ((token = parser.nextToken()) != XContentParser.Token.END_OBJECT) {
+            if (token == XContentParser.Token.FIELD_NAME) {
+                field = parser.currentName();
+            } else if ("total".equals(field)) {
+                totalHits = parser.longValue();
+            } else if ("max_score".equals(field)) {
+                maxScore = token == XContentParser.Token.VALUE_NULL ? Float.NaN : parser.floatValue();
+            } else if ("hits".equals(field) && token == XContentParser.Token.START_ARRAY) {
+                while (parser.nextToken() != XContentParser.Token.END_ARRAY) {
+                    if (lazy) {
+                        slices.add(((SlicingJsonXContentParser) parser).sliceCurrentStructure());
+                    } else {
+                        internalSearchHits.add(InternalSearchHitHelper.fromXContent(parser));
+                    }
+                }
+            } else {
+                parser.skipChildren();
+            }
+        }
+        if (lazy) {
+            return new LazySearchHits(slices.toArray(new BytesReference[slices.size()]), totalHits, maxScore);
+        }
+        return new InternalSearchHits(internalSearchHits.toArray(new InternalSearchHit[internalSearchHits.size()]), totalHits, maxScore);
+    }
+
 
 }
@@ -1,6 +1,7 @@
 package org.elasticsearch.action.search.helpers;
 
 import com.bazaarvoice.elasticsearch.client.core.util.aggs.AggregationsManifest;
+import org.elasticsearch.common.Nullable;
 import org.elasticsearch.search.aggregations.InternalAggregations;
 import org.elasticsearch.search.facet.InternalFacets;
 import org.elasticsearch.search.internal.InternalSearchHits;
@@ -13,8 +14,13 @@ import static org.elasticsearch.common.xcontent.support.XContentMapValues.nodeBo
 
 public class InternalSearchResponseHelper {
     public static InternalSearchResponse fromXContent(final Map<String, Object> map, final AggregationsManifest aggregationsManifest) {
+        return fromXContent(map, InternalSearchHitsHelper.fromXContent(map), aggregationsManifest);
+    }
 
-        final InternalSearchHits searchHits = InternalSearchHitsHelper.fromXContent(map);
+    /**
+     * For when the hits have already been read some other way (e.g. streamed), so the map only holds the rest of the response.
+     */
+    public static InternalSearchResponse fromXContent(final Map<String, Object> map, @Nullable final InternalSearchHits searchHits, final AggregationsManifest aggregationsManifest) {
         final InternalFacets facets = InternalFacetsHelper.fromXContent(map);
         final InternalAggregations aggregations = InternalAggregationsHelper.fromXContent(map, aggregationsManifest);
         final Suggest suggest = SuggestHelper.fromXContent(map);
@@ -0,0 +1,114 @@
+package org.elasticsearch.action.search.helpers;
+
+import com.bazaarvoice.elasticsearch.client.core.util.SlicingJsonXContentParser;
+import org.elasticsearch.common.base.Throwables;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.collect.UnmodifiableIterator;
+import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.common.xcontent.XContentBuilder;
+import org.elasticsearch.common.xcontent.XContentParser;
+import org.elasticsearch.search.SearchHit;
+import org.elasticsearch.search.internal.InternalSearchHit;
+import org.elasticsearch.search.internal.InternalSearchHits;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import static org.elasticsearch.common.base.Preconditions.checkState;
+
+/**
+ * Search hits that are only decoded when they're asked for.
+ * <p/>
+ * While the response is parsed, each hit is just skipped over, and we keep the slice of the response it came from.
+ * {@link #getAt(int)} (and iterating) decodes one hit at a time, the first time it's asked for; asking for the
+ * whole array decodes whatever's left. Callers that only want the total, or page through the first few ids,
+ * never pay for the rest.
+ * <p/>
+ * The slices share the response buffer, so it lives as long as these hits do (just as it does for the hits' sources).
+ */
+public class LazySearchHits extends InternalSearchHits {
+    private final BytesReference[] slices;
+    private final AtomicReferenceArray<InternalSearchHit> decoded;
+
+    public LazySearchHits(final BytesReference[] slices, final long totalHits, final float maxScore) {
+        super(EMPTY, totalHits, maxScore);
+        this.slices = slices;
+        this.decoded = new AtomicReferenceArray<InternalSearchHit>(slices.length);
+    }
+
+    @Override public SearchHit getAt(final int position) {
+        return internalAt(position);
+    }
+
+    @Override public SearchHit[] hits() {
+        return internalHits();
+    }
+
+    @Override public SearchHit[] getHits() {
+        return internalHits();
+    }
+
+    @Override public InternalSearchHit[] internalHits() {
+        final InternalSearchHit[] hits = new InternalSearchHit[slices.length];
+        for (int i = 0; i < hits.length; i++) {
+            hits[i] = internalAt(i);
+        }
+        return hits;
+    }
+
+    @Override public Iterator<SearchHit> iterator() {
+        return new UnmodifiableIterator<SearchHit>() {
+            private int next = 0;
+
+            @Override public boolean hasNext() {
+                return next < slices.length;
+            }
+
+            @Override public SearchHit next() {
+                return internalAt(next++);
+            }
+        };
+    }
+
+    @Override public XContentBuilder toXContent(final XContentBuilder builder, final Params params) throws IOException {
+        return materialized().toXContent(builder, params);
+    }
+
+    @Override public void writeTo(final StreamOutput out) throws IOException {
+        materialized().writeTo(out);
+    }
+
+    @Override public void writeTo(final StreamOutput out, final StreamContext context) throws IOException {
+        materialized().writeTo(out, context);
+    }
+
+    private InternalSearchHits materialized() {
+        return new InternalSearchHits(internalHits(), totalHits(), maxScore());
+    }
+
+    private InternalSearchHit internalAt(final int position) {
+        InternalSearchHit hit = decoded.get(position);
+        if (hit == null) {
+            // two threads may both decode the same hit; either one will do
+            hit = decode(slices[position]);
+            decoded.compareAndSet(position, null, hit);
+            hit = decoded.get(position);
+        }
+        return hit;
+    }
+
+    private static InternalSearchHit decode(final BytesReference slice) {
+        try {
+            final XContentParser parser = SlicingJsonXContentParser.of(slice);
+            try {
+                checkState(parser.nextToken() == XContentParser.Token.START_OBJECT, "Expected a hit to be an object");
+                return InternalSearchHitHelper.fromXContent(parser);
+            } finally {
+                parser.close();
+            }
+        } catch (IOException e) {
+            throw Throwables.propagate(e);
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package org.elasticsearch.search.aggregations;
+
+import org.elasticsearch.common.Nullable;
+import org.elasticsearch.common.base.Throwables;
+import org.elasticsearch.common.bytes.BytesReference;
+
+import java.lang.reflect.Field;
+import java.util.List;
+
+/**
+ * Reads back what an aggregation builder was built with, so we can tell what the response will look like
+ * without serializing the builder and parsing it again.
+ * <p/>
+ * The type is visible from this package, but the sub-aggregations are private, so we have to go in through reflection.
+ */
+public class AggregationBuilderHelper {
+    private static final Field AGGREGATIONS = accessible("aggregations");
+    private static final Field AGGREGATIONS_BINARY = accessible("aggregationsBinary");
+
+    public static String type(final AbstractAggregationBuilder builder) {
+        return builder.type;
+    }
+
+    @Nullable public static List<AbstractAggregationBuilder> subAggregations(final AbstractAggregationBuilder builder) {
+        //noinspection unchecked
+        return builder instanceof AggregationBuilder ? (List<AbstractAggregationBuilder>) get(AGGREGATIONS, builder) : null;
+    }
+
+    @Nullable public static BytesReference subAggregationsBinary(final AbstractAggregationBuilder builder) {
+        return builder instanceof AggregationBuilder ? (BytesReference) get(AGGREGATIONS_BINARY, builder) : null;
+    }
+
+    private static Object get(final Field field, final AbstractAggregationBuilder builder) {
+        try {
+            return field.get(builder);
+        } catch (IllegalAccessException e) {
+            throw Throwables.propagate(e);
+        }
+    }
+
+    private static Field accessible(final String name) {
+        try {
+            final Field field = AggregationBuilder.class.getDeclaredField(name);
+            field.setAccessible(true);
+            return field;
+        } catch (NoSuchFieldException e) {
+            throw new IllegalStateException("This version of ES doesn't look like the one we were built against", e);
+        }
+    }
+}
@@ -0,0 +1,221 @@
+package com.bazaarvoice.elasticsearch.client.core.breaker;
+
+import com.bazaarvoice.elasticsearch.client.core.nodes.NodeSet;
+import com.bazaarvoice.elasticsearch.client.core.nodes.RestNode;
+import com.bazaarvoice.elasticsearch.client.core.nodes.RoundRobinNodeSelector;
+import com.bazaarvoice.elasticsearch.client.core.spi.FakeRestExecutor;
+import com.bazaarvoice.elasticsearch.client.core.spi.FakeRestResponse;
+import com.bazaarvoice.elasticsearch.client.core.spi.RequestBody;
+import com.bazaarvoice.elasticsearch.client.core.spi.RestResponse;
+import org.elasticsearch.common.base.Ticker;
+import org.elasticsearch.common.collect.ImmutableList;
+import org.elasticsearch.common.collect.ImmutableSet;
+import org.elasticsearch.common.collect.Lists;
+import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.common.util.concurrent.Futures;
+import org.elasticsearch.common.util.concurrent.ListenableFuture;
+import org.elasticsearch.common.util.concurrent.SettableFuture;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.net.URL;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+public class CircuitBreakingRestExecutorTest {
+    private final RestNode a = RestNode.of("http", "a", 9200);
+    private final RestNode b = RestNode.of("http", "b", 9200);
+
+    private FakeExecutor delegate;
+    private FakeTicker ticker;
+    private List<String> transitions;
+    private CircuitBreakingRestExecutor executor;
+
+    @BeforeMethod
+    public void setup() {
+        delegate = new FakeExecutor();
+        ticker = new FakeTicker();
+        transitions = Lists.newArrayList();
+        executor = new CircuitBreakingRestExecutor(delegate, CircuitBreakerPolicy.defaults()
+            .withWindow(10)
+            .withMinCalls(4)
+            .withSlowCallDuration(TimeValue.timeValueSeconds(1))
+            .withOpenDuration(TimeValue.timeValueSeconds(10))
+            .withHalfOpenCalls(2), ticker, new CircuitBreakerListener() {
+            @Override public void onStateChange(final RestNode node, final CircuitState from, final CircuitState to) {
+                transitions.add(node.getHost() + ":" + from + "->" + to);
+            }
+        });
+    }
+
+    @Test
+    public void testOpensOnFailuresAndRecovers() throws Exception {
+        call(a, 200);
+        call(a, 200);
+        call(a, 503);
+        assertEquals(executor.state(a), CircuitState.CLOSED);
+        call(a, 503);
+        assertEquals(executor.state(a), CircuitState.OPEN);
+        assertEquals(transitions, ImmutableList.of("a:CLOSED->OPEN"));
+
+        // fails fast without touching the delegate
+        final int sent = delegate.calls;
+        try {
+            call(a, 200);
+            fail();
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof CircuitOpenException);
+        }
+        assertEquals(delegate.calls, sent);
+        // other nodes are unaffected
+        assertEquals(call(b, 200), 200);
+
+        ticker.advance(10, TimeUnit.SECONDS);
+        call(a, 200);
+        assertEquals(executor.state(a), CircuitState.HALF_OPEN);
+        call(a, 200);
+        assertEquals(executor.state(a), CircuitState.CLOSED);
+        assertEquals(transitions, ImmutableList.of("a:CLOSED->OPEN", "a:OPEN->HALF_OPEN", "a:HALF_OPEN->CLOSED"));
+    }
+
+    @Test
+    public void testFailedTrialReopens() throws Exception {
+        for (int i = 0; i < 4; i++) {
+            call(a, 500);
+        }
+        ticker.advance(10, TimeUnit.SECONDS);
+        call(a, 500);
+        assertEquals(executor.state(a), CircuitState.OPEN);
+        assertEquals(transitions, ImmutableList.of("a:CLOSED->OPEN", "a:OPEN->HALF_OPEN", "a:HALF_OPEN->OPEN"));
+    }
+
+    @Test
+    public void testStragglersDontCountAsTrials() throws Exception {
+        delegate.hold = true;
+        final ListenableFuture<RestResponse> failing = executor.get(a.url().path("idx", "type", "1").url());
+        final ListenableFuture<RestResponse> succeeding = executor.get(a.url().path("idx", "type", "2").url());
+        delegate.hold = false;
+        for (int i = 0; i < 4; i++) {
+            call(a, 500);
+        }
+        ticker.advance(10, TimeUnit.SECONDS);
+        call(a, 200);
+        assertEquals(executor.state(a), CircuitState.HALF_OPEN);
+
+        // both were let through while closed, so neither is one of the trials
+        delegate.held.get(0).set(new FakeRestResponse(500));
+        delegate.held.get(1).set(new FakeRestResponse(200));
+        assertEquals(failing.get().statusCode(), 500);
+        assertEquals(succeeding.get().statusCode(), 200);
+        assertEquals(executor.state(a), CircuitState.HALF_OPEN);
+        assertTrue(executor.availability().apply(a));
+
+        // and only the one trial that's left gets through
+        delegate.hold = true;
+        executor.get(a.url().path("idx", "type", "3").url());
+        assertFalse(executor.availability().apply(a));
+        try {
+            executor.get(a.url().path("idx", "type", "4").url()).get();
+            fail();
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof CircuitOpenException);
+        }
+        delegate.held.get(2).set(new FakeRestResponse(200));
+        assertEquals(executor.state(a), CircuitState.CLOSED);
+        assertEquals(transitions, ImmutableList.of("a:CLOSED->OPEN", "a:OPEN->HALF_OPEN", "a:HALF_OPEN->CLOSED"));
+    }
+
+    @Test
+    public void testOpensOnSlowCalls() throws Exception {
+        delegate.latency = TimeUnit.SECONDS.toNanos(2);
+        for (int i = 0; i < 4; i++) {
+            call(a, 200);
+        }
+        assertEquals(executor.state(a), CircuitState.OPEN);
+    }
+
+    @Test
+    public void testNodeSetAvoidsOpenNodes() throws Exception {
+        final NodeSet nodes = NodeSet.of(new RoundRobinNodeSelector(), a, b);
+        nodes.setAvailability(executor.availability());
+        for (int i = 0; i < 4; i++) {
+            call(a, 500);
+        }
+        for (int i = 0; i < 4; i++) {
+            assertEquals(nodes.select(), b);
+        }
+        ticker.advance(10, TimeUnit.SECONDS);
+        assertEquals(ImmutableSet.of(nodes.select(), nodes.select()), ImmutableSet.of(a, b));
+    }
+
+    @Test
+    public void testForgetsNodesThatLeave() throws Exception {
+        final NodeSet nodes = NodeSet.of(new RoundRobinNodeSelector(), a, b);
+        nodes.addListener(executor);
+        call(b, 200);
+        for (int i = 0; i < 4; i++) {
+            call(a, 500);
+        }
+        assertEquals(executor.state(a), CircuitState.OPEN);
+        assertEquals(executor.trackedNodes(), 2);
+
+        // a trial call is still in flight when a leaves
+        ticker.advance(10, TimeUnit.SECONDS);
+        delegate.hold = true;
+        final ListenableFuture<RestResponse> trial = executor.get(a.url().path("idx", "type", "id").url());
+        nodes.setNodes(ImmutableList.of(b));
+        assertEquals(executor.trackedNodes(), 1);
+        delegate.held.get(0).set(new FakeRestResponse(500));
+        assertEquals(trial.get().statusCode(), 500);
+        assertEquals(executor.trackedNodes(), 1);
+
+        // and when it comes back, it starts afresh
+        delegate.hold = false;
+        nodes.setNodes(ImmutableList.of(a, b));
+        assertEquals(executor.state(a), CircuitState.CLOSED);
+        assertEquals(call(a, 200), 200);
+    }
+
+    private int call(final RestNode node, final int status) throws Exception {
+        delegate.status = status;
+        return executor.get(node.url().path("idx", "type", "id").url()).get().statusCode();
+    }
+
+    private class FakeExecutor extends FakeRestExecutor {
+        private int status = 200;
+        private long latency = 0;
+        private int calls = 0;
+        // while set, responses wait in held until the test completes them
+        private boolean hold = false;
+        private final List<SettableFuture<RestResponse>> held = Lists.newArrayList();
+
+        @Override protected ListenableFuture<RestResponse> send(final URL url, final RequestBody body) {
+            calls++;
+            if (hold) {
+                final SettableFuture<RestResponse> response = SettableFuture.create();
+                held.add(response);
+                return response;
+            }
+            ticker.nanos += latency;
+            return Futures.<RestResponse>immediateFuture(new FakeRestResponse(status));
+        }
+    }
+
+    private static class FakeTicker extends Ticker {
+        private long nanos = 0;
+
+        @Override public long read() {
+            return nanos;
+        }
+
+        private void advance(final long duration, final TimeUnit unit) {
+            nanos += unit.toNanos(duration);
+        }
+    }
+}
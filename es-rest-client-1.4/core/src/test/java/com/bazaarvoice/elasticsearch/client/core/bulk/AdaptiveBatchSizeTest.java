@@ -0,0 +1,51 @@
+package com.bazaarvoice.elasticsearch.client.core.bulk;
+
+import org.elasticsearch.common.unit.TimeValue;
+import org.testng.annotations.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+public class AdaptiveBatchSizeTest {
+    private static final long MS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    @Test public void testClimbsToTheThroughputPeak() {
+        final AdaptiveBatchSize sizer = new AdaptiveBatchSize(100, 10, 10000, 0.2, TimeValue.timeValueSeconds(10));
+        // a cluster whose throughput peaks at 1000 docs per batch: fixed overhead, plus a per-doc cost that climbs past the peak
+        for (int i = 0; i < 200; i++) {
+            final int size = sizer.batchSize();
+            sizer.onBatch(size, latency(size), false);
+        }
+        assertTrue(sizer.batchSize() > 500 && sizer.batchSize() < 2000, sizer.toString());
+        assertTrue(sizer.throughput() > 0);
+    }
+
+    @Test public void testShrinksOnRejectionsAndSlowBatches() {
+        final AdaptiveBatchSize sizer = new AdaptiveBatchSize(1000, 100, 10000, 0.2, TimeValue.timeValueSeconds(1));
+        sizer.onBatch(1000, 100 * MS, true);
+        assertEquals(sizer.batchSize(), 500);
+
+        sizer.onBatch(500, 2000 * MS, false);
+        assertEquals(sizer.batchSize(), 400);
+        assertEquals(sizer.latencyNanos(), 2000 * MS);
+
+        for (int i = 0; i < 10; i++) {
+            sizer.onBatch(sizer.batchSize(), 100 * MS, true);
+        }
+        assertEquals(sizer.batchSize(), 100);
+    }
+
+    @Test public void testIgnoresSmallBatches() {
+        final AdaptiveBatchSize sizer = new AdaptiveBatchSize(1000, 100, 10000, 0.2, TimeValue.timeValueSeconds(1));
+        sizer.onBatch(10, 5000 * MS, false);
+        assertEquals(sizer.batchSize(), 1000);
+        assertEquals(sizer.throughput(), -1.0);
+    }
+
+    /** 50ms per batch, plus 0.05ms per doc that grows with the batch, so docs per second peak at 1000 docs */
+    private static long latency(final int size) {
+        return 50 * MS + (long) (size * (0.05 * MS) * size / 1000);
+    }
+}
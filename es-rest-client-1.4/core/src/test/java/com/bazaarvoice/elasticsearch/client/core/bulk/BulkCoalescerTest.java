@@ -0,0 +1,122 @@
+package com.bazaarvoice.elasticsearch.client.core.bulk;
+
+import org.elasticsearch.action.bulk.BulkItemResponse;
+import org.elasticsearch.action.bulk.BulkRequest;
+import org.elasticsearch.action.bulk.BulkResponse;
+import org.elasticsearch.action.delete.DeleteRequest;
+import org.elasticsearch.action.delete.DeleteResponse;
+import org.elasticsearch.action.index.IndexRequest;
+import org.elasticsearch.action.index.IndexResponse;
+import org.elasticsearch.common.base.Function;
+import org.elasticsearch.common.collect.Lists;
+import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.common.util.concurrent.ListenableFuture;
+import org.elasticsearch.common.util.concurrent.SettableFuture;
+import org.elasticsearch.indices.IndexMissingException;
+import org.elasticsearch.rest.RestStatus;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+public class BulkCoalescerTest {
+    private ScheduledExecutorService scheduler;
+    private RecordingBulk bulk;
+
+    @BeforeMethod
+    public void setup() {
+        scheduler = Executors.newSingleThreadScheduledExecutor();
+        bulk = new RecordingBulk();
+    }
+
+    @AfterMethod
+    public void teardown() {
+        scheduler.shutdownNow();
+    }
+
+    @Test
+    public void testFullBatchGoesOutAtOnce() throws Exception {
+        final BulkCoalescer coalescer = new BulkCoalescer(bulk, scheduler, TimeValue.timeValueHours(1), 3);
+        final ListenableFuture<IndexResponse> first = coalescer.index(new IndexRequest("i", "t", "1").source("n", 1));
+        final ListenableFuture<DeleteResponse> second = coalescer.delete(new DeleteRequest("i", "t", "2"));
+        assertTrue(bulk.requests.isEmpty());
+        final ListenableFuture<IndexResponse> third = coalescer.index(new IndexRequest("i", "t", "3").source("n", 3));
+        assertEquals(bulk.requests.size(), 1);
+        assertEquals(bulk.requests.get(0).numberOfActions(), 3);
+
+        bulk.responses.get(0).set(new BulkResponse(new BulkItemResponse[]{
+            new BulkItemResponse(0, "index", new IndexResponse("i", "t", "1", 1, true)),
+            new BulkItemResponse(1, "delete", new DeleteResponse("i", "t", "2", 3, false)),
+            new BulkItemResponse(2, "index", new BulkItemResponse.Failure("j", "t", "3", "IndexMissingException[[j] missing]", RestStatus.NOT_FOUND))
+        }, 5));
+
+        assertEquals(first.get().getId(), "1");
+        assertTrue(first.get().isCreated());
+        assertFalse(second.get().isFound());
+        try {
+            third.get();
+            fail();
+        } catch (ExecutionException e) {
+            // just what an index on its own would have thrown
+            assertTrue(e.getCause() instanceof IndexMissingException, e.getCause().toString());
+        }
+    }
+
+    @Test
+    public void testWindowSendsWhateverHasGathered() throws Exception {
+        final BulkCoalescer coalescer = new BulkCoalescer(bulk, scheduler, TimeValue.timeValueMillis(5), 100);
+        coalescer.index(new IndexRequest("i", "t", "1").source("n", 1));
+        coalescer.index(new IndexRequest("i", "t", "2").source("n", 2));
+        for (int i = 0; i < 500 && bulk.requests.isEmpty(); i++) {
+            Thread.sleep(10);
+        }
+        assertEquals(bulk.requests.size(), 1);
+        assertEquals(bulk.requests.get(0).numberOfActions(), 2);
+    }
+
+    @Test
+    public void testBulkFailureFailsEveryCaller() throws Exception {
+        final BulkCoalescer coalescer = new BulkCoalescer(bulk, scheduler, TimeValue.timeValueHours(1), 100);
+        final ListenableFuture<IndexResponse> first = coalescer.index(new IndexRequest("i", "t", "1").source("n", 1));
+        final ListenableFuture<IndexResponse> second = coalescer.index(new IndexRequest("i", "t", "2").source("n", 2));
+        coalescer.flush();
+        bulk.responses.get(0).setException(new RuntimeException("boom"));
+        for (ListenableFuture<IndexResponse> caller : Lists.newArrayList(first, second)) {
+            try {
+                caller.get(1, TimeUnit.SECONDS);
+                fail();
+            } catch (ExecutionException e) {
+                assertEquals(e.getCause().getMessage(), "boom");
+            }
+        }
+    }
+
+    @Test
+    public void testRequestsWithBulkWideOptionsAreNotBatched() {
+        assertTrue(BulkCoalescer.canBatch(new IndexRequest("i", "t", "1")));
+        assertFalse(BulkCoalescer.canBatch(new IndexRequest("i", "t", "1").refresh(true)));
+        assertFalse(BulkCoalescer.canBatch(new DeleteRequest("i", "t", "1").timeout(TimeValue.timeValueSeconds(5))));
+    }
+
+    private static class RecordingBulk implements Function<BulkRequest, ListenableFuture<BulkResponse>> {
+        private final List<BulkRequest> requests = Lists.newCopyOnWriteArrayList();
+        private final List<SettableFuture<BulkResponse>> responses = Lists.newCopyOnWriteArrayList();
+
+        @Override public ListenableFuture<BulkResponse> apply(final BulkRequest request) {
+            final SettableFuture<BulkResponse> response = SettableFuture.create();
+            responses.add(response);
+            requests.add(request);
+            return response;
+        }
+    }
+}
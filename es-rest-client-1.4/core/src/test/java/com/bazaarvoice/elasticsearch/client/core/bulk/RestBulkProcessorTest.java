@@ -0,0 +1,362 @@
+package com.bazaarvoice.elasticsearch.client.core.bulk;
+
+import com.bazaarvoice.elasticsearch.client.core.RestClient;
+import com.bazaarvoice.elasticsearch.client.core.retry.RetryPolicy;
+import com.bazaarvoice.elasticsearch.client.core.spi.FakeRestExecutor;
+import com.bazaarvoice.elasticsearch.client.core.spi.FakeRestResponse;
+import com.bazaarvoice.elasticsearch.client.core.spi.RequestBody;
+import com.bazaarvoice.elasticsearch.client.core.spi.RestExecutor;
+import com.bazaarvoice.elasticsearch.client.core.spi.RestResponse;
+import org.elasticsearch.action.ActionRequest;
+import org.elasticsearch.action.bulk.BulkItemResponse;
+import org.elasticsearch.action.bulk.BulkProcessor;
+import org.elasticsearch.action.bulk.BulkRequest;
+import org.elasticsearch.action.bulk.BulkResponse;
+import org.elasticsearch.action.index.IndexRequest;
+import org.elasticsearch.common.io.stream.BytesStreamOutput;
+import org.elasticsearch.common.unit.ByteSizeValue;
+import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.common.util.concurrent.ListenableFuture;
+import org.elasticsearch.common.util.concurrent.SettableFuture;
+import org.elasticsearch.common.xcontent.XContentBuilder;
+import org.elasticsearch.common.xcontent.XContentFactory;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.net.URL;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+public class RestBulkProcessorTest {
+    @Test public void testFlushesByActionCount() throws Exception {
+        final BulkExecutor executor = new BulkExecutor(true);
+        final RecordingListener listener = new RecordingListener();
+        final RestBulkProcessor processor = RestBulkProcessor.builder(client(executor), listener)
+            .setBulkActions(10).setConcurrentRequests(0).build();
+
+        for (int i = 0; i < 25; i++) {
+            processor.add(index(i));
+        }
+        assertEquals(executor.batchSizes, list(10, 10));
+
+        processor.close();
+        assertEquals(executor.batchSizes, list(10, 10, 5));
+        assertEquals(listener.before, list(10, 10, 5));
+        assertEquals(listener.after, list(10, 10, 5));
+    }
+
+    @Test public void testFlushesBySize() throws Exception {
+        final BulkExecutor executor = new BulkExecutor(true);
+        final RestBulkProcessor processor = RestBulkProcessor.builder(client(executor), new RecordingListener())
+            .setBulkActions(-1).setBulkSize(new ByteSizeValue(100)).setConcurrentRequests(0).build();
+
+        processor.add(new IndexRequest("i", "t", "big").source("field", new String(new char[200]).replace('\0', 'x')));
+        assertEquals(executor.batchSizes, list(1));
+        processor.close();
+    }
+
+    @Test public void testFlushesByInterval() throws Exception {
+        final BulkExecutor executor = new BulkExecutor(true);
+        final RecordingListener listener = new RecordingListener();
+        final RestBulkProcessor processor = RestBulkProcessor.builder(client(executor), listener)
+            .setFlushInterval(TimeValue.timeValueMillis(10)).build();
+
+        processor.add(index(0));
+        assertTrue(listener.done.await(5, TimeUnit.SECONDS));
+        assertEquals(executor.batchSizes, list(1));
+        processor.close();
+    }
+
+    @Test public void testBlocksOnceConcurrentRequestsAreInFlight() throws Exception {
+        final BulkExecutor executor = new BulkExecutor(false);
+        final RecordingListener listener = new RecordingListener();
+        final RestBulkProcessor processor = RestBulkProcessor.builder(client(executor), listener)
+            .setBulkActions(1).setConcurrentRequests(2).build();
+
+        processor.add(index(0));
+        processor.add(index(1));
+        assertEquals(executor.pending.size(), 2);
+
+        final Thread third = new Thread(new Runnable() {
+            @Override public void run() {
+                processor.add(index(2));
+            }
+        });
+        third.start();
+        third.join(100);
+        assertTrue(third.isAlive());
+        assertEquals(executor.pending.size(), 2);
+
+        executor.complete(0);
+        third.join(5000);
+        assertFalse(third.isAlive());
+        assertEquals(executor.pending.size(), 3);
+
+        assertFalse(processor.awaitClose(10, TimeUnit.MILLISECONDS));
+        executor.complete(1);
+        executor.complete(2);
+        assertEquals(listener.after, list(1, 1, 1));
+    }
+
+    @Test public void testRetriesOnlyTheRejectedItems() throws Exception {
+        final BulkExecutor executor = new BulkExecutor(true) {
+            @Override protected int status(final String id, final int attempt) {
+                return (id.equals("1") || id.equals("3")) && attempt == 1 ? 429 : 201;
+            }
+        };
+        final DeadLetters deadLetters = new DeadLetters();
+        final RestBulkProcessor processor = RestBulkProcessor.builder(client(executor), new NoopListener())
+            .setBulkActions(5)
+            .setRetryPolicy(RetryPolicy.exponentialBackoff(TimeValue.timeValueMillis(1), TimeValue.timeValueMillis(5)))
+            .setDeadLetterListener(deadLetters)
+            .build();
+
+        for (int i = 0; i < 5; i++) {
+            processor.add(index(i));
+        }
+        assertTrue(processor.awaitClose(5, TimeUnit.SECONDS));
+        // the two retries back off independently, so they may or may not share a batch
+        assertEquals(executor.batchSizes.get(0).intValue(), 5);
+        for (int i = 0; i < 5; i++) {
+            assertEquals(executor.attempts.get(Integer.toString(i)).get(), i == 1 || i == 3 ? 2 : 1);
+        }
+        assertTrue(deadLetters.ids.isEmpty(), deadLetters.ids.toString());
+    }
+
+    @Test public void testGivesUpOnPermanentFailuresAndAfterMaxAttempts() throws Exception {
+        final BulkExecutor executor = new BulkExecutor(true) {
+            @Override protected int status(final String id, final int attempt) {
+                if (id.equals("0")) {
+                    return 400;
+                }
+                return id.equals("1") ? 429 : 201;
+            }
+        };
+        final DeadLetters deadLetters = new DeadLetters();
+        final RestBulkProcessor processor = RestBulkProcessor.builder(client(executor), new NoopListener())
+            .setRetryPolicy(RetryPolicy.exponentialBackoff(TimeValue.timeValueMillis(1), TimeValue.timeValueMillis(5)).withMaxAttempts(3))
+            .setDeadLetterListener(deadLetters)
+            .build();
+
+        processor.add(index(0)).add(index(1)).add(index(2));
+        assertTrue(processor.awaitClose(5, TimeUnit.SECONDS));
+        assertEquals(executor.batchSizes, list(3, 1, 1));
+        assertEquals(deadLetters.ids, new CopyOnWriteArrayList<String>(new String[]{"0", "1"}));
+        assertEquals(deadLetters.statuses, list(400, 429));
+    }
+
+    @Test public void testRetriesEveryItemWhenTheWholeRequestFailsRetryably() throws Exception {
+        final BulkExecutor executor = new BulkExecutor(true) {
+            @Override protected Throwable failure(final int batch) {
+                return batch == 0 ? new RuntimeException(new IOException("connection reset")) : null;
+            }
+        };
+        final DeadLetters deadLetters = new DeadLetters();
+        final RestBulkProcessor processor = RestBulkProcessor.builder(client(executor), new NoopListener())
+            .setBulkActions(3)
+            .setRetryPolicy(RetryPolicy.exponentialBackoff(TimeValue.timeValueMillis(1), TimeValue.timeValueMillis(5)))
+            .setDeadLetterListener(deadLetters)
+            .build();
+
+        processor.add(index(0)).add(index(1)).add(index(2));
+        assertTrue(processor.awaitClose(5, TimeUnit.SECONDS));
+        assertTrue(deadLetters.ids.isEmpty(), deadLetters.ids.toString());
+        // each item was answered exactly once, by a batch after the failed one
+        assertEquals(executor.batchSizes.get(0).intValue(), 3);
+        for (int i = 0; i < 3; i++) {
+            assertEquals(executor.attempts.get(Integer.toString(i)).get(), 1);
+        }
+    }
+
+    @Test public void testGivesUpOnEveryItemWhenTheWholeRequestFailsForGood() throws Exception {
+        final BulkExecutor executor = new BulkExecutor(true) {
+            @Override protected Throwable failure(final int batch) {
+                return new IllegalStateException("not going to work");
+            }
+        };
+        final DeadLetters deadLetters = new DeadLetters();
+        final RestBulkProcessor processor = RestBulkProcessor.builder(client(executor), new NoopListener())
+            .setRetryPolicy(RetryPolicy.exponentialBackoff(TimeValue.timeValueMillis(1), TimeValue.timeValueMillis(5)))
+            .setDeadLetterListener(deadLetters)
+            .build();
+
+        processor.add(index(0)).add(index(1));
+        assertTrue(processor.awaitClose(5, TimeUnit.SECONDS));
+        assertEquals(executor.batchSizes, list(2));
+        assertEquals(deadLetters.ids, new CopyOnWriteArrayList<String>(new String[]{"0", "1"}));
+    }
+
+    @Test public void testCloseGivesUpOnWaitingRetries() throws Exception {
+        final BulkExecutor executor = new BulkExecutor(true) {
+            @Override protected int status(final String id, final int attempt) {
+                return 429;
+            }
+        };
+        final DeadLetters deadLetters = new DeadLetters();
+        final RestBulkProcessor processor = RestBulkProcessor.builder(client(executor), new NoopListener())
+            .setConcurrentRequests(0)
+            .setRetryPolicy(RetryPolicy.exponentialBackoff(TimeValue.timeValueSeconds(10), TimeValue.timeValueSeconds(10)))
+            .setDeadLetterListener(deadLetters)
+            .build();
+
+        processor.add(index(0));
+        processor.close();
+        assertEquals(executor.batchSizes, list(1));
+        assertEquals(deadLetters.ids, new CopyOnWriteArrayList<String>(new String[]{"0"}));
+    }
+
+    @Test public void testBatchesFollowTheAdaptiveSize() throws Exception {
+        final BulkExecutor executor = new BulkExecutor(true) {
+            @Override protected int status(final String id, final int attempt) {
+                return Integer.parseInt(id) < 20 ? 429 : 201;
+            }
+        };
+        final AdaptiveBatchSize sizer = new AdaptiveBatchSize(20, 5, 100, 0.2, TimeValue.timeValueSeconds(10));
+        final RestBulkProcessor processor = RestBulkProcessor.builder(client(executor), new NoopListener())
+            .setConcurrentRequests(0)
+            .setAdaptiveBatchSize(sizer)
+            .build();
+
+        for (int i = 0; i < 30; i++) {
+            processor.add(index(i));
+        }
+        // the first batch was rejected, so the second is half the size
+        assertEquals(executor.batchSizes, list(20, 10));
+        assertEquals(sizer.batchSize(), 12);
+        processor.close();
+    }
+
+    private static RestClient client(final RestExecutor executor) {
+        return RestClient.builder(executor).node("http", "localhost", 9200).build();
+    }
+
+    private static IndexRequest index(final int id) {
+        return new IndexRequest("i", "t", Integer.toString(id)).source("n", id);
+    }
+
+    private static List<Integer> list(final Integer... values) {
+        return new CopyOnWriteArrayList<Integer>(values);
+    }
+
+    private static class NoopListener implements BulkProcessor.Listener {
+        @Override public void beforeBulk(final long executionId, final BulkRequest request) { }
+
+        @Override public void afterBulk(final long executionId, final BulkRequest request, final BulkResponse response) { }
+
+        @Override public void afterBulk(final long executionId, final BulkRequest request, final Throwable failure) { }
+    }
+
+    private static class RecordingListener implements BulkProcessor.Listener {
+        private final List<Integer> before = new CopyOnWriteArrayList<Integer>();
+        private final List<Integer> after = new CopyOnWriteArrayList<Integer>();
+        private final CountDownLatch done = new CountDownLatch(1);
+
+        @Override public void beforeBulk(final long executionId, final BulkRequest request) {
+            before.add(request.numberOfActions());
+        }
+
+        @Override public void afterBulk(final long executionId, final BulkRequest request, final BulkResponse response) {
+            assertFalse(response.hasFailures());
+            after.add(response.getItems().length);
+            done.countDown();
+        }
+
+        @Override public void afterBulk(final long executionId, final BulkRequest request, final Throwable failure) {
+            throw new AssertionError(failure);
+        }
+    }
+
+    private static class DeadLetters implements DeadLetterListener {
+        private final List<String> ids = new CopyOnWriteArrayList<String>();
+        private final List<Integer> statuses = new CopyOnWriteArrayList<Integer>();
+
+        @Override public void onDeadLetter(final ActionRequest request, final BulkItemResponse.Failure failure) {
+            ids.add(((IndexRequest) request).id());
+            statuses.add(failure.getStatus().getStatus());
+        }
+    }
+
+    /**
+     * Answers each _bulk with an item for every action in it, either right away or when told to.
+     */
+    private static class BulkExecutor extends FakeRestExecutor {
+        private final boolean immediate;
+        private final List<Integer> batchSizes = new CopyOnWriteArrayList<Integer>();
+        private final List<SettableFuture<RestResponse>> pending = new CopyOnWriteArrayList<SettableFuture<RestResponse>>();
+        private final List<BulkRequest> requests = new CopyOnWriteArrayList<BulkRequest>();
+        private final Map<String, AtomicInteger> attempts = new ConcurrentHashMap<String, AtomicInteger>();
+
+        private BulkExecutor(final boolean immediate) {
+            this.immediate = immediate;
+        }
+
+        @Override protected ListenableFuture<RestResponse> send(final URL url, final RequestBody body) {
+            if (body == null) {
+                throw new UnsupportedOperationException();
+            }
+            final BulkRequest request;
+            try {
+                final BytesStreamOutput out = new BytesStreamOutput();
+                body.writeTo(out);
+                request = new BulkRequest().add(out.bytes(), false, null, null);
+            } catch (Exception e) {
+                throw new AssertionError(e);
+            }
+            batchSizes.add(request.numberOfActions());
+            for (ActionRequest item : request.requests()) {
+                if (!attempts.containsKey(((IndexRequest) item).id())) {
+                    attempts.put(((IndexRequest) item).id(), new AtomicInteger());
+                }
+            }
+            requests.add(request);
+            final SettableFuture<RestResponse> future = SettableFuture.create();
+            pending.add(future);
+            final Throwable failure = failure(pending.size() - 1);
+            if (failure != null) {
+                future.setException(failure);
+            } else if (immediate) {
+                complete(pending.size() - 1);
+            }
+            return future;
+        }
+
+        /** what the whole _bulk for the given batch fails with, or null to answer it */
+        protected Throwable failure(final int batch) {
+            return null;
+        }
+
+        /** the status to answer the given attempt at the item with the given id */
+        protected int status(final String id, final int attempt) {
+            return 201;
+        }
+
+        private void complete(final int batch) {
+            try {
+                final XContentBuilder builder = XContentFactory.jsonBuilder().startObject().field("took", 1).field("errors", false).startArray("items");
+                for (int i = 0; i < requests.get(batch).numberOfActions(); i++) {
+                    final IndexRequest item = (IndexRequest) requests.get(batch).requests().get(i);
+                    final int status = status(item.id(), attempts.get(item.id()).incrementAndGet());
+                    builder.startObject().startObject("index")
+                        .field("_index", item.index()).field("_type", item.type()).field("_id", item.id())
+                        .field("_version", 1).field("status", status);
+                    if (status >= 300) {
+                        builder.field("error", "failed with " + status);
+                    }
+                    builder.endObject().endObject();
+                }
+                pending.get(batch).set(new FakeRestResponse(200, builder.endArray().endObject().bytes()));
+            } catch (IOException e) {
+                throw new AssertionError(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,159 @@
+package com.bazaarvoice.elasticsearch.client.core.hedge;
+
+import com.bazaarvoice.elasticsearch.client.core.nodes.NodeSet;
+import com.bazaarvoice.elasticsearch.client.core.nodes.RestNode;
+import com.bazaarvoice.elasticsearch.client.core.nodes.RoundRobinNodeSelector;
+import com.bazaarvoice.elasticsearch.client.core.spi.FakeRestResponse;
+import com.bazaarvoice.elasticsearch.client.core.spi.RestResponse;
+import org.elasticsearch.common.base.Function;
+import org.elasticsearch.common.collect.Lists;
+import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.common.util.concurrent.Futures;
+import org.elasticsearch.common.util.concurrent.ListenableFuture;
+import org.elasticsearch.common.util.concurrent.SettableFuture;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNotEquals;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+public class HedgerTest {
+    private final RestNode a = RestNode.of("http", "a", 9200);
+    private final RestNode b = RestNode.of("http", "b", 9200);
+
+    private ScheduledExecutorService scheduler;
+    private NodeSet nodes;
+    private Hedger hedger;
+
+    @BeforeMethod
+    public void setup() {
+        scheduler = Executors.newSingleThreadScheduledExecutor();
+        nodes = NodeSet.of(new RoundRobinNodeSelector(), a, b);
+        hedger = new Hedger(HedgePolicy.atPercentile(50)
+            .withWindow(10)
+            .withMinSamples(10)
+            .withMinDelay(TimeValue.timeValueMillis(20))
+            .withMaxHedgeRatio(1), scheduler);
+    }
+
+    @AfterMethod
+    public void teardown() {
+        scheduler.shutdownNow();
+    }
+
+    @Test
+    public void testNoHedgingUntilEnoughSamples() throws Exception {
+        assertEquals(hedger.hedgeDelayNanos(), -1);
+        train();
+        assertEquals(hedger.hedgeDelayNanos(), TimeValue.timeValueMillis(20).nanos());
+    }
+
+    @Test
+    public void testHedgeWinsWhenPrimaryStalls() throws Exception {
+        train();
+        final RecordingSend send = new RecordingSend();
+        final ListenableFuture<RestResponse> result = hedger.execute(nodes, send);
+
+        // the primary never answers, so after the delay the hedge goes to the other node
+        final SettableFuture<RestResponse> hedge = awaitHedge(send);
+        assertNotEquals(send.nodes.get(1), send.nodes.get(0));
+
+        final RestResponse response = new FakeRestResponse(200);
+        hedge.set(response);
+        assertSame(result.get(), response);
+        assertTrue(send.attempts.get(0).isCancelled());
+    }
+
+    @Test
+    public void testPrimaryWinsAfterHedgeSent() throws Exception {
+        train();
+        final RecordingSend send = new RecordingSend();
+        final ListenableFuture<RestResponse> result = hedger.execute(nodes, send);
+        final SettableFuture<RestResponse> hedge = awaitHedge(send);
+
+        final RestResponse response = new FakeRestResponse(200);
+        send.attempts.get(0).set(response);
+        assertSame(result.get(), response);
+        assertTrue(hedge.isCancelled());
+    }
+
+    @Test
+    public void testFailureWaitsForOtherAttempt() throws Exception {
+        train();
+        final RecordingSend send = new RecordingSend();
+        final ListenableFuture<RestResponse> result = hedger.execute(nodes, send);
+        final SettableFuture<RestResponse> hedge = awaitHedge(send);
+
+        send.attempts.get(0).setException(new RuntimeException("primary failed"));
+        assertFalse(result.isDone());
+        hedge.setException(new RuntimeException("hedge failed"));
+        try {
+            result.get();
+            fail();
+        } catch (ExecutionException e) {
+            assertEquals(e.getCause().getMessage(), "hedge failed");
+        }
+    }
+
+    @Test
+    public void testFastPrimaryIsNotHedged() throws Exception {
+        train();
+        final RecordingSend send = new RecordingSend();
+        final ListenableFuture<RestResponse> result = hedger.execute(nodes, send);
+        send.attempts.get(0).set(new FakeRestResponse(200));
+        result.get();
+        Thread.sleep(50);
+        assertEquals(send.attempts.size(), 1);
+    }
+
+    /**
+     * Waits for the hedge to be sent, and for the hedger to have finished registering it.
+     */
+    private SettableFuture<RestResponse> awaitHedge(final RecordingSend send) throws Exception {
+        final SettableFuture<RestResponse> hedge = send.awaitAttempt(1);
+        // the scheduler has one thread, so once this runs, the task that sent the hedge is done
+        scheduler.submit(new Runnable() {
+            @Override public void run() { }
+        }).get();
+        return hedge;
+    }
+
+    private void train() throws Exception {
+        for (int i = 0; i < 10; i++) {
+            hedger.execute(nodes, new Function<RestNode, ListenableFuture<RestResponse>>() {
+                @Override public ListenableFuture<RestResponse> apply(final RestNode node) {
+                    return Futures.<RestResponse>immediateFuture(new FakeRestResponse(200));
+                }
+            }).get();
+        }
+    }
+
+    private static class RecordingSend implements Function<RestNode, ListenableFuture<RestResponse>> {
+        private final List<RestNode> nodes = Lists.newCopyOnWriteArrayList();
+        private final List<SettableFuture<RestResponse>> attempts = Lists.newCopyOnWriteArrayList();
+
+        @Override public ListenableFuture<RestResponse> apply(final RestNode node) {
+            final SettableFuture<RestResponse> attempt = SettableFuture.create();
+            nodes.add(node);
+            attempts.add(attempt);
+            return attempt;
+        }
+
+        private SettableFuture<RestResponse> awaitAttempt(final int index) throws InterruptedException {
+            for (int i = 0; i < 100 && attempts.size() <= index; i++) {
+                Thread.sleep(10);
+            }
+            return attempts.get(index);
+        }
+    }
+}
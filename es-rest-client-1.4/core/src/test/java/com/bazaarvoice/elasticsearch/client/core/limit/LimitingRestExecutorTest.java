@@ -0,0 +1,134 @@
+package com.bazaarvoice.elasticsearch.client.core.limit;
+
+import com.bazaarvoice.elasticsearch.client.core.spi.FakeRestExecutor;
+import com.bazaarvoice.elasticsearch.client.core.spi.FakeRestResponse;
+import com.bazaarvoice.elasticsearch.client.core.spi.RequestBody;
+import com.bazaarvoice.elasticsearch.client.core.spi.RestResponse;
+import org.elasticsearch.common.collect.Lists;
+import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.common.util.concurrent.EsRejectedExecutionException;
+import org.elasticsearch.common.util.concurrent.ListenableFuture;
+import org.elasticsearch.common.util.concurrent.SettableFuture;
+import org.testng.annotations.Test;
+
+import java.net.URL;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+public class LimitingRestExecutorTest {
+    @Test
+    public void testQueuesThenRejects() throws Exception {
+        final PendingExecutor delegate = new PendingExecutor();
+        final LimitingRestExecutor executor = new LimitingRestExecutor(delegate, new FixedLimit(2), 1);
+        final URL url = new URL("http://localhost:9200/idx/type/id");
+
+        final ListenableFuture<RestResponse> first = executor.get(url);
+        final ListenableFuture<RestResponse> second = executor.get(url);
+        final ListenableFuture<RestResponse> queued = executor.get(url);
+        assertEquals(delegate.sent.size(), 2);
+        assertEquals(executor.inFlight(), 2);
+        assertEquals(executor.queued(), 1);
+
+        try {
+            executor.get(url).get();
+            fail();
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof EsRejectedExecutionException);
+        }
+
+        // finishing one lets the queued one go
+        delegate.sent.get(0).set(new FakeRestResponse(200));
+        assertEquals(first.get().statusCode(), 200);
+        assertEquals(delegate.sent.size(), 3);
+        assertEquals(executor.queued(), 0);
+        assertFalse(queued.isDone());
+        delegate.sent.get(2).set(new FakeRestResponse(201));
+        assertEquals(queued.get().statusCode(), 201);
+
+        delegate.sent.get(1).set(new FakeRestResponse(200));
+        assertEquals(second.get().statusCode(), 200);
+        assertEquals(executor.inFlight(), 0);
+    }
+
+    @Test
+    public void testCancelledWhileQueued() throws Exception {
+        final PendingExecutor delegate = new PendingExecutor();
+        final LimitingRestExecutor executor = new LimitingRestExecutor(delegate, new FixedLimit(1), 5);
+        final URL url = new URL("http://localhost:9200/idx/type/id");
+
+        executor.get(url);
+        final ListenableFuture<RestResponse> queued = executor.get(url);
+        queued.cancel(true);
+        assertEquals(executor.queued(), 0);
+
+        delegate.sent.get(0).set(new FakeRestResponse(200));
+        assertEquals(delegate.sent.size(), 1);
+        assertEquals(executor.inFlight(), 0);
+    }
+
+    @Test
+    public void testAimd() {
+        final AimdLimit limit = new AimdLimit(10, 1, 12, 0.5, TimeValue.timeValueSeconds(1));
+        final long fast = TimeUnit.MILLISECONDS.toNanos(10);
+
+        // not using the permits: no growth
+        limit.onSample(fast, 1, false);
+        assertEquals(limit.limit(), 10);
+
+        limit.onSample(fast, 10, false);
+        assertEquals(limit.limit(), 11);
+        limit.onSample(fast, 10, false);
+        limit.onSample(fast, 10, false);
+        assertEquals(limit.limit(), 12);
+
+        limit.onSample(fast, 10, true);
+        assertEquals(limit.limit(), 6);
+        limit.onSample(TimeUnit.SECONDS.toNanos(2), 6, false);
+        assertEquals(limit.limit(), 3);
+    }
+
+    @Test
+    public void testGradientBacksOffAsLatencyRises() {
+        final GradientLimit limit = new GradientLimit(50, 1, 200, 0.5, 1.5);
+        for (int i = 0; i < 100; i++) {
+            limit.onSample(TimeUnit.MILLISECONDS.toNanos(10), limit.limit(), false);
+        }
+        final int healthy = limit.limit();
+        assertTrue(healthy > 50, "grew to " + healthy);
+
+        for (int i = 0; i < 50; i++) {
+            limit.onSample(TimeUnit.MILLISECONDS.toNanos(100), limit.limit(), false);
+        }
+        assertTrue(limit.limit() < healthy / 2, "shrank to " + limit.limit());
+    }
+
+    private static class FixedLimit implements AdaptiveLimit {
+        private final int limit;
+
+        private FixedLimit(final int limit) {
+            this.limit = limit;
+        }
+
+        @Override public int limit() {
+            return limit;
+        }
+
+        @Override public void onSample(final long rttNanos, final int inFlight, final boolean dropped) { }
+    }
+
+    private static class PendingExecutor extends FakeRestExecutor {
+        private final List<SettableFuture<RestResponse>> sent = Lists.newArrayList();
+
+        @Override protected ListenableFuture<RestResponse> send(final URL url, final RequestBody body) {
+            final SettableFuture<RestResponse> response = SettableFuture.create();
+            sent.add(response);
+            return response;
+        }
+    }
+}
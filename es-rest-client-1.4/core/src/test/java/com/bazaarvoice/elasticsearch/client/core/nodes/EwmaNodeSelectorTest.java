@@ -0,0 +1,215 @@
+package com.bazaarvoice.elasticsearch.client.core.nodes;
+
+import com.bazaarvoice.elasticsearch.client.core.spi.RestResponse;
+import org.elasticsearch.common.base.Ticker;
+import org.elasticsearch.common.collect.ImmutableList;
+import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.common.util.concurrent.SettableFuture;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+public class EwmaNodeSelectorTest {
+    private final RestNode fast = RestNode.of("http", "fast", 9200);
+    private final RestNode slow = RestNode.of("http", "slow", 9200);
+    private final List<RestNode> nodes = ImmutableList.of(fast, slow);
+
+    private FakeTicker ticker;
+    private EwmaNodeSelector selector;
+
+    @BeforeMethod
+    public void setup() {
+        ticker = new FakeTicker();
+        selector = EwmaNodeSelector.builder()
+            .minSamples(5)
+            .baseEjectionTime(TimeValue.timeValueSeconds(10))
+            .ticker(ticker)
+            .build();
+        selector.onNodesChanged(nodes);
+    }
+
+    @Test
+    public void testPrefersFasterNode() {
+        for (int i = 0; i < 5; i++) {
+            respond(fast, 10, true);
+            respond(slow, 20, true);
+        }
+        assertFalse(selector.isEjected(slow));
+        // with two nodes, both are always compared
+        for (int i = 0; i < 10; i++) {
+            assertEquals(selector.select(nodes), fast);
+        }
+    }
+
+    @Test
+    public void testEjectsAndReinstatesLatencyOutlier() {
+        for (int i = 0; i < 5; i++) {
+            respond(fast, 10, true);
+            respond(slow, 100, true);
+        }
+        assertTrue(selector.isEjected(slow));
+
+        // even with lots of requests outstanding on the fast node, the ejected one isn't used
+        for (int i = 0; i < 20; i++) {
+            selector.onRequestStart(fast);
+        }
+        assertEquals(selector.select(nodes), fast);
+
+        // once the ejection is up, the slow node gets exactly one probe
+        ticker.advance(10, TimeUnit.SECONDS);
+        assertEquals(selector.select(nodes), slow);
+        assertEquals(selector.select(nodes), fast);
+
+        selector.onRequestStart(slow);
+        selector.onRequestEnd(slow, TimeUnit.MILLISECONDS.toNanos(12), true);
+        assertFalse(selector.isEjected(slow));
+    }
+
+    @Test
+    public void testFailedProbeEjectsForLonger() {
+        for (int i = 0; i < 5; i++) {
+            respond(fast, 10, true);
+            respond(slow, 10, false);
+        }
+        assertTrue(selector.isEjected(slow));
+
+        ticker.advance(10, TimeUnit.SECONDS);
+        assertEquals(selector.select(nodes), slow);
+        selector.onRequestStart(slow);
+        selector.onRequestEnd(slow, TimeUnit.MILLISECONDS.toNanos(10), false);
+        assertTrue(selector.isEjected(slow));
+
+        // the second ejection lasts twice as long
+        ticker.advance(10, TimeUnit.SECONDS);
+        assertEquals(selector.select(nodes), fast);
+        ticker.advance(10, TimeUnit.SECONDS);
+        assertEquals(selector.select(nodes), slow);
+    }
+
+    @Test
+    public void testNodeThatKeepsFailingStaysOut() {
+        selector = EwmaNodeSelector.builder()
+            .minSamples(5)
+            .baseEjectionTime(TimeValue.timeValueSeconds(30))
+            .maxEjectionTime(TimeValue.timeValueMinutes(5))
+            .ticker(ticker)
+            .build();
+        selector.onNodesChanged(nodes);
+        for (int i = 0; i < 5; i++) {
+            respond(fast, 10, true);
+            respond(slow, 10, false);
+        }
+        assertTrue(selector.isEjected(slow));
+
+        for (int ejections = 1; ejections < 50; ejections++) {
+            ticker.advance(1, TimeUnit.MINUTES);
+            assertEquals(selector.select(nodes), slow, "probe after ejection " + ejections);
+            selector.onRequestStart(slow);
+            selector.onRequestEnd(slow, TimeUnit.MILLISECONDS.toNanos(10), false);
+            assertTrue(selector.isEjected(slow));
+            // from 30s << 4 on, it's held out for the longest ejection rather than probed again straight away
+            ticker.advance(4, TimeUnit.MINUTES);
+            if (ejections >= 4) {
+                assertEquals(selector.select(nodes), fast, "after ejection " + (ejections + 1));
+            }
+        }
+    }
+
+    @Test
+    public void testNeverEjectsMoreThanAllowed() {
+        for (int i = 0; i < 5; i++) {
+            respond(fast, 10, false);
+            respond(slow, 10, false);
+        }
+        // only one of the two may go
+        assertTrue(selector.isEjected(fast) ^ selector.isEjected(slow));
+    }
+
+    @Test
+    public void testJudgesAgainstTheWholeSet() {
+        final RestNode a = RestNode.of("http", "a", 9200);
+        final RestNode b = RestNode.of("http", "b", 9200);
+        final RestNode c = RestNode.of("http", "c", 9200);
+        final RestNode d = RestNode.of("http", "d", 9200);
+        selector.onNodesChanged(ImmutableList.of(a, b, c, d));
+        for (int i = 0; i < 5; i++) {
+            respond(d, 10, false);
+        }
+        assertTrue(selector.isEjected(d));
+
+        // a hedge picking between just two of them
+        assertEquals(selector.select(ImmutableList.of(c, d)), c);
+
+        // half of the four may go, so c can join d
+        for (int i = 0; i < 5; i++) {
+            respond(c, 10, false);
+        }
+        assertTrue(selector.isEjected(c));
+    }
+
+    @Test
+    public void testCancelledRequestsAreNotSamples() {
+        final NodeSet set = NodeSet.of(selector, nodes);
+        for (int i = 0; i < 5; i++) {
+            respond(fast, 10, true);
+            respond(slow, 20, true);
+        }
+        final double latency = selector.latencyNanos(slow);
+
+        // the slow node lost a hedge, quickly: that mustn't make it look fast
+        final SettableFuture<RestResponse> loser = SettableFuture.create();
+        set.track(slow, loser);
+        loser.cancel(true);
+        assertEquals(selector.latencyNanos(slow), latency);
+        assertEquals(selector.select(nodes), fast);
+    }
+
+    @Test
+    public void testForgetsNodesThatLeave() {
+        final RestNode other = RestNode.of("http", "other", 9200);
+        final NodeSet set = NodeSet.of(selector, nodes);
+        for (int i = 0; i < 5; i++) {
+            respond(fast, 10, true);
+            respond(slow, 100, true);
+        }
+        assertTrue(selector.isEjected(slow));
+        selector.onRequestStart(slow);
+        assertEquals(selector.trackedNodes(), 2);
+
+        set.setNodes(ImmutableList.of(fast, other));
+        assertEquals(selector.trackedNodes(), 1);
+
+        // the request to slow was still in flight when it left
+        selector.onRequestEnd(slow, TimeUnit.MILLISECONDS.toNanos(100), true);
+        respond(fast, 10, true);
+        assertEquals(selector.trackedNodes(), 1);
+
+        // and when it comes back, it starts afresh
+        set.setNodes(nodes);
+        assertFalse(selector.isEjected(slow));
+        assertEquals(selector.latencyNanos(slow), 0.0);
+    }
+
+    private void respond(final RestNode node, final long millis, final boolean success) {
+        selector.onRequestStart(node);
+        selector.onRequestEnd(node, TimeUnit.MILLISECONDS.toNanos(millis), success);
+    }
+
+    private static class FakeTicker extends Ticker {
+        private long nanos = 0;
+
+        @Override public long read() {
+            return nanos;
+        }
+
+        private void advance(final long duration, final TimeUnit unit) {
+            nanos += unit.toNanos(duration);
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package com.bazaarvoice.elasticsearch.client.core.nodes;
+
+import com.bazaarvoice.elasticsearch.client.core.spi.RestResponse;
+import org.elasticsearch.ElasticsearchIllegalArgumentException;
+import org.elasticsearch.common.collect.ImmutableList;
+import org.elasticsearch.common.util.concurrent.SettableFuture;
+import org.testng.annotations.Test;
+
+import java.util.List;
+
+import static org.testng.Assert.assertEquals;
+
+public class NodeSelectorTest {
+    private final RestNode a = RestNode.of("http", "a", 9200);
+    private final RestNode b = RestNode.of("http", "b", 9200);
+    private final RestNode c = RestNode.of("http", "c", 9200);
+    private final List<RestNode> nodes = ImmutableList.of(a, b, c);
+
+    @Test
+    public void testRoundRobin() {
+        final RoundRobinNodeSelector selector = new RoundRobinNodeSelector();
+        assertEquals(selector.select(nodes), a);
+        assertEquals(selector.select(nodes), b);
+        assertEquals(selector.select(nodes), c);
+        assertEquals(selector.select(nodes), a);
+    }
+
+    @Test
+    public void testLeastOutstandingRequests() {
+        final LeastOutstandingRequestsNodeSelector selector = new LeastOutstandingRequestsNodeSelector();
+        selector.onRequestStart(a);
+        selector.onRequestStart(a);
+        selector.onRequestStart(b);
+        for (int i = 0; i < nodes.size(); i++) {
+            assertEquals(selector.select(nodes), c);
+        }
+
+        selector.onRequestStart(c);
+        selector.onRequestStart(c);
+        for (int i = 0; i < nodes.size(); i++) {
+            assertEquals(selector.select(nodes), b);
+        }
+
+        selector.onRequestEnd(a, 0, true);
+        selector.onRequestEnd(a, 0, false);
+        assertEquals(selector.outstandingRequests(a), 0);
+        for (int i = 0; i < nodes.size(); i++) {
+            assertEquals(selector.select(nodes), a);
+        }
+    }
+
+    @Test
+    public void testLeastOutstandingRequestsSpreadsTies() {
+        final LeastOutstandingRequestsNodeSelector selector = new LeastOutstandingRequestsNodeSelector();
+        assertEquals(ImmutableList.of(selector.select(nodes), selector.select(nodes), selector.select(nodes)), nodes);
+    }
+
+    @Test
+    public void testLeastOutstandingRequestsCountsCancelledRequestsAsFinished() {
+        final LeastOutstandingRequestsNodeSelector selector = new LeastOutstandingRequestsNodeSelector();
+        final NodeSet set = NodeSet.of(selector, nodes);
+        final SettableFuture<RestResponse> loser = SettableFuture.create();
+        set.track(a, loser);
+        assertEquals(selector.outstandingRequests(a), 1);
+        loser.cancel(true);
+        assertEquals(selector.outstandingRequests(a), 0);
+    }
+
+    @Test
+    public void testLeastOutstandingRequestsForgetsNodesThatLeave() {
+        final LeastOutstandingRequestsNodeSelector selector = new LeastOutstandingRequestsNodeSelector();
+        final NodeSet set = NodeSet.of(selector, nodes);
+        selector.onRequestStart(a);
+        selector.onRequestStart(b);
+        assertEquals(selector.trackedNodes(), 2);
+
+        set.setNodes(ImmutableList.of(b, c));
+        assertEquals(selector.trackedNodes(), 1);
+        assertEquals(selector.outstandingRequests(b), 1);
+
+        // the request to a was still in flight when it left
+        selector.onRequestEnd(a, 0, true);
+        assertEquals(selector.trackedNodes(), 1);
+
+        // and when a comes back, it starts from nothing
+        set.setNodes(nodes);
+        selector.onRequestStart(a);
+        selector.onRequestEnd(a, 0, true);
+        selector.onRequestEnd(a, 0, true);
+        assertEquals(selector.outstandingRequests(a), 0);
+        selector.onRequestStart(a);
+        assertEquals(selector.outstandingRequests(a), 1);
+    }
+
+    @Test(expectedExceptions = ElasticsearchIllegalArgumentException.class)
+    public void testEmptyNodeSet() {
+        NodeSet.of(new RoundRobinNodeSelector(), ImmutableList.<RestNode>of());
+    }
+}
@@ -0,0 +1,39 @@
+package com.bazaarvoice.elasticsearch.client.core.nodes;
+
+import org.elasticsearch.common.collect.ImmutableList;
+import org.elasticsearch.common.collect.ImmutableMap;
+import org.testng.annotations.Test;
+
+import java.util.Map;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+
+public class NodeSnifferTest {
+    @Test
+    public void testPublishAddresses() {
+        assertEquals(NodeSniffer.fromPublishAddress("http", "inet[/10.0.0.1:9200]"), RestNode.of("http", "10.0.0.1", 9200));
+        assertEquals(NodeSniffer.fromPublishAddress("https", "inet[es-1.example.com/10.0.0.1:9201]"), RestNode.of("https", "es-1.example.com", 9201));
+        assertEquals(NodeSniffer.fromPublishAddress("http", "inet[/0:0:0:0:0:0:0:1:9200]"), RestNode.of("http", "0:0:0:0:0:0:0:1", 9200));
+        assertEquals(NodeSniffer.fromPublishAddress("http", "10.0.0.1:9200"), RestNode.of("http", "10.0.0.1", 9200));
+        assertEquals(NodeSniffer.fromPublishAddress("http", "[::1]:9200"), RestNode.of("http", "::1", 9200));
+
+        assertNull(NodeSniffer.fromPublishAddress("http", "inet[/10.0.0.1]"));
+        assertNull(NodeSniffer.fromPublishAddress("http", "local[1]"));
+        assertNull(NodeSniffer.fromPublishAddress("http", "inet[/:9200]"));
+    }
+
+    @Test
+    public void testNodesFromXContent() {
+        final Map<String, Object> response = ImmutableMap.<String, Object>of(
+            "cluster_name", "test",
+            "nodes", ImmutableMap.of(
+                "a", ImmutableMap.of("name", "a", "http", ImmutableMap.of("publish_address", "inet[/10.0.0.1:9200]")),
+                "b", ImmutableMap.of("name", "b"),
+                "c", ImmutableMap.of("name", "c", "http", ImmutableMap.of("publish_address", "inet[/10.0.0.3:9200]"))));
+
+        assertEquals(NodeSniffer.nodesFromXContent("http", response), ImmutableList.of(
+            RestNode.of("http", "10.0.0.1", 9200),
+            RestNode.of("http", "10.0.0.3", 9200)));
+    }
+}
@@ -0,0 +1,36 @@
+package com.bazaarvoice.elasticsearch.client.core.raw;
+
+import com.bazaarvoice.elasticsearch.client.core.spi.FakeRestResponse;
+import com.bazaarvoice.elasticsearch.client.core.spi.RestResponse;
+import com.bazaarvoice.elasticsearch.client.core.util.InputStreams;
+import org.elasticsearch.indices.IndexMissingException;
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertSame;
+
+public class RawResponseTransformTest {
+
+    @Test
+    public void testSuccessIsPassedThroughUnread() {
+        final RestResponse response = new FakeRestResponse(200, "{\"took\":1,");
+        final RawResponse raw = RawResponseTransform.INSTANCE.apply(response);
+        assertEquals(raw.getStatusCode(), 200);
+        assertEquals(raw.getContentType(), "application/json; charset=utf-8");
+        // not even valid json, since we never look
+        assertSame(raw.getBody(), response.response());
+    }
+
+    @Test
+    public void testNotFoundIsPassedThrough() {
+        final String body = "{\"_index\":\"i\",\"_type\":\"t\",\"_id\":\"1\",\"found\":false}";
+        final RawResponse raw = RawResponseTransform.INSTANCE.apply(new FakeRestResponse(404, body));
+        assertEquals(raw.getStatusCode(), 404);
+        assertEquals(InputStreams.toString(raw.getBody()), body);
+    }
+
+    @Test(expectedExceptions = IndexMissingException.class)
+    public void testErrorsAreThrown() {
+        RawResponseTransform.INSTANCE.apply(new FakeRestResponse(404, "{\"error\":\"IndexMissingException[[nope] missing]\",\"status\":404}"));
+    }
+}
@@ -0,0 +1,129 @@
+package com.bazaarvoice.elasticsearch.client.core.retry;
+
+import com.bazaarvoice.elasticsearch.client.core.spi.FakeRestResponse;
+import com.bazaarvoice.elasticsearch.client.core.spi.RestResponse;
+import org.elasticsearch.common.base.Supplier;
+import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.common.util.concurrent.Futures;
+import org.elasticsearch.common.util.concurrent.ListenableFuture;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.net.ConnectException;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+public class RetrierTest {
+    private final RetryPolicy policy = RetryPolicy.exponentialBackoff(TimeValue.timeValueMillis(1), TimeValue.timeValueMillis(10)).withMaxAttempts(3);
+
+    private ScheduledExecutorService scheduler;
+    private Retrier retrier;
+
+    @BeforeMethod
+    public void setup() {
+        scheduler = Executors.newSingleThreadScheduledExecutor();
+        retrier = new Retrier(policy, scheduler);
+    }
+
+    @AfterMethod
+    public void teardown() {
+        scheduler.shutdownNow();
+    }
+
+    @Test
+    public void testRetriesRejectedUntilSuccess() throws Exception {
+        final Responses responses = new Responses(429, 503, 200);
+        assertEquals(retrier.execute(responses).get().statusCode(), 200);
+        assertEquals(responses.attempts.get(), 3);
+    }
+
+    @Test
+    public void testGivesUpAfterMaxAttempts() throws Exception {
+        final Responses responses = new Responses(503, 503, 503, 200);
+        assertEquals(retrier.execute(responses).get().statusCode(), 503);
+        assertEquals(responses.attempts.get(), 3);
+    }
+
+    @Test
+    public void testDoesNotRetryOtherStatuses() throws Exception {
+        final Responses responses = new Responses(500, 200);
+        assertEquals(retrier.execute(responses).get().statusCode(), 500);
+        assertEquals(responses.attempts.get(), 1);
+    }
+
+    @Test
+    public void testRetriesConnectionFailures() throws Exception {
+        final AtomicInteger attempts = new AtomicInteger();
+        final ListenableFuture<RestResponse> result = retrier.execute(new Supplier<ListenableFuture<RestResponse>>() {
+            @Override public ListenableFuture<RestResponse> get() {
+                if (attempts.incrementAndGet() == 1) {
+                    // some http clients wrap their IOExceptions
+                    return Futures.immediateFailedFuture(new RuntimeException(new ConnectException("refused")));
+                }
+                return Futures.<RestResponse>immediateFuture(new FakeRestResponse(200));
+            }
+        });
+        assertEquals(result.get().statusCode(), 200);
+        assertEquals(attempts.get(), 2);
+    }
+
+    @Test
+    public void testDoesNotRetryOtherFailures() throws Exception {
+        final AtomicInteger attempts = new AtomicInteger();
+        try {
+            retrier.execute(new Supplier<ListenableFuture<RestResponse>>() {
+                @Override public ListenableFuture<RestResponse> get() {
+                    attempts.incrementAndGet();
+                    return Futures.immediateFailedFuture(new IllegalStateException("bug"));
+                }
+            }).get();
+            fail();
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof IllegalStateException);
+        }
+        assertEquals(attempts.get(), 1);
+    }
+
+    @Test
+    public void testBackoffIsJitteredAndCapped() {
+        final Random random = new Random(0);
+        for (int retries = 0; retries < 40; retries++) {
+            final long ceiling = Math.min(TimeValue.timeValueMillis(10).nanos(), TimeValue.timeValueMillis(1).nanos() << Math.min(retries, 30));
+            final long delay = policy.delayNanos(retries, random);
+            assertTrue(delay >= 0 && delay <= ceiling, "retry " + retries + " delay " + delay);
+        }
+        assertFalse(policy.isRetryable(404));
+    }
+
+    @Test
+    public void testBackoffNeverOverflows() {
+        final RetryPolicy slow = RetryPolicy.exponentialBackoff(TimeValue.timeValueSeconds(30), TimeValue.timeValueMinutes(10)).withMaxAttempts(100);
+        final Random random = new Random(0);
+        for (int retries = 0; retries < 100; retries++) {
+            final long delay = slow.delayNanos(retries, random);
+            assertTrue(delay >= 0 && delay <= TimeValue.timeValueMinutes(10).nanos(), "retry " + retries + " delay " + delay);
+        }
+    }
+
+    private static class Responses implements Supplier<ListenableFuture<RestResponse>> {
+        private final int[] statuses;
+        private final AtomicInteger attempts = new AtomicInteger();
+
+        private Responses(final int... statuses) {
+            this.statuses = statuses;
+        }
+
+        @Override public ListenableFuture<RestResponse> get() {
+            return Futures.<RestResponse>immediateFuture(new FakeRestResponse(statuses[attempts.getAndIncrement()]));
+        }
+    }
+}
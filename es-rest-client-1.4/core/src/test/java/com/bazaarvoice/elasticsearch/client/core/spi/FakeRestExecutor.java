@@ -0,0 +1,41 @@
+package com.bazaarvoice.elasticsearch.client.core.spi;
+
+import org.elasticsearch.common.Nullable;
+import org.elasticsearch.common.util.concurrent.ListenableFuture;
+
+import java.io.InputStream;
+import java.net.URL;
+
+/**
+ * An executor for tests, which answers every request with whatever {@link #send} says.
+ */
+public abstract class FakeRestExecutor implements RestExecutor {
+    /**
+     * @param body the body of a put or post, or null for a get, a delete, or a body sent as a plain stream
+     */
+    protected abstract ListenableFuture<RestResponse> send(URL url, @Nullable RequestBody body);
+
+    @Override public ListenableFuture<RestResponse> get(final URL url) {
+        return send(url, null);
+    }
+
+    @Override public ListenableFuture<RestResponse> delete(final URL url) {
+        return send(url, null);
+    }
+
+    @Override public ListenableFuture<RestResponse> put(final URL url, final InputStream body) {
+        return send(url, null);
+    }
+
+    @Override public ListenableFuture<RestResponse> post(final URL url, final InputStream body) {
+        return send(url, null);
+    }
+
+    @Override public ListenableFuture<RestResponse> put(final URL url, final RequestBody body) {
+        return send(url, body);
+    }
+
+    @Override public ListenableFuture<RestResponse> post(final URL url, final RequestBody body) {
+        return send(url, body);
+    }
+}
@@ -0,0 +1,46 @@
+package com.bazaarvoice.elasticsearch.client.core.spi;
+
+import com.bazaarvoice.elasticsearch.client.core.util.InputStreams;
+import org.elasticsearch.common.bytes.BytesArray;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.collect.ImmutableSet;
+
+import java.io.InputStream;
+import java.util.Set;
+
+/**
+ * A json response with the given status, for tests. {@link #response()} is the same stream every time.
+ */
+public class FakeRestResponse implements RestResponse {
+    private final int status;
+    private final InputStream body;
+
+    public FakeRestResponse(final int status) {
+        this(status, BytesArray.EMPTY);
+    }
+
+    public FakeRestResponse(final int status, final String body) {
+        this(status, new BytesArray(body));
+    }
+
+    public FakeRestResponse(final int status, final BytesReference body) {
+        this.status = status;
+        this.body = InputStreams.of(body);
+    }
+
+    @Override public boolean isSuccess() {
+        return status >= 200 && status < 300;
+    }
+
+    @Override public int statusCode() {
+        return status;
+    }
+
+    @Override public InputStream response() {
+        return body;
+    }
+
+    @Override public Set<String> contentTypeLowerCase() {
+        return ImmutableSet.of("application/json; charset=utf-8");
+    }
+}
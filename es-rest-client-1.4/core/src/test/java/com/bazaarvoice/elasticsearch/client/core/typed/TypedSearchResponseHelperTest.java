@@ -0,0 +1,83 @@
+package com.bazaarvoice.elasticsearch.client.core.typed;
+
+import com.bazaarvoice.elasticsearch.client.core.util.SlicingJsonXContentParser;
+import com.bazaarvoice.elasticsearch.client.core.util.aggs.AggregationsManifest;
+import org.elasticsearch.common.bytes.BytesArray;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.collect.ImmutableMap;
+import org.elasticsearch.common.xcontent.json.JsonXContent;
+import org.elasticsearch.search.aggregations.metrics.avg.Avg;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.util.Map;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+
+public class TypedSearchResponseHelperTest {
+    private static final String RESPONSE = "{\"took\":3,\"timed_out\":false,\"_shards\":{\"total\":1,\"successful\":1,\"failed\":0}," +
+        "\"hits\":{\"total\":2,\"max_score\":1.5,\"hits\":[" +
+        "{\"_index\":\"i\",\"_type\":\"t\",\"_id\":\"1\",\"_score\":1.5,\"_source\":{\"name\":\"one\",\"rating\":4},\"sort\":[1],\"highlight\":{\"name\":[\"<em>one</em>\"]}}," +
+        "{\"_index\":\"i\",\"_type\":\"t\",\"_id\":\"2\",\"_score\":null,\"fields\":{\"name\":[\"two\"]}}]}," +
+        "\"aggregations\":{\"average\":{\"value\":4.0}}}";
+
+    private static final AggregationsManifest MANIFEST = AggregationsManifest.fromSource(ImmutableMap.<String, Object>of(
+        "average", ImmutableMap.of("avg", ImmutableMap.of("field", "rating"))));
+
+    /** stands in for your own mapper */
+    private static final SourceBinding<String> NAME = new SourceBinding<String>() {
+        @Override public String bind(final BytesReference source) throws IOException {
+            return (String) JsonXContent.jsonXContent.createParser(source).mapAndClose().get("name");
+        }
+    };
+
+    @Test
+    public void testStreamingMatchesMap() throws IOException {
+        final TypedSearchResponseHelper<String> helper = new TypedSearchResponseHelper<String>(NAME, MANIFEST);
+        final TypedSearchResponse<String> streamed = helper.fromXContent(SlicingJsonXContentParser.of(new BytesArray(RESPONSE)));
+        final Map<String, Object> map = JsonXContent.jsonXContent.createParser(RESPONSE).mapAndClose();
+        for (TypedSearchResponse<String> response : new TypedSearchResponse[]{streamed, helper.fromXContent(map)}) {
+            assertEquals(response.getTookInMillis(), 3);
+            assertEquals(response.getTotalHits(), 2);
+            assertEquals(response.getMaxScore(), 1.5f);
+            assertEquals(response.getHits().size(), 2);
+            assertEquals(response.getHits().get(0).getId(), "1");
+            assertEquals(response.getHits().get(0).getSource(), "one");
+            assertEquals(response.getHits().get(0).getScore(), 1.5f);
+            assertEquals(response.getHits().get(1).getId(), "2");
+            assertNull(response.getHits().get(1).getSource());
+            assertTrue(Float.isNaN(response.getHits().get(1).getScore()));
+            assertEquals(response.getAggregations().<Avg>get("average").getValue(), 4.0);
+        }
+    }
+
+    @Test
+    public void testSourceIsASliceOfTheResponse() throws IOException {
+        final byte[] response = RESPONSE.getBytes("UTF-8");
+        final TypedSearchResponse<BytesReference> typed = new TypedSearchResponseHelper<BytesReference>(new SourceBinding<BytesReference>() {
+            @Override public BytesReference bind(final BytesReference source) {
+                return source;
+            }
+        }, MANIFEST).fromXContent(SlicingJsonXContentParser.of(new BytesArray(response)));
+        final BytesReference source = typed.getHits().get(0).getSource();
+        assertSame(source.array(), response);
+        assertEquals(source.toUtf8(), "{\"name\":\"one\",\"rating\":4}");
+    }
+
+    @Test
+    public void testGet() throws IOException {
+        final String found = "{\"_index\":\"i\",\"_type\":\"t\",\"_id\":\"1\",\"_version\":2,\"found\":true,\"_source\":{\"name\":\"one\"}}";
+        final TypedGetResponse<String> response = new TypedGetResponseHelper<String>(NAME).fromXContent(SlicingJsonXContentParser.of(new BytesArray(found)));
+        assertTrue(response.isExists());
+        assertEquals(response.getVersion(), 2);
+        assertEquals(response.getSource(), "one");
+
+        final String missing = "{\"_index\":\"i\",\"_type\":\"t\",\"_id\":\"2\",\"found\":false}";
+        final TypedGetResponse<String> notFound = new TypedGetResponseHelper<String>(NAME).fromXContent(JsonXContent.jsonXContent.createParser(missing).mapAndClose());
+        assertEquals(notFound.isExists(), false);
+        assertNull(notFound.getSource());
+    }
+}
@@ -0,0 +1,84 @@
+package com.bazaarvoice.elasticsearch.client.core.util;
+
+import com.bazaarvoice.elasticsearch.client.core.spi.BytesRestResponse;
+import com.bazaarvoice.elasticsearch.client.core.spi.FakeRestResponse;
+import org.elasticsearch.common.bytes.BytesArray;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.io.Streams;
+import org.testng.annotations.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertSame;
+
+public class InputStreamsTest {
+    private static final byte[] WITH_NULLS = "\0\0\0{\"a\":\0\"b\0c\"}\0\0".getBytes();
+
+    @Test
+    public void testStripNullCharsInBulk() throws IOException {
+        assertEquals(new String(Streams.copyToByteArray(InputStreams.stripNullChars(new ByteArrayInputStream(WITH_NULLS)))), "{\"a\":\"bc\"}");
+
+        // a chunk of nothing but nulls mustn't look like the end of the stream (or like a zero-length read)
+        final InputStream stream = InputStreams.stripNullChars(new ByteArrayInputStream(WITH_NULLS));
+        final byte[] buffer = new byte[3];
+        assertEquals(stream.read(buffer, 0, 3), 3);
+        assertEquals(new String(buffer), "{\"a");
+        assertEquals(stream.read(buffer, 0, 3), 2);
+        assertEquals(new String(buffer, 0, 2), "\":");
+        assertEquals(stream.read(), '"');
+    }
+
+    @Test
+    public void testReadStrippingNullChars() throws IOException {
+        assertEquals(InputStreams.readStrippingNullChars(new ByteArrayInputStream(WITH_NULLS)).toUtf8(), "{\"a\":\"bc\"}");
+        assertEquals(InputStreams.readStrippingNullChars(new ByteArrayInputStream("{\"a\":1}".getBytes())).toUtf8(), "{\"a\":1}");
+        assertEquals(InputStreams.readStrippingNullChars(new ByteArrayInputStream(new byte[0])).length(), 0);
+    }
+
+    @Test
+    public void testReadWithAnExpectedLength() throws IOException {
+        final byte[] bytes = new byte[20000];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = (byte) (i % 100 + 1);
+        }
+        // right, too short, too long, and unknown
+        for (long expected : new long[]{bytes.length, 10, 30000, -1}) {
+            final BytesArray read = InputStreams.read(new ByteArrayInputStream(bytes), expected);
+            assertEquals(read.toBytes(), bytes, "expected " + expected);
+        }
+        assertEquals(InputStreams.read(new ByteArrayInputStream(bytes), bytes.length).array().length, bytes.length);
+        assertEquals(InputStreams.read(new ByteArrayInputStream(new byte[0]), 0).length(), 0);
+    }
+
+    @Test
+    public void testBytesFromTheExecutorAreOnlyCopiedToStripNulls() throws IOException {
+        final byte[] clean = "{\"a\":1}".getBytes();
+        final BytesReference asItIs = InputStreams.readStrippingNullChars(new Bytes(clean));
+        assertSame(asItIs.array(), clean);
+        assertEquals(asItIs.toUtf8(), "{\"a\":1}");
+
+        final byte[] withNulls = WITH_NULLS.clone();
+        assertEquals(InputStreams.readStrippingNullChars(new Bytes(withNulls)).toUtf8(), "{\"a\":\"bc\"}");
+        assertEquals(withNulls, WITH_NULLS, "the executor's bytes were changed");
+    }
+
+    private static class Bytes extends FakeRestResponse implements BytesRestResponse {
+        private final byte[] bytes;
+
+        private Bytes(final byte[] bytes) {
+            super(200);
+            this.bytes = bytes;
+        }
+
+        @Override public BytesReference bytes() {
+            return new BytesArray(bytes);
+        }
+
+        @Override public InputStream response() {
+            throw new AssertionError("the bytes should have been used");
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.bazaarvoice.elasticsearch.client.core.util;
+
+import org.elasticsearch.common.collect.ImmutableList;
+import org.elasticsearch.common.collect.ImmutableMap;
+import org.elasticsearch.common.xcontent.json.JsonXContent;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.util.Map;
+
+import static com.bazaarvoice.elasticsearch.client.core.util.MapFunctions.nodeListValue;
+import static com.bazaarvoice.elasticsearch.client.core.util.MapFunctions.nodeMapValue;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertSame;
+
+public class MapFunctionsTest {
+    private static final String JSON = "{\"a\":{\"b\":[1,\"two\",null,{\"c\":true}],\"d\":{\"e\":1.5}},\"f\":\"g\"}";
+
+    @Test
+    public void testReadMapMatchesParserMap() throws IOException {
+        assertEquals(XContentParsers.readMapAndClose(JsonXContent.jsonXContent.createParser(JSON)), JsonXContent.jsonXContent.createParser(JSON).mapAndClose());
+    }
+
+    @Test
+    public void testParsedValuesAreHandedBack() throws IOException {
+        final Map<String, Object> map = XContentParsers.readMapAndClose(JsonXContent.jsonXContent.createParser(JSON));
+        final Map<String, Object> a = nodeMapValue(map.get("a"), String.class, Object.class);
+        assertSame(a, map.get("a"));
+        assertSame(nodeListValue(a.get("b"), Object.class), a.get("b"));
+        assertEquals(nodeMapValue(a.get("d"), String.class, Number.class).get("e"), 1.5);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testParsedValuesAreStillCheckedAgainstNarrowerTypes() throws IOException {
+        final Map<String, Object> map = XContentParsers.readMapAndClose(JsonXContent.jsonXContent.createParser(JSON));
+        nodeMapValue(map, String.class, Number.class);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testOtherMapsAreChecked() {
+        nodeMapValue(ImmutableMap.of(1, "one"), String.class, Object.class);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testOtherListsAreChecked() {
+        nodeListValue(ImmutableList.of(1, "two"), Number.class);
+    }
+}
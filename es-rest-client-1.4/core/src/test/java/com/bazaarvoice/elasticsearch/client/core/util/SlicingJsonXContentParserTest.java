@@ -0,0 +1,45 @@
+package com.bazaarvoice.elasticsearch.client.core.util;
+
+import org.elasticsearch.common.bytes.BytesArray;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.xcontent.XContentParser;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertSame;
+
+public class SlicingJsonXContentParserTest {
+    @Test
+    public void testSlices() throws IOException {
+        final BytesReference response = new BytesArray("junk{\"hits\" : [ {\"_source\" :  {\"a\":{\"b\":[1,\"}\"]}} }, {\"_source\":[1, 2]} ], \"after\":true}".getBytes("UTF-8"), 4, 84);
+        final SlicingJsonXContentParser parser = SlicingJsonXContentParser.of(response);
+        try {
+            assertEquals(parser.nextToken(), XContentParser.Token.START_OBJECT);
+            assertEquals(parser.nextToken(), XContentParser.Token.FIELD_NAME);
+            assertEquals(parser.nextToken(), XContentParser.Token.START_ARRAY);
+
+            assertEquals(parser.nextToken(), XContentParser.Token.START_OBJECT);
+            assertEquals(parser.nextToken(), XContentParser.Token.FIELD_NAME);
+            assertEquals(parser.nextToken(), XContentParser.Token.START_OBJECT);
+            final BytesReference first = parser.sliceCurrentStructure();
+            assertEquals(first.toUtf8(), "{\"a\":{\"b\":[1,\"}\"]}}");
+            assertSame(first.array(), response.array());
+            assertEquals(parser.nextToken(), XContentParser.Token.END_OBJECT);
+
+            assertEquals(parser.nextToken(), XContentParser.Token.START_OBJECT);
+            assertEquals(parser.nextToken(), XContentParser.Token.FIELD_NAME);
+            assertEquals(parser.nextToken(), XContentParser.Token.START_ARRAY);
+            assertEquals(parser.sliceCurrentStructure().toUtf8(), "[1, 2]");
+            assertEquals(parser.nextToken(), XContentParser.Token.END_OBJECT);
+
+            assertEquals(parser.nextToken(), XContentParser.Token.END_ARRAY);
+            assertEquals(parser.nextToken(), XContentParser.Token.FIELD_NAME);
+            assertEquals(parser.currentName(), "after");
+            assertEquals(parser.nextToken(), XContentParser.Token.VALUE_BOOLEAN);
+        } finally {
+            parser.close();
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.bazaarvoice.elasticsearch.client.core.util.aggs;
+
+import org.elasticsearch.action.search.SearchRequest;
+import org.elasticsearch.common.bytes.BytesArray;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.xcontent.XContentType;
+import org.elasticsearch.search.aggregations.AbstractAggregationBuilder;
+import org.elasticsearch.search.builder.SearchSourceBuilder;
+import org.testng.annotations.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.elasticsearch.search.aggregations.AggregationBuilders.avg;
+import static org.elasticsearch.search.aggregations.AggregationBuilders.max;
+import static org.elasticsearch.search.aggregations.AggregationBuilders.terms;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertSame;
+
+public class AggregationsManifestTest {
+    private static final List<AbstractAggregationBuilder> AGGREGATIONS = Arrays.<AbstractAggregationBuilder>asList(
+        terms("products").field("product").subAggregation(max("best").field("rating")),
+        avg("average").field("rating"));
+
+    private static BytesReference source(final XContentType contentType) {
+        final SearchSourceBuilder source = new SearchSourceBuilder();
+        for (AbstractAggregationBuilder aggregation : AGGREGATIONS) {
+            source.aggregation(aggregation);
+        }
+        return source.buildAsBytes(contentType);
+    }
+
+    @Test
+    public void testFromBuildersMatchesFromSource() {
+        final AggregationsManifest manifest = AggregationsManifest.fromBuilders(AGGREGATIONS);
+        assertEquals(manifest.getManifest().get("products").getType(), "terms");
+        assertEquals(manifest.getManifest().get("products").getSubAggregationsManifest().getManifest().get("best").getType(), "max");
+        assertEquals(manifest.getManifest().get("average").getType(), "avg");
+
+        assertEquals(AggregationsManifest.fromSearchSource(source(XContentType.JSON)), manifest);
+        assertEquals(AggregationsManifest.fromSearchSource(source(XContentType.SMILE)), manifest);
+    }
+
+    @Test
+    public void testNoAggregations() {
+        assertNull(AggregationsManifest.fromSearchSource(null));
+        assertNull(AggregationsManifest.fromSearchSource(new BytesArray("{\"query\":{\"match_all\":{}}}")));
+    }
+
+    @Test
+    public void testAttachedManifest() {
+        final SearchRequest request = new SearchRequest();
+        assertNull(AggregationsManifest.attachedTo(request));
+        final AggregationsManifest manifest = AggregationsManifest.fromBuilders(AGGREGATIONS);
+        assertSame(AggregationsManifest.attachedTo(manifest.attachTo(request)), manifest);
+    }
+
+    @Test
+    public void testCache() {
+        final AggregationsManifestCache cache = AggregationsManifestCache.create(2);
+        final AggregationsManifest first = cache.get(source(XContentType.JSON));
+        assertEquals(first, AggregationsManifest.fromBuilders(AGGREGATIONS));
+        // an equal source (not the same bytes) gets the manifest we already parsed
+        assertSame(cache.get(source(XContentType.JSON)), first);
+        assertEquals(cache.size(), 1);
+
+        // searches without aggregations are remembered too
+        assertNull(cache.get(new BytesArray("{\"size\":0}")));
+        assertNull(cache.get(new BytesArray("{\"size\":0}")));
+        assertEquals(cache.size(), 2);
+    }
+}
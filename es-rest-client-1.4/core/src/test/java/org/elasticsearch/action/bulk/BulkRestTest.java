@@ -0,0 +1,122 @@
+package org.elasticsearch.action.bulk;
+
+import org.elasticsearch.action.delete.DeleteRequest;
+import org.elasticsearch.action.delete.DeleteResponse;
+import org.elasticsearch.action.index.IndexRequest;
+import org.elasticsearch.action.index.IndexResponse;
+import org.elasticsearch.action.update.UpdateRequest;
+import org.elasticsearch.action.update.UpdateResponse;
+import org.elasticsearch.common.bytes.BytesArray;
+import org.elasticsearch.common.collect.ImmutableList;
+import org.elasticsearch.common.io.stream.BytesStreamOutput;
+import org.elasticsearch.common.xcontent.XContentFactory;
+import org.elasticsearch.common.xcontent.XContentHelper;
+import org.elasticsearch.common.xcontent.XContentParser;
+import org.elasticsearch.common.xcontent.json.JsonXContent;
+import org.elasticsearch.index.get.GetResult;
+import org.elasticsearch.rest.RestStatus;
+import org.testng.annotations.Test;
+
+import java.util.Map;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+public class BulkRestTest {
+    private static final String RESPONSE = "{\"took\":7,\"errors\":true,\"items\":[" +
+        "{\"create\":{\"_index\":\"i\",\"_type\":\"t\",\"_id\":\"1\",\"_version\":1,\"status\":201}}," +
+        "{\"index\":{\"_index\":\"i\",\"_type\":\"t\",\"_id\":\"2\",\"_version\":3,\"status\":200}}," +
+        "{\"delete\":{\"_index\":\"i\",\"_type\":\"t\",\"_id\":\"3\",\"_version\":2,\"status\":404,\"found\":false}}," +
+        "{\"update\":{\"_index\":\"i\",\"_type\":\"t\",\"_id\":\"4\",\"status\":409,\"error\":\"VersionConflictEngineException[[i][0] [t][4]: version conflict]\"}}," +
+        "{\"update\":{\"_index\":\"i\",\"_type\":\"t\",\"_id\":\"5\",\"_version\":2,\"status\":200," +
+        "\"get\":{\"found\":true,\"_source\":{\"field\":\"updated\"},\"fields\":{\"tag\":[\"a\",\"b\"]}}}}" +
+        "]}";
+
+    @Test public void testBodyReadsBackAsTheSameRequests() throws Exception {
+        final UpdateRequest upsert = new UpdateRequest("i", "t", "4").doc("field", "value").retryOnConflict(2);
+        upsert.docAsUpsert(true);
+        final BulkRequest request = new BulkRequest()
+            .add(new IndexRequest("i", "t", "1").source("{\n  \"pretty\" : \"printed\"\n}").routing("r").version(4))
+            .add(new IndexRequest("i", "t").source(XContentFactory.smileBuilder().startObject().field("smile", 1).endObject()).create(true))
+            .add(new DeleteRequest("i", "t", "3"))
+            .add(upsert)
+            .add(new UpdateRequest("i", "t", "5").script("ctx._source.count += n").addScriptParam("n", 1));
+
+        final BytesStreamOutput out = new BytesStreamOutput();
+        new BulkRequestBody(request).writeTo(out);
+
+        // ES's own bulk parser splits on newlines, so this only works if every line is whole
+        final BulkRequest parsed = new BulkRequest().add(out.bytes(), false, null, null);
+        assertEquals(parsed.numberOfActions(), 5);
+
+        final IndexRequest pretty = (IndexRequest) parsed.requests().get(0);
+        assertEquals(pretty.id(), "1");
+        assertEquals(pretty.routing(), "r");
+        assertEquals(pretty.version(), 4);
+        assertEquals(pretty.sourceAsMap().get("pretty"), "printed");
+
+        final IndexRequest smile = (IndexRequest) parsed.requests().get(1);
+        assertNull(smile.id());
+        assertEquals(smile.opType(), IndexRequest.OpType.CREATE);
+        assertEquals(smile.sourceAsMap().get("smile"), 1);
+
+        assertEquals(((DeleteRequest) parsed.requests().get(2)).id(), "3");
+
+        final UpdateRequest doc = (UpdateRequest) parsed.requests().get(3);
+        assertEquals(doc.doc().sourceAsMap().get("field"), "value");
+        assertTrue(doc.docAsUpsert());
+        assertEquals(doc.retryOnConflict(), 2);
+
+        final UpdateRequest script = (UpdateRequest) parsed.requests().get(4);
+        assertEquals(script.script(), "ctx._source.count += n");
+        assertEquals(script.scriptParams().get("n"), 1);
+    }
+
+    @Test public void testSingleLineJsonIsNotCopied() throws Exception {
+        final BytesArray source = new BytesArray("{\"already\":\"fine\"}");
+        assertTrue(BulkRequestBody.singleLineJson(source) == source);
+    }
+
+    @Test public void testStreamingAndMapPathsAgree() throws Exception {
+        final XContentParser parser = JsonXContent.jsonXContent.createParser(RESPONSE);
+        try {
+            check(new BulkResponseHelper().fromXContent(parser));
+        } finally {
+            parser.close();
+        }
+        final Map<String, Object> map = XContentHelper.convertToMap(new BytesArray(RESPONSE), false).v2();
+        check(new BulkResponseHelper().fromXContent(map));
+    }
+
+    private static void check(final BulkResponse response) {
+        assertEquals(response.getTookInMillis(), 7);
+        assertTrue(response.hasFailures());
+        final BulkItemResponse[] items = response.getItems();
+        assertEquals(items.length, 5);
+
+        assertEquals(items[0].getItemId(), 0);
+        assertEquals(items[0].getOpType(), "create");
+        assertTrue(items[0].<IndexResponse>getResponse().isCreated());
+
+        assertEquals(items[1].getVersion(), 3);
+        assertFalse(items[1].<IndexResponse>getResponse().isCreated());
+
+        assertFalse(items[2].isFailed());
+        assertFalse(items[2].<DeleteResponse>getResponse().isFound());
+
+        assertEquals(items[3].getItemId(), 3);
+        assertTrue(items[3].isFailed());
+        assertEquals(items[3].getId(), "4");
+        assertEquals(items[3].getFailure().getStatus(), RestStatus.CONFLICT);
+        assertTrue(items[3].getFailureMessage().startsWith("VersionConflictEngineException"));
+
+        final GetResult get = items[4].<UpdateResponse>getResponse().getGetResult();
+        assertTrue(get.isExists());
+        assertEquals(get.getId(), "5");
+        assertEquals(get.getVersion(), 2);
+        assertEquals(get.sourceAsMap().get("field"), "updated");
+        assertEquals(get.field("tag").getValues(), ImmutableList.of("a", "b"));
+    }
+}
@@ -0,0 +1,70 @@
+package org.elasticsearch.action.search;
+
+import com.bazaarvoice.elasticsearch.client.core.util.SlicingJsonXContentParser;
+import org.elasticsearch.common.bytes.BytesArray;
+import org.elasticsearch.common.xcontent.XContentParser;
+import org.elasticsearch.common.xcontent.json.JsonXContent;
+import org.elasticsearch.search.SearchHit;
+import org.elasticsearch.search.facet.terms.TermsFacet;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+public class SearchResponseHelperTest {
+    private static final String RESPONSE = "{" +
+        "\"took\":3,\"timed_out\":false," +
+        "\"_shards\":{\"total\":2,\"successful\":1,\"failed\":1,\"failures\":[{\"index\":\"idx\",\"shard\":1,\"status\":500,\"reason\":\"boom\"}]}," +
+        "\"hits\":{\"total\":2,\"max_score\":1.5,\"hits\":[" +
+        "{\"_index\":\"idx\",\"_type\":\"doc\",\"_id\":\"1\",\"_score\":1.5," +
+        "\"_source\":{\"name\":\"one\",\"tags\":[\"a\",\"b\"],\"nested\":{\"n\":1,\"f\":null}}," +
+        "\"fields\":{\"name\":[\"one\"]},\"highlight\":{\"name\":[\"<em>one</em>\"]},\"sort\":[1.5,\"one\"],\"matched_filters\":[\"f1\"]}," +
+        "{\"_index\":\"idx\",\"_type\":\"doc\",\"_id\":\"2\",\"_score\":null,\"_source\":null}" +
+        "]}," +
+        "\"facets\":{\"names\":{\"_type\":\"terms\",\"missing\":0,\"total\":2,\"other\":0,\"terms\":[{\"term\":\"one\",\"count\":1},{\"term\":\"two\",\"count\":1}]}}" +
+        "}";
+
+    private final SearchResponseHelper helper = new SearchResponseHelper(new SearchRequest().source("{\"query\":{\"match_all\":{}}}"));
+
+    @Test
+    public void testStreamingMatchesMap() throws IOException {
+        final SearchResponse fromMap = helper.fromXContent(JsonXContent.jsonXContent.createParser(RESPONSE).mapAndClose());
+
+        final XContentParser parser = SlicingJsonXContentParser.of(new BytesArray(RESPONSE));
+        final SearchResponse streamed;
+        try {
+            streamed = helper.fromXContent(parser);
+        } finally {
+            parser.close();
+        }
+
+        assertEquals(streamed.getTookInMillis(), fromMap.getTookInMillis());
+        assertEquals(streamed.getTotalShards(), fromMap.getTotalShards());
+        assertEquals(streamed.getShardFailures().length, 1);
+        assertEquals(streamed.getShardFailures()[0].reason(), fromMap.getShardFailures()[0].reason());
+        assertEquals(streamed.getHits().getTotalHits(), fromMap.getHits().getTotalHits());
+        assertEquals(streamed.getHits().getMaxScore(), fromMap.getHits().getMaxScore());
+        final TermsFacet names = streamed.getFacets().facet(TermsFacet.class, "names");
+        assertEquals(names.getTotalCount(), 2);
+        assertEquals(names.getEntries().get(0).getTerm().string(), "one");
+
+        final SearchHit first = streamed.getHits().getAt(0);
+        final SearchHit firstFromMap = fromMap.getHits().getAt(0);
+        assertEquals(first.getId(), firstFromMap.getId());
+        assertEquals(first.getScore(), firstFromMap.getScore());
+        assertEquals(first.getSource(), firstFromMap.getSource());
+        // unlike the Map path, streaming keeps the _source exactly as the server sent it
+        assertEquals(first.sourceAsString(), "{\"name\":\"one\",\"tags\":[\"a\",\"b\"],\"nested\":{\"n\":1,\"f\":null}}");
+        assertEquals(first.field("name").getValue(), "one");
+        assertEquals(first.getHighlightFields().get("name").fragments()[0].string(), "<em>one</em>");
+        assertEquals(first.getSortValues(), firstFromMap.getSortValues());
+        assertEquals(first.getMatchedQueries(), new String[]{"f1"});
+
+        final SearchHit second = streamed.getHits().getAt(1);
+        assertNull(second.getSource());
+        assertTrue(Float.isNaN(second.getScore()));
+    }
+}
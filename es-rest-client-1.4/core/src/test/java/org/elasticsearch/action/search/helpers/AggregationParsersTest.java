@@ -0,0 +1,54 @@
+package org.elasticsearch.action.search.helpers;
+
+import com.bazaarvoice.elasticsearch.client.core.util.aggs.AggregationsManifest;
+import org.elasticsearch.common.collect.ImmutableList;
+import org.elasticsearch.common.collect.ImmutableMap;
+import org.elasticsearch.search.aggregations.Aggregation;
+import org.elasticsearch.search.aggregations.InternalAggregation;
+import org.elasticsearch.search.aggregations.InternalAggregations;
+import org.elasticsearch.search.aggregations.bucket.terms.Terms;
+import org.testng.annotations.Test;
+
+import java.util.Map;
+
+import static org.elasticsearch.common.xcontent.support.XContentMapValues.nodeLongValue;
+import static org.testng.Assert.assertEquals;
+
+public class AggregationParsersTest {
+    private static final class Plugin extends AbstractInternalAggregation {
+        private final long answer;
+
+        private Plugin(final String name, final long answer) {
+            super(name);
+            this.answer = answer;
+        }
+    }
+
+    @Test
+    public void testRegisteredParserIsUsedForNestedAggregations() {
+        AggregationParsers.register("plugin_agg", new AggregationParser() {
+            @Override public InternalAggregation fromXContent(final String name, final Map<String, Object> map, final AggregationsManifest subAggregationsManifest) {
+                return new Plugin(name, nodeLongValue(map.get("answer")));
+            }
+        });
+
+        final AggregationsManifest manifest = AggregationsManifest.fromSource(ImmutableMap.<String, Object>of(
+            "products", ImmutableMap.of(
+                "terms", ImmutableMap.of("field", "product"),
+                "aggs", ImmutableMap.of("mine", ImmutableMap.of("plugin_agg", ImmutableMap.of())))));
+        final Map<String, Object> response = ImmutableMap.<String, Object>of(
+            "products", ImmutableMap.of(
+                "doc_count_error_upper_bound", 0,
+                "sum_other_doc_count", 0,
+                "buckets", ImmutableList.of(ImmutableMap.of("key", "a", "doc_count", 3, "mine", ImmutableMap.of("answer", 42)))));
+
+        final InternalAggregations aggregations = InternalAggregationsHelper.fromXContentUnwrapped(response, manifest);
+        final Aggregation mine = aggregations.<Terms>get("products").getBucketByKey("a").getAggregations().get("mine");
+        assertEquals(((Plugin) mine).answer, 42);
+    }
+
+    @Test(expectedExceptions = IllegalStateException.class)
+    public void testUnknownType() {
+        AggregationParsers.get("no_such_agg");
+    }
+}
@@ -0,0 +1,83 @@
+package org.elasticsearch.action.search.helpers;
+
+import com.bazaarvoice.elasticsearch.client.core.util.SlicingJsonXContentParser;
+import org.elasticsearch.common.bytes.BytesArray;
+import org.elasticsearch.common.xcontent.ToXContent;
+import org.elasticsearch.common.xcontent.XContentBuilder;
+import org.elasticsearch.common.xcontent.XContentParser;
+import org.elasticsearch.common.xcontent.json.JsonXContent;
+import org.elasticsearch.search.SearchHit;
+import org.elasticsearch.search.internal.InternalSearchHits;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+
+import static org.elasticsearch.common.xcontent.XContentFactory.jsonBuilder;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+public class LazySearchHitsTest {
+    private static final String HITS = "{\"total\":3,\"max_score\":2.0,\"hits\":[" +
+        "{\"_index\":\"i\",\"_type\":\"t\",\"_id\":\"1\",\"_score\":2.0,\"_source\":{\"a\":1},\"sort\":[5]}," +
+        "{\"_index\":\"i\",\"_type\":\"t\",\"_id\":\"2\",\"_score\":1.0,\"highlight\":{\"a\":[\"<em>2</em>\"]}}," +
+        "{\"_index\":\"i\",\"_type\":\"t\",\"_id\":\"3\",\"_score\":\"not a score\"}]}";
+
+    private static InternalSearchHits parse(final XContentParser parser) throws IOException {
+        try {
+            assertEquals(parser.nextToken(), XContentParser.Token.START_OBJECT);
+            return InternalSearchHitsHelper.fromXContent(parser);
+        } finally {
+            parser.close();
+        }
+    }
+
+    @Test
+    public void testHitsAreOnlyDecodedWhenAskedFor() throws IOException {
+        final InternalSearchHits hits = parse(SlicingJsonXContentParser.of(new BytesArray(HITS)));
+        assertTrue(hits instanceof LazySearchHits);
+        assertEquals(hits.getTotalHits(), 3);
+        assertEquals(hits.getMaxScore(), 2.0f);
+
+        // the broken third hit is never looked at, so it doesn't matter
+        final SearchHit first = hits.getAt(0);
+        assertEquals(first.getId(), "1");
+        assertEquals(first.getSourceAsString(), "{\"a\":1}");
+        assertEquals(first.getSortValues()[0], 5);
+        assertSame(hits.getAt(0), first);
+        assertEquals(hits.getAt(1).getHighlightFields().get("a").getFragments()[0].string(), "<em>2</em>");
+
+        try {
+            hits.getAt(2);
+            fail("the third hit can't be decoded");
+        } catch (NumberFormatException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testMatchesEagerHits() throws IOException {
+        final String hitsJson = HITS.replace("\"not a score\"", "0.5");
+        final InternalSearchHits lazy = parse(SlicingJsonXContentParser.of(new BytesArray(hitsJson)));
+        final InternalSearchHits eager = parse(JsonXContent.jsonXContent.createParser(hitsJson));
+        assertTrue(lazy instanceof LazySearchHits);
+        assertTrue(!(eager instanceof LazySearchHits));
+
+        int i = 0;
+        for (SearchHit hit : lazy) {
+            assertEquals(hit.getId(), eager.getAt(i).getId());
+            assertEquals(hit.getScore(), eager.getAt(i).getScore());
+            i++;
+        }
+        assertEquals(i, 3);
+        assertEquals(lazy.getHits().length, 3);
+        assertEquals(toJson(lazy), toJson(eager));
+    }
+
+    private static String toJson(final InternalSearchHits hits) throws IOException {
+        final XContentBuilder builder = jsonBuilder().startObject();
+        hits.toXContent(builder, ToXContent.EMPTY_PARAMS);
+        return builder.endObject().string();
+    }
+}
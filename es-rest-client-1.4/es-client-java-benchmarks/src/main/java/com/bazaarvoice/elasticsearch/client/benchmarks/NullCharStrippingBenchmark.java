@@ -0,0 +1,111 @@
+package com.bazaarvoice.elasticsearch.client.benchmarks;
+
+import com.bazaarvoice.elasticsearch.client.core.util.InputStreams;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.xcontent.XContentBuilder;
+import org.elasticsearch.common.xcontent.XContentFactory;
+import org.elasticsearch.common.xcontent.json.JsonXContent;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parses a search response the way {@link org.elasticsearch.action.XContentResponseTransform} used to
+ * (through a stream that strips nulls one byte at a time), through the bulk-reading stream, and the way it does now
+ * (read everything, scan once, parse the bytes).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class NullCharStrippingBenchmark {
+    @Param({"10", "1000"})
+    public int hits;
+
+    @Param({"false", "true"})
+    public boolean withNulls;
+
+    private byte[] response;
+
+    @Setup
+    public void setup() throws IOException {
+        final Random random = new Random(0);
+        final XContentBuilder builder = XContentFactory.jsonBuilder().startObject()
+            .field("took", 12)
+            .field("timed_out", false)
+            .startObject("_shards").field("total", 5).field("successful", 5).field("failed", 0).endObject()
+            .startObject("hits").field("total", hits).field("max_score", 1.0f).startArray("hits");
+        for (int i = 0; i < hits; i++) {
+            builder.startObject()
+                .field("_index", "reviews").field("_type", "review").field("_id", Integer.toString(i)).field("_score", random.nextFloat())
+                .startObject("_source")
+                .field("product", "product-" + random.nextInt(1000))
+                .field("rating", random.nextInt(5) + 1)
+                .field("title", "A title that is about as long as the ones people write")
+                .field("text", "Some review text. It goes on for a while, because reviews do, and it has the odd number in it: " + random.nextLong())
+                .array("tags", "one", "two", "three")
+                .field("submitted", System.currentTimeMillis() - random.nextInt())
+                .endObject()
+                .endObject();
+        }
+        response = builder.endArray().endObject().endObject().bytes().toBytes();
+
+        if (withNulls) {
+            // what we see from the server is a few stray nulls, not a lot of them
+            for (int i = 0; i < 10; i++) {
+                final int at = random.nextInt(response.length);
+                if (response[at] == ' ') {
+                    response[at] = 0;
+                }
+            }
+        }
+    }
+
+    @Benchmark
+    public Map<String, Object> byteAtATime() throws IOException {
+        return JsonXContent.jsonXContent.createParser(byteAtATime(new ByteArrayInputStream(response))).mapAndClose();
+    }
+
+    @Benchmark
+    public Map<String, Object> bulkStream() throws IOException {
+        return JsonXContent.jsonXContent.createParser(InputStreams.stripNullChars(new ByteArrayInputStream(response))).mapAndClose();
+    }
+
+    @Benchmark
+    public Map<String, Object> readAndScan() throws IOException {
+        final BytesReference bytes = InputStreams.readStrippingNullChars(new ByteArrayInputStream(response));
+        return JsonXContent.jsonXContent.createParser(bytes).mapAndClose();
+    }
+
+    /** the old {@link InputStreams#stripNullChars(java.io.InputStream)}, for comparison */
+    private static InputStream byteAtATime(final InputStream inputStream) {
+        return new InputStream() {
+            @Override public int read() throws IOException {
+                int read;
+                while ((read = inputStream.read()) == 0) {}
+                return read;
+            }
+
+            @Override public void close() throws IOException {
+                inputStream.close();
+            }
+        };
+    }
+}
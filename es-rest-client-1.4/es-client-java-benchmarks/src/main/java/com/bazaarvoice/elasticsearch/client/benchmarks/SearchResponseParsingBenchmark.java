@@ -0,0 +1,107 @@
+package com.bazaarvoice.elasticsearch.client.benchmarks;
+
+import com.bazaarvoice.elasticsearch.client.core.util.SlicingJsonXContentParser;
+import com.bazaarvoice.elasticsearch.client.core.util.XContentParsers;
+import org.elasticsearch.action.search.SearchRequest;
+import org.elasticsearch.action.search.SearchResponse;
+import org.elasticsearch.action.search.SearchResponseHelper;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.xcontent.XContentBuilder;
+import org.elasticsearch.common.xcontent.XContentFactory;
+import org.elasticsearch.common.xcontent.XContentParser;
+import org.elasticsearch.search.builder.SearchSourceBuilder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static org.elasticsearch.search.aggregations.AggregationBuilders.stats;
+import static org.elasticsearch.search.aggregations.AggregationBuilders.terms;
+
+/**
+ * Turns a search response's bytes into a {@link SearchResponse} the way {@link org.elasticsearch.action.XContentResponseTransform}
+ * does for a successful response (streaming the hits off the parser) and the way it does for everything else (reading
+ * the whole response into a Map first).
+ * <p/>
+ * Only the hits are streamed, so the two should pull apart as the hits grow and stay together as the aggregations do.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SearchResponseParsingBenchmark {
+    @Param({"10", "1000"})
+    public int hits;
+
+    @Param({"0", "1000"})
+    public int buckets;
+
+    private SearchResponseHelper helper;
+    private BytesReference response;
+
+    @Setup
+    public void setup() throws IOException {
+        final SearchSourceBuilder source = new SearchSourceBuilder().size(hits).aggregation(
+            terms("products").field("product").size(buckets).subAggregation(stats("ratings").field("rating")));
+        helper = new SearchResponseHelper(new SearchRequest().source(source));
+
+        final Random random = new Random(0);
+        final XContentBuilder builder = XContentFactory.jsonBuilder().startObject()
+            .field("took", 12)
+            .field("timed_out", false)
+            .startObject("_shards").field("total", 5).field("successful", 5).field("failed", 0).endObject()
+            .startObject("hits").field("total", hits).field("max_score", 1.0f).startArray("hits");
+        for (int i = 0; i < hits; i++) {
+            builder.startObject()
+                .field("_index", "reviews").field("_type", "review").field("_id", Integer.toString(i)).field("_score", random.nextFloat())
+                .startObject("_source")
+                .field("product", "product-" + random.nextInt(1000))
+                .field("rating", random.nextInt(5) + 1)
+                .field("title", "A title that is about as long as the ones people write")
+                .field("text", "Some review text. It goes on for a while, because reviews do, and it has the odd number in it: " + random.nextLong())
+                .array("tags", "one", "two", "three")
+                .field("submitted", System.currentTimeMillis() - random.nextInt())
+                .endObject()
+                .endObject();
+        }
+        builder.endArray().endObject()
+            .startObject("aggregations").startObject("products")
+            .field("doc_count_error_upper_bound", 0).field("sum_other_doc_count", 0).startArray("buckets");
+        for (int bucket = 0; bucket < buckets; bucket++) {
+            builder.startObject().field("key", "product-" + bucket).field("doc_count", 10)
+                .startObject("ratings")
+                .field("count", 10).field("min", 1.0).field("max", 5.0).field("avg", 1 + random.nextDouble() * 4).field("sum", random.nextInt(40) + 10.0)
+                .endObject()
+                .endObject();
+        }
+        response = builder.endArray().endObject().endObject().endObject().bytes();
+    }
+
+    @Benchmark
+    public SearchResponse streaming() throws IOException {
+        final XContentParser parser = SlicingJsonXContentParser.of(response);
+        try {
+            return helper.fromXContent(parser);
+        } finally {
+            parser.close();
+        }
+    }
+
+    @Benchmark
+    public SearchResponse throughMap() throws IOException {
+        return helper.fromXContent(XContentParsers.readMapAndClose(SlicingJsonXContentParser.of(response)));
+    }
+}
@@ -0,0 +1,98 @@
+package com.bazaarvoice.elasticsearch.client.benchmarks;
+
+import com.bazaarvoice.elasticsearch.client.core.util.XContentParsers;
+import org.elasticsearch.action.search.SearchRequest;
+import org.elasticsearch.action.search.SearchResponse;
+import org.elasticsearch.action.search.SearchResponseHelper;
+import org.elasticsearch.common.xcontent.XContentBuilder;
+import org.elasticsearch.common.xcontent.XContentFactory;
+import org.elasticsearch.common.xcontent.json.JsonXContent;
+import org.elasticsearch.search.aggregations.bucket.histogram.DateHistogram;
+import org.elasticsearch.search.builder.SearchSourceBuilder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static org.elasticsearch.search.aggregations.AggregationBuilders.dateHistogram;
+import static org.elasticsearch.search.aggregations.AggregationBuilders.stats;
+import static org.elasticsearch.search.aggregations.AggregationBuilders.terms;
+
+/**
+ * Turns a terms -> date_histogram -> stats response into a {@link SearchResponse}, from a map the client's parser built
+ * (which the helpers trust) and from the same map as {@link org.elasticsearch.common.xcontent.XContentParser#map()} builds it
+ * (which the helpers check at every level, as they all used to).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TrustedMapBenchmark {
+    @Param({"10", "100"})
+    public int terms;
+
+    private static final int MONTHS = 24;
+
+    private SearchResponseHelper helper;
+    private Map<String, Object> validated;
+    private Map<String, Object> trusted;
+
+    @Setup
+    public void setup() throws IOException {
+        final SearchSourceBuilder source = new SearchSourceBuilder().size(0).aggregation(
+            terms("products").field("product").size(terms).subAggregation(
+                dateHistogram("months").field("submitted").interval(DateHistogram.Interval.MONTH).subAggregation(
+                    stats("ratings").field("rating"))));
+        helper = new SearchResponseHelper(new SearchRequest().source(source));
+
+        final Random random = new Random(0);
+        final XContentBuilder builder = XContentFactory.jsonBuilder().startObject()
+            .field("took", 12)
+            .field("timed_out", false)
+            .startObject("_shards").field("total", 5).field("successful", 5).field("failed", 0).endObject()
+            .startObject("hits").field("total", terms * MONTHS * 10).field("max_score", 0.0f).startArray("hits").endArray().endObject()
+            .startObject("aggregations").startObject("products")
+            .field("doc_count_error_upper_bound", 0).field("sum_other_doc_count", 0).startArray("buckets");
+        for (int term = 0; term < terms; term++) {
+            builder.startObject().field("key", "product-" + term).field("doc_count", MONTHS * 10)
+                .startObject("months").startArray("buckets");
+            for (int month = 0; month < MONTHS; month++) {
+                final long key = 1388534400000L + month * 2629746000L;
+                builder.startObject().field("key_as_string", Long.toString(key)).field("key", key).field("doc_count", 10)
+                    .startObject("ratings")
+                    .field("count", 10).field("min", 1.0).field("max", 5.0).field("avg", 1 + random.nextDouble() * 4).field("sum", random.nextInt(40) + 10.0)
+                    .endObject()
+                    .endObject();
+            }
+            builder.endArray().endObject().endObject();
+        }
+        final String response = builder.endArray().endObject().endObject().endObject().string();
+
+        validated = JsonXContent.jsonXContent.createParser(response).mapAndClose();
+        trusted = XContentParsers.readMapAndClose(JsonXContent.jsonXContent.createParser(response));
+    }
+
+    @Benchmark
+    public SearchResponse validating() {
+        return helper.fromXContent(validated);
+    }
+
+    @Benchmark
+    public SearchResponse trusting() {
+        return helper.fromXContent(trusted);
+    }
+}
@@ -0,0 +1,48 @@
+package com.bazaarvoice.elasticsearch.client;
+
+import com.bazaarvoice.elasticsearch.client.core.spi.BytesRestResponse;
+import com.bazaarvoice.elasticsearch.client.core.spi.RestResponse;
+import org.elasticsearch.common.bytes.BytesArray;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.collect.ImmutableSet;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.net.http.HttpResponse;
+import java.util.Set;
+
+/**
+ * Adapts a (fully buffered) {@link java.net.http.HttpResponse}
+ * to {@link RestResponse}.
+ * <p/>
+ * Since the body is already an array, {@link #bytes()} hands it over without copying it.
+ */
+class HttpClientResponse implements BytesRestResponse {
+    private final HttpResponse<byte[]> delegate;
+
+    HttpClientResponse(final HttpResponse<byte[]> delegate) {this.delegate = delegate;}
+
+    @Override public boolean isSuccess() {
+        return delegate.statusCode() >= 200 && delegate.statusCode() < 300;
+    }
+
+    @Override public int statusCode() {
+        return delegate.statusCode();
+    }
+
+    @Override public InputStream response() {
+        return new ByteArrayInputStream(delegate.body());
+    }
+
+    @Override public BytesReference bytes() {
+        return new BytesArray(delegate.body());
+    }
+
+    @Override public Set<String> contentTypeLowerCase() {
+        final ImmutableSet.Builder<String> builder = ImmutableSet.builder();
+        for (String contentType : delegate.headers().allValues("Content-Type")) {
+            builder.add(contentType.toLowerCase());
+        }
+        return builder.build();
+    }
+}
@@ -0,0 +1,29 @@
+package com.bazaarvoice.elasticsearch.client;
+
+import com.bazaarvoice.elasticsearch.client.core.RestClient;
+import com.bazaarvoice.elasticsearch.client.core.nodes.NodeSet;
+import com.bazaarvoice.elasticsearch.client.core.spi.RestExecutor;
+
+import java.net.http.HttpClient;
+
+/**
+ * Factory to provide {@link RestClient}s
+ * which use the jdk's {@link HttpClient} as the transport.
+ * <p/>
+ * As with the Jersey factory, you give us the client, so you control the configuration
+ * (connect timeout, executor for callbacks, http version, etc.).
+ */
+public class HttpClientRestClientFactory {
+    public static RestClient client(String protocol, String host, int port, HttpClient httpClient) {
+        return client(NodeSet.single(protocol, host, port), httpClient);
+    }
+
+    public static RestClient client(NodeSet nodes, HttpClient httpClient) {
+        return RestClient.withExecutor(nodes, executor(httpClient));
+    }
+
+    /** Just the executor, for use with {@link RestClient#builder(RestExecutor)}. */
+    public static RestExecutor executor(HttpClient httpClient) {
+        return new HttpClientRestExecutor(httpClient);
+    }
+}
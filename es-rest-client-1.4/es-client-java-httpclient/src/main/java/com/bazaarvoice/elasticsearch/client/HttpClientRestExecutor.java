@@ -0,0 +1,129 @@
+package com.bazaarvoice.elasticsearch.client;
+
+import com.bazaarvoice.elasticsearch.client.core.spi.RequestBody;
+import com.bazaarvoice.elasticsearch.client.core.spi.RestExecutor;
+import com.bazaarvoice.elasticsearch.client.core.spi.RestResponse;
+import org.elasticsearch.common.base.Throwables;
+import org.elasticsearch.common.util.concurrent.EsExecutors;
+import org.elasticsearch.common.util.concurrent.ListenableFuture;
+import org.elasticsearch.common.util.concurrent.SettableFuture;
+
+import java.io.InputStream;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.function.BiConsumer;
+import java.util.function.Supplier;
+
+import static org.elasticsearch.common.util.concurrent.MoreExecutors.sameThreadExecutor;
+
+/**
+ * An executor which delegates to the jdk's {@link java.net.http.HttpClient}.
+ * <p/>
+ * Unlike the Jersey executor, this one doesn't need a thread per request. Requests are sent with
+ * {@link HttpClient#sendAsync}, so the number of requests in flight is bounded by the client's connections,
+ * not by the size of a thread pool.
+ */
+class HttpClientRestExecutor implements RestExecutor {
+    private final HttpClient client;
+    /** writes bodies bigger than a chunk, each on a thread of its own while it's being sent */
+    private final Executor bodyWriters = Executors.newCachedThreadPool(EsExecutors.daemonThreadFactory("http_client_body_writer"));
+
+    HttpClientRestExecutor(final HttpClient client) {
+        this.client = client;
+    }
+
+    @Override public ListenableFuture<RestResponse> get(final URL url) {
+        return send(toRequest(url).GET().build());
+    }
+
+    @Override public ListenableFuture<RestResponse> delete(final URL url) {
+        return send(toRequest(url).DELETE().build());
+    }
+
+    @Override public ListenableFuture<RestResponse> put(final URL url, final InputStream body) {
+        return send(toRequest(url).PUT(publisherOf(body)).build());
+    }
+
+    @Override public ListenableFuture<RestResponse> post(final URL url, final InputStream body) {
+        return send(toRequest(url).POST(publisherOf(body)).build());
+    }
+
+    @Override public ListenableFuture<RestResponse> put(final URL url, final RequestBody body) {
+        return send(toRequest(url, body).PUT(publisherOf(body)).build());
+    }
+
+    @Override public ListenableFuture<RestResponse> post(final URL url, final RequestBody body) {
+        return send(toRequest(url, body).POST(publisherOf(body)).build());
+    }
+
+    /**
+     * Adapts the {@link CompletableFuture} from the client to the {@link ListenableFuture} the core client expects.
+     * <p/>
+     * We buffer the body before completing the future so that nobody ends up blocking on a socket read
+     * from inside a callback running on the client's threads.
+     */
+    private ListenableFuture<RestResponse> send(final HttpRequest request) {
+        final SettableFuture<RestResponse> result = SettableFuture.create();
+        final CompletableFuture<HttpResponse<byte[]>> response = client.sendAsync(request, HttpResponse.BodyHandlers.ofByteArray());
+        response.whenComplete(new BiConsumer<HttpResponse<byte[]>, Throwable>() {
+            @Override public void accept(final HttpResponse<byte[]> httpResponse, final Throwable throwable) {
+                if (throwable != null) {
+                    result.setException(throwable);
+                } else {
+                    result.set(new HttpClientResponse(httpResponse));
+                }
+            }
+        });
+        // propagate cancellation back to the client
+        result.addListener(new Runnable() {
+            @Override public void run() {
+                if (result.isCancelled()) {
+                    response.cancel(true);
+                }
+            }
+        }, sameThreadExecutor());
+        return result;
+    }
+
+    private static HttpRequest.BodyPublisher publisherOf(final InputStream body) {
+        return HttpRequest.BodyPublishers.ofInputStream(new Supplier<InputStream>() {
+            @Override public InputStream get() {
+                return body;
+            }
+        });
+    }
+
+    /**
+     * Streams the body as the client asks for it; see {@link RequestBodyPublisher}. A body of unknown length goes out
+     * with chunked transfer encoding.
+     */
+    private HttpRequest.BodyPublisher publisherOf(final RequestBody body) {
+        final long contentLength = body.contentLength();
+        if (contentLength == 0) {
+            return HttpRequest.BodyPublishers.noBody();
+        }
+        final RequestBodyPublisher publisher = new RequestBodyPublisher(body, bodyWriters);
+        return contentLength < 0
+            ? HttpRequest.BodyPublishers.fromPublisher(publisher)
+            : HttpRequest.BodyPublishers.fromPublisher(publisher, contentLength);
+    }
+
+    private static HttpRequest.Builder toRequest(final URL url, final RequestBody body) {
+        final HttpRequest.Builder builder = toRequest(url);
+        return body.contentType() == null ? builder : builder.header("Content-Type", body.contentType());
+    }
+
+    private static HttpRequest.Builder toRequest(final URL url) {
+        try {
+            return HttpRequest.newBuilder(url.toURI());
+        } catch (URISyntaxException e) {
+            throw Throwables.propagate(e);
+        }
+    }
+}
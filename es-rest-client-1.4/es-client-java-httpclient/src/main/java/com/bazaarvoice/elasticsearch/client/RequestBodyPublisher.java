@@ -0,0 +1,163 @@
+package com.bazaarvoice.elasticsearch.client;
+
+import com.bazaarvoice.elasticsearch.client.core.spi.RequestBody;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+
+/**
+ * Publishes a {@link RequestBody} to {@link java.net.http.HttpClient} as it's written, a chunk at a time.
+ * <p/>
+ * HttpClient pulls the body rather than handing us a stream, and {@link RequestBody#writeTo} pushes it, so the body is
+ * written on a thread of its own that waits whenever the client hasn't asked for more. Only the chunks the client has
+ * asked for are ever in memory, and nothing is written until the request is actually being sent.
+ * <p/>
+ * Bodies known to fit in a single chunk aren't worth a thread, so they're written on the client's thread when it first
+ * asks for them.
+ * <p/>
+ * Each subscription writes the body again, which the client does if it has to resend the request.
+ */
+class RequestBodyPublisher implements Flow.Publisher<ByteBuffer> {
+    static final int CHUNK_SIZE = 16 * 1024;
+
+    private final RequestBody body;
+    private final Executor writers;
+
+    RequestBodyPublisher(final RequestBody body, final Executor writers) {
+        this.body = body;
+        this.writers = writers;
+    }
+
+    @Override public void subscribe(final Flow.Subscriber<? super ByteBuffer> subscriber) {
+        subscriber.onSubscribe(new WritingSubscription(subscriber));
+    }
+
+    /**
+     * The body is written into this stream, which hands each full chunk to the subscriber once it has demand for it.
+     */
+    private class WritingSubscription extends OutputStream implements Flow.Subscription {
+        private final Flow.Subscriber<? super ByteBuffer> subscriber;
+
+        // guarded by this
+        private long demand = 0;
+        private boolean started = false;
+        private boolean cancelled = false;
+        private IllegalArgumentException badRequest;
+
+        // only touched by the writing thread
+        private byte[] chunk = new byte[CHUNK_SIZE];
+        private int position = 0;
+
+        private WritingSubscription(final Flow.Subscriber<? super ByteBuffer> subscriber) {
+            this.subscriber = subscriber;
+        }
+
+        @Override public void request(final long n) {
+            final boolean start;
+            synchronized (this) {
+                if (n <= 0) {
+                    badRequest = new IllegalArgumentException("must request a positive number of chunks, not " + n);
+                } else {
+                    demand = demand + n < 0 ? Long.MAX_VALUE : demand + n;
+                }
+                start = !started;
+                started = true;
+                notifyAll();
+            }
+            if (!start) {
+                return;
+            }
+            final long contentLength = body.contentLength();
+            if (contentLength >= 0 && contentLength <= CHUNK_SIZE) {
+                write();
+                return;
+            }
+            try {
+                writers.execute(new Runnable() {
+                    @Override public void run() {
+                        write();
+                    }
+                });
+            } catch (RuntimeException e) {
+                subscriber.onError(e);
+            }
+        }
+
+        @Override public synchronized void cancel() {
+            cancelled = true;
+            notifyAll();
+        }
+
+        private void write() {
+            try {
+                body.writeTo(this);
+                if (position > 0) {
+                    emit();
+                }
+            } catch (Throwable t) {
+                final IllegalArgumentException bad;
+                synchronized (this) {
+                    if (cancelled) {
+                        return;
+                    }
+                    bad = badRequest;
+                }
+                subscriber.onError(bad != null ? bad : t);
+                return;
+            }
+            synchronized (this) {
+                if (cancelled) {
+                    return;
+                }
+            }
+            subscriber.onComplete();
+        }
+
+        @Override public void write(final int b) throws IOException {
+            if (position == chunk.length) {
+                emit();
+            }
+            chunk[position++] = (byte) b;
+        }
+
+        @Override public void write(final byte[] b, int off, int len) throws IOException {
+            while (len > 0) {
+                if (position == chunk.length) {
+                    emit();
+                }
+                final int toCopy = Math.min(len, chunk.length - position);
+                System.arraycopy(b, off, chunk, position, toCopy);
+                position += toCopy;
+                off += toCopy;
+                len -= toCopy;
+            }
+        }
+
+        /**
+         * Wait for demand, then hand over the current chunk. The subscriber may hang on to it, so we start a new one.
+         */
+        private void emit() throws IOException {
+            synchronized (this) {
+                while (demand == 0 && !cancelled && badRequest == null) {
+                    try {
+                        wait();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new InterruptedIOException("interrupted while waiting to send the request body");
+                    }
+                }
+                if (cancelled || badRequest != null) {
+                    throw new IOException("the request body is no longer wanted");
+                }
+                demand--;
+            }
+            subscriber.onNext(ByteBuffer.wrap(chunk, 0, position));
+            chunk = new byte[CHUNK_SIZE];
+            position = 0;
+        }
+    }
+}
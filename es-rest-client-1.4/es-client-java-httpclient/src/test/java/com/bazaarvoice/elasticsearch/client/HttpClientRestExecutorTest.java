@@ -0,0 +1,305 @@
+package com.bazaarvoice.elasticsearch.client;
+
+import com.bazaarvoice.elasticsearch.client.core.spi.RequestBody;
+import com.bazaarvoice.elasticsearch.client.core.spi.RestExecutor;
+import com.bazaarvoice.elasticsearch.client.core.spi.RestResponse;
+import com.bazaarvoice.elasticsearch.client.core.util.InputStreams;
+import com.bazaarvoice.elasticsearch.client.core.util.RequestBodies;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import org.elasticsearch.common.bytes.BytesArray;
+import org.elasticsearch.common.io.Streams;
+import org.elasticsearch.common.util.concurrent.ListenableFuture;
+import org.elasticsearch.common.xcontent.XContentFactory;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLParameters;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.Authenticator;
+import java.net.CookieHandler;
+import java.net.InetSocketAddress;
+import java.net.ProxySelector;
+import java.net.URL;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+public class HttpClientRestExecutorTest {
+    private HttpServer server;
+    private ExecutorService serverThreads;
+    private final BlockingQueue<Recorded> requests = new LinkedBlockingQueue<Recorded>();
+    private final CountDownLatch releaseSlow = new CountDownLatch(1);
+
+    private CapturingHttpClient httpClient;
+    private RestExecutor executor;
+
+    @BeforeClass public void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/", new HttpHandler() {
+            @Override public void handle(final HttpExchange exchange) throws IOException {
+                requests.add(new Recorded(exchange));
+                if (exchange.getRequestURI().getPath().equals("/slow")) {
+                    try {
+                        releaseSlow.await(10, TimeUnit.SECONDS);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+                final byte[] body = "{\"ok\":true}".getBytes(StandardCharsets.UTF_8);
+                exchange.getResponseHeaders().set("Content-Type", "application/json; charset=UTF-8");
+                exchange.sendResponseHeaders(exchange.getRequestURI().getPath().equals("/missing") ? 404 : 200, body.length);
+                exchange.getResponseBody().write(body);
+                exchange.close();
+            }
+        });
+        serverThreads = Executors.newCachedThreadPool();
+        server.setExecutor(serverThreads);
+        server.start();
+    }
+
+    @AfterClass public void stopServer() {
+        releaseSlow.countDown();
+        server.stop(0);
+        serverThreads.shutdownNow();
+    }
+
+    @BeforeMethod public void setup() {
+        requests.clear();
+        httpClient = new CapturingHttpClient(HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build());
+        executor = HttpClientRestClientFactory.executor(httpClient);
+    }
+
+    @Test public void testGetAndDelete() throws Exception {
+        final RestResponse get = executor.get(url("/idx/type/1?format=json")).get();
+        assertEquals(get.statusCode(), 200);
+        assertTrue(get.isSuccess());
+        assertTrue(get.contentTypeLowerCase().contains("application/json; charset=utf-8"), get.contentTypeLowerCase().toString());
+        assertEquals(InputStreams.toString(get.response()), "{\"ok\":true}");
+        final Recorded getRequest = requests.take();
+        assertEquals(getRequest.method, "GET");
+        assertEquals(getRequest.uri, "/idx/type/1?format=json");
+
+        final RestResponse delete = executor.delete(url("/missing")).get();
+        assertEquals(delete.statusCode(), 404);
+        assertFalse(delete.isSuccess());
+        assertEquals(requests.take().method, "DELETE");
+    }
+
+    @Test public void testBodiesAndTheirContentTypes() throws Exception {
+        final byte[] json = "{\"field\":\"value\"}".getBytes(StandardCharsets.UTF_8);
+        executor.put(url("/idx/type/1"), RequestBodies.of(new BytesArray(json))).get();
+        final Recorded put = requests.take();
+        assertEquals(put.method, "PUT");
+        assertTrue(put.contentType.startsWith("application/json"), put.contentType);
+        assertEquals(put.contentLength, Integer.toString(json.length));
+        assertEquals(put.body, json);
+
+        final byte[] smile = XContentFactory.smileBuilder().startObject().field("field", "value").endObject().bytes().toBytes();
+        executor.post(url("/idx/type"), RequestBodies.of(new BytesArray(smile))).get();
+        final Recorded post = requests.take();
+        assertEquals(post.method, "POST");
+        assertEquals(post.contentType, "application/smile");
+        assertEquals(post.body, smile);
+
+        // the plain stream versions send no content type of their own
+        executor.post(url("/idx/type"), new ByteArrayInputStream(json)).get();
+        final Recorded streamed = requests.take();
+        assertNull(streamed.contentType);
+        assertEquals(streamed.body, json);
+        executor.put(url("/idx/type/2"), new ByteArrayInputStream(json)).get();
+        assertEquals(requests.take().method, "PUT");
+    }
+
+    @Test public void testLargeBodiesAreWrittenAsTheyAreSent() throws Exception {
+        final byte[] bytes = new byte[RequestBodyPublisher.CHUNK_SIZE * 10 + 123];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = (byte) i;
+        }
+
+        final WritingBody unknownLength = new WritingBody(bytes, -1);
+        executor.post(url("/_bulk"), unknownLength).get();
+        final Recorded chunked = requests.take();
+        assertEquals(chunked.transferEncoding, "chunked");
+        assertNull(chunked.contentLength);
+        assertEquals(chunked.body, bytes);
+        assertEquals(unknownLength.writers.size(), 1);
+        assertTrue(unknownLength.writers.get(0).contains("http_client_body_writer"), unknownLength.writers.toString());
+
+        final WritingBody knownLength = new WritingBody(bytes, bytes.length);
+        executor.post(url("/_bulk"), knownLength).get();
+        final Recorded fixed = requests.take();
+        assertEquals(fixed.contentLength, Integer.toString(bytes.length));
+        assertEquals(fixed.body, bytes);
+    }
+
+    @Test public void testCancellingTheResultCancelsTheSend() throws Exception {
+        final ListenableFuture<RestResponse> response = executor.get(url("/slow"));
+        requests.take();
+        assertTrue(response.cancel(true));
+
+        // depending on the jdk, the client's future either ends up cancelled or fails with the cancellation; either
+        // way it has to end well before the server would have answered
+        final CompletableFuture<?> sent = httpClient.sent.get(0);
+        try {
+            sent.get(5, TimeUnit.SECONDS);
+            fail("The send finished normally after it was cancelled");
+        } catch (CancellationException e) {
+            // expected
+        } catch (ExecutionException e) {
+            // expected
+        }
+        assertTrue(sent.isCompletedExceptionally());
+        assertTrue(response.isCancelled());
+        try {
+            response.get();
+            fail("The cancelled response got a value");
+        } catch (CancellationException e) {
+            // expected
+        }
+    }
+
+    private URL url(final String path) throws IOException {
+        return new URL("http", "localhost", server.getAddress().getPort(), path);
+    }
+
+    private static class Recorded {
+        private final String method;
+        private final String uri;
+        private final String contentType;
+        private final String contentLength;
+        private final String transferEncoding;
+        private final byte[] body;
+
+        private Recorded(final HttpExchange exchange) throws IOException {
+            method = exchange.getRequestMethod();
+            uri = exchange.getRequestURI().toString();
+            contentType = exchange.getRequestHeaders().getFirst("Content-Type");
+            contentLength = exchange.getRequestHeaders().getFirst("Content-Length");
+            transferEncoding = exchange.getRequestHeaders().getFirst("Transfer-Encoding");
+            body = Streams.copyToByteArray(exchange.getRequestBody());
+        }
+    }
+
+    /**
+     * Writes its bytes a kilobyte at a time, and remembers which threads wrote it.
+     */
+    private static class WritingBody implements RequestBody {
+        private final byte[] bytes;
+        private final long contentLength;
+        private final List<String> writers = new CopyOnWriteArrayList<String>();
+
+        private WritingBody(final byte[] bytes, final long contentLength) {
+            this.bytes = bytes;
+            this.contentLength = contentLength;
+        }
+
+        @Override public long contentLength() {
+            return contentLength;
+        }
+
+        @Override public String contentType() {
+            return "application/x-ndjson";
+        }
+
+        @Override public void writeTo(final OutputStream out) throws IOException {
+            writers.add(Thread.currentThread().getName());
+            for (int i = 0; i < bytes.length; i += 1024) {
+                out.write(Arrays.copyOfRange(bytes, i, Math.min(bytes.length, i + 1024)));
+            }
+        }
+    }
+
+    /**
+     * Hands everything to a real client, keeping the futures from sendAsync so we can see what happens to them.
+     */
+    private static class CapturingHttpClient extends HttpClient {
+        private final HttpClient delegate;
+        private final List<CompletableFuture<?>> sent = new CopyOnWriteArrayList<CompletableFuture<?>>();
+
+        private CapturingHttpClient(final HttpClient delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override public <T> CompletableFuture<HttpResponse<T>> sendAsync(final HttpRequest request, final HttpResponse.BodyHandler<T> handler) {
+            final CompletableFuture<HttpResponse<T>> future = delegate.sendAsync(request, handler);
+            sent.add(future);
+            return future;
+        }
+
+        @Override public <T> CompletableFuture<HttpResponse<T>> sendAsync(final HttpRequest request, final HttpResponse.BodyHandler<T> handler,
+                                                                          final HttpResponse.PushPromiseHandler<T> pushPromiseHandler) {
+            final CompletableFuture<HttpResponse<T>> future = delegate.sendAsync(request, handler, pushPromiseHandler);
+            sent.add(future);
+            return future;
+        }
+
+        @Override public <T> HttpResponse<T> send(final HttpRequest request, final HttpResponse.BodyHandler<T> handler) throws IOException, InterruptedException {
+            return delegate.send(request, handler);
+        }
+
+        @Override public Optional<CookieHandler> cookieHandler() {
+            return delegate.cookieHandler();
+        }
+
+        @Override public Optional<Duration> connectTimeout() {
+            return delegate.connectTimeout();
+        }
+
+        @Override public Redirect followRedirects() {
+            return delegate.followRedirects();
+        }
+
+        @Override public Optional<ProxySelector> proxy() {
+            return delegate.proxy();
+        }
+
+        @Override public SSLContext sslContext() {
+            return delegate.sslContext();
+        }
+
+        @Override public SSLParameters sslParameters() {
+            return delegate.sslParameters();
+        }
+
+        @Override public Optional<Authenticator> authenticator() {
+            return delegate.authenticator();
+        }
+
+        @Override public Version version() {
+            return delegate.version();
+        }
+
+        @Override public Optional<Executor> executor() {
+            return delegate.executor();
+        }
+    }
+}
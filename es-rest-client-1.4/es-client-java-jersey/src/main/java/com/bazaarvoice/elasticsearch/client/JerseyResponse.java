@@ -1,11 +1,16 @@
 package com.bazaarvoice.elasticsearch.client;
 
+import com.bazaarvoice.elasticsearch.client.core.spi.BytesRestResponse;
 import com.bazaarvoice.elasticsearch.client.core.spi.RestResponse;
+import com.bazaarvoice.elasticsearch.client.core.util.InputStreams;
 import com.sun.jersey.api.client.ClientResponse;
 import org.elasticsearch.common.base.Function;
+import org.elasticsearch.common.base.Throwables;
+import org.elasticsearch.common.bytes.BytesReference;
 import org.elasticsearch.common.collect.ImmutableSet;
 
 import javax.ws.rs.core.Response;
+import java.io.IOException;
 import java.io.InputStream;
 import java.util.Set;
 
@@ -14,8 +19,10 @@ import static org.elasticsearch.common.collect.Iterables.transform;
 /**
  * Adapts a Jersey {@link com.sun.jersey.api.client.ClientResponse}
  * to {@link RestResponse}.
+ * <p/>
+ * {@link #bytes()} reads the entity into a buffer sized from the Content-Length, when the response has one.
  */
-class JerseyResponse implements RestResponse {
+class JerseyResponse implements BytesRestResponse {
     private final ClientResponse delegate;
     private static final Function<String, String> toLowerCaseFn = new Function<String, String>() {
         @Override public String apply(final String s) {
@@ -37,6 +44,14 @@ class JerseyResponse implements RestResponse {
         return delegate.getEntityInputStream();
     }
 
+    @Override public BytesReference bytes() {
+        try {
+            return InputStreams.read(delegate.getEntityInputStream(), delegate.getLength());
+        } catch (IOException e) {
+            throw Throwables.propagate(e);
+        }
+    }
+
     @Override public Set<String> contentTypeLowerCase() {
         return ImmutableSet.copyOf(transform(delegate.getHeaders().get("Content-Type"), toLowerCaseFn));
     }
@@ -1,6 +1,8 @@
 package com.bazaarvoice.elasticsearch.client;
 
 import com.bazaarvoice.elasticsearch.client.core.RestClient;
+import com.bazaarvoice.elasticsearch.client.core.nodes.NodeSet;
+import com.bazaarvoice.elasticsearch.client.core.spi.RestExecutor;
 import com.sun.jersey.api.client.Client;
 import org.elasticsearch.common.util.concurrent.MoreExecutors;
 
@@ -12,13 +14,19 @@ import java.util.concurrent.ExecutorService;
  * <p/>
  * Note that you give us the client, so you control the configuration.
  * <p/>
- * TODO Once {@link RestClient} changes
- * to be a traditional ES "thick" client, we should let our callers decide if they want
- * one client per endpoint or one for all. Perhaps add another method that takes a
- * {@code Provider<Client>} of some kind.
+ * Pass a {@link NodeSet} to spread requests over several nodes with one client.
  */
 public class JerseyRestClientFactory {
     public static RestClient client(String protocol, String host, int port, Client jerseyClient, ExecutorService executor) {
-        return RestClient.withExecutor(protocol, host, port, new JerseyRestExecutor(jerseyClient, MoreExecutors.listeningDecorator(executor)));
+        return client(NodeSet.single(protocol, host, port), jerseyClient, executor);
+    }
+
+    public static RestClient client(NodeSet nodes, Client jerseyClient, ExecutorService executor) {
+        return RestClient.withExecutor(nodes, executor(jerseyClient, executor));
+    }
+
+    /** Just the executor, for use with {@link RestClient#builder(RestExecutor)}. */
+    public static RestExecutor executor(Client jerseyClient, ExecutorService executor) {
+        return new JerseyRestExecutor(jerseyClient, MoreExecutors.listeningDecorator(executor));
     }
 }
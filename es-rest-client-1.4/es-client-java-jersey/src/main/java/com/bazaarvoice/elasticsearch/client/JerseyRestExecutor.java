@@ -1,16 +1,21 @@
 package com.bazaarvoice.elasticsearch.client;
 
+import com.bazaarvoice.elasticsearch.client.core.spi.RequestBody;
 import com.bazaarvoice.elasticsearch.client.core.spi.RestExecutor;
 import com.bazaarvoice.elasticsearch.client.core.spi.RestResponse;
 import com.sun.jersey.api.client.Client;
 import com.sun.jersey.api.client.ClientResponse;
 import com.sun.jersey.api.client.WebResource;
+import com.sun.jersey.api.client.config.ClientConfig;
 import org.elasticsearch.common.base.Function;
 import org.elasticsearch.common.base.Throwables;
 import org.elasticsearch.common.util.concurrent.ListenableFuture;
 import org.elasticsearch.common.util.concurrent.ListeningExecutorService;
 
+import javax.ws.rs.core.StreamingOutput;
+import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.net.URISyntaxException;
 import java.net.URL;
 import java.util.concurrent.Callable;
@@ -22,6 +27,8 @@ import java.util.concurrent.Callable;
  * TODO but I couldn't figure out how to make it happen.
  */
 class JerseyRestExecutor implements RestExecutor {
+    private static final int CHUNK_SIZE = 16 * 1024;
+
     private final Client client;
     private final ListeningExecutorService executorService;
 
@@ -69,6 +76,44 @@ class JerseyRestExecutor implements RestExecutor {
         });
     }
 
+    @Override public ListenableFuture<RestResponse> put(final URL url, final RequestBody body) {
+        return executorService.submit(new Callable<RestResponse>() {
+            @Override public RestResponse call() throws Exception {
+                return toHttpResponse.apply(toWebResource(url, body).put(ClientResponse.class, toStreamingOutput(body)));
+            }
+        });
+    }
+
+    @Override public ListenableFuture<RestResponse> post(final URL url, final RequestBody body) {
+        return executorService.submit(new Callable<RestResponse>() {
+            @Override public RestResponse call() throws Exception {
+                return toHttpResponse.apply(toWebResource(url, body).post(ClientResponse.class, toStreamingOutput(body)));
+            }
+        });
+    }
+
+    /**
+     * Left to itself, HttpURLConnection buffers the whole body to find its length. It only streams in fixed-length mode
+     * when Jersey knows the size, which it only does for entity types with a provider registered on the client, and the
+     * client is yours. So unless you've configured a chunk size of your own, bodies go out chunked.
+     */
+    private static StreamingOutput toStreamingOutput(final RequestBody body) {
+        return new StreamingOutput() {
+            @Override public void write(final OutputStream output) throws IOException {
+                body.writeTo(output);
+            }
+        };
+    }
+
+    private WebResource.Builder toWebResource(final URL url, final RequestBody body) {
+        final WebResource resource = toWebResource(url);
+        if (!client.getProperties().containsKey(ClientConfig.PROPERTY_CHUNKED_ENCODING_SIZE)) {
+            resource.setProperty(ClientConfig.PROPERTY_CHUNKED_ENCODING_SIZE, CHUNK_SIZE);
+        }
+        final WebResource.Builder builder = resource.getRequestBuilder();
+        return body.contentType() == null ? builder : builder.type(body.contentType());
+    }
+
     private WebResource toWebResource(final URL url) {
         try {
             return client.resource(url.toURI());
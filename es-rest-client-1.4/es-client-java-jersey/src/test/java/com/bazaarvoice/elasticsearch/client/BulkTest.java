@@ -0,0 +1,122 @@
+package com.bazaarvoice.elasticsearch.client;
+
+import com.bazaarvoice.elasticsearch.client.core.RestClient;
+import com.bazaarvoice.elasticsearch.client.core.bulk.RestBulkProcessor;
+import org.elasticsearch.action.bulk.BulkItemResponse;
+import org.elasticsearch.action.bulk.BulkProcessor;
+import org.elasticsearch.action.bulk.BulkRequest;
+import org.elasticsearch.action.bulk.BulkResponse;
+import org.elasticsearch.action.delete.DeleteRequest;
+import org.elasticsearch.action.delete.DeleteResponse;
+import org.elasticsearch.action.index.IndexRequest;
+import org.elasticsearch.action.update.UpdateRequest;
+import org.elasticsearch.action.ActionFuture;
+import org.elasticsearch.action.index.IndexResponse;
+import org.elasticsearch.common.collect.Lists;
+import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.common.xcontent.XContentType;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+public class BulkTest extends JerseyRestClientTest {
+    private static final String INDEX = "bulk-test-idx";
+    private static final String TYPE = "bulk-test-type";
+
+    private RestClient client;
+    private RestClient smileClient;
+
+    @BeforeClass public void setupClient() {
+        client = RestClient.builder(JerseyRestClientFactory.executor(com.sun.jersey.api.client.Client.create(), Executors.newCachedThreadPool()))
+            .node(protocol, host, port).build();
+        smileClient = RestClient.builder(JerseyRestClientFactory.executor(com.sun.jersey.api.client.Client.create(), Executors.newCachedThreadPool()))
+            .node(protocol, host, port).contentType(XContentType.SMILE).build();
+    }
+
+    @Test public void testBulk() throws Exception {
+        final BulkRequest request = new BulkRequest().refresh(true);
+        for (int i = 0; i < 100; i++) {
+            request.add(new IndexRequest(INDEX, TYPE, Integer.toString(i)).source("n", i));
+        }
+        request.add(new DeleteRequest(INDEX, TYPE, "nope"));
+        request.add(new UpdateRequest(INDEX, TYPE, "0").doc("updated", true));
+
+        final BulkResponse response = client.bulk(request).actionGet();
+        assertFalse(response.hasFailures(), response.buildFailureMessage());
+        assertEquals(response.getItems().length, 102);
+        assertFalse(response.getItems()[100].<DeleteResponse>getResponse().isFound());
+
+        final Map<String, Object> source = nodeClient().prepareGet(INDEX, TYPE, "0").execute().actionGet().getSourceAsMap();
+        assertEquals(source.get("n"), 0);
+        assertEquals(source.get("updated"), true);
+        assertEquals(nodeClient().prepareCount(INDEX).execute().actionGet().getCount(), 100);
+    }
+
+    @Test public void testItemFailuresAndSmileResponses() throws Exception {
+        final BulkRequest request = new BulkRequest()
+            .add(new IndexRequest(INDEX, TYPE, "smile").source("n", 1))
+            .add(new IndexRequest(INDEX, TYPE, "smile").source("n", 2).create(true));
+
+        final BulkItemResponse[] items = smileClient.bulk(request).actionGet().getItems();
+        assertFalse(items[0].isFailed());
+        assertTrue(items[1].isFailed());
+        assertEquals(items[1].getItemId(), 1);
+        assertTrue(items[1].getFailureMessage().contains("DocumentAlreadyExists"), items[1].getFailureMessage());
+    }
+
+    @Test public void testProcessor() throws Exception {
+        final AtomicInteger indexed = new AtomicInteger();
+        final RestBulkProcessor processor = RestBulkProcessor.builder(client, new BulkProcessor.Listener() {
+            @Override public void beforeBulk(final long executionId, final BulkRequest request) { }
+
+            @Override public void afterBulk(final long executionId, final BulkRequest request, final BulkResponse response) {
+                if (!response.hasFailures()) {
+                    indexed.addAndGet(response.getItems().length);
+                }
+            }
+
+            @Override public void afterBulk(final long executionId, final BulkRequest request, final Throwable failure) { }
+        }).setBulkActions(100).setConcurrentRequests(2).build();
+
+        for (int i = 0; i < 1050; i++) {
+            processor.add(new IndexRequest("bulk-processor-test-idx", TYPE, Integer.toString(i)).source("n", i));
+        }
+        assertTrue(processor.awaitClose(30, TimeUnit.SECONDS));
+        assertEquals(indexed.get(), 1050);
+    }
+
+    @Test public void testAutoBatchedIndexAndDelete() throws Exception {
+        final String index = "bulk-auto-test-idx";
+        final RestClient batching = RestClient.builder(JerseyRestClientFactory.executor(com.sun.jersey.api.client.Client.create(), Executors.newCachedThreadPool()))
+            .node(protocol, host, port).autoBatch(TimeValue.timeValueMillis(20), 10).build();
+
+        final List<ActionFuture<IndexResponse>> indexed = Lists.newArrayList();
+        for (int i = 0; i < 25; i++) {
+            indexed.add(batching.index(new IndexRequest(index, TYPE, Integer.toString(i)).source("n", i)));
+        }
+        for (int i = 0; i < indexed.size(); i++) {
+            assertEquals(indexed.get(i).actionGet().getId(), Integer.toString(i));
+        }
+        assertTrue(batching.delete(new DeleteRequest(index, TYPE, "0")).actionGet().isFound());
+        assertFalse(batching.delete(new DeleteRequest(index, TYPE, "nope")).actionGet().isFound());
+
+        try {
+            batching.index(new IndexRequest(index, TYPE, "1").source("n", 1).create(true)).actionGet();
+            fail();
+        } catch (RuntimeException e) {
+            // the same error the index would have gotten on its own
+            assertTrue(e.getCause().getMessage().contains("DocumentAlreadyExists"), e.getCause().getMessage());
+        }
+        batching.close();
+    }
+}
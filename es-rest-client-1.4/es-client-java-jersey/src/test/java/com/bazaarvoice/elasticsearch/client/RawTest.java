@@ -0,0 +1,68 @@
+package com.bazaarvoice.elasticsearch.client;
+
+import com.bazaarvoice.elasticsearch.client.core.RestClient;
+import com.bazaarvoice.elasticsearch.client.core.raw.RawResponse;
+import com.bazaarvoice.elasticsearch.client.core.util.InputStreams;
+import org.elasticsearch.action.get.GetRequest;
+import org.elasticsearch.action.search.SearchRequest;
+import org.elasticsearch.common.bytes.BytesArray;
+import org.elasticsearch.common.xcontent.XContentHelper;
+import org.elasticsearch.index.query.QueryBuilders;
+import org.elasticsearch.indices.IndexMissingException;
+import org.elasticsearch.search.builder.SearchSourceBuilder;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+public class RawTest extends JerseyRestClientTest {
+    private static final String INDEX = "raw-test-idx";
+    private static final String TYPE = "raw-test-type";
+
+    private RestClient client;
+
+    @BeforeClass public void setupClient() {
+        client = RestClient.builder(JerseyRestClientFactory.executor(com.sun.jersey.api.client.Client.create(), Executors.newCachedThreadPool()))
+            .node(protocol, host, port).build();
+        nodeClient().prepareIndex(INDEX, TYPE, "1").setSource("field", "value").setRefresh(true).execute().actionGet();
+    }
+
+    @Test public void testRawSearchAndGet() throws Exception {
+        final RawResponse search = client.searchRaw(new SearchRequest(INDEX)).get();
+        assertEquals(search.getStatusCode(), 200);
+        assertTrue(search.getContentType().contains("application/json"), search.getContentType());
+        final Map<String, Object> map = XContentHelper.convertToMap(new BytesArray(InputStreams.toString(search.getBody())), false).v2();
+        assertEquals(((Map) map.get("hits")).get("total"), 1);
+
+        final RawResponse missing = client.getRaw(new GetRequest(INDEX, TYPE, "nope")).get();
+        assertEquals(missing.getStatusCode(), 404);
+        assertTrue(InputStreams.toString(missing.getBody()).contains("\"found\":false"));
+    }
+
+    @Test public void testBuiltSourceStillAnswersInJson() throws Exception {
+        // SearchSourceBuilder encodes in Smile, which a proxy can't hand to a browser
+        final RawResponse search = client.searchRaw(new SearchRequest(INDEX)
+            .source(new SearchSourceBuilder().query(QueryBuilders.termQuery("field", "value")))).get();
+        assertEquals(search.getStatusCode(), 200);
+        assertTrue(search.getContentType().contains("application/json"), search.getContentType());
+        final String body = InputStreams.toString(search.getBody());
+        assertTrue(body.startsWith("{"), body);
+        final Map<String, Object> map = XContentHelper.convertToMap(new BytesArray(body), false).v2();
+        assertEquals(((Map) map.get("hits")).get("total"), 1);
+    }
+
+    @Test public void testErrorsAreThrown() throws Exception {
+        try {
+            client.searchRaw(new SearchRequest("raw-test-no-such-idx")).get();
+            fail();
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof IndexMissingException, e.getCause().toString());
+        }
+    }
+}
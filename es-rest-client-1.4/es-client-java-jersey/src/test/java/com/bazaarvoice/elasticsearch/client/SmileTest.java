@@ -0,0 +1,114 @@
+package com.bazaarvoice.elasticsearch.client;
+
+import com.bazaarvoice.elasticsearch.client.core.RestClient;
+import com.bazaarvoice.elasticsearch.client.core.spi.RestResponse;
+import com.bazaarvoice.elasticsearch.client.core.util.ForwardingRestExecutor;
+import org.elasticsearch.action.get.GetResponse;
+import org.elasticsearch.action.index.IndexResponse;
+import org.elasticsearch.action.search.SearchRequest;
+import org.elasticsearch.action.search.SearchResponse;
+import org.elasticsearch.client.Client;
+import org.elasticsearch.common.collect.Lists;
+import org.elasticsearch.common.util.concurrent.FutureCallback;
+import org.elasticsearch.common.util.concurrent.Futures;
+import org.elasticsearch.common.util.concurrent.ListenableFuture;
+import org.elasticsearch.common.xcontent.XContentType;
+import org.elasticsearch.index.query.QueryBuilders;
+import org.elasticsearch.search.aggregations.bucket.terms.Terms;
+import org.elasticsearch.search.aggregations.metrics.avg.Avg;
+import org.elasticsearch.search.builder.SearchSourceBuilder;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.net.URL;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executors;
+
+import static org.elasticsearch.common.xcontent.XContentFactory.jsonBuilder;
+import static org.elasticsearch.search.aggregations.AggregationBuilders.avg;
+import static org.elasticsearch.search.aggregations.AggregationBuilders.terms;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+public class SmileTest extends JerseyRestClientTest {
+    private static final String INDEX = "smile-test-idx";
+    private static final String TYPE = "smile-test-type";
+
+    // every url we send, and the content type of every response we get back
+    private final List<String> urls = Collections.synchronizedList(Lists.<String>newArrayList());
+    private final List<String> contentTypes = Collections.synchronizedList(Lists.<String>newArrayList());
+    private Client client;
+    private Client defaultClient;
+
+    @BeforeClass public void setupClient() {
+        final ForwardingRestExecutor recording = new ForwardingRestExecutor(JerseyRestClientFactory.executor(com.sun.jersey.api.client.Client.create(), Executors.newCachedThreadPool())) {
+            @Override protected ListenableFuture<RestResponse> call(final URL url, final Call call) {
+                urls.add(url.toString());
+                final ListenableFuture<RestResponse> response = call.send();
+                Futures.addCallback(response, new FutureCallback<RestResponse>() {
+                    @Override public void onSuccess(final RestResponse result) {
+                        contentTypes.addAll(result.contentTypeLowerCase());
+                    }
+
+                    @Override public void onFailure(final Throwable t) {}
+                });
+                return response;
+            }
+        };
+        client = RestClient.builder(recording).node(protocol, host, port).contentType(XContentType.SMILE).build();
+        defaultClient = RestClient.builder(recording).node(protocol, host, port).build();
+    }
+
+    @BeforeMethod public void clearRecordings() {
+        urls.clear();
+        contentTypes.clear();
+    }
+
+    @Test public void testRoundTripInSmile() throws Exception {
+        final IndexResponse indexResponse = client.prepareIndex(INDEX, TYPE, "1")
+            .setSource(jsonBuilder().startObject().field("field", "value").field("number", 3).endObject())
+            .setRefresh(true).execute().actionGet();
+        assertTrue(indexResponse.isCreated());
+        client.prepareIndex(INDEX, TYPE, "2").setSource("field", "value", "number", 5).setRefresh(true).execute().actionGet();
+
+        final GetResponse getResponse = client.prepareGet(INDEX, TYPE, "1").execute().actionGet();
+        assertEquals(getResponse.getSource().get("field"), "value");
+        assertEquals(getResponse.getSource().get("number"), 3);
+
+        final SearchResponse searchResponse = client.prepareSearch(INDEX)
+            .setQuery(QueryBuilders.termQuery("field", "value"))
+            .addAggregation(terms("fields").field("field"))
+            .addAggregation(avg("average").field("number"))
+            .execute().actionGet();
+        assertEquals(searchResponse.getHits().getTotalHits(), 2);
+        assertEquals(searchResponse.getAggregations().<Terms>get("fields").getBucketByKey("value").getDocCount(), 2);
+        assertEquals(searchResponse.getAggregations().<Avg>get("average").getValue(), 4.0);
+
+        assertEquals(client.prepareDelete(INDEX, TYPE, "2").execute().actionGet().isFound(), true);
+
+        for (String url : urls) {
+            assertTrue(url.contains("format=smile"), url);
+        }
+        assertEquals(contentTypes.size(), urls.size());
+        for (String contentType : contentTypes) {
+            assertTrue(contentType.contains("application/smile"), contentType);
+        }
+    }
+
+    @Test public void testDefaultModeAnswersInJsonWhateverTheBody() throws Exception {
+        defaultClient.prepareIndex(INDEX, TYPE, "json").setSource("field", "json").setRefresh(true).execute().actionGet();
+
+        // SearchSourceBuilder encodes itself in Smile
+        final SearchResponse searchResponse = defaultClient.search(new SearchRequest(INDEX)
+            .source(new SearchSourceBuilder().query(QueryBuilders.termQuery("field", "json")))).actionGet();
+        assertEquals(searchResponse.getHits().getTotalHits(), 1);
+        assertEquals(searchResponse.getHits().getAt(0).getSource().get("field"), "json");
+
+        assertEquals(contentTypes.size(), urls.size());
+        for (String contentType : contentTypes) {
+            assertTrue(contentType.contains("application/json"), contentType);
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package com.bazaarvoice.elasticsearch.client;
+
+import com.bazaarvoice.elasticsearch.client.core.nodes.NodeSet;
+import com.bazaarvoice.elasticsearch.client.core.nodes.NodeSniffer;
+import com.bazaarvoice.elasticsearch.client.core.nodes.RestNode;
+import com.bazaarvoice.elasticsearch.client.core.nodes.RoundRobinNodeSelector;
+import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.common.util.concurrent.MoreExecutors;
+import org.testng.annotations.Test;
+
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+
+import static org.testng.Assert.assertEquals;
+
+public class SniffTest extends JerseyRestClientTest {
+    @Test public void testSniff() throws Exception {
+        final NodeSet nodes = NodeSet.single(protocol, host, port);
+        final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+        final NodeSniffer sniffer = NodeSniffer.start(nodes, new JerseyRestExecutor(com.sun.jersey.api.client.Client.create(), MoreExecutors.listeningDecorator(scheduler)), scheduler, TimeValue.timeValueHours(1));
+        try {
+            final List<RestNode> sniffed = sniffer.sniff().get();
+            assertEquals(sniffed.size(), 1);
+            assertEquals(sniffed.get(0).getPort(), port);
+            assertEquals(nodes.nodes(), sniffed);
+        } finally {
+            sniffer.close();
+            scheduler.shutdown();
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package com.bazaarvoice.elasticsearch.client;
+
+import com.bazaarvoice.elasticsearch.client.core.RestClient;
+import com.bazaarvoice.elasticsearch.client.core.typed.SourceBinding;
+import com.bazaarvoice.elasticsearch.client.core.typed.TypedGetResponse;
+import com.bazaarvoice.elasticsearch.client.core.typed.TypedSearchResponse;
+import org.elasticsearch.action.get.GetRequest;
+import org.elasticsearch.action.search.SearchRequest;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.xcontent.XContentHelper;
+import org.elasticsearch.search.builder.SearchSourceBuilder;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.Executors;
+
+import static org.elasticsearch.index.query.QueryBuilders.termQuery;
+import static org.elasticsearch.search.aggregations.AggregationBuilders.max;
+import static org.elasticsearch.search.aggregations.AggregationBuilders.terms;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+public class TypedTest extends JerseyRestClientTest {
+    private static final String INDEX = "typed-test-idx";
+    private static final String TYPE = "typed-test-type";
+
+    private static class Review {
+        private final String product;
+        private final int rating;
+
+        private Review(final String product, final int rating) {
+            this.product = product;
+            this.rating = rating;
+        }
+    }
+
+    /** what a jackson ObjectMapper would do for you */
+    private static final SourceBinding<Review> REVIEW = new SourceBinding<Review>() {
+        @Override public Review bind(final BytesReference source) throws IOException {
+            final Map<String, Object> map = XContentHelper.convertToMap(source, false).v2();
+            return new Review((String) map.get("product"), ((Number) map.get("rating")).intValue());
+        }
+    };
+
+    private RestClient client;
+
+    @BeforeClass public void setupClient() {
+        client = RestClient.builder(JerseyRestClientFactory.executor(com.sun.jersey.api.client.Client.create(), Executors.newCachedThreadPool()))
+            .node(protocol, host, port).build();
+        nodeClient().prepareIndex(INDEX, TYPE, "1").setSource("product", "widget", "rating", 4).setRefresh(true).execute().actionGet();
+        nodeClient().prepareIndex(INDEX, TYPE, "2").setSource("product", "widget", "rating", 2).setRefresh(true).execute().actionGet();
+    }
+
+    @Test public void testTypedSearch() throws Exception {
+        final SearchRequest request = new SearchRequest(INDEX).source(new SearchSourceBuilder()
+            .query(termQuery("product", "widget"))
+            .aggregation(terms("products").field("product").subAggregation(max("best").field("rating"))));
+        final TypedSearchResponse<Review> response = client.search(request, REVIEW).get();
+
+        assertEquals(response.getTotalHits(), 2);
+        assertEquals(response.getHits().size(), 2);
+        int ratings = 0;
+        for (int i = 0; i < 2; i++) {
+            assertEquals(response.getHits().get(i).getSource().product, "widget");
+            ratings += response.getHits().get(i).getSource().rating;
+        }
+        assertEquals(ratings, 6);
+        assertTrue(response.getAggregations().asMap().containsKey("products"));
+    }
+
+    @Test public void testTypedGet() throws Exception {
+        final TypedGetResponse<Review> found = client.get(new GetRequest(INDEX, TYPE, "1"), REVIEW).get();
+        assertTrue(found.isExists());
+        assertEquals(found.getSource().rating, 4);
+
+        final TypedGetResponse<Review> missing = client.get(new GetRequest(INDEX, TYPE, "nope"), REVIEW).get();
+        assertFalse(missing.isExists());
+        assertNull(missing.getSource());
+    }
+}
@@ -0,0 +1,93 @@
+package com.bazaarvoice.elasticsearch.client;
+
+import com.bazaarvoice.elasticsearch.client.core.spi.BytesRestResponse;
+import com.bazaarvoice.elasticsearch.client.core.spi.RestResponse;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufInputStream;
+import io.netty.handler.codec.http.FullHttpResponse;
+import io.netty.handler.codec.http.HttpHeaders;
+import org.elasticsearch.common.base.Throwables;
+import org.elasticsearch.common.bytes.BytesArray;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.collect.ImmutableSet;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Adapts a Netty {@link io.netty.handler.codec.http.FullHttpResponse}
+ * to {@link RestResponse}.
+ * <p/>
+ * The body is read straight out of the (pooled) buffers Netty received it into. Those buffers
+ * are released when the stream returned by {@link #response()} is closed, so callers must close it.
+ * <p/>
+ * {@link #bytes()} copies the body out into an array of just its size and releases the buffers straight away. Whoever
+ * asked for the whole body is going to hold on to slices of it for a while, and that's no job for pooled buffers.
+ */
+class NettyResponse implements BytesRestResponse {
+    private final FullHttpResponse delegate;
+    private final InputStream body;
+
+    NettyResponse(final FullHttpResponse delegate) {
+        this.delegate = delegate;
+        this.body = new ReleasingInputStream(delegate);
+    }
+
+    @Override public boolean isSuccess() {
+        final int code = statusCode();
+        return code >= 200 && code < 300;
+    }
+
+    @Override public int statusCode() {
+        return delegate.getStatus().code();
+    }
+
+    @Override public InputStream response() {
+        return body;
+    }
+
+    @Override public BytesReference bytes() {
+        try {
+            final ByteBuf content = delegate.content();
+            final byte[] bytes = new byte[content.readableBytes()];
+            content.getBytes(content.readerIndex(), bytes);
+            return new BytesArray(bytes);
+        } finally {
+            try {
+                body.close();
+            } catch (IOException e) {
+                throw Throwables.propagate(e);
+            }
+        }
+    }
+
+    @Override public Set<String> contentTypeLowerCase() {
+        final ImmutableSet.Builder<String> builder = ImmutableSet.builder();
+        for (String contentType : delegate.headers().getAll(HttpHeaders.Names.CONTENT_TYPE)) {
+            builder.add(contentType.toLowerCase());
+        }
+        return builder.build();
+    }
+
+    private static class ReleasingInputStream extends ByteBufInputStream {
+        private final FullHttpResponse response;
+        private final AtomicBoolean released = new AtomicBoolean(false);
+
+        private ReleasingInputStream(final FullHttpResponse response) {
+            super(response.content());
+            this.response = response;
+        }
+
+        @Override public void close() throws IOException {
+            try {
+                super.close();
+            } finally {
+                if (released.compareAndSet(false, true)) {
+                    response.release();
+                }
+            }
+        }
+    }
+}
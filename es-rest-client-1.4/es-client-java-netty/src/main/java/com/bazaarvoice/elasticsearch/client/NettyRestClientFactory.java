@@ -0,0 +1,60 @@
+package com.bazaarvoice.elasticsearch.client;
+
+import com.bazaarvoice.elasticsearch.client.core.RestClient;
+import com.bazaarvoice.elasticsearch.client.core.nodes.NodeSet;
+import com.bazaarvoice.elasticsearch.client.core.spi.RestExecutor;
+import io.netty.channel.EventLoopGroup;
+import io.netty.handler.ssl.SslContext;
+import org.elasticsearch.common.Nullable;
+import org.elasticsearch.common.unit.TimeValue;
+
+/**
+ * Factory to provide {@link RestClient}s
+ * which use Netty as the transport.
+ * <p/>
+ * You give us the event loop group (so you decide how many threads service all the sockets), and
+ * tell us how many keep-alive connections to hold open to each host.
+ */
+public class NettyRestClientFactory {
+    /** Responses larger than this are rejected rather than buffered. */
+    public static final int DEFAULT_MAX_CONTENT_LENGTH = 100 * 1024 * 1024;
+    /** Requests whose response hasn't arrived this long after they got a connection fail with a {@link java.net.SocketTimeoutException}. */
+    public static final TimeValue DEFAULT_RESPONSE_TIMEOUT = TimeValue.timeValueMinutes(1);
+
+    public static RestClient client(String protocol, String host, int port, EventLoopGroup group, int maxConnectionsPerHost) {
+        return client(protocol, host, port, group, maxConnectionsPerHost, DEFAULT_MAX_CONTENT_LENGTH, null);
+    }
+
+    public static RestClient client(String protocol, String host, int port, EventLoopGroup group, int maxConnectionsPerHost, int maxContentLength, @Nullable SslContext sslContext) {
+        return client(NodeSet.single(protocol, host, port), group, maxConnectionsPerHost, maxContentLength, sslContext);
+    }
+
+    public static RestClient client(NodeSet nodes, EventLoopGroup group, int maxConnectionsPerHost) {
+        return client(nodes, group, maxConnectionsPerHost, DEFAULT_MAX_CONTENT_LENGTH, null);
+    }
+
+    public static RestClient client(NodeSet nodes, EventLoopGroup group, int maxConnectionsPerHost, int maxContentLength, @Nullable SslContext sslContext) {
+        return client(nodes, group, maxConnectionsPerHost, maxContentLength, sslContext, DEFAULT_RESPONSE_TIMEOUT);
+    }
+
+    /**
+     * @param responseTimeout how long a request may wait for its response once it has a connection; null to wait forever
+     */
+    public static RestClient client(NodeSet nodes, EventLoopGroup group, int maxConnectionsPerHost, int maxContentLength, @Nullable SslContext sslContext,
+                                    @Nullable TimeValue responseTimeout) {
+        return RestClient.withExecutor(nodes, executor(group, maxConnectionsPerHost, maxContentLength, sslContext, responseTimeout));
+    }
+
+    /** Just the executor, for use with {@link RestClient#builder(RestExecutor)}. */
+    public static RestExecutor executor(EventLoopGroup group, int maxConnectionsPerHost, int maxContentLength, @Nullable SslContext sslContext) {
+        return executor(group, maxConnectionsPerHost, maxContentLength, sslContext, DEFAULT_RESPONSE_TIMEOUT);
+    }
+
+    /**
+     * @param responseTimeout how long a request may wait for its response once it has a connection; null to wait forever
+     */
+    public static RestExecutor executor(EventLoopGroup group, int maxConnectionsPerHost, int maxContentLength, @Nullable SslContext sslContext,
+                                        @Nullable TimeValue responseTimeout) {
+        return new NettyRestExecutor(group, maxConnectionsPerHost, maxContentLength, sslContext, responseTimeout);
+    }
+}
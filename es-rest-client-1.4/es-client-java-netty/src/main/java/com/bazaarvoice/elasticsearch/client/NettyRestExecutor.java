@@ -0,0 +1,367 @@
+package com.bazaarvoice.elasticsearch.client;
+
+import com.bazaarvoice.elasticsearch.client.core.spi.RequestBody;
+import com.bazaarvoice.elasticsearch.client.core.spi.RestExecutor;
+import com.bazaarvoice.elasticsearch.client.core.spi.RestResponse;
+import io.netty.bootstrap.Bootstrap;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufOutputStream;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelFutureListener;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.ChannelPipeline;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.SimpleChannelInboundHandler;
+import io.netty.channel.pool.AbstractChannelPoolHandler;
+import io.netty.channel.pool.AbstractChannelPoolMap;
+import io.netty.channel.pool.ChannelPool;
+import io.netty.channel.pool.FixedChannelPool;
+import io.netty.channel.socket.nio.NioSocketChannel;
+import io.netty.handler.codec.http.DefaultFullHttpRequest;
+import io.netty.handler.codec.http.DefaultHttpRequest;
+import io.netty.handler.codec.http.FullHttpResponse;
+import io.netty.handler.codec.http.HttpClientCodec;
+import io.netty.handler.codec.http.HttpContentDecompressor;
+import io.netty.handler.codec.http.HttpHeaders;
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpObjectAggregator;
+import io.netty.handler.codec.http.HttpRequest;
+import io.netty.handler.codec.http.HttpVersion;
+import io.netty.handler.ssl.SslContext;
+import io.netty.handler.stream.ChunkedWriteHandler;
+import io.netty.util.AttributeKey;
+import io.netty.util.concurrent.Future;
+import io.netty.util.concurrent.FutureListener;
+import io.netty.util.concurrent.ScheduledFuture;
+import org.elasticsearch.common.Nullable;
+import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.common.util.concurrent.EsExecutors;
+import org.elasticsearch.common.util.concurrent.ListenableFuture;
+import org.elasticsearch.common.util.concurrent.SettableFuture;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.SocketTimeoutException;
+import java.net.URL;
+import java.nio.channels.ClosedChannelException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.elasticsearch.common.util.concurrent.MoreExecutors.sameThreadExecutor;
+
+/**
+ * An executor which talks http/1.1 to ES directly over Netty.
+ * <p/>
+ * Each host gets a fixed-size pool of keep-alive channels. Request and response bodies live in pooled
+ * (direct, by default) buffers; the response buffer is handed to the caller through {@link NettyResponse}
+ * and goes back to the pool when the response stream is closed. A request body of known length is written into a
+ * single buffer of that size; one of unknown length (a bulk, say) is sent chunked as it's written, a chunk at a time
+ * (see {@link RequestBodyInput}).
+ * <p/>
+ * A request whose response hasn't arrived within the response timeout of it getting a channel fails with a
+ * {@link SocketTimeoutException}, and its channel is closed, since the response may still turn up on it.
+ * <p/>
+ * You give us the event loop group, so you also own its lifecycle. Shutting the group down closes every pooled channel.
+ */
+class NettyRestExecutor implements RestExecutor {
+    private static final AttributeKey<SettableFuture<RestResponse>> RESPONSE_FUTURE = AttributeKey.valueOf("es-rest-response-future");
+    /** set while a chunked body is still going out, so a response that beats it doesn't hand back a channel we're still writing to */
+    private static final AttributeKey<Boolean> SENDING_BODY = AttributeKey.valueOf("es-rest-sending-body");
+
+    private final Bootstrap bootstrap;
+    private final AbstractChannelPoolMap<Endpoint, FixedChannelPool> pools;
+    private final long responseTimeoutNanos;
+    /** writes bodies of unknown length, each on a thread of its own while it's being sent */
+    private final Executor bodyWriters = Executors.newCachedThreadPool(EsExecutors.daemonThreadFactory("netty_body_writer"));
+
+    /**
+     * @param responseTimeout how long a request may wait for its response once it has a channel; null or non-positive to wait forever
+     */
+    NettyRestExecutor(final EventLoopGroup group, final int maxConnectionsPerHost, final int maxContentLength, @Nullable final SslContext sslContext,
+                      @Nullable final TimeValue responseTimeout) {
+        this.responseTimeoutNanos = responseTimeout == null ? -1 : responseTimeout.nanos();
+        this.bootstrap = new Bootstrap()
+            .group(group)
+            .channel(NioSocketChannel.class)
+            .option(ChannelOption.ALLOCATOR, PooledByteBufAllocator.DEFAULT)
+            .option(ChannelOption.SO_KEEPALIVE, true)
+            .option(ChannelOption.TCP_NODELAY, true);
+
+        this.pools = new AbstractChannelPoolMap<Endpoint, FixedChannelPool>() {
+            @Override protected FixedChannelPool newPool(final Endpoint endpoint) {
+                return new FixedChannelPool(bootstrap.clone().remoteAddress(endpoint.host, endpoint.port), new AbstractChannelPoolHandler() {
+                    @Override public void channelCreated(final Channel channel) throws Exception {
+                        final ChannelPipeline pipeline = channel.pipeline();
+                        if (endpoint.secure) {
+                            if (sslContext == null) {
+                                throw new IllegalStateException("No SslContext was configured, so we can't talk to " + endpoint);
+                            }
+                            pipeline.addLast(sslContext.newHandler(channel.alloc(), endpoint.host, endpoint.port));
+                        }
+                        pipeline.addLast(new HttpClientCodec());
+                        pipeline.addLast(new ChunkedWriteHandler());
+                        pipeline.addLast(new HttpContentDecompressor());
+                        pipeline.addLast(new HttpObjectAggregator(maxContentLength));
+                        pipeline.addLast(new ResponseHandler(endpoint));
+                    }
+                }, maxConnectionsPerHost);
+            }
+        };
+    }
+
+    @Override public ListenableFuture<RestResponse> get(final URL url) {
+        return execute(url, HttpMethod.GET, null);
+    }
+
+    @Override public ListenableFuture<RestResponse> delete(final URL url) {
+        return execute(url, HttpMethod.DELETE, null);
+    }
+
+    @Override public ListenableFuture<RestResponse> put(final URL url, final InputStream body) {
+        return execute(url, HttpMethod.PUT, once(body));
+    }
+
+    @Override public ListenableFuture<RestResponse> post(final URL url, final InputStream body) {
+        return execute(url, HttpMethod.POST, once(body));
+    }
+
+    @Override public ListenableFuture<RestResponse> put(final URL url, final RequestBody body) {
+        return execute(url, HttpMethod.PUT, body);
+    }
+
+    @Override public ListenableFuture<RestResponse> post(final URL url, final RequestBody body) {
+        return execute(url, HttpMethod.POST, body);
+    }
+
+    private ListenableFuture<RestResponse> execute(final URL url, final HttpMethod method, @Nullable final RequestBody body) {
+        final SettableFuture<RestResponse> result = SettableFuture.create();
+        final Endpoint endpoint = Endpoint.of(url);
+        final ChannelPool pool = pools.get(endpoint);
+        pool.acquire().addListener(new FutureListener<Channel>() {
+            @Override public void operationComplete(final Future<Channel> acquired) throws Exception {
+                if (!acquired.isSuccess()) {
+                    result.setException(acquired.cause());
+                    return;
+                }
+                final Channel channel = acquired.getNow();
+                if (result.isCancelled()) {
+                    pool.release(channel);
+                    return;
+                }
+                channel.attr(RESPONSE_FUTURE).set(result);
+                final ScheduledFuture<?> timeout = responseTimeoutNanos <= 0 ? null : channel.eventLoop().schedule(new Runnable() {
+                    @Override public void run() {
+                        // on the event loop, so the response can't be halfway through arriving
+                        if (result.setException(new SocketTimeoutException("No response from " + endpoint + " within " + TimeValue.timeValueNanos(responseTimeoutNanos)))) {
+                            channel.close();
+                        }
+                    }
+                }, responseTimeoutNanos, TimeUnit.NANOSECONDS);
+                // nothing else can safely be sent on a channel whose response we abandoned, so close it.
+                // The response handler releases it back to the pool once it goes inactive.
+                result.addListener(new Runnable() {
+                    @Override public void run() {
+                        if (timeout != null) {
+                            timeout.cancel(false);
+                        }
+                        if (result.isCancelled()) {
+                            channel.close();
+                        }
+                    }
+                }, sameThreadExecutor());
+
+                final ChannelFutureListener failOnError = new ChannelFutureListener() {
+                    @Override public void operationComplete(final ChannelFuture written) throws Exception {
+                        if (!written.isSuccess()) {
+                            result.setException(written.cause());
+                            written.channel().close();
+                        }
+                    }
+                };
+                if (body != null && body.contentLength() < 0) {
+                    channel.attr(SENDING_BODY).set(Boolean.TRUE);
+                    channel.write(chunkedRequest(url, endpoint, method, body)).addListener(failOnError);
+                    final ChunkedWriteHandler chunker = channel.pipeline().get(ChunkedWriteHandler.class);
+                    channel.writeAndFlush(new RequestBodyInput(body, bodyWriters, channel.alloc(), chunker)).addListener(failOnError).addListener(new ChannelFutureListener() {
+                        @Override public void operationComplete(final ChannelFuture written) throws Exception {
+                            written.channel().attr(SENDING_BODY).remove();
+                        }
+                    });
+                    return;
+                }
+
+                final HttpRequest request;
+                try {
+                    request = fullRequest(channel, url, endpoint, method, body);
+                } catch (IOException e) {
+                    channel.attr(RESPONSE_FUTURE).remove();
+                    pool.release(channel);
+                    result.setException(e);
+                    return;
+                }
+                channel.writeAndFlush(request).addListener(failOnError);
+            }
+        });
+
+        return result;
+    }
+
+    /**
+     * Adapts a stream to a body of unknown length. It can only be written once, which is all {@link RequestBodyInput} does.
+     */
+    private static RequestBody once(final InputStream inputStream) {
+        return new RequestBody() {
+            @Override public long contentLength() {
+                return -1;
+            }
+
+            @Override public String contentType() {
+                return null;
+            }
+
+            @Override public void writeTo(final OutputStream out) throws IOException {
+                final byte[] buffer = new byte[8192];
+                try {
+                    int read;
+                    while ((read = inputStream.read(buffer)) != -1) {
+                        out.write(buffer, 0, read);
+                    }
+                } finally {
+                    inputStream.close();
+                }
+            }
+        };
+    }
+
+    /** The whole request, for a body of known length (or none). */
+    private static HttpRequest fullRequest(final Channel channel, final URL url, final Endpoint endpoint, final HttpMethod method, @Nullable final RequestBody body) throws IOException {
+        final ByteBuf content;
+        if (body == null) {
+            content = Unpooled.EMPTY_BUFFER;
+        } else {
+            // write the body straight into a pooled buffer of just the right size
+            content = channel.alloc().buffer((int) body.contentLength());
+            try {
+                body.writeTo(new ByteBufOutputStream(content));
+            } catch (IOException e) {
+                content.release();
+                throw e;
+            } catch (RuntimeException e) {
+                content.release();
+                throw e;
+            }
+        }
+        final HttpRequest request = new DefaultFullHttpRequest(HttpVersion.HTTP_1_1, method, uri(url), content);
+        HttpHeaders.setContentLength(request, content.readableBytes());
+        return withHeaders(request, endpoint, body);
+    }
+
+    /** Just the head of the request, for a body of unknown length, which follows it in chunks. */
+    private static HttpRequest chunkedRequest(final URL url, final Endpoint endpoint, final HttpMethod method, final RequestBody body) {
+        final HttpRequest request = new DefaultHttpRequest(HttpVersion.HTTP_1_1, method, uri(url));
+        HttpHeaders.setTransferEncodingChunked(request);
+        return withHeaders(request, endpoint, body);
+    }
+
+    private static String uri(final URL url) {
+        return url.getQuery() == null ? url.getPath() : url.getPath() + "?" + url.getQuery();
+    }
+
+    private static HttpRequest withHeaders(final HttpRequest request, final Endpoint endpoint, @Nullable final RequestBody body) {
+        HttpHeaders.setHost(request, endpoint.host + ":" + endpoint.port);
+        HttpHeaders.setKeepAlive(request, true);
+        request.headers().set(HttpHeaders.Names.ACCEPT_ENCODING, HttpHeaders.Values.GZIP + "," + HttpHeaders.Values.DEFLATE);
+        if (body != null && body.contentType() != null) {
+            request.headers().set(HttpHeaders.Names.CONTENT_TYPE, body.contentType());
+        }
+        return request;
+    }
+
+    /**
+     * Completes the pending future on the channel, then gives the channel back to its pool
+     * (or closes it, if the server didn't want to keep it alive).
+     */
+    private class ResponseHandler extends SimpleChannelInboundHandler<FullHttpResponse> {
+        private final Endpoint endpoint;
+
+        private ResponseHandler(final Endpoint endpoint) {
+            this.endpoint = endpoint;
+        }
+
+        @Override protected void channelRead0(final ChannelHandlerContext ctx, final FullHttpResponse response) throws Exception {
+            final SettableFuture<RestResponse> future = ctx.channel().attr(RESPONSE_FUTURE).getAndRemove();
+            final boolean keepAlive = HttpHeaders.isKeepAlive(response) && ctx.channel().attr(SENDING_BODY).getAndRemove() == null;
+            if (future != null && !future.isCancelled()) {
+                // SimpleChannelInboundHandler releases the message when we return, so take our own reference to the body.
+                final NettyResponse restResponse = new NettyResponse(response.retain());
+                if (!future.set(restResponse)) {
+                    restResponse.response().close();
+                }
+            }
+            if (!keepAlive || future == null || future.isCancelled()) {
+                ctx.channel().close();
+            }
+            pools.get(endpoint).release(ctx.channel());
+        }
+
+        @Override public void channelInactive(final ChannelHandlerContext ctx) throws Exception {
+            final SettableFuture<RestResponse> future = ctx.channel().attr(RESPONSE_FUTURE).getAndRemove();
+            if (future != null) {
+                future.setException(new ClosedChannelException());
+                pools.get(endpoint).release(ctx.channel());
+            }
+            super.channelInactive(ctx);
+        }
+
+        @Override public void exceptionCaught(final ChannelHandlerContext ctx, final Throwable cause) throws Exception {
+            final SettableFuture<RestResponse> future = ctx.channel().attr(RESPONSE_FUTURE).getAndRemove();
+            ctx.channel().close();
+            if (future != null) {
+                future.setException(cause);
+                pools.get(endpoint).release(ctx.channel());
+            }
+        }
+    }
+
+    private static final class Endpoint {
+        private final boolean secure;
+        private final String host;
+        private final int port;
+
+        private Endpoint(final boolean secure, final String host, final int port) {
+            this.secure = secure;
+            this.host = host;
+            this.port = port;
+        }
+
+        private static Endpoint of(final URL url) {
+            final boolean secure = "https".equalsIgnoreCase(url.getProtocol());
+            final int port = url.getPort() == -1 ? url.getDefaultPort() : url.getPort();
+            return new Endpoint(secure, url.getHost(), port);
+        }
+
+        @Override public boolean equals(final Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            final Endpoint endpoint = (Endpoint) o;
+            return secure == endpoint.secure && port == endpoint.port && host.equals(endpoint.host);
+        }
+
+        @Override public int hashCode() {
+            int result = (secure ? 1 : 0);
+            result = 31 * result + host.hashCode();
+            result = 31 * result + port;
+            return result;
+        }
+
+        @Override public String toString() {
+            return (secure ? "https" : "http") + "://" + host + ":" + port;
+        }
+    }
+}
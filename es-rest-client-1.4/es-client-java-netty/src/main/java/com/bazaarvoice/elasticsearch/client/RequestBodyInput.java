@@ -0,0 +1,168 @@
+package com.bazaarvoice.elasticsearch.client;
+
+import com.bazaarvoice.elasticsearch.client.core.spi.RequestBody;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.http.DefaultHttpContent;
+import io.netty.handler.codec.http.HttpContent;
+import io.netty.handler.codec.http.LastHttpContent;
+import io.netty.handler.stream.ChunkedInput;
+import io.netty.handler.stream.ChunkedWriteHandler;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.Executor;
+
+/**
+ * Hands a {@link RequestBody} to Netty's {@link ChunkedWriteHandler} as http chunks, as it's written.
+ * <p/>
+ * The handler pulls chunks on the event loop, which mustn't wait, and {@link RequestBody#writeTo} pushes them, so the
+ * body is written on a thread of its own. That thread waits whenever a few chunks are already waiting to be sent, and
+ * tells the handler to come back for more ({@link ChunkedWriteHandler#resumeTransfer()}) whenever it has one. Only
+ * those few chunks are ever in memory, and nothing is written until the request is actually being sent.
+ * <p/>
+ * This does the job of {@link io.netty.handler.codec.http.HttpChunkedInput}, which can't yet say that no chunk is
+ * ready.
+ */
+class RequestBodyInput extends OutputStream implements ChunkedInput<HttpContent> {
+    static final int CHUNK_SIZE = 16 * 1024;
+    private static final int MAX_READY_CHUNKS = 4;
+
+    private final RequestBody body;
+    private final Executor writers;
+    private final ByteBufAllocator alloc;
+    private final ChunkedWriteHandler handler;
+
+    // guarded by this
+    private final Queue<ByteBuf> ready = new ArrayDeque<ByteBuf>();
+    private boolean started = false;
+    private boolean written = false;
+    private boolean sentLastChunk = false;
+    private boolean closed = false;
+    private Throwable failure;
+
+    // only touched by the writing thread
+    private ByteBuf chunk;
+
+    RequestBodyInput(final RequestBody body, final Executor writers, final ByteBufAllocator alloc, final ChunkedWriteHandler handler) {
+        this.body = body;
+        this.writers = writers;
+        this.alloc = alloc;
+        this.handler = handler;
+    }
+
+    @Override public HttpContent readChunk(final ChannelHandlerContext ctx) throws Exception {
+        final boolean start;
+        final ByteBuf next;
+        synchronized (this) {
+            if (failure != null) {
+                throw failure instanceof Exception ? (Exception) failure : new IOException("failed to write the request body", failure);
+            }
+            start = !started;
+            started = true;
+            next = ready.poll();
+            notifyAll();
+            if (next == null && written && !sentLastChunk) {
+                sentLastChunk = true;
+                return LastHttpContent.EMPTY_LAST_CONTENT;
+            }
+        }
+        if (start) {
+            writers.execute(new Runnable() {
+                @Override public void run() {
+                    write();
+                }
+            });
+        }
+        return next == null ? null : new DefaultHttpContent(next);
+    }
+
+    @Override public synchronized boolean isEndOfInput() {
+        return sentLastChunk;
+    }
+
+    /** Called by the handler once the body is sent, or when it can't be. */
+    @Override public synchronized void close() {
+        closed = true;
+        for (ByteBuf unsent : ready) {
+            unsent.release();
+        }
+        ready.clear();
+        notifyAll();
+    }
+
+    private void write() {
+        try {
+            body.writeTo(this);
+            if (chunk != null) {
+                emit();
+            }
+            synchronized (this) {
+                written = true;
+            }
+        } catch (Throwable t) {
+            if (chunk != null) {
+                chunk.release();
+                chunk = null;
+            }
+            synchronized (this) {
+                if (closed) {
+                    return;
+                }
+                failure = t;
+            }
+        }
+        handler.resumeTransfer();
+    }
+
+    @Override public void write(final int b) throws IOException {
+        chunk().writeByte(b);
+    }
+
+    @Override public void write(final byte[] b, int off, int len) throws IOException {
+        while (len > 0) {
+            final ByteBuf current = chunk();
+            final int toCopy = Math.min(len, CHUNK_SIZE - current.readableBytes());
+            current.writeBytes(b, off, toCopy);
+            off += toCopy;
+            len -= toCopy;
+        }
+    }
+
+    /** The chunk being written, with room in it; a full one is handed over first. */
+    private ByteBuf chunk() throws IOException {
+        if (chunk != null && chunk.readableBytes() == CHUNK_SIZE) {
+            emit();
+        }
+        if (chunk == null) {
+            chunk = alloc.buffer(CHUNK_SIZE, CHUNK_SIZE);
+        }
+        return chunk;
+    }
+
+    /**
+     * Wait for room, then hand over the current chunk. Netty releases it once it's sent, so we start a new one.
+     */
+    private void emit() throws IOException {
+        synchronized (this) {
+            while (ready.size() >= MAX_READY_CHUNKS && !closed) {
+                try {
+                    wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException("interrupted while waiting to send the request body");
+                }
+            }
+            if (closed) {
+                throw new IOException("the request body is no longer wanted");
+            }
+            ready.add(chunk);
+            chunk = null;
+        }
+        handler.resumeTransfer();
+    }
+}
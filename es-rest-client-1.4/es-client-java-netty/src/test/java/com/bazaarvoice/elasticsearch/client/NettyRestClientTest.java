@@ -0,0 +1,117 @@
+package com.bazaarvoice.elasticsearch.client;
+
+import io.netty.channel.nio.NioEventLoopGroup;
+import org.elasticsearch.action.ListenableActionFuture;
+import org.elasticsearch.action.bulk.BulkRequestBuilder;
+import org.elasticsearch.action.bulk.BulkResponse;
+import org.elasticsearch.action.delete.DeleteResponse;
+import org.elasticsearch.action.get.GetResponse;
+import org.elasticsearch.action.index.IndexResponse;
+import org.elasticsearch.action.search.SearchResponse;
+import org.elasticsearch.client.Client;
+import org.elasticsearch.common.collect.Lists;
+import org.elasticsearch.index.query.QueryBuilders;
+import org.elasticsearch.node.Node;
+import org.elasticsearch.node.NodeBuilder;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.util.List;
+import java.util.UUID;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+public class NettyRestClientTest {
+    private static final String protocol = "http";
+    private static final String host = "localhost";
+    private static final int port = 9910;
+
+    private static final String esDataDirectory = "/tmp/es-client-java-netty-test-" + UUID.randomUUID();
+
+    private final String index = "netty-test-idx";
+    private final String type = "netty-test-type";
+
+    private Node node;
+    private NioEventLoopGroup group;
+    private Client client;
+
+    @BeforeClass
+    public void setup() {
+        final NodeBuilder nodeBuilder = NodeBuilder.nodeBuilder();
+        nodeBuilder.settings().put("cluster.name", "netty test cluster");
+        nodeBuilder.settings().put("http.port", Integer.toString(port));
+        nodeBuilder.settings().put("transport.tcp.port", "9911");
+        nodeBuilder.settings().put("network.publish_host", "_local_");
+        nodeBuilder.settings().put("gateway.type", "none");
+        final File homeDirectory = new File(esDataDirectory);
+        nodeBuilder.settings().put("path.home", homeDirectory.getPath());
+        nodeBuilder.settings().put("path.logs", new File(homeDirectory, "logs").getPath());
+        nodeBuilder.settings().put("index.number_of_replicas", 0);
+        node = nodeBuilder.build();
+        node.start();
+
+        group = new NioEventLoopGroup(2);
+        client = NettyRestClientFactory.client(protocol, host, port, group, 4);
+    }
+
+    @AfterClass
+    public void teardown() {
+        group.shutdownGracefully();
+        node.stop();
+    }
+
+    @Test
+    public void testRoundTrip() {
+        final String id = "netty-test-id-1";
+        final IndexResponse indexResponse = client.prepareIndex(index, type, id).setSource("field", "roundtrip").setRefresh(true).execute().actionGet();
+        assertEquals(indexResponse.getId(), id);
+        assertTrue(indexResponse.isCreated());
+
+        final GetResponse getResponse = client.prepareGet(index, type, id).execute().actionGet();
+        assertTrue(getResponse.isExists());
+        assertEquals(getResponse.getSource().get("field"), "roundtrip");
+
+        final SearchResponse searchResponse = client.prepareSearch(index).setQuery(QueryBuilders.termQuery("field", "roundtrip")).execute().actionGet();
+        assertEquals(searchResponse.getHits().getTotalHits(), 1);
+        assertEquals(searchResponse.getHits().getAt(0).getId(), id);
+
+        final DeleteResponse deleteResponse = client.prepareDelete(index, type, id).setRefresh(true).execute().actionGet();
+        assertTrue(deleteResponse.isFound());
+    }
+
+    @Test
+    public void testMoreRequestsThanConnections() {
+        final String id = "netty-test-id-2";
+        client.prepareIndex(index, type, id).setSource("field", "value").setRefresh(true).execute().actionGet();
+
+        // the pool only holds 4 channels, so most of these have to wait for a channel to be released
+        final List<ListenableActionFuture<GetResponse>> futures = Lists.newArrayList();
+        for (int i = 0; i < 50; i++) {
+            futures.add(client.prepareGet(index, type, id).execute());
+        }
+        for (ListenableActionFuture<GetResponse> future : futures) {
+            assertEquals(future.actionGet().getId(), id);
+        }
+
+        final GetResponse missing = client.prepareGet(index, type, "netty-test-no-such-id").execute().actionGet();
+        assertFalse(missing.isExists());
+    }
+
+    @Test
+    public void testBulkIsSentChunked() {
+        final BulkRequestBuilder bulk = client.prepareBulk().setRefresh(true);
+        for (int i = 0; i < 1000; i++) {
+            bulk.add(client.prepareIndex(index, type, "netty-bulk-" + i).setSource("field", "bulk", "n", i));
+        }
+        final BulkResponse response = bulk.execute().actionGet();
+        assertFalse(response.hasFailures(), response.buildFailureMessage());
+        assertEquals(response.getItems().length, 1000);
+
+        final SearchResponse searchResponse = client.prepareSearch(index).setQuery(QueryBuilders.termQuery("field", "bulk")).execute().actionGet();
+        assertEquals(searchResponse.getHits().getTotalHits(), 1000);
+    }
+}
@@ -0,0 +1,186 @@
+package com.bazaarvoice.elasticsearch.client;
+
+import com.bazaarvoice.elasticsearch.client.core.spi.RequestBody;
+import com.bazaarvoice.elasticsearch.client.core.spi.RestExecutor;
+import com.bazaarvoice.elasticsearch.client.core.spi.RestResponse;
+import com.bazaarvoice.elasticsearch.client.core.util.InputStreams;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import io.netty.channel.nio.NioEventLoopGroup;
+import org.elasticsearch.common.io.Streams;
+import org.elasticsearch.common.unit.TimeValue;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.SocketTimeoutException;
+import java.net.URL;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+public class NettyRestExecutorTest {
+    private HttpServer server;
+    private ExecutorService serverThreads;
+    private final BlockingQueue<Recorded> requests = new LinkedBlockingQueue<Recorded>();
+
+    private NioEventLoopGroup group;
+    private RestExecutor executor;
+
+    @BeforeClass public void start() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/", new HttpHandler() {
+            @Override public void handle(final HttpExchange exchange) throws IOException {
+                requests.add(new Recorded(exchange));
+                final byte[] body = "{\"ok\":true}".getBytes("UTF-8");
+                exchange.getResponseHeaders().set("Content-Type", "application/json; charset=UTF-8");
+                exchange.sendResponseHeaders(200, body.length);
+                exchange.getResponseBody().write(body);
+                exchange.close();
+            }
+        });
+        serverThreads = Executors.newCachedThreadPool();
+        server.setExecutor(serverThreads);
+        server.start();
+        group = new NioEventLoopGroup(2);
+    }
+
+    @AfterClass public void stop() {
+        group.shutdownGracefully();
+        server.stop(0);
+        serverThreads.shutdownNow();
+    }
+
+    @BeforeMethod public void setup() {
+        requests.clear();
+        // a single channel, so a request only gets one if the last one gave it back
+        executor = NettyRestClientFactory.executor(group, 1, NettyRestClientFactory.DEFAULT_MAX_CONTENT_LENGTH, null, TimeValue.timeValueMillis(500));
+    }
+
+    @Test public void testBodiesOfUnknownLengthAreSentChunked() throws Exception {
+        final byte[] bytes = new byte[RequestBodyInput.CHUNK_SIZE * 10 + 123];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = (byte) i;
+        }
+
+        final WritingBody unknownLength = new WritingBody(bytes, -1);
+        assertEquals(executor.post(url("/_bulk"), unknownLength).get(5, TimeUnit.SECONDS).statusCode(), 200);
+        final Recorded chunked = requests.take();
+        assertEquals(chunked.transferEncoding, "chunked");
+        assertNull(chunked.contentLength);
+        assertEquals(chunked.contentType, "application/x-ndjson");
+        assertEquals(chunked.body, bytes);
+        assertEquals(unknownLength.writers.size(), 1);
+        assertTrue(unknownLength.writers.get(0).contains("netty_body_writer"), unknownLength.writers.toString());
+
+        final WritingBody knownLength = new WritingBody(bytes, bytes.length);
+        executor.post(url("/_bulk"), knownLength).get(5, TimeUnit.SECONDS);
+        final Recorded fixed = requests.take();
+        assertNull(fixed.transferEncoding);
+        assertEquals(fixed.contentLength, Integer.toString(bytes.length));
+        assertEquals(fixed.body, bytes);
+    }
+
+    @Test public void testBodyThatFailsFailsTheRequest() throws Exception {
+        final byte[] bytes = new byte[RequestBodyInput.CHUNK_SIZE * 3];
+        final RequestBody failing = new WritingBody(bytes, -1) {
+            @Override public void writeTo(final OutputStream out) throws IOException {
+                out.write(bytes);
+                throw new IOException("out of documents");
+            }
+        };
+        try {
+            executor.post(url("/_bulk"), failing).get(5, TimeUnit.SECONDS);
+            fail("The request succeeded without its whole body");
+        } catch (ExecutionException e) {
+            assertEquals(e.getCause().getMessage(), "out of documents");
+        }
+        // and the channel it was on was given back
+        assertEquals(executor.get(url("/idx/type/1")).get(5, TimeUnit.SECONDS).statusCode(), 200);
+    }
+
+    @Test public void testNoResponseTimesOut() throws Exception {
+        // accepts connections, and never answers
+        final ServerSocket silent = new ServerSocket(0);
+        try {
+            final URL url = new URL("http", "localhost", silent.getLocalPort(), "/idx/type/1");
+            // the second request only gets the channel if the first gave it back when it timed out
+            for (int i = 0; i < 2; i++) {
+                final RestResponse response;
+                try {
+                    response = executor.get(url).get(5, TimeUnit.SECONDS);
+                } catch (ExecutionException e) {
+                    assertTrue(e.getCause() instanceof SocketTimeoutException, e.getCause().toString());
+                    continue;
+                }
+                fail("Got a response from a server that never sends one: " + InputStreams.toString(response.response()));
+            }
+        } finally {
+            silent.close();
+        }
+    }
+
+    private URL url(final String path) throws IOException {
+        return new URL("http", "localhost", server.getAddress().getPort(), path);
+    }
+
+    private static class Recorded {
+        private final String contentType;
+        private final String contentLength;
+        private final String transferEncoding;
+        private final byte[] body;
+
+        private Recorded(final HttpExchange exchange) throws IOException {
+            contentType = exchange.getRequestHeaders().getFirst("Content-Type");
+            contentLength = exchange.getRequestHeaders().getFirst("Content-Length");
+            transferEncoding = exchange.getRequestHeaders().getFirst("Transfer-Encoding");
+            body = Streams.copyToByteArray(exchange.getRequestBody());
+        }
+    }
+
+    /**
+     * Writes its bytes a kilobyte at a time, and remembers which threads wrote it.
+     */
+    private static class WritingBody implements RequestBody {
+        private final byte[] bytes;
+        private final long contentLength;
+        private final List<String> writers = new CopyOnWriteArrayList<String>();
+
+        private WritingBody(final byte[] bytes, final long contentLength) {
+            this.bytes = bytes;
+            this.contentLength = contentLength;
+        }
+
+        @Override public long contentLength() {
+            return contentLength;
+        }
+
+        @Override public String contentType() {
+            return "application/x-ndjson";
+        }
+
+        @Override public void writeTo(final OutputStream out) throws IOException {
+            writers.add(Thread.currentThread().getName());
+            for (int i = 0; i < bytes.length; i += 1024) {
+                out.write(Arrays.copyOfRange(bytes, i, Math.min(bytes.length, i + 1024)));
+            }
+        }
+    }
+}